@@ -1,6 +1,15 @@
 function fn() {
   var config = {
-    baseUrl: karate.properties['base.url'] || 'http://localhost:8090'
+    baseUrl: karate.properties['base.url'] || 'http://localhost:8090',
+    // El SKU es único en el catálogo y debe tener formato AAA-000: cada ejecución usa uno nuevo
+    skuUnico: function() {
+      var letras = 'ABCDEFGHIJKLMNOPQRSTUVWXYZ';
+      var sku = '';
+      for (var i = 0; i < 3; i++) {
+        sku += letras.charAt(Math.floor(Math.random() * letras.length));
+      }
+      return sku + '-' + ('00' + Math.floor(Math.random() * 1000)).slice(-3);
+    }
   };
   karate.configure('connectTimeout', 5000);
   karate.configure('readTimeout', 10000);
@@ -12,13 +12,14 @@ Feature: Carrito API via Gateway
     * def catId = response.id
 
     # Setup: crear producto con stock
+    * def sku = skuUnico()
     Given path '/api/v1/productos'
     And request
       """
       {
         "nombre": "Teclado Mecanico",
         "descripcion": "Teclado RGB",
-        "sku": "TEC-001",
+        "sku": "#(sku)",
         "precio": 1200.00,
         "moneda": "MXN",
         "stock": 15,
@@ -27,13 +27,14 @@ Feature: Catalogo API via Gateway
     * def catId = response.id
 
     # Crear producto
+    * def sku = skuUnico()
     Given path '/api/v1/productos'
     And request
       """
       {
         "nombre": "Laptop Pro",
         "descripcion": "Laptop de alta gama",
-        "sku": "LAP-001",
+        "sku": "#(sku)",
         "precio": 15000.00,
         "moneda": "MXN",
         "stock": 10,
@@ -55,13 +56,14 @@ Feature: Catalogo API via Gateway
     Then status 201
     * def catId = response.id
 
+    * def sku = skuUnico()
     Given path '/api/v1/productos'
     And request
       """
       {
         "nombre": "Mouse Gamer",
         "descripcion": "Mouse de alta precision",
-        "sku": "MOU-001",
+        "sku": "#(sku)",
         "precio": 500.00,
         "moneda": "MXN",
         "stock": 20,
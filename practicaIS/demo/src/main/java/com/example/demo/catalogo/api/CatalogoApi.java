@@ -4,7 +4,14 @@ import com.example.demo.shared.domain.ProductoId;
 import com.example.demo.shared.exception.RecursoNoEncontradoException;
 import com.example.demo.shared.exception.StockInsuficienteException;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface CatalogoApi {
     ProductoResumen obtenerProducto(ProductoId id) throws RecursoNoEncontradoException;
+    /**
+     * Obtiene varios productos en una sola llamada; los ids inexistentes no aparecen en el mapa.
+     */
+    Map<ProductoId, ProductoResumen> obtenerProductos(Collection<ProductoId> ids);
     void validarStock(ProductoId id, int cantidad) throws StockInsuficienteException, RecursoNoEncontradoException;
 }
\ No newline at end of file
@@ -9,6 +9,12 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Component
 public class CatalogoApiHttpClient implements CatalogoApi {
 
@@ -34,6 +40,21 @@ public class CatalogoApiHttpClient implements CatalogoApi {
         }
     }
 
+    @Override
+    public Map<ProductoId, ProductoResumen> obtenerProductos(Collection<ProductoId> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        String url = catalogoBaseUrl + "/api/v1/productos:batchGet";
+        List<ProductoId> distintos = ids.stream().distinct().toList();
+        ProductosResumen respuesta = restTemplate.postForObject(url, Map.of("ids", distintos), ProductosResumen.class);
+        if (respuesta == null || respuesta.productos() == null) {
+            return Map.of();
+        }
+        return respuesta.productos().stream()
+                .collect(Collectors.toMap(ProductoResumen::id, Function.identity()));
+    }
+
     @Override
     public void validarStock(ProductoId id, int cantidad) throws StockInsuficienteException, RecursoNoEncontradoException {
         ProductoResumen producto = obtenerProducto(id);
@@ -41,4 +62,7 @@ public class CatalogoApiHttpClient implements CatalogoApi {
             throw new StockInsuficienteException(producto.nombre(), cantidad, producto.stock());
         }
     }
+
+    private record ProductosResumen(List<ProductoResumen> productos, List<ProductoId> noEncontrados) {
+    }
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class OrdenService {
@@ -79,9 +80,15 @@ public class OrdenService {
     @Transactional
     public OrdenResponse crearDesdeCarrito(CarritoId carritoId, DireccionEnvio direccion) {
         var carrito = carritoService.obtenerCarrito(carritoId);
+        // Una sola llamada a catálogo para todos los productos del carrito
+        Map<ProductoId, ProductoResumen> productos = catalogoApi.obtenerProductos(
+                carrito.getItems().stream().map(itemCarrito -> itemCarrito.getProductoId()).toList());
         List<ItemOrden> items = carrito.getItems().stream()
                 .map(itemCarrito -> {
-                    ProductoResumen producto = catalogoApi.obtenerProducto(itemCarrito.getProductoId());
+                    ProductoResumen producto = productos.get(itemCarrito.getProductoId());
+                    if (producto == null) {
+                        throw new RecursoNoEncontradoException("Producto", itemCarrito.getProductoId().getValue());
+                    }
                     return new ItemOrden(
                             ItemOrdenId.generar(),
                             itemCarrito.getProductoId(),
@@ -6,6 +6,8 @@ import com.uamishop.catalogo.shared.exception.RecursoNoEncontradoException;
 import com.uamishop.catalogo.shared.exception.StockInsuficienteException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -17,6 +19,7 @@ import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
@@ -42,6 +45,28 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(apiError, HttpStatus.UNPROCESSABLE_ENTITY);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiError> handleOptimisticLocking(
+            OptimisticLockingFailureException ex, WebRequest request) {
+        log.warn("Conflicto de versión: {}", ex.getMessage());
+        ApiError apiError = new ApiError(
+                HttpStatus.CONFLICT.value(), "Conflict",
+                "El recurso fue modificado por otra petición; vuelve a leerlo y reintenta", getPath(request));
+        return new ResponseEntity<>(apiError, HttpStatus.CONFLICT);
+    }
+
+    // El detalle de la base (tabla, índice, valores) se queda en el log
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ApiError> handleDataIntegrityViolation(
+            DataIntegrityViolationException ex, WebRequest request) {
+        log.warn("Violación de integridad: {}", ex.getMostSpecificCause().getMessage());
+        String mensaje = esSkuDuplicado(ex)
+                ? "Ya existe un producto con ese SKU"
+                : "La operación entra en conflicto con datos existentes";
+        ApiError apiError = new ApiError(HttpStatus.CONFLICT.value(), "Conflict", mensaje, getPath(request));
+        return new ResponseEntity<>(apiError, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ApiError> handleIllegalArgument(
             IllegalArgumentException ex, WebRequest request) {
@@ -72,6 +97,11 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(apiError, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    private static boolean esSkuDuplicado(DataIntegrityViolationException ex) {
+        String causa = ex.getMostSpecificCause().getMessage();
+        return causa != null && causa.toLowerCase(Locale.ROOT).contains("uk_producto_sku");
+    }
+
     private String getPath(WebRequest request) {
         if (request instanceof ServletWebRequest swr) {
             return swr.getRequest().getRequestURI();
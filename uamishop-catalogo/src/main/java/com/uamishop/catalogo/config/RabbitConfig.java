@@ -3,24 +3,53 @@ package com.uamishop.catalogo.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
 @Configuration
 public class RabbitConfig {
 
     public static final String EVENTS_EXCHANGE = "uamishop.events";
     public static final String QUEUE_CATALOGO_PRODUCTO_COMPRADO = "catalogo.producto-comprado";
     public static final String QUEUE_CATALOGO_PRODUCTO_AGREGADO = "catalogo.producto-agregado-carrito";
+    public static final String QUEUE_CATALOGO_ORDEN_CREADA = "catalogo.orden-creada";
+    public static final String QUEUE_CATALOGO_CARRITO_ABANDONADO = "catalogo.carrito-abandonado";
     public static final String RK_PRODUCTO_COMPRADO = "producto.comprado";
     public static final String RK_PRODUCTO_AGREGADO = "producto.agregado-carrito";
+    public static final String RK_ORDEN_CREADA = "orden.creada";
+    public static final String RK_CARRITO_ABANDONADO = "carrito.abandonado";
+    public static final String RK_PRODUCTO_CACHE_INVALIDADO = "catalogo.cache.producto-invalidado";
+    public static final String RK_PRODUCTO_ACTUALIZADO = "producto.actualizado";
+    public static final String RK_TENDENCIAS_INSTANTANEA = "catalogo.tendencias.instantanea";
+    public static final String RK_CATEGORIAS_INVALIDADAS = "catalogo.cache.categorias-invalidadas";
+
+    /**
+     * Particiones fijas por producto para compras y "agregado al carrito". Los productores publican con
+     * la ruta {@code <ruta>.<partición>} y cada partición tiene su cola; cuántos consumidores se reparten
+     * las colas es configuración del catálogo ({@code catalogo.particiones.consumidores}), no de los
+     * productores, así que cambiarla no requiere tocar ordenes ni ventas. Ordenes y ventas calculan la
+     * misma partición por su cuenta; {@code ParticionesContratoTest} fija la función con los mismos
+     * casos en los tres servicios.
+     */
+    public static final int PARTICIONES = 16;
 
     @Bean
     public TopicExchange eventsExchange() {
@@ -28,27 +57,118 @@ public class RabbitConfig {
     }
 
     @Bean
-    public Queue catalogoProductoCompradoQueue() {
-        return new Queue(QUEUE_CATALOGO_PRODUCTO_COMPRADO, true);
+    public Queue catalogoOrdenCreadaQueue() {
+        return new Queue(QUEUE_CATALOGO_ORDEN_CREADA, true);
     }
 
     @Bean
-    public Queue catalogoProductoAgregadoQueue() {
-        return new Queue(QUEUE_CATALOGO_PRODUCTO_AGREGADO, true);
+    public Queue catalogoCarritoAbandonadoQueue() {
+        return new Queue(QUEUE_CATALOGO_CARRITO_ABANDONADO, true);
     }
 
     @Bean
-    public Binding catalogoProductoCompradoBinding(Queue catalogoProductoCompradoQueue, TopicExchange eventsExchange) {
-        return BindingBuilder.bind(catalogoProductoCompradoQueue)
+    public Binding catalogoOrdenCreadaBinding(Queue catalogoOrdenCreadaQueue, TopicExchange eventsExchange) {
+        return BindingBuilder.bind(catalogoOrdenCreadaQueue)
                 .to(eventsExchange)
-                .with(RK_PRODUCTO_COMPRADO);
+                .with(RK_ORDEN_CREADA);
+    }
+
+    @Bean
+    public Binding catalogoCarritoAbandonadoBinding(Queue catalogoCarritoAbandonadoQueue, TopicExchange eventsExchange) {
+        return BindingBuilder.bind(catalogoCarritoAbandonadoQueue)
+                .to(eventsExchange)
+                .with(RK_CARRITO_ABANDONADO);
+    }
+
+    /**
+     * Una cola por partición. Con single-active-consumer solo un consumidor recibe de cada cola aunque
+     * haya varias réplicas: cada producto lo procesa un único hilo y dos transacciones nunca compiten
+     * por sus filas. Ordenes declara las de compras con los mismos argumentos.
+     */
+    @Bean
+    public Declarables colasParticionadas(TopicExchange eventsExchange) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (int particion = 0; particion < PARTICIONES; particion++) {
+            declarables.addAll(colaParticion(QUEUE_CATALOGO_PRODUCTO_COMPRADO, RK_PRODUCTO_COMPRADO, particion, eventsExchange));
+            declarables.addAll(colaParticion(QUEUE_CATALOGO_PRODUCTO_AGREGADO, RK_PRODUCTO_AGREGADO, particion, eventsExchange));
+        }
+        return new Declarables(declarables);
+    }
+
+    public static int particion(UUID productoId) {
+        // Los últimos bits son aleatorios tanto en UUIDv4 como en UUIDv7
+        return (int) (productoId.getLeastSignificantBits() & (PARTICIONES - 1));
+    }
+
+    public static String conParticion(String nombre, int particion) {
+        return nombre + "." + Integer.toHexString(particion);
+    }
+
+    private static List<Declarable> colaParticion(String cola, String ruta, int particion, TopicExchange exchange) {
+        Queue queue = QueueBuilder.durable(conParticion(cola, particion)).singleActiveConsumer().build();
+        return List.of(queue, BindingBuilder.bind(queue).to(exchange).with(conParticion(ruta, particion)));
+    }
+
+    // Cola propia de cada réplica (exclusiva y autoeliminable) para recibir invalidaciones de caché
+    @Bean
+    public AnonymousQueue catalogoCacheInvalidacionQueue() {
+        return new AnonymousQueue();
     }
 
     @Bean
-    public Binding catalogoProductoAgregadoBinding(Queue catalogoProductoAgregadoQueue, TopicExchange eventsExchange) {
-        return BindingBuilder.bind(catalogoProductoAgregadoQueue)
+    public Binding catalogoProductoCacheInvalidadoBinding(AnonymousQueue catalogoCacheInvalidacionQueue,
+                                                          TopicExchange eventsExchange) {
+        return BindingBuilder.bind(catalogoCacheInvalidacionQueue)
                 .to(eventsExchange)
-                .with(RK_PRODUCTO_AGREGADO);
+                .with(RK_PRODUCTO_CACHE_INVALIDADO);
+    }
+
+    // Igual que las invalidaciones: cada réplica recibe las instantáneas de tendencias de las demás
+    @Bean
+    public AnonymousQueue catalogoTendenciasQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding catalogoTendenciasBinding(AnonymousQueue catalogoTendenciasQueue, TopicExchange eventsExchange) {
+        return BindingBuilder.bind(catalogoTendenciasQueue)
+                .to(eventsExchange)
+                .with(RK_TENDENCIAS_INSTANTANEA);
+    }
+
+    // Cada réplica recarga sus categorías en memoria cuando otra cambia una
+    @Bean
+    public AnonymousQueue catalogoCategoriasInvalidacionQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding catalogoCategoriasInvalidadasBinding(AnonymousQueue catalogoCategoriasInvalidacionQueue,
+                                                        TopicExchange eventsExchange) {
+        return BindingBuilder.bind(catalogoCategoriasInvalidacionQueue)
+                .to(eventsExchange)
+                .with(RK_CATEGORIAS_INVALIDADAS);
+    }
+
+    /**
+     * Contenedor por lotes para las compras: entrega al listener hasta {@code tamanio} mensajes, o los
+     * que hayan llegado cuando pasan {@code espera-ms} sin mensajes nuevos. El lote se confirma
+     * (ack) completo al terminar el listener.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory productoCompradoLoteContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${catalogo.compras.lote.tamanio:500}") int tamanioLote,
+            @Value("${catalogo.compras.lote.espera-ms:50}") long esperaMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(tamanioLote);
+        factory.setReceiveTimeout(esperaMs);
+        factory.setPrefetchCount(tamanioLote);
+        return factory;
     }
 
     @Bean
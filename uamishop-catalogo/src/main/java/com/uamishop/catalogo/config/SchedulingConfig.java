@@ -0,0 +1,16 @@
+package com.uamishop.catalogo.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Activa los métodos {@code @Scheduled} (outbox, volcados de contadores, barrido de reservas...).
+ * El perfil de test los apaga con {@code catalogo.programacion.habilitada=false}: cada test invoca
+ * a mano lo que necesita y ningún job intenta conectarse al broker.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "catalogo.programacion.habilitada", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
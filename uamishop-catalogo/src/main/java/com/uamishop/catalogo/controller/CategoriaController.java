@@ -3,6 +3,12 @@ package com.uamishop.catalogo.controller;
 import com.uamishop.catalogo.domain.CategoriaId;
 import com.uamishop.catalogo.dto.CategoriaRequest;
 import com.uamishop.catalogo.dto.CategoriaResponse;
+import com.uamishop.catalogo.dto.NodoCategoria;
+import com.uamishop.catalogo.dto.PaginaProductos;
+import com.uamishop.catalogo.dto.ProductoResponse;
+import com.uamishop.catalogo.dto.VersionRecurso;
+import com.uamishop.catalogo.service.ArbolCategoriasService;
+import com.uamishop.catalogo.service.CatalogoVersionService;
 import com.uamishop.catalogo.service.ProductoService;
 import com.uamishop.catalogo.dto.ApiError;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,6 +22,7 @@ import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -26,9 +33,15 @@ import java.util.UUID;
 public class CategoriaController {
 
     private final ProductoService productoService;
+    private final CatalogoVersionService catalogoVersionService;
+    private final ArbolCategoriasService arbolCategoriasService;
 
-    public CategoriaController(ProductoService productoService) {
+    public CategoriaController(ProductoService productoService,
+                               CatalogoVersionService catalogoVersionService,
+                               ArbolCategoriasService arbolCategoriasService) {
         this.productoService = productoService;
+        this.catalogoVersionService = catalogoVersionService;
+        this.arbolCategoriasService = arbolCategoriasService;
     }
 
     @PostMapping
@@ -53,18 +66,63 @@ public class CategoriaController {
                     content = @Content(schema = @Schema(implementation = ApiError.class)))
     })
     public ResponseEntity<CategoriaResponse> obtener(
-            @Parameter(description = "ID de la categoría", required = true) @PathVariable UUID id) {
-        CategoriaResponse response = productoService.buscarCategoriaPorId(new CategoriaId(id));
-        return ResponseEntity.ok(response);
+            @Parameter(description = "ID de la categoría", required = true) @PathVariable UUID id,
+            WebRequest webRequest) {
+        CategoriaId categoriaId = new CategoriaId(id);
+        if (RespuestaCondicional.esCondicional(webRequest)
+                && RespuestaCondicional.noModificado(webRequest, productoService.buscarVersionCategoria(categoriaId))) {
+            return null;
+        }
+        CategoriaResponse response = productoService.buscarCategoriaPorId(categoriaId);
+        return RespuestaCondicional.ok(response.getVersionRecurso()).body(response);
     }
 
     @GetMapping
     @Operation(summary = "Listar todas las categorías", description = "Retorna una lista de todas las categorías")
     @ApiResponse(responseCode = "200", description = "Lista de categorías",
             content = @Content(schema = @Schema(implementation = CategoriaResponse.class)))
-    public ResponseEntity<List<CategoriaResponse>> listarTodas() {
+    public ResponseEntity<List<CategoriaResponse>> listarTodas(WebRequest webRequest) {
+        VersionRecurso versionCatalogo = catalogoVersionService.actual();
+        if (RespuestaCondicional.noModificado(webRequest, versionCatalogo)) {
+            return null;
+        }
         List<CategoriaResponse> response = productoService.buscarTodasCategorias();
-        return ResponseEntity.ok(response);
+        return RespuestaCondicional.ok(versionCatalogo).body(response);
+    }
+
+    @GetMapping("/arbol")
+    @Operation(summary = "Árbol de categorías",
+            description = "Retorna las categorías raíz con sus subcategorías anidadas, ordenadas por nombre")
+    @ApiResponse(responseCode = "200", description = "Árbol de categorías",
+            content = @Content(schema = @Schema(implementation = NodoCategoria.class)))
+    public ResponseEntity<List<NodoCategoria>> arbol() {
+        return ResponseEntity.ok(arbolCategoriasService.arbol());
+    }
+
+    @GetMapping("/{id}/productos")
+    @Operation(summary = "Productos de una categoría y sus subcategorías",
+            description = "Página por keyset de los productos de todo el subárbol, ordenados por id; "
+                    + "el cursor de la siguiente página va en el encabezado " + ProductoController.NEXT_CURSOR_HEADER)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de productos",
+                    content = @Content(schema = @Schema(implementation = ProductoResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Límite o cursor inválidos",
+                    content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @ApiResponse(responseCode = "404", description = "Categoría no encontrada",
+                    content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<List<ProductoResponse>> productos(
+            @Parameter(description = "ID de la categoría", required = true) @PathVariable UUID id,
+            @Parameter(description = "Tamaño de página (1-" + ProductoService.LIMITE_MAXIMO_PAGINA + ")")
+            @RequestParam(defaultValue = "50") int limit,
+            @Parameter(description = "Cursor devuelto por la página anterior")
+            @RequestParam(required = false) String cursor) {
+        PaginaProductos pagina = productoService.buscarProductosDeCategoria(new CategoriaId(id), cursor, limit);
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (pagina.siguienteCursor() != null) {
+            respuesta.header(ProductoController.NEXT_CURSOR_HEADER, pagina.siguienteCursor());
+        }
+        return respuesta.body(pagina.productos());
     }
 
     @PutMapping("/{id}")
@@ -1,9 +1,27 @@
 package com.uamishop.catalogo.controller;
 
 import com.uamishop.catalogo.shared.domain.ProductoId;
+import com.uamishop.catalogo.dto.CambiosProductos;
+import com.uamishop.catalogo.dto.FacetasResponse;
+import com.uamishop.catalogo.dto.FiltroProductos;
+import com.uamishop.catalogo.dto.PaginaProductos;
+import com.uamishop.catalogo.dto.ProductoBatchRequest;
 import com.uamishop.catalogo.dto.ProductoEstadisticasResponse;
 import com.uamishop.catalogo.dto.ProductoRequest;
 import com.uamishop.catalogo.dto.ProductoResponse;
+import com.uamishop.catalogo.dto.ProductosPorIdResponse;
+import com.uamishop.catalogo.dto.ProductosPorSkuResponse;
+import com.uamishop.catalogo.dto.SkuBatchRequest;
+import com.uamishop.catalogo.dto.ResultadoImportacion;
+import com.uamishop.catalogo.dto.TendenciaResponse;
+import com.uamishop.catalogo.dto.VentasHoraResponse;
+import com.uamishop.catalogo.dto.VentasVentanaResponse;
+import com.uamishop.catalogo.dto.VersionRecurso;
+import com.uamishop.catalogo.service.CatalogoVersionService;
+import com.uamishop.catalogo.service.ExportacionProductosService;
+import com.uamishop.catalogo.service.FormatoArchivo;
+import com.uamishop.catalogo.service.ImportacionProductosService;
+import com.uamishop.catalogo.service.IndiceFacetas;
 import com.uamishop.catalogo.service.ProductoEstadisticasService;
 import com.uamishop.catalogo.service.ProductoService;
 import com.uamishop.catalogo.dto.ApiError;
@@ -14,28 +32,51 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
-@RequestMapping("/api/v1/productos")
+@RequestMapping("/api/v1")
 @Tag(name = "Productos", description = "Operaciones para gestión de productos")
 public class ProductoController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int LIMITE_POR_DEFECTO = 50;
+
     private final ProductoService productoService;
     private final ProductoEstadisticasService estadisticasService;
+    private final ImportacionProductosService importacionService;
+    private final ExportacionProductosService exportacionService;
+    private final CatalogoVersionService catalogoVersionService;
+    private final IndiceFacetas indiceFacetas;
 
-    public ProductoController(ProductoService productoService, ProductoEstadisticasService estadisticasService) {
+    public ProductoController(ProductoService productoService,
+                              ProductoEstadisticasService estadisticasService,
+                              ImportacionProductosService importacionService,
+                              ExportacionProductosService exportacionService,
+                              CatalogoVersionService catalogoVersionService,
+                              IndiceFacetas indiceFacetas) {
         this.productoService = productoService;
         this.estadisticasService = estadisticasService;
+        this.importacionService = importacionService;
+        this.exportacionService = exportacionService;
+        this.catalogoVersionService = catalogoVersionService;
+        this.indiceFacetas = indiceFacetas;
     }
 
-    @PostMapping
+    @PostMapping("/productos")
     @Operation(summary = "Crear un nuevo producto", description = "Crea un producto con los datos proporcionados")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Producto creado exitosamente",
@@ -50,7 +91,7 @@ public class ProductoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
-    @GetMapping("/{id}")
+    @GetMapping("/productos/{id}")
     @Operation(summary = "Obtener producto por ID", description = "Retorna el producto correspondiente al ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Producto encontrado",
@@ -59,21 +100,130 @@ public class ProductoController {
                     content = @Content(schema = @Schema(implementation = ApiError.class)))
     })
     public ResponseEntity<ProductoResponse> obtener(
-            @Parameter(description = "ID del producto", required = true) @PathVariable UUID id) {
-        ProductoResponse response = productoService.buscarProductoPorId(new ProductoId(id));
-        return ResponseEntity.ok(response);
+            @Parameter(description = "ID del producto", required = true) @PathVariable UUID id,
+            WebRequest webRequest) {
+        ProductoId productoId = new ProductoId(id);
+        if (RespuestaCondicional.esCondicional(webRequest)
+                && RespuestaCondicional.noModificado(webRequest, productoService.buscarVersionProducto(productoId))) {
+            return null;
+        }
+        ProductoResponse response = productoService.buscarProductoPorId(productoId);
+        return RespuestaCondicional.ok(response.getVersionRecurso()).body(response);
     }
 
-    @GetMapping
-    @Operation(summary = "Listar todos los productos", description = "Retorna una lista de todos los productos")
-    @ApiResponse(responseCode = "200", description = "Lista de productos",
-            content = @Content(schema = @Schema(implementation = ProductoResponse.class)))
-    public ResponseEntity<List<ProductoResponse>> listarTodos() {
-        List<ProductoResponse> response = productoService.buscarTodosProductos();
-        return ResponseEntity.ok(response);
+    @PostMapping(value = "/productos/import", consumes = {FormatoArchivo.TEXT_CSV, FormatoArchivo.APPLICATION_NDJSON})
+    @Operation(summary = "Importar productos en bloque",
+            description = "Lee el cuerpo como CSV con encabezado (text/csv) o un JSON por línea (application/x-ndjson) "
+                    + "sin cargarlo completo en memoria. Cada fila se valida como en el alta individual; las filas "
+                    + "inválidas se reportan con su número de línea y no detienen la importación")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Importación terminada",
+                    content = @Content(schema = @Schema(implementation = ResultadoImportacion.class))),
+            @ApiResponse(responseCode = "400", description = "Encabezado CSV incompleto",
+                    content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<ResultadoImportacion> importar(HttpServletRequest request) throws IOException {
+        FormatoArchivo formato = FormatoArchivo.desdeTipoContenido(request.getContentType());
+        return ResponseEntity.ok(importacionService.importar(request.getInputStream(), formato));
+    }
+
+    @GetMapping("/productos/export")
+    @Operation(summary = "Exportar el catálogo completo",
+            description = "Escribe todos los productos en NDJSON o CSV a medida que se leen de la base, sin "
+                    + "cargar el catálogo en memoria. Se comprime con gzip si el cliente envía Accept-Encoding: gzip")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Catálogo exportado"),
+            @ApiResponse(responseCode = "400", description = "Formato no soportado",
+                    content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @Parameter(description = "csv o ndjson") @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        FormatoArchivo formatoArchivo = FormatoArchivo.desdeExtension(formato);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        StreamingResponseBody cuerpo = salida -> {
+            if (gzip) {
+                GZIPOutputStream comprimida = new GZIPOutputStream(salida, 64 * 1024);
+                exportacionService.exportar(comprimida, formatoArchivo);
+                comprimida.finish();
+            } else {
+                exportacionService.exportar(salida, formatoArchivo);
+            }
+        };
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+                .contentType(formatoArchivo.getTipoContenido())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"productos." + formatoArchivo.getExtension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            respuesta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return respuesta.body(cuerpo);
+    }
+
+    @PostMapping("/productos:batchGet")
+    @Operation(summary = "Obtener productos por lote de ids",
+            description = "Obtiene hasta " + ProductoService.LIMITE_MAXIMO_IDS + " productos en una petición. "
+                    + "Los productos vienen en el orden de la petición y los ids inexistentes en noEncontrados")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote resuelto",
+                    content = @Content(schema = @Schema(implementation = ProductosPorIdResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Lote vacío o demasiado grande",
+                    content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<ProductosPorIdResponse> obtenerPorIds(@Valid @RequestBody ProductoBatchRequest request) {
+        return ResponseEntity.ok(productoService.buscarProductosPorIds(request.getIds()));
     }
 
-    @PutMapping("/{id}")
+    @GetMapping("/productos")
+    @Operation(summary = "Listar productos",
+            description = "Sin parámetros retorna todos los productos (obsoleto: la respuesta lleva los headers "
+                    + "Deprecation y Warning; usar las páginas o /productos/export). Con limit, cursor o algún "
+                    + "filtro retorna una página ordenada por id (" + LIMITE_POR_DEFECTO + " productos si no se "
+                    + "indica limit); el cursor de la página siguiente viaja en el header " + NEXT_CURSOR_HEADER
+                    + " y falta en la última página")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de productos",
+                    content = @Content(schema = @Schema(implementation = ProductoResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Cursor, límite o rango de precios inválido",
+                    content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<List<ProductoResponse>> listarTodos(
+            @Parameter(description = "Tamaño de página (1-" + ProductoService.LIMITE_MAXIMO_PAGINA + ")")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor devuelto por la página anterior")
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) UUID categoriaId,
+            @RequestParam(required = false) Boolean disponible,
+            @RequestParam(required = false) BigDecimal precioMin,
+            @RequestParam(required = false) BigDecimal precioMax,
+            WebRequest webRequest) {
+        // Se lee antes que los productos: si el catálogo cambia en medio, el ETag queda viejo y el
+        // cliente vuelve a descargar, nunca al revés
+        VersionRecurso versionCatalogo = catalogoVersionService.actual();
+        if (RespuestaCondicional.noModificado(webRequest, versionCatalogo)) {
+            return null;
+        }
+        FiltroProductos filtro = new FiltroProductos(categoriaId, disponible, precioMin, precioMax);
+        if (limit == null && cursor == null && filtro.estaVacio()) {
+            // Compatibilidad con clientes que aún esperan el catálogo completo; arma toda la lista en memoria
+            return RespuestaCondicional.ok(versionCatalogo)
+                    .header("Deprecation", "true")
+                    .header(HttpHeaders.WARNING,
+                            "299 - \"Listado completo obsoleto; usar limit/cursor o /productos/export\"")
+                    .body(productoService.buscarTodosProductos());
+        }
+
+        PaginaProductos pagina = productoService.buscarProductos(
+                filtro, cursor, limit != null ? limit : LIMITE_POR_DEFECTO);
+        ResponseEntity.BodyBuilder respuesta = RespuestaCondicional.ok(versionCatalogo);
+        if (pagina.siguienteCursor() != null) {
+            respuesta.header(NEXT_CURSOR_HEADER, pagina.siguienteCursor());
+        }
+        return respuesta.body(pagina.productos());
+    }
+
+    @PutMapping("/productos/{id}")
     @Operation(summary = "Actualizar un producto", description = "Actualiza los datos de un producto existente")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Producto actualizado",
@@ -90,7 +240,7 @@ public class ProductoController {
         return ResponseEntity.ok(response);
     }
 
-    @PatchMapping("/{id}/activar")
+    @PatchMapping("/productos/{id}/activar")
     @Operation(summary = "Activar un producto", description = "Cambia el estado del producto a activo")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Producto activado",
@@ -106,7 +256,7 @@ public class ProductoController {
         return ResponseEntity.ok(response);
     }
 
-    @PatchMapping("/{id}/desactivar")
+    @PatchMapping("/productos/{id}/desactivar")
     @Operation(summary = "Desactivar un producto", description = "Cambia el estado del producto a inactivo")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Producto desactivado",
@@ -120,19 +270,148 @@ public class ProductoController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/productos/buscar")
+    @Operation(summary = "Buscar productos por texto",
+            description = "Busca en nombre, descripción y SKU sin distinguir acentos ni mayúsculas; "
+                    + "los resultados vienen ordenados por relevancia (BM25)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Productos encontrados",
+                    content = @Content(schema = @Schema(implementation = ProductoResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Consulta vacía o límite inválido",
+                    content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<List<ProductoResponse>> buscar(
+            @Parameter(description = "Texto a buscar", required = true) @RequestParam String q,
+            @Parameter(description = "Máximo de resultados (1-" + ProductoService.LIMITE_MAXIMO_BUSQUEDA + ")")
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(productoService.buscarPorTexto(q, limit));
+    }
+
+    @GetMapping("/productos/facetas")
+    @Operation(summary = "Conteos por faceta",
+            description = "Cuenta productos por categoría, rango de precio y disponibilidad. Cada faceta aplica "
+                    + "los demás filtros pero no el suyo; total aplica todos")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Conteos por faceta",
+                    content = @Content(schema = @Schema(implementation = FacetasResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Rango de precio inválido",
+                    content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<FacetasResponse> facetas(
+            @RequestParam(required = false) UUID categoriaId,
+            @RequestParam(required = false) Boolean disponible,
+            @RequestParam(required = false) BigDecimal precioMin,
+            @RequestParam(required = false) BigDecimal precioMax) {
+        return ResponseEntity.ok(indiceFacetas.contar(new FiltroProductos(categoriaId, disponible, precioMin, precioMax)));
+    }
+
+    @GetMapping("/productos/cambios")
+    @Operation(summary = "Sincronización incremental",
+            description = "Productos que cambiaron después de la versión desde del catálogo (sin desde, todos), "
+                    + "ordenados por secuencia; los desactivados llegan como baja. Al terminar, guardar version y "
+                    + "enviarla como desde en la próxima sincronización. El cursor de la página siguiente va en el "
+                    + "header " + NEXT_CURSOR_HEADER)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de cambios",
+                    content = @Content(schema = @Schema(implementation = CambiosProductos.class))),
+            @ApiResponse(responseCode = "400", description = "Versión, límite o cursor inválidos",
+                    content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<CambiosProductos> cambios(
+            @Parameter(description = "Versión ya sincronizada")
+            @RequestParam(required = false) Long desde,
+            @Parameter(description = "Tamaño de página (1-" + ProductoService.LIMITE_MAXIMO_PAGINA + ")")
+            @RequestParam(defaultValue = "500") int limit,
+            @Parameter(description = "Cursor devuelto por la página anterior")
+            @RequestParam(required = false) String cursor) {
+        CambiosProductos cambios = productoService.buscarCambios(desde, cursor, limit);
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (cambios.siguienteCursor() != null) {
+            respuesta.header(NEXT_CURSOR_HEADER, cambios.siguienteCursor());
+        }
+        return respuesta.body(cambios);
+    }
+
+    @GetMapping("/productos/sku/{sku}")
+    @Operation(summary = "Obtener producto por SKU", description = "Retorna el producto con el SKU indicado")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Producto encontrado",
+                    content = @Content(schema = @Schema(implementation = ProductoResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado",
+                    content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<ProductoResponse> obtenerPorSku(
+            @Parameter(description = "SKU del producto", required = true) @PathVariable String sku) {
+        return ResponseEntity.ok(productoService.buscarProductoPorSku(sku));
+    }
+
+    @PostMapping("/productos/sku:batchGet")
+    @Operation(summary = "Resolver productos por lote de SKUs",
+            description = "Resuelve hasta " + ProductoService.LIMITE_MAXIMO_SKUS + " SKUs en una petición. "
+                    + "Los productos vienen en el orden de la petición y los SKUs inexistentes en noEncontrados")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote resuelto",
+                    content = @Content(schema = @Schema(implementation = ProductosPorSkuResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Lote vacío o demasiado grande",
+                    content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<ProductosPorSkuResponse> obtenerPorSkus(@Valid @RequestBody SkuBatchRequest request) {
+        return ResponseEntity.ok(productoService.buscarProductosPorSkus(request.getSkus()));
+    }
+
     // Nuevos endpoints para estadísticas
-    @GetMapping("/mas-vendidos")
+    @GetMapping("/productos/mas-vendidos")
     @Operation(summary = "Obtener productos más vendidos", description = "Lista de productos ordenados por ventas")
     public ResponseEntity<List<ProductoEstadisticasResponse>> getMasVendidos(
             @RequestParam(defaultValue = "10") int limit) {
-        List<ProductoEstadisticasResponse> response = estadisticasService.obtenerMasVendidos(limit)
-                .stream()
-                .map(ProductoEstadisticasResponse::fromEntity)
-                .toList();
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(estadisticasService.obtenerMasVendidos(limit));
+    }
+
+    @GetMapping("/productos/mas-vendidos/recientes")
+    @Operation(summary = "Más vendidos en una ventana de tiempo",
+            description = "Productos ordenados por unidades vendidas en las últimas horas (incluida la hora en curso). "
+                    + "Se calcula con baldes horarios y puede tardar hasta un minuto en reflejar ventas nuevas")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ranking de la ventana"),
+            @ApiResponse(responseCode = "400", description = "Límite o ventana fuera de rango",
+                    content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<List<VentasVentanaResponse>> getMasVendidosRecientes(
+            @Parameter(description = "Tamaño de la ventana en horas (máximo " + ProductoEstadisticasService.MAX_HORAS_VENTANA + ")")
+            @RequestParam(defaultValue = "168") int horas,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(estadisticasService.obtenerMasVendidosEnVentana(horas, limit));
+    }
+
+    @GetMapping("/productos/tendencias")
+    @Operation(summary = "Productos en tendencia",
+            description = "Ranking por agregados al carrito y compras recientes, con decaimiento exponencial. "
+                    + "Se responde desde memoria y se recalcula cada pocos segundos")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ranking de tendencias"),
+            @ApiResponse(responseCode = "400", description = "Límite fuera de rango",
+                    content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<List<TendenciaResponse>> getTendencias(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(estadisticasService.obtenerTendencias(limit));
+    }
+
+    @GetMapping("/productos/{id}/ventas-por-hora")
+    @Operation(summary = "Ventas por hora de un producto",
+            description = "Una entrada por hora de la ventana, de la más antigua a la actual; las horas sin ventas van en cero")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Serie horaria"),
+            @ApiResponse(responseCode = "400", description = "Ventana fuera de rango",
+                    content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<List<VentasHoraResponse>> getVentasPorHora(
+            @Parameter(description = "ID del producto", required = true) @PathVariable UUID id,
+            @Parameter(description = "Tamaño de la ventana en horas (máximo " + ProductoEstadisticasService.MAX_HORAS_VENTANA + ")")
+            @RequestParam(defaultValue = "24") int horas) {
+        return ResponseEntity.ok(estadisticasService.obtenerVentasPorHora(id, horas));
     }
 
-    @GetMapping("/{id}/estadisticas")
+    @GetMapping("/productos/{id}/estadisticas")
     @Operation(summary = "Obtener estadísticas de un producto", description = "Retorna las estadísticas de ventas y agregados al carrito")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Estadísticas encontradas",
@@ -0,0 +1,76 @@
+package com.uamishop.catalogo.controller;
+
+import com.uamishop.catalogo.dto.ApiError;
+import com.uamishop.catalogo.dto.DisponibilidadResponse;
+import com.uamishop.catalogo.dto.ReservaRequest;
+import com.uamishop.catalogo.dto.ReservaResponse;
+import com.uamishop.catalogo.service.ReservaStockService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/reservas")
+@Tag(name = "Reservas", description = "Reservas temporales de stock para carritos")
+public class ReservaController {
+
+    private final ReservaStockService reservaStockService;
+
+    public ReservaController(ReservaStockService reservaStockService) {
+        this.reservaStockService = reservaStockService;
+    }
+
+    @PutMapping("/carritos/{carritoId}/productos/{productoId}")
+    @Operation(summary = "Reservar stock para un carrito",
+            description = "Deja reservada exactamente la cantidad indicada y renueva el vencimiento. "
+                    + "Es idempotente; con cantidad 0 libera la reserva")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reserva activa",
+                    content = @Content(schema = @Schema(implementation = ReservaResponse.class))),
+            @ApiResponse(responseCode = "204", description = "Reserva liberada (cantidad 0)"),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado",
+                    content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @ApiResponse(responseCode = "422", description = "Stock disponible insuficiente",
+                    content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<ReservaResponse> reservar(
+            @Parameter(description = "ID del carrito", required = true) @PathVariable UUID carritoId,
+            @Parameter(description = "ID del producto", required = true) @PathVariable UUID productoId,
+            @Valid @RequestBody ReservaRequest request) {
+        return reservaStockService.reservar(carritoId, productoId, request.getCantidad())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @DeleteMapping("/carritos/{carritoId}")
+    @Operation(summary = "Liberar las reservas de un carrito", description = "Libera todas las reservas activas del carrito")
+    @ApiResponse(responseCode = "204", description = "Reservas liberadas")
+    public ResponseEntity<Void> liberarCarrito(
+            @Parameter(description = "ID del carrito", required = true) @PathVariable UUID carritoId) {
+        reservaStockService.liberarCarrito(carritoId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/productos/{productoId}/disponibilidad")
+    @Operation(summary = "Consultar disponibilidad de un producto",
+            description = "Stock físico, stock reservado y disponible para prometer (stock - reservado)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Disponibilidad del producto",
+                    content = @Content(schema = @Schema(implementation = DisponibilidadResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado",
+                    content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<DisponibilidadResponse> disponibilidad(
+            @Parameter(description = "ID del producto", required = true) @PathVariable UUID productoId) {
+        return ResponseEntity.ok(reservaStockService.disponibilidad(productoId));
+    }
+}
@@ -0,0 +1,44 @@
+package com.uamishop.catalogo.controller;
+
+import com.uamishop.catalogo.dto.VersionRecurso;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * GET condicional con ETag/Last-Modified. Los controladores consultan primero solo la versión del
+ * recurso (si el cliente mandó If-None-Match o If-Modified-Since) para poder contestar 304 sin
+ * construir el DTO.
+ */
+final class RespuestaCondicional {
+
+    private RespuestaCondicional() {
+    }
+
+    static boolean esCondicional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    /**
+     * Devuelve {@code true} y deja la respuesta lista como 304 si la copia del cliente sigue vigente.
+     */
+    static boolean noModificado(WebRequest request, VersionRecurso version) {
+        return request.checkNotModified(version.etag(), ultimaModificacion(version));
+    }
+
+    static ResponseEntity.BodyBuilder ok(VersionRecurso version) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (version != null) {
+            respuesta.eTag(version.etag());
+            if (version.actualizadoEn() != null) {
+                respuesta.lastModified(version.actualizadoEn());
+            }
+        }
+        return respuesta;
+    }
+
+    private static long ultimaModificacion(VersionRecurso version) {
+        return version.actualizadoEn() != null ? version.actualizadoEn().toEpochMilli() : -1;
+    }
+}
@@ -0,0 +1,35 @@
+package com.uamishop.catalogo.domain;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Contador global del catálogo: una sola fila que sube cada vez que cambia un producto o una
+ * categoría. Sirve de ETag para los listados, que así se validan con una lectura por clave primaria.
+ */
+@Entity
+@Table(name = "catalogo_version")
+public class CatalogoVersion {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private long version;
+
+    private Instant actualizadoEn;
+
+    protected CatalogoVersion() {}
+
+    public CatalogoVersion(long version, Instant actualizadoEn) {
+        this.id = ID;
+        this.version = version;
+        this.actualizadoEn = actualizadoEn;
+    }
+
+    public Integer getId() { return id; }
+    public long getVersion() { return version; }
+    public Instant getActualizadoEn() { return actualizadoEn; }
+}
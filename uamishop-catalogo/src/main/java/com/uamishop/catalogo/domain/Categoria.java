@@ -2,6 +2,8 @@ package com.uamishop.catalogo.domain;
 
 import jakarta.persistence.*;
 
+import java.time.Instant;
+
 @Entity
 public class Categoria {
     @EmbeddedId
@@ -14,6 +16,12 @@ public class Categoria {
     @AttributeOverride(name = "id", column = @Column(name = "categoria_padre_id"))
     private CategoriaId categoriaPadreId;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    private Instant actualizadoEn;
+
     protected Categoria() {
     }
 
@@ -28,6 +36,12 @@ public class Categoria {
         this.nombre = nombre;
         this.descripcion = descripcion;
         this.categoriaPadreId = categoriaPadreId;
+        this.actualizadoEn = Instant.now();
+    }
+
+    @PreUpdate
+    void marcarActualizado() {
+        this.actualizadoEn = Instant.now();
     }
 
     public void actualizar(String nombre, String descripcion) {
@@ -60,4 +74,12 @@ public class Categoria {
     public CategoriaId getCategoriaPadreId() {
         return categoriaPadreId;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getActualizadoEn() {
+        return actualizadoEn;
+    }
 }
\ No newline at end of file
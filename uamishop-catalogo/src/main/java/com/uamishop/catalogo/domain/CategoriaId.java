@@ -1,5 +1,6 @@
 package com.uamishop.catalogo.domain;
 
+import com.uamishop.catalogo.shared.domain.UuidV7;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 import jakarta.persistence.Embeddable;
@@ -24,7 +25,7 @@ public class CategoriaId {
     }
 
     public static CategoriaId generar() {
-        return new CategoriaId(UUID.randomUUID());
+        return new CategoriaId(UuidV7.generar());
     }
 
     @JsonValue
@@ -0,0 +1,71 @@
+package com.uamishop.catalogo.domain;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Fila de la tabla de clausura del árbol de categorías: {@code ancestroId} está {@code profundidad}
+ * niveles por encima de {@code descendienteId}. Cada categoría es ancestro de sí misma con
+ * profundidad 0, así que "todo lo que cuelga de X" es {@code where ancestro_id = X} sin recursión.
+ */
+@Entity
+@Table(name = "categoria_arbol", indexes = {
+        // La clave primaria (ancestro_id, descendiente_id) resuelve subárboles; este índice, ancestros
+        @Index(name = "idx_categoria_arbol_descendiente", columnList = "descendiente_id, ancestro_id")
+})
+public class CategoriaRelacion {
+
+    @EmbeddedId
+    private Clave id;
+
+    @Column(nullable = false)
+    private int profundidad;
+
+    protected CategoriaRelacion() {}
+
+    public CategoriaRelacion(UUID ancestroId, UUID descendienteId, int profundidad) {
+        if (profundidad < 0) {
+            throw new IllegalArgumentException("La profundidad no puede ser negativa");
+        }
+        this.id = new Clave(ancestroId, descendienteId);
+        this.profundidad = profundidad;
+    }
+
+    public UUID getAncestroId() { return id.ancestroId; }
+    public UUID getDescendienteId() { return id.descendienteId; }
+    public int getProfundidad() { return profundidad; }
+
+    @Embeddable
+    public static class Clave implements Serializable {
+
+        @Column(name = "ancestro_id", nullable = false, updatable = false)
+        private UUID ancestroId;
+
+        @Column(name = "descendiente_id", nullable = false, updatable = false)
+        private UUID descendienteId;
+
+        protected Clave() {}
+
+        public Clave(UUID ancestroId, UUID descendienteId) {
+            if (ancestroId == null || descendienteId == null) {
+                throw new IllegalArgumentException("El ancestro y el descendiente son obligatorios");
+            }
+            this.ancestroId = ancestroId;
+            this.descendienteId = descendienteId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Clave clave)) return false;
+            return ancestroId.equals(clave.ancestroId) && descendienteId.equals(clave.descendienteId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ancestroId, descendienteId);
+        }
+    }
+}
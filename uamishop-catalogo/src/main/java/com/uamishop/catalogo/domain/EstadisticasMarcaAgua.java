@@ -0,0 +1,30 @@
+package com.uamishop.catalogo.domain;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Hasta dónde llegó el último volcado de contadores de una instancia. Se escribe en la misma
+ * transacción que los contadores, así tras una caída indica con exactitud desde cuándo se perdieron
+ * conteos (como mucho un intervalo de volcado).
+ */
+@Entity
+@Table(name = "estadisticas_marca_agua")
+public class EstadisticasMarcaAgua {
+
+    @Id
+    @Column(length = 100)
+    private String instancia;
+
+    @Column(nullable = false)
+    private Instant volcadoHasta;
+
+    @Column(nullable = false)
+    private long eventosVolcados;
+
+    protected EstadisticasMarcaAgua() {}
+
+    public String getInstancia() { return instancia; }
+    public Instant getVolcadoHasta() { return volcadoHasta; }
+    public long getEventosVolcados() { return eventosVolcados; }
+}
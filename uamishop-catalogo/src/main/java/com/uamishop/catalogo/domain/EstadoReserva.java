@@ -0,0 +1,8 @@
+package com.uamishop.catalogo.domain;
+
+public enum EstadoReserva {
+    ACTIVA,
+    CONFIRMADA,
+    LIBERADA,
+    EXPIRADA
+}
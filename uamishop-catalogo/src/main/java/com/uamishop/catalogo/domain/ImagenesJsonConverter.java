@@ -0,0 +1,48 @@
+package com.uamishop.catalogo.domain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imágenes de un producto en modo compacto como texto JSON. Se guarda en una columna de texto y no
+ * en el tipo JSON de MySQL para que la importación y la exportación por JDBC lean y escriban la
+ * columna igual en MySQL y en H2.
+ */
+@Converter
+public class ImagenesJsonConverter implements AttributeConverter<List<Imagen>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<Imagen>> TIPO = new TypeReference<>() {};
+
+    @Override
+    public String convertToDatabaseColumn(List<Imagen> imagenes) {
+        return imagenes != null ? escribir(imagenes) : null;
+    }
+
+    @Override
+    public List<Imagen> convertToEntityAttribute(String json) {
+        return json != null ? leer(json) : null;
+    }
+
+    public static String escribir(List<Imagen> imagenes) {
+        try {
+            return MAPPER.writeValueAsString(imagenes);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudieron serializar las imágenes", e);
+        }
+    }
+
+    public static List<Imagen> leer(String json) {
+        try {
+            return new ArrayList<>(MAPPER.readValue(json, TIPO));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("imagenes_json inválido: " + json, e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.uamishop.catalogo.domain;
+
+import jakarta.persistence.*;
+
+import java.util.UUID;
+
+/**
+ * Producto que movió stock en una transacción ya confirmada y todavía no tiene la secuencia de cambios
+ * de esa modificación. La fila se escribe en la misma transacción que el movimiento, así que un
+ * reinicio o una caída antes del volcado no la pierde: la recoge el siguiente volcado de cualquier
+ * instancia. Un producto puede tener varias filas; el volcado las junta.
+ */
+@Entity
+@Table(name = "producto_marca_stock_pendiente")
+public class MarcaStockPendiente {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, updatable = false, columnDefinition = "VARBINARY(16)")
+    private UUID productoId;
+
+    protected MarcaStockPendiente() {}
+
+    public MarcaStockPendiente(UUID productoId) {
+        this.productoId = productoId;
+    }
+
+    public Long getId() { return id; }
+    public UUID getProductoId() { return productoId; }
+}
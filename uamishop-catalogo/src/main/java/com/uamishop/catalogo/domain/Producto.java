@@ -4,6 +4,7 @@ package com.uamishop.catalogo.domain;
 import com.uamishop.catalogo.shared.domain.Money;
 import com.uamishop.catalogo.shared.domain.ProductoId; // <-- IMPORTACIÓN AGREGADA
 import jakarta.persistence.*;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -11,6 +12,15 @@ import java.math.BigDecimal;
 
 
 @Entity
+@Table(indexes = {
+        // Soportan el listado por keyset filtrado por categoría o disponibilidad
+        @Index(name = "idx_producto_categoria_id", columnList = "categoria_id, valor"),
+        @Index(name = "idx_producto_disponible_id", columnList = "disponible, valor"),
+        // Resolución por SKU; además impide dar de alta dos productos con el mismo SKU
+        @Index(name = "uk_producto_sku", columnList = "sku", unique = true),
+        // Keyset de la sincronización incremental (GET /productos/cambios)
+        @Index(name = "idx_producto_cambio_seq", columnList = "cambio_seq, valor")
+})
 public class Producto {
 
     @EmbeddedId
@@ -24,6 +34,10 @@ public class Producto {
 
     private Integer stock;
 
+    // Solo lo modifican las sentencias atómicas de reservas; guardar la entidad nunca lo pisa
+    @Column(nullable = false, updatable = false)
+    private Integer stockReservado;
+
     private String sku;  // NUEVO CAMPO
 
     @Embedded
@@ -34,9 +48,27 @@ public class Producto {
     @CollectionTable(name = "producto_imagenes", joinColumns = @JoinColumn(name = "producto_id"))
     private List<Imagen> imagenes;
 
+    // Modo compacto: las (a lo sumo 5) imágenes en una columna JSON de la propia fila. Si no es nula,
+    // manda sobre producto_imagenes, que queda vacía para este producto (ver compactarImagenes)
+    @Convert(converter = ImagenesJsonConverter.class)
+    @Column(name = "imagenes_json", length = 4000)
+    private List<Imagen> imagenesCompactas;
+
     private Boolean disponible;
     private LocalDateTime fechaCreacion;
 
+    // Junto con version alimenta Last-Modified/ETag; las sentencias UPDATE masivas lo fijan a mano
+    private Instant actualizadoEn;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    // Versión del catálogo en la que cambió por última vez; la asigna ProductoEventosService antes del commit
+    @Column(name = "cambio_seq", insertable = false, updatable = false,
+            columnDefinition = "bigint default 0 not null")
+    private long cambioSeq;
+
     protected Producto() {
     }
 
@@ -58,10 +90,17 @@ public class Producto {
         this.descripcion = descripcion;
         this.precio = precio;
         this.stock = stock;
+        this.stockReservado = 0;
         this.sku = sku;
         this.categoriaId = categoriaId;
         this.disponible = true;
         this.fechaCreacion = LocalDateTime.now();
+        this.actualizadoEn = Instant.now();
+    }
+
+    @PreUpdate
+    void marcarActualizado() {
+        this.actualizadoEn = Instant.now();
     }
 
     // Getters
@@ -70,13 +109,18 @@ public class Producto {
     public Money getPrecio() { return precio; }
     public Integer getStock() { return stock; }
     public void setStock(Integer stock) { this.stock = stock; }
+    public Integer getStockReservado() { return stockReservado; }
     public String getSku() { return sku; }
     public void setSku(String sku) { this.sku = sku; }
-    public List<Imagen> getImagenes() { return imagenes; }
+    public List<Imagen> getImagenes() { return imagenesCompactas != null ? imagenesCompactas : imagenes; }
+    public boolean tieneImagenesCompactas() { return imagenesCompactas != null; }
     public Boolean getDisponible() { return disponible; }
     public LocalDateTime getFechaCreacion() { return fechaCreacion; }
     public String getDescripcion() { return descripcion; }
     public CategoriaId getCategoriaId() { return categoriaId; }
+    public Long getVersion() { return version; }
+    public Instant getActualizadoEn() { return actualizadoEn; }
+    public long getCambioSeq() { return cambioSeq; }
 
     public void actualizarNombreDescripcion(String nombre, String descripcion) {
         if (nombre == null || nombre.isBlank()) {
@@ -148,7 +192,7 @@ public class Producto {
         if (this.imagenes == null) {
             this.imagenes = new ArrayList<>();
         }
-        if (this.imagenes.size() >= 5) {
+        if (getImagenes().size() >= 5) {
             throw new IllegalArgumentException("No se pueden agregar más de 5 imágenes");
         }
         String url = imagen.url();
@@ -157,9 +201,30 @@ public class Producto {
             throw new IllegalArgumentException(
                     "La URL de la imagen debe comenzar con http:// o https://");
         }
+        if (this.imagenesCompactas != null) {
+            // Lista nueva: la columna se reescribe completa y así el cambio es evidente para Hibernate
+            List<Imagen> nuevas = new ArrayList<>(this.imagenesCompactas);
+            nuevas.add(imagen);
+            this.imagenesCompactas = nuevas;
+            return;
+        }
         this.imagenes.add(imagen);
     }
 
+    /**
+     * Pasa el producto al modo compacto: sus imágenes se guardarán en {@code imagenes_json} y las filas
+     * de {@code producto_imagenes} se borran al guardar. No hace nada si ya es compacto.
+     */
+    public void compactarImagenes() {
+        if (this.imagenesCompactas != null) {
+            return;
+        }
+        this.imagenesCompactas = this.imagenes != null ? new ArrayList<>(this.imagenes) : new ArrayList<>();
+        if (this.imagenes != null) {
+            this.imagenes.clear();
+        }
+    }
+
     public void desactivar() {
         if (this.disponible == null) {
             this.disponible = true;
@@ -183,7 +248,7 @@ public class Producto {
             throw new IllegalStateException(
                     "No se puede activar un producto con precio menor o igual a 0");
         }
-        if (this.imagenes == null || this.imagenes.isEmpty()) {
+        if (getImagenes() == null || getImagenes().isEmpty()) {
             throw new IllegalStateException(
                     "No se puede activar un producto sin al menos una imagen");
         }
@@ -1,11 +1,16 @@
 package com.uamishop.catalogo.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "producto_estadisticas")
+@Table(name = "producto_estadisticas", indexes = {
+        @Index(name = "idx_estadisticas_cantidad_vendida", columnList = "cantidadVendida")
+})
+// Solo se escriben las columnas modificadas: los contadores de carrito los incrementa aparte ContadorAgregadosCarrito
+@DynamicUpdate
 public class ProductoEstadisticas {
 
     @Id
@@ -36,7 +41,11 @@ public class ProductoEstadisticas {
     public Instant getUltimaAgregadoAlCarritoAt() { return ultimaAgregadoAlCarritoAt; }
 
     public void registrarVenta(int cantidad, Instant momento) {
-        this.ventasTotales++;
+        registrarVentas(1, cantidad, momento);
+    }
+
+    public void registrarVentas(long transacciones, long cantidad, Instant momento) {
+        this.ventasTotales += transacciones;
         this.cantidadVendida += cantidad;
         this.ultimaVentaAt = momento;
     }
@@ -0,0 +1,67 @@
+package com.uamishop.catalogo.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Ventas de un producto en una hora. La hora se guarda como horas desde la época (UTC), así el
+ * balde no depende de la zona horaria de la conexión. Las filas las escribe
+ * {@code SeriesVentasHora} con UPSERT aditivos; aquí solo se leen.
+ */
+@Entity
+@Table(name = "producto_ventas_hora", indexes = {
+        // Los más vendidos de una ventana se resuelven leyendo solo el índice
+        @Index(name = "idx_ventas_hora_hora", columnList = "hora, productoId, cantidad, transacciones")
+})
+public class ProductoVentasHora {
+
+    @EmbeddedId
+    private Clave id;
+
+    @Column(nullable = false)
+    private long transacciones;
+
+    @Column(nullable = false)
+    private long cantidad;
+
+    protected ProductoVentasHora() {}
+
+    public Clave getId() { return id; }
+    public long getTransacciones() { return transacciones; }
+    public long getCantidad() { return cantidad; }
+
+    @Embeddable
+    public static class Clave implements Serializable {
+
+        @Column(nullable = false, updatable = false, columnDefinition = "VARBINARY(16)")
+        private UUID productoId;
+
+        @Column(nullable = false, updatable = false)
+        private long hora;
+
+        protected Clave() {}
+
+        public Clave(UUID productoId, long hora) {
+            this.productoId = productoId;
+            this.hora = hora;
+        }
+
+        public UUID getProductoId() { return productoId; }
+        public long getHora() { return hora; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Clave clave)) return false;
+            return hora == clave.hora && productoId.equals(clave.productoId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(productoId, hora);
+        }
+    }
+}
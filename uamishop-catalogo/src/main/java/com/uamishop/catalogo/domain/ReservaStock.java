@@ -0,0 +1,115 @@
+package com.uamishop.catalogo.domain;
+
+import com.uamishop.catalogo.shared.domain.UuidV7;
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Unidades de un producto apartadas para un carrito hasta {@code expiraEn}. Mientras está
+ * ACTIVA su cantidad forma parte de {@code producto.stock_reservado}; al confirmarse,
+ * liberarse o expirar se descuenta de ahí.
+ */
+@Entity
+@Table(name = "reserva_stock", uniqueConstraints = {
+        // Una sola reserva ACTIVA por carrito y producto, aunque dos peticiones la creen a la vez
+        @UniqueConstraint(name = "uk_reserva_activa", columnNames = "activa_key")
+}, indexes = {
+        // El barrido de expiración recorre solo el rango (ACTIVA, expira_en < ahora)
+        @Index(name = "idx_reserva_estado_expira", columnList = "estado, expira_en"),
+        @Index(name = "idx_reserva_carrito", columnList = "carrito_id, producto_id"),
+        @Index(name = "idx_reserva_orden", columnList = "orden_id")
+})
+public class ReservaStock {
+
+    @Id
+    @Column(nullable = false, updatable = false)
+    private UUID id;
+
+    @Column(name = "producto_id", nullable = false, updatable = false)
+    private UUID productoId;
+
+    @Column(name = "carrito_id", nullable = false, updatable = false)
+    private UUID carritoId;
+
+    @Column(name = "orden_id")
+    private UUID ordenId;
+
+    @Column(nullable = false)
+    private int cantidad;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoReserva estado;
+
+    @Column(name = "expira_en", nullable = false)
+    private Instant expiraEn;
+
+    @Column(nullable = false, updatable = false)
+    private Instant creadaEn;
+
+    // "carrito:producto" mientras está ACTIVA y null después; el índice único ignora los null
+    @Column(name = "activa_key", length = 73)
+    private String activaKey;
+
+    protected ReservaStock() {}
+
+    public ReservaStock(UUID carritoId, UUID productoId, int cantidad, Instant expiraEn) {
+        if (carritoId == null || productoId == null) {
+            throw new IllegalArgumentException("El carrito y el producto de la reserva son obligatorios");
+        }
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad reservada debe ser mayor a 0");
+        }
+        this.id = UuidV7.generar();
+        this.carritoId = carritoId;
+        this.productoId = productoId;
+        this.cantidad = cantidad;
+        this.estado = EstadoReserva.ACTIVA;
+        this.expiraEn = expiraEn;
+        this.creadaEn = Instant.now();
+        this.activaKey = carritoId + ":" + productoId;
+    }
+
+    public UUID getId() { return id; }
+    public UUID getProductoId() { return productoId; }
+    public UUID getCarritoId() { return carritoId; }
+    public UUID getOrdenId() { return ordenId; }
+    public int getCantidad() { return cantidad; }
+    public EstadoReserva getEstado() { return estado; }
+    public Instant getExpiraEn() { return expiraEn; }
+    public Instant getCreadaEn() { return creadaEn; }
+
+    public void ajustar(int nuevaCantidad, Instant nuevaExpiracion) {
+        validarActiva();
+        if (nuevaCantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad reservada debe ser mayor a 0");
+        }
+        this.cantidad = nuevaCantidad;
+        this.expiraEn = nuevaExpiracion;
+    }
+
+    public void asignarOrden(UUID ordenId, Instant nuevaExpiracion) {
+        validarActiva();
+        this.ordenId = ordenId;
+        this.expiraEn = nuevaExpiracion;
+    }
+
+    public void confirmar() {
+        validarActiva();
+        this.estado = EstadoReserva.CONFIRMADA;
+        this.activaKey = null;
+    }
+
+    public void liberar() {
+        validarActiva();
+        this.estado = EstadoReserva.LIBERADA;
+        this.activaKey = null;
+    }
+
+    private void validarActiva() {
+        if (estado != EstadoReserva.ACTIVA) {
+            throw new IllegalStateException("La reserva " + id + " ya no está activa (" + estado + ")");
+        }
+    }
+}
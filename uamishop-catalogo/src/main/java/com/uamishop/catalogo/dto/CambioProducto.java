@@ -0,0 +1,15 @@
+package com.uamishop.catalogo.dto;
+
+import java.util.UUID;
+
+/**
+ * Un producto dentro de la sincronización incremental. {@code secuencia} es la versión del catálogo
+ * en la que cambió por última vez; un producto desactivado llega como baja ({@code eliminado}) y
+ * sin {@code producto}.
+ */
+public record CambioProducto(
+    UUID id,
+    long secuencia,
+    boolean eliminado,
+    ProductoResponse producto
+) {}
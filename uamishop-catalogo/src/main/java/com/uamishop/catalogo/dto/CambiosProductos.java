@@ -0,0 +1,14 @@
+package com.uamishop.catalogo.dto;
+
+import java.util.List;
+
+/**
+ * Página de la sincronización incremental, ordenada por secuencia y luego por id. {@code version}
+ * es la secuencia hasta la que llega la página: al terminar (sin {@code siguienteCursor}) el
+ * cliente la guarda y la envía como {@code desde} en la próxima sincronización.
+ */
+public record CambiosProductos(
+    List<CambioProducto> cambios,
+    long version,
+    String siguienteCursor
+) {}
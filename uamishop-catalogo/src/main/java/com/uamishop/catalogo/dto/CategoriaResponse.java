@@ -2,12 +2,20 @@ package com.uamishop.catalogo.dto;
 
 import com.uamishop.catalogo.domain.Categoria;
 import com.uamishop.catalogo.domain.CategoriaId;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import java.time.Instant;
+
+/**
+ * Sin setters: CategoriaCache comparte la misma instancia entre todas las lecturas.
+ */
 public class CategoriaResponse {
     private CategoriaId id;
     private String nombre;
     private String descripcion;
     private CategoriaId categoriaPadreId;
+    private Long version;
+    private Instant actualizadoEn;
 
     public static CategoriaResponse fromCategoria(Categoria categoria) {
         CategoriaResponse response = new CategoriaResponse();
@@ -15,16 +23,20 @@ public class CategoriaResponse {
         response.nombre = categoria.getNombre();
         response.descripcion = categoria.getDescripcion();
         response.categoriaPadreId = categoria.getCategoriaPadreId();
+        response.version = categoria.getVersion();
+        response.actualizadoEn = categoria.getActualizadoEn();
         return response;
     }
 
-    // Getters y setters
+    // Getters
     public CategoriaId getId() { return id; }
-    public void setId(CategoriaId id) { this.id = id; }
     public String getNombre() { return nombre; }
-    public void setNombre(String nombre) { this.nombre = nombre; }
     public String getDescripcion() { return descripcion; }
-    public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
     public CategoriaId getCategoriaPadreId() { return categoriaPadreId; }
-    public void setCategoriaPadreId(CategoriaId categoriaPadreId) { this.categoriaPadreId = categoriaPadreId; }
+
+    // Solo alimentan ETag/Last-Modified; no forman parte del JSON
+    @JsonIgnore
+    public VersionRecurso getVersionRecurso() {
+        return version != null ? new VersionRecurso(version, actualizadoEn) : null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.uamishop.catalogo.dto;
+
+import java.util.UUID;
+
+/**
+ * Disponible para prometer (ATP) de un producto: stock físico menos lo apartado por reservas activas.
+ */
+public record DisponibilidadResponse(
+    UUID productoId,
+    int stock,
+    int stockReservado,
+    int disponible
+) {
+    public DisponibilidadResponse(UUID productoId, Integer stock, Integer stockReservado) {
+        this(productoId, stock, stockReservado, Math.max(0, stock - stockReservado));
+    }
+}
@@ -0,0 +1,25 @@
+package com.uamishop.catalogo.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Conteos para los filtros del catálogo. Cada faceta se cuenta aplicando los demás filtros pero no
+ * el suyo, de modo que el cliente puede mostrar cuántos productos quedarían al cambiar esa opción.
+ * {@code total} aplica todos los filtros.
+ */
+public record FacetasResponse(
+    long total,
+    List<Categoria> categorias,
+    List<RangoPrecio> precios,
+    Disponibilidad disponibilidad
+) {
+    /** Categorías con al menos un producto, de mayor a menor cantidad. */
+    public record Categoria(UUID categoriaId, long cantidad) {}
+
+    /** Rango {@code [desde, hasta)}; {@code hasta} es nulo en el último. */
+    public record RangoPrecio(BigDecimal desde, BigDecimal hasta, long cantidad) {}
+
+    public record Disponibilidad(long disponibles, long noDisponibles) {}
+}
@@ -0,0 +1,24 @@
+package com.uamishop.catalogo.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Criterios opcionales para el listado paginado de productos. Un campo nulo no filtra.
+ */
+public record FiltroProductos(
+    UUID categoriaId,
+    Boolean disponible,
+    BigDecimal precioMin,
+    BigDecimal precioMax
+) {
+    public FiltroProductos {
+        if (precioMin != null && precioMax != null && precioMin.compareTo(precioMax) > 0) {
+            throw new IllegalArgumentException("precioMin no puede ser mayor que precioMax");
+        }
+    }
+
+    public boolean estaVacio() {
+        return categoriaId == null && disponible == null && precioMin == null && precioMax == null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.uamishop.catalogo.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Categoría dentro del árbol con sus subcategorías ordenadas por nombre. Inmutable: el mismo árbol
+ * se comparte entre todas las peticiones hasta que se reemplaza.
+ */
+public record NodoCategoria(
+    UUID id,
+    String nombre,
+    String descripcion,
+    List<NodoCategoria> subcategorias
+) {
+    public NodoCategoria {
+        subcategorias = List.copyOf(subcategorias);
+    }
+}
@@ -0,0 +1,11 @@
+package com.uamishop.catalogo.dto;
+
+import java.util.List;
+
+/**
+ * Página de productos obtenida por keyset. {@code siguienteCursor} es nulo en la última página.
+ */
+public record PaginaProductos(
+    List<ProductoResponse> productos,
+    String siguienteCursor
+) {}
@@ -0,0 +1,18 @@
+package com.uamishop.catalogo.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public class ProductoBatchRequest {
+
+    @NotEmpty(message = "Debe indicar al menos un id de producto")
+    @Size(max = 500, message = "No se pueden obtener más de 500 productos por petición")
+    private List<@NotNull(message = "El id de producto no puede ser nulo") UUID> ids;
+
+    public List<UUID> getIds() { return ids; }
+    public void setIds(List<UUID> ids) { this.ids = ids; }
+}
@@ -0,0 +1,14 @@
+package com.uamishop.catalogo.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Campos de un producto que alimentan los conteos por faceta.
+ */
+public record ProductoFaceta(
+    UUID id,
+    UUID categoriaId,
+    BigDecimal precio,
+    Boolean disponible
+) {}
@@ -0,0 +1,30 @@
+package com.uamishop.catalogo.dto;
+
+import com.uamishop.catalogo.domain.Imagen;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Columnas escalares de un producto leídas directamente por la capa de proyecciones,
+ * sin pasar por una entidad administrada. {@code imagenesCompactas} es el contenido de
+ * {@code imagenes_json}: nulo si las imágenes del producto siguen en {@code producto_imagenes}.
+ */
+public record ProductoFila(
+    UUID id,
+    String nombre,
+    String descripcion,
+    BigDecimal precio,
+    String moneda,
+    Integer stock,
+    String sku,
+    UUID categoriaId,
+    Boolean disponible,
+    LocalDateTime fechaCreacion,
+    Long version,
+    Instant actualizadoEn,
+    List<Imagen> imagenesCompactas
+) {}
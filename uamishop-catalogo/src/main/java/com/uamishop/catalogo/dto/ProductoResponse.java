@@ -5,10 +5,15 @@ import com.uamishop.catalogo.domain.Producto;
 import com.uamishop.catalogo.shared.domain.ProductoId;
 import com.uamishop.catalogo.domain.CategoriaId;
 import com.uamishop.catalogo.shared.domain.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
+/**
+ * Sin setters y con la lista de imágenes inmodificable: ProductoCache comparte la misma instancia
+ * entre todas las lecturas.
+ */
 public class ProductoResponse {
     private ProductoId id;
     private String nombre;
@@ -20,6 +25,8 @@ public class ProductoResponse {
     private List<String> imagenesUrls;
     private Boolean disponible;
     private LocalDateTime fechaCreacion;
+    private Long version;
+    private Instant actualizadoEn;
 
     public static ProductoResponse fromProducto(Producto producto) {
         ProductoResponse response = new ProductoResponse();
@@ -33,32 +40,47 @@ public class ProductoResponse {
         if (producto.getImagenes() != null) {
             response.imagenesUrls = producto.getImagenes().stream()
                     .map(Imagen::url)
-                    .collect(Collectors.toList());
+                    .toList();
         }
         response.disponible = producto.getDisponible();
         response.fechaCreacion = producto.getFechaCreacion();
+        response.version = producto.getVersion();
+        response.actualizadoEn = producto.getActualizadoEn();
         return response;
     }
 
-    // Getters y setters
+    public static ProductoResponse fromFila(ProductoFila fila, List<String> imagenesUrls) {
+        ProductoResponse response = new ProductoResponse();
+        response.id = new ProductoId(fila.id());
+        response.nombre = fila.nombre();
+        response.descripcion = fila.descripcion();
+        response.precio = new Money(fila.precio(), fila.moneda());
+        response.stock = fila.stock();
+        response.sku = fila.sku();
+        response.categoriaId = fila.categoriaId() != null ? new CategoriaId(fila.categoriaId()) : null;
+        response.imagenesUrls = imagenesUrls != null ? List.copyOf(imagenesUrls) : null;
+        response.disponible = fila.disponible();
+        response.fechaCreacion = fila.fechaCreacion();
+        response.version = fila.version();
+        response.actualizadoEn = fila.actualizadoEn();
+        return response;
+    }
+
+    // Getters
     public ProductoId getId() { return id; }
-    public void setId(ProductoId id) { this.id = id; }
     public String getNombre() { return nombre; }
-    public void setNombre(String nombre) { this.nombre = nombre; }
     public String getDescripcion() { return descripcion; }
-    public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
     public Money getPrecio() { return precio; }
-    public void setPrecio(Money precio) { this.precio = precio; }
     public Integer getStock() { return stock; }
-    public void setStock(Integer stock) { this.stock = stock; }
     public String getSku() { return sku; }
-    public void setSku(String sku) { this.sku = sku; }
     public CategoriaId getCategoriaId() { return categoriaId; }
-    public void setCategoriaId(CategoriaId categoriaId) { this.categoriaId = categoriaId; }
     public List<String> getImagenesUrls() { return imagenesUrls; }
-    public void setImagenesUrls(List<String> imagenesUrls) { this.imagenesUrls = imagenesUrls; }
     public Boolean getDisponible() { return disponible; }
-    public void setDisponible(Boolean disponible) { this.disponible = disponible; }
     public LocalDateTime getFechaCreacion() { return fechaCreacion; }
-    public void setFechaCreacion(LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
+
+    // Solo alimentan ETag/Last-Modified; no forman parte del JSON
+    @JsonIgnore
+    public VersionRecurso getVersionRecurso() {
+        return version != null ? new VersionRecurso(version, actualizadoEn) : null;
+    }
 }
\ No newline at end of file
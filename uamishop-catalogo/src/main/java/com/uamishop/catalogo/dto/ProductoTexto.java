@@ -0,0 +1,19 @@
+package com.uamishop.catalogo.dto;
+
+import java.util.UUID;
+
+/**
+ * Campos buscables de un producto, proyectados para el índice de búsqueda. Con {@code disponible} en
+ * falso el producto no se indexa.
+ */
+public record ProductoTexto(
+    UUID id,
+    String nombre,
+    String descripcion,
+    String sku,
+    Boolean disponible
+) {
+    public ProductoTexto(UUID id, String nombre, String descripcion, String sku) {
+        this(id, nombre, descripcion, sku, true);
+    }
+}
@@ -0,0 +1,13 @@
+package com.uamishop.catalogo.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Resultado de un multi-get por id: los productos encontrados en el orden de la petición
+ * (sin repetidos) y los ids que no corresponden a ningún producto.
+ */
+public record ProductosPorIdResponse(
+    List<ProductoResponse> productos,
+    List<UUID> noEncontrados
+) {}
@@ -0,0 +1,12 @@
+package com.uamishop.catalogo.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de resolver un lote de SKUs: los productos encontrados en el orden de la petición
+ * (sin repetidos) y los SKUs que no corresponden a ningún producto.
+ */
+public record ProductosPorSkuResponse(
+    List<ProductoResponse> productos,
+    List<String> noEncontrados
+) {}
@@ -0,0 +1,26 @@
+package com.uamishop.catalogo.dto;
+
+import com.uamishop.catalogo.domain.EstadoReserva;
+import com.uamishop.catalogo.domain.ReservaStock;
+import java.time.Instant;
+import java.util.UUID;
+
+public record ReservaResponse(
+    UUID id,
+    UUID carritoId,
+    UUID productoId,
+    int cantidad,
+    EstadoReserva estado,
+    Instant expiraEn
+) {
+    public static ReservaResponse fromEntity(ReservaStock reserva) {
+        return new ReservaResponse(
+            reserva.getId(),
+            reserva.getCarritoId(),
+            reserva.getProductoId(),
+            reserva.getCantidad(),
+            reserva.getEstado(),
+            reserva.getExpiraEn()
+        );
+    }
+}
@@ -0,0 +1,17 @@
+package com.uamishop.catalogo.dto;
+
+import java.util.List;
+
+/**
+ * Resumen de una importación masiva. {@code errores} trae como máximo las primeras filas
+ * rechazadas; {@code filasConError} cuenta todas.
+ */
+public record ResultadoImportacion(
+    long filasProcesadas,
+    long productosImportados,
+    long filasConError,
+    List<ErrorFila> errores
+) {
+
+    public record ErrorFila(long fila, String mensaje) {}
+}
@@ -0,0 +1,12 @@
+package com.uamishop.catalogo.dto;
+
+import java.util.UUID;
+
+/**
+ * Posición de un producto en la secuencia de cambios: la versión del catálogo en la que cambió por
+ * última vez.
+ */
+public record SecuenciaProducto(
+    UUID id,
+    long secuencia
+) {}
@@ -0,0 +1,17 @@
+package com.uamishop.catalogo.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class SkuBatchRequest {
+
+    @NotEmpty(message = "Debe indicar al menos un SKU")
+    @Size(max = 500, message = "No se pueden resolver más de 500 SKUs por petición")
+    private List<@NotBlank(message = "El SKU no puede estar vacío") String> skus;
+
+    public List<String> getSkus() { return skus; }
+    public void setSkus(List<String> skus) { this.skus = skus; }
+}
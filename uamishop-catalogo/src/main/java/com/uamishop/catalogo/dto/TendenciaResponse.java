@@ -0,0 +1,11 @@
+package com.uamishop.catalogo.dto;
+
+import java.util.UUID;
+
+/**
+ * Puntaje de tendencia de un producto: actividad reciente ponderada, con decaimiento exponencial.
+ */
+public record TendenciaResponse(
+    UUID productoId,
+    double puntaje
+) {}
@@ -0,0 +1,12 @@
+package com.uamishop.catalogo.dto;
+
+import java.time.Instant;
+
+/**
+ * Ventas de un producto en la hora que empieza en {@code hora} (UTC).
+ */
+public record VentasHoraResponse(
+    Instant hora,
+    long transacciones,
+    long cantidad
+) {}
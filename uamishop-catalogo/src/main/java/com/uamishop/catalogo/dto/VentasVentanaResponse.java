@@ -0,0 +1,12 @@
+package com.uamishop.catalogo.dto;
+
+import java.util.UUID;
+
+/**
+ * Ventas de un producto acumuladas en una ventana de horas.
+ */
+public record VentasVentanaResponse(
+    UUID productoId,
+    long transacciones,
+    long cantidad
+) {}
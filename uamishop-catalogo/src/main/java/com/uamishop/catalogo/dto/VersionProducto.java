@@ -0,0 +1,11 @@
+package com.uamishop.catalogo.dto;
+
+import java.util.UUID;
+
+/**
+ * Id y versión de un producto, para actualizarlo después con control optimista sin cargar la entidad.
+ */
+public record VersionProducto(
+    UUID productoId,
+    long version
+) {}
@@ -0,0 +1,18 @@
+package com.uamishop.catalogo.dto;
+
+import java.time.Instant;
+
+/**
+ * Lo mínimo para validar una copia en caché de un recurso: su versión y, si se conoce,
+ * cuándo cambió por última vez.
+ */
+public record VersionRecurso(
+    long version,
+    Instant actualizadoEn
+) {
+
+    /** ETag fuerte derivado de la versión. */
+    public String etag() {
+        return "\"" + version + "\"";
+    }
+}
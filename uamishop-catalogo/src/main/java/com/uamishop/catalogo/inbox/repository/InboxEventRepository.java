@@ -0,0 +1,24 @@
+package com.uamishop.catalogo.inbox.repository;
+
+import com.uamishop.catalogo.inbox.domain.InboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface InboxEventRepository extends JpaRepository<InboxEvent, InboxEvent.Clave> {
+
+    @Query("select e.id.eventId from InboxEvent e where e.id.consumidor = :consumidor and e.id.eventId in :eventIds")
+    List<UUID> findProcesados(@Param("consumidor") String consumidor, @Param("eventIds") Collection<UUID> eventIds);
+
+    @Modifying
+    @Query("delete from InboxEvent e where e.procesadoEn < :limite")
+    int eliminarProcesadosAntesDe(@Param("limite") Instant limite);
+}
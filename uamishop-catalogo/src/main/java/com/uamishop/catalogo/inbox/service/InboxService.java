@@ -0,0 +1,141 @@
+package com.uamishop.catalogo.inbox.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uamishop.catalogo.inbox.domain.InboxEvent;
+import com.uamishop.catalogo.inbox.repository.InboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Deduplicación de eventos recibidos por RabbitMQ, por consumidor y {@code eventId}. Los ids se
+ * registran en {@code catalogo_inbox_events} dentro de la transacción que aplica el evento, así que un
+ * evento queda marcado si y solo si sus efectos se confirmaron. Delante de la tabla hay un filtro
+ * acotado en memoria con los ids confirmados recientemente: una reentrega inmediata (lo habitual
+ * tras un nack o una reconexión) se descarta sin ir a la base.
+ *
+ * <p>Si dos réplicas reciben el mismo evento a la vez, la clave primaria hace fallar el segundo
+ * commit; el mensaje se reentrega y entonces ya aparece como procesado. Las filas se borran tras
+ * {@code catalogo.inbox.retencion}, que debe superar el tiempo máximo en que un mensaje puede
+ * volver a llegar.</p>
+ */
+@Service
+public class InboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(InboxService.class);
+
+    private static final int TAMANIO_LOTE_IN = 1000;
+
+    private final InboxEventRepository inboxEventRepository;
+    private final Cache<InboxEvent.Clave, Boolean> recientes;
+    private final Duration retencion;
+
+    public InboxService(InboxEventRepository inboxEventRepository,
+                        @Value("${catalogo.inbox.filtro.tamanio:100000}") long tamanioFiltro,
+                        @Value("${catalogo.inbox.retencion:7d}") Duration retencion) {
+        this.inboxEventRepository = inboxEventRepository;
+        this.retencion = retencion;
+        this.recientes = Caffeine.newBuilder()
+                .maximumSize(tamanioFiltro)
+                .expireAfterWrite(retencion)
+                .build();
+    }
+
+    /**
+     * Dice, sin ir a la base, si el evento está entre los confirmados recientemente para el consumidor.
+     * Un {@code false} no garantiza que sea nuevo.
+     */
+    public boolean procesadoRecientemente(String consumidor, UUID eventId) {
+        return recientes.getIfPresent(new InboxEvent.Clave(consumidor, eventId)) != null;
+    }
+
+    /**
+     * Registra el evento para el consumidor y dice si es la primera vez que se ve. Sin
+     * {@code eventId} no hay forma de deduplicar y el evento se trata como nuevo.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean registrar(String consumidor, UUID eventId) {
+        return !registrarNuevos(consumidor, Collections.singletonList(eventId), Function.identity()).isEmpty();
+    }
+
+    /**
+     * Versión por lote de {@link #registrar}: devuelve, en el orden recibido, los eventos que el
+     * consumidor no había procesado (un id repetido dentro del lote cuenta una sola vez). Cuesta una
+     * consulta y un INSERT por lote.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> List<T> registrarNuevos(String consumidor, List<T> eventos, Function<T, UUID> eventId) {
+        Set<UUID> candidatos = new LinkedHashSet<>();
+        for (T evento : eventos) {
+            UUID id = eventId.apply(evento);
+            if (id != null && recientes.getIfPresent(new InboxEvent.Clave(consumidor, id)) == null) {
+                candidatos.add(id);
+            }
+        }
+
+        Set<UUID> procesados = new HashSet<>();
+        List<UUID> ids = new ArrayList<>(candidatos);
+        for (int i = 0; i < ids.size(); i += TAMANIO_LOTE_IN) {
+            procesados.addAll(inboxEventRepository.findProcesados(consumidor,
+                    ids.subList(i, Math.min(i + TAMANIO_LOTE_IN, ids.size()))));
+        }
+        procesados.forEach(id -> recientes.put(new InboxEvent.Clave(consumidor, id), Boolean.TRUE));
+
+        Instant ahora = Instant.now();
+        List<T> nuevos = new ArrayList<>(eventos.size());
+        List<InboxEvent> registros = new ArrayList<>(candidatos.size());
+        for (T evento : eventos) {
+            UUID id = eventId.apply(evento);
+            if (id == null) {
+                nuevos.add(evento);
+            } else if (!procesados.contains(id) && candidatos.remove(id)) {
+                registros.add(new InboxEvent(consumidor, id, ahora));
+                nuevos.add(evento);
+            }
+        }
+        if (nuevos.size() < eventos.size()) {
+            log.debug("Inbox {}: {} eventos repetidos descartados", consumidor, eventos.size() - nuevos.size());
+        }
+        if (registros.isEmpty()) {
+            return nuevos;
+        }
+        inboxEventRepository.saveAll(registros);
+
+        // Al filtro solo entran ids confirmados; si la transacción se revierte el evento debe poder reintentarse
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                registros.forEach(registro -> recientes.put(registro.getId(), Boolean.TRUE));
+            }
+        });
+        return nuevos;
+    }
+
+    @Scheduled(fixedDelayString = "${catalogo.inbox.limpieza-ms:3600000}",
+            initialDelayString = "${catalogo.inbox.limpieza-ms:3600000}")
+    @Transactional
+    public void eliminarVencidos() {
+        int eliminados = inboxEventRepository.eliminarProcesadosAntesDe(Instant.now().minus(retencion));
+        if (eliminados > 0) {
+            log.info("Inbox: {} eventos procesados eliminados", eliminados);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.uamishop.catalogo.listener;
+
+import com.uamishop.catalogo.service.ArbolCategoriasService;
+import com.uamishop.catalogo.shared.event.CategoriaModificadaEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Reemplaza la instantánea del árbol de categorías una vez confirmado el cambio, para que nunca
+ * muestre una categoría que terminó en rollback.
+ */
+@Component
+public class ArbolCategoriasListener {
+
+    private final ArbolCategoriasService arbolCategoriasService;
+
+    public ArbolCategoriasListener(ArbolCategoriasService arbolCategoriasService) {
+        this.arbolCategoriasService = arbolCategoriasService;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoriaModificada(CategoriaModificadaEvent event) {
+        arbolCategoriasService.recargar();
+    }
+}
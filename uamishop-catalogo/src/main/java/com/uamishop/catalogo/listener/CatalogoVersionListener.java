@@ -0,0 +1,38 @@
+package com.uamishop.catalogo.listener;
+
+import com.uamishop.catalogo.service.CatalogoVersionService;
+import com.uamishop.catalogo.shared.event.CategoriaModificadaEvent;
+import com.uamishop.catalogo.shared.event.ProductoModificadoEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Sube la versión global del catálogo dentro de la misma transacción que el cambio. Se hace justo
+ * antes del commit para retener el bloqueo de la fila del contador el menor tiempo posible. Los
+ * movimientos de stock no la toman: son el camino de escritura más caliente y todas las réplicas se
+ * serializarían en esa fila; {@link com.uamishop.catalogo.service.ProductoEventosService} los marca
+ * después, agrupados.
+ */
+@Component
+public class CatalogoVersionListener {
+
+    private final CatalogoVersionService catalogoVersionService;
+
+    public CatalogoVersionListener(CatalogoVersionService catalogoVersionService) {
+        this.catalogoVersionService = catalogoVersionService;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductoModificado(ProductoModificadoEvent event) {
+        if (event.soloStock()) {
+            return;
+        }
+        catalogoVersionService.incrementar();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCategoriaModificada(CategoriaModificadaEvent event) {
+        catalogoVersionService.incrementar();
+    }
+}
@@ -0,0 +1,65 @@
+package com.uamishop.catalogo.listener;
+
+import com.uamishop.catalogo.config.RabbitConfig;
+import com.uamishop.catalogo.service.ArbolCategoriasService;
+import com.uamishop.catalogo.service.CategoriaCache;
+import com.uamishop.catalogo.shared.domain.UuidV7;
+import com.uamishop.catalogo.shared.event.CategoriaModificadaEvent;
+import com.uamishop.catalogo.shared.event.CategoriasInvalidadasEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Mantiene coherente {@link CategoriaCache} entre réplicas, igual que
+ * {@link ProductoCacheInvalidacionListener} con los productos: tras el commit de un cambio se recarga
+ * la instantánea local y se avisa a las demás instancias, que recargan también su árbol de categorías.
+ */
+@Component
+public class CategoriaCacheInvalidacionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoriaCacheInvalidacionListener.class);
+
+    private final CategoriaCache categoriaCache;
+    private final ArbolCategoriasService arbolCategoriasService;
+    private final RabbitTemplate rabbitTemplate;
+    private final String instanciaId = UUID.randomUUID().toString();
+
+    public CategoriaCacheInvalidacionListener(CategoriaCache categoriaCache,
+                                              ArbolCategoriasService arbolCategoriasService,
+                                              RabbitTemplate rabbitTemplate) {
+        this.categoriaCache = categoriaCache;
+        this.arbolCategoriasService = arbolCategoriasService;
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoriaModificada(CategoriaModificadaEvent event) {
+        categoriaCache.recargar();
+        try {
+            rabbitTemplate.convertAndSend(
+                    RabbitConfig.EVENTS_EXCHANGE,
+                    RabbitConfig.RK_CATEGORIAS_INVALIDADAS,
+                    new CategoriasInvalidadasEvent(UuidV7.generar(), Instant.now(), event.categoriaId(), instanciaId));
+        } catch (AmqpException e) {
+            // Las demás réplicas la verán en su próxima recarga periódica
+            log.warn("No se pudo difundir el cambio de la categoría {}: {}", event.categoriaId(), e.getMessage());
+        }
+    }
+
+    @RabbitListener(queues = "#{catalogoCategoriasInvalidacionQueue.name}")
+    public void onCategoriasInvalidadas(CategoriasInvalidadasEvent event) {
+        if (!instanciaId.equals(event.instanciaOrigen())) {
+            categoriaCache.recargar();
+            arbolCategoriasService.recargar();
+        }
+    }
+}
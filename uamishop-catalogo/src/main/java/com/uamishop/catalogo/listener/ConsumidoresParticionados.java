@@ -0,0 +1,117 @@
+package com.uamishop.catalogo.listener;
+
+import com.uamishop.catalogo.config.RabbitConfig;
+import com.uamishop.catalogo.shared.event.ProductoAgregadoAlCarritoEvent;
+import com.uamishop.catalogo.shared.event.ProductoCompradoEvent;
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consumidores de las colas particionadas por producto (ver {@link RabbitConfig#colasParticionadas}).
+ * Se registran {@code catalogo.particiones.consumidores} contenedores por tipo de evento, cada uno con
+ * un solo hilo y dueño de las particiones {@code p} con {@code p % consumidores == i}: los eventos de
+ * un mismo producto se aplican siempre en orden y en un único hilo, y productos distintos avanzan en
+ * paralelo sin disputarse bloqueos de fila. Con 0 se usa un consumidor por núcleo, hasta
+ * {@link RabbitConfig#PARTICIONES}.
+ *
+ * <p>Las colas sin sufijo de antes de las particiones ya no se declaran ni se enlazan. Si en el broker
+ * quedan mensajes en ellas, {@code catalogo.particiones.drenar-colas-sin-particion=true} registra un
+ * consumidor más por cola para vaciarlas; después se borran a mano.</p>
+ */
+@Component
+public class ConsumidoresParticionados implements RabbitListenerConfigurer {
+
+    private final ProductoCompradoListener compradoListener;
+    private final ProductoAgregadoAlCarritoListener agregadoListener;
+    private final Jackson2JsonMessageConverter messageConverter;
+    private final SimpleRabbitListenerContainerFactory loteContainerFactory;
+    private final int consumidores;
+    private final boolean drenarColasSinParticion;
+
+    public ConsumidoresParticionados(ProductoCompradoListener compradoListener,
+                                     ProductoAgregadoAlCarritoListener agregadoListener,
+                                     Jackson2JsonMessageConverter messageConverter,
+                                     SimpleRabbitListenerContainerFactory productoCompradoLoteContainerFactory,
+                                     @Value("${catalogo.particiones.consumidores:0}") int consumidores,
+                                     @Value("${catalogo.particiones.drenar-colas-sin-particion:false}") boolean drenarColasSinParticion) {
+        this.compradoListener = compradoListener;
+        this.agregadoListener = agregadoListener;
+        this.messageConverter = messageConverter;
+        this.loteContainerFactory = productoCompradoLoteContainerFactory;
+        this.consumidores = consumidores > 0
+                ? Math.min(consumidores, RabbitConfig.PARTICIONES)
+                : Math.min(Runtime.getRuntime().availableProcessors(), RabbitConfig.PARTICIONES);
+        this.drenarColasSinParticion = drenarColasSinParticion;
+    }
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        for (int consumidor = 0; consumidor < consumidores; consumidor++) {
+            String[] compras = colas(RabbitConfig.QUEUE_CATALOGO_PRODUCTO_COMPRADO, consumidor, consumidores);
+            registrar.registerEndpoint(endpoint("compras-" + consumidor, compras,
+                    (BatchMessageListener) mensajes -> compradoListener.onProductosComprados(
+                            convertir(mensajes, ProductoCompradoEvent.class))), loteContainerFactory);
+
+            String[] agregados = colas(RabbitConfig.QUEUE_CATALOGO_PRODUCTO_AGREGADO, consumidor, consumidores);
+            registrar.registerEndpoint(endpoint("agregados-" + consumidor, agregados,
+                    mensaje -> agregadoListener.onProductoAgregadoAlCarrito(
+                            convertir(mensaje, ProductoAgregadoAlCarritoEvent.class))));
+        }
+        if (drenarColasSinParticion) {
+            registrar.registerEndpoint(endpoint("compras-sin-particion",
+                    new String[]{RabbitConfig.QUEUE_CATALOGO_PRODUCTO_COMPRADO},
+                    (BatchMessageListener) mensajes -> compradoListener.onProductosComprados(
+                            convertir(mensajes, ProductoCompradoEvent.class))), loteContainerFactory);
+            registrar.registerEndpoint(endpoint("agregados-sin-particion",
+                    new String[]{RabbitConfig.QUEUE_CATALOGO_PRODUCTO_AGREGADO},
+                    mensaje -> agregadoListener.onProductoAgregadoAlCarrito(
+                            convertir(mensaje, ProductoAgregadoAlCarritoEvent.class))));
+        }
+    }
+
+    /**
+     * Particiones que atiende el consumidor {@code consumidor} de {@code total}. Cada partición queda
+     * asignada a exactamente un consumidor.
+     */
+    static String[] colas(String cola, int consumidor, int total) {
+        List<String> colas = new ArrayList<>();
+        for (int particion = consumidor; particion < RabbitConfig.PARTICIONES; particion += total) {
+            colas.add(RabbitConfig.conParticion(cola, particion));
+        }
+        return colas.toArray(String[]::new);
+    }
+
+    <T> List<T> convertir(List<Message> mensajes, Class<T> tipo) {
+        List<T> eventos = new ArrayList<>(mensajes.size());
+        for (Message mensaje : mensajes) {
+            eventos.add(convertir(mensaje, tipo));
+        }
+        return eventos;
+    }
+
+    <T> T convertir(Message mensaje, Class<T> tipo) {
+        // Los productores escriben su propia clase en __TypeId__; aquí manda el tipo del catálogo
+        mensaje.getMessageProperties().setInferredArgumentType(tipo);
+        return tipo.cast(messageConverter.fromMessage(mensaje));
+    }
+
+    private static SimpleRabbitListenerEndpoint endpoint(String id, String[] colas, MessageListener listener) {
+        SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+        endpoint.setId("particionado-" + id);
+        endpoint.setQueueNames(colas);
+        endpoint.setConcurrency("1");
+        endpoint.setMessageListener(listener);
+        return endpoint;
+    }
+}
@@ -0,0 +1,36 @@
+package com.uamishop.catalogo.listener;
+
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import com.uamishop.catalogo.service.IndiceBusquedaProductos;
+import com.uamishop.catalogo.shared.event.ProductoModificadoEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Reindexa el texto de un producto cuando se crea, se edita, se activa o se desactiva; uno desactivado
+ * o eliminado sale del índice. Los demás cambios (stock, precio, imágenes) no llegan al índice. Los
+ * cambios hechos en otras réplicas los trae {@code SincronizacionIndicesJob}.
+ */
+@Component
+public class IndiceBusquedaListener {
+
+    private final IndiceBusquedaProductos indiceBusqueda;
+    private final ProductoProyeccionRepository proyeccionRepository;
+
+    public IndiceBusquedaListener(IndiceBusquedaProductos indiceBusqueda,
+                                  ProductoProyeccionRepository proyeccionRepository) {
+        this.indiceBusqueda = indiceBusqueda;
+        this.proyeccionRepository = proyeccionRepository;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductoModificado(ProductoModificadoEvent event) {
+        if (!event.textoModificado()) {
+            return;
+        }
+        proyeccionRepository.buscarTexto(event.productoId()).ifPresentOrElse(
+                indiceBusqueda::indexar,
+                () -> indiceBusqueda.eliminar(event.productoId()));
+    }
+}
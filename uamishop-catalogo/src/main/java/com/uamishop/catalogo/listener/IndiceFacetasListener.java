@@ -0,0 +1,36 @@
+package com.uamishop.catalogo.listener;
+
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import com.uamishop.catalogo.service.IndiceFacetas;
+import com.uamishop.catalogo.shared.event.ProductoModificadoEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Actualiza la posición del producto en el índice de facetas una vez confirmado el cambio. Lee solo
+ * los campos de faceta por clave primaria; un movimiento de stock no cambia ninguna faceta y no se
+ * lee. Los cambios hechos en otras réplicas los trae {@code SincronizacionIndicesJob}.
+ */
+@Component
+public class IndiceFacetasListener {
+
+    private final IndiceFacetas indiceFacetas;
+    private final ProductoProyeccionRepository proyeccionRepository;
+
+    public IndiceFacetasListener(IndiceFacetas indiceFacetas,
+                                 ProductoProyeccionRepository proyeccionRepository) {
+        this.indiceFacetas = indiceFacetas;
+        this.proyeccionRepository = proyeccionRepository;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductoModificado(ProductoModificadoEvent event) {
+        if (event.soloStock()) {
+            return;
+        }
+        proyeccionRepository.buscarFaceta(event.productoId()).ifPresentOrElse(
+                indiceFacetas::actualizar,
+                () -> indiceFacetas.eliminar(event.productoId()));
+    }
+}
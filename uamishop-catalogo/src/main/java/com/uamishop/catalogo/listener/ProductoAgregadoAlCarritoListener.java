@@ -1,12 +1,8 @@
 package com.uamishop.catalogo.listener;
 
-import com.uamishop.catalogo.config.RabbitConfig;
 import com.uamishop.catalogo.service.ProductoEstadisticasService;
 import com.uamishop.catalogo.shared.event.ProductoAgregadoAlCarritoEvent;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
 @Component
 public class ProductoAgregadoAlCarritoListener {
@@ -17,9 +13,8 @@ public class ProductoAgregadoAlCarritoListener {
         this.estadisticasService = estadisticasService;
     }
 
-    @RabbitListener(queues = RabbitConfig.QUEUE_CATALOGO_PRODUCTO_AGREGADO)
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    // Lo invocan los contenedores de ConsumidoresParticionados
     public void onProductoAgregadoAlCarrito(ProductoAgregadoAlCarritoEvent event) {
-        estadisticasService.registrarAgregadoAlCarrito(event.productoId());
+        estadisticasService.registrarAgregadoAlCarrito(event.eventId(), event.productoId());
     }
 }
\ No newline at end of file
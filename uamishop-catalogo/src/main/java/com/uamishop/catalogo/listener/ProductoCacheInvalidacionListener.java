@@ -0,0 +1,58 @@
+package com.uamishop.catalogo.listener;
+
+import com.uamishop.catalogo.config.RabbitConfig;
+import com.uamishop.catalogo.service.ProductoCache;
+import com.uamishop.catalogo.shared.event.ProductoCacheInvalidadoEvent;
+import com.uamishop.catalogo.shared.event.ProductoModificadoEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Mantiene coherente {@link ProductoCache} entre réplicas: tras el commit de un cambio se
+ * invalida la entrada local y se avisa a las demás instancias por {@code uamishop.events}.
+ */
+@Component
+public class ProductoCacheInvalidacionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductoCacheInvalidacionListener.class);
+
+    private final ProductoCache productoCache;
+    private final RabbitTemplate rabbitTemplate;
+    private final String instanciaId = UUID.randomUUID().toString();
+
+    public ProductoCacheInvalidacionListener(ProductoCache productoCache, RabbitTemplate rabbitTemplate) {
+        this.productoCache = productoCache;
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    // Después del commit: si se invalidara antes, una lectura concurrente podría volver a cachear el valor viejo
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductoModificado(ProductoModificadoEvent event) {
+        productoCache.invalidar(event.productoId());
+        try {
+            rabbitTemplate.convertAndSend(
+                    RabbitConfig.EVENTS_EXCHANGE,
+                    RabbitConfig.RK_PRODUCTO_CACHE_INVALIDADO,
+                    new ProductoCacheInvalidadoEvent(UUID.randomUUID(), Instant.now(), event.productoId(), instanciaId));
+        } catch (AmqpException e) {
+            // Las demás réplicas conservarán el valor viejo como máximo hasta que expire la entrada
+            log.warn("No se pudo difundir la invalidación del producto {}: {}", event.productoId(), e.getMessage());
+        }
+    }
+
+    @RabbitListener(queues = "#{catalogoCacheInvalidacionQueue.name}")
+    public void onProductoCacheInvalidado(ProductoCacheInvalidadoEvent event) {
+        if (!instanciaId.equals(event.instanciaOrigen())) {
+            productoCache.invalidarPorOtraInstancia(event.productoId());
+        }
+    }
+}
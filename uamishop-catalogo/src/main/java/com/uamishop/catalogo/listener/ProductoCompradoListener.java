@@ -1,32 +1,47 @@
 package com.uamishop.catalogo.listener;
 
 import com.uamishop.catalogo.config.RabbitConfig;
-import com.uamishop.catalogo.service.ProductoEstadisticasService;
-import com.uamishop.catalogo.service.ProductoService;
+import com.uamishop.catalogo.service.CompraService;
 import com.uamishop.catalogo.shared.event.ProductoCompradoEvent;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import com.uamishop.catalogo.shared.exception.DomainException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
+/**
+ * Consume las compras en lotes (ver {@link RabbitConfig#productoCompradoLoteContainerFactory}) de las
+ * colas particionadas; los contenedores los registra {@link ConsumidoresParticionados}.
+ * Si el lote falla por una regla de negocio (producto inexistente, stock insuficiente) se reprocesa
+ * evento por evento para aplicar los válidos y descartar solo los que no pueden aplicarse nunca.
+ * Cualquier otro error revierte el lote completo y RabbitMQ lo vuelve a entregar.
+ */
 @Component
 public class ProductoCompradoListener {
 
-    private final ProductoEstadisticasService estadisticasService;
-    private final ProductoService productoService;
+    private static final Logger log = LoggerFactory.getLogger(ProductoCompradoListener.class);
+
+    private final CompraService compraService;
+
+    public ProductoCompradoListener(CompraService compraService) {
+        this.compraService = compraService;
+    }
 
-    public ProductoCompradoListener(ProductoEstadisticasService estadisticasService,
-                                    ProductoService productoService) {
-        this.estadisticasService = estadisticasService;
-        this.productoService = productoService;
+    public void onProductosComprados(List<ProductoCompradoEvent> eventos) {
+        try {
+            compraService.registrarCompras(eventos);
+        } catch (DomainException | IllegalArgumentException e) {
+            log.warn("Lote de {} compras rechazado ({}); se aplica evento por evento", eventos.size(), e.getMessage());
+            eventos.forEach(this::registrarIndividual);
+        }
     }
 
-    @RabbitListener(queues = RabbitConfig.QUEUE_CATALOGO_PRODUCTO_COMPRADO)
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void onProductoComprado(ProductoCompradoEvent event) {
-        event.items().forEach(item -> {
-            estadisticasService.registrarVenta(item.productoId(), item.cantidad());
-            productoService.disminuirStock(item.productoId(), item.cantidad());
-        });
+    private void registrarIndividual(ProductoCompradoEvent evento) {
+        try {
+            compraService.registrarCompras(List.of(evento));
+        } catch (DomainException | IllegalArgumentException e) {
+            log.error("Compra de la orden {} descartada (evento {}): {}", evento.ordenId(), evento.eventId(), e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
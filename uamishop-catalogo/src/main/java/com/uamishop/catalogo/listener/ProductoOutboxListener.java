@@ -0,0 +1,83 @@
+package com.uamishop.catalogo.listener;
+
+import com.uamishop.catalogo.service.ProductoEventosService;
+import com.uamishop.catalogo.shared.event.ProductoModificadoEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Junta los productos modificados en la transacción y, justo antes del commit, escribe un evento de
+ * outbox por producto con una sola consulta de estado. Un producto tocado varias veces en la misma
+ * transacción produce un único evento. Si todos sus cambios fueron de stock, la transacción solo deja
+ * su marca pendiente y la secuencia de cambios se le asigna después, agrupada con los demás
+ * movimientos de stock.
+ */
+@Component
+public class ProductoOutboxListener {
+
+    private final ProductoEventosService productoEventosService;
+    private final TransactionTemplate transactionTemplate;
+
+    public ProductoOutboxListener(ProductoEventosService productoEventosService,
+                                  TransactionTemplate transactionTemplate) {
+        this.productoEventosService = productoEventosService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener
+    public void onProductoModificado(ProductoModificadoEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<UUID> ids = List.of(event.productoId());
+            if (event.soloStock()) {
+                transactionTemplate.executeWithoutResult(status -> productoEventosService.registrarCambiosStock(ids));
+            } else {
+                transactionTemplate.executeWithoutResult(status -> productoEventosService.registrarActualizaciones(ids));
+            }
+            return;
+        }
+        Productos productos = productosDeLaTransaccion();
+        if (event.soloStock()) {
+            if (!productos.catalogo().contains(event.productoId())) {
+                productos.stock().add(event.productoId());
+            }
+        } else {
+            productos.stock().remove(event.productoId());
+            productos.catalogo().add(event.productoId());
+        }
+    }
+
+    private Productos productosDeLaTransaccion() {
+        Productos productos = (Productos) TransactionSynchronizationManager.getResource(this);
+        if (productos != null) {
+            return productos;
+        }
+        Productos nuevos = new Productos(new LinkedHashSet<>(), new LinkedHashSet<>());
+        TransactionSynchronizationManager.bindResource(this, nuevos);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                productoEventosService.registrarActualizaciones(nuevos.catalogo());
+                productoEventosService.registrarCambiosStock(nuevos.stock());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ProductoOutboxListener.this);
+            }
+        });
+        return nuevos;
+    }
+
+    /**
+     * Productos de la transacción con algún cambio de catálogo y, aparte, los que solo movieron stock.
+     */
+    private record Productos(Set<UUID> catalogo, Set<UUID> stock) {}
+}
@@ -0,0 +1,36 @@
+package com.uamishop.catalogo.listener;
+
+import com.uamishop.catalogo.config.RabbitConfig;
+import com.uamishop.catalogo.service.ReservaStockService;
+import com.uamishop.catalogo.shared.event.CarritoAbandonadoEvent;
+import com.uamishop.catalogo.shared.event.OrdenCreadaEvent;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sin inbox a propósito: las dos operaciones solo actúan sobre reservas ACTIVA y dejan el mismo
+ * estado si se repiten. Asociar la orden vuelve a asignar la misma orden (y alarga el vencimiento
+ * desde ahora), y liberar un carrito ya liberado no encuentra reservas. Registrar el evento costaría
+ * una escritura más por mensaje sin cambiar el resultado.
+ */
+@Component
+public class ReservaStockListener {
+
+    private final ReservaStockService reservaStockService;
+
+    public ReservaStockListener(ReservaStockService reservaStockService) {
+        this.reservaStockService = reservaStockService;
+    }
+
+    @RabbitListener(queues = RabbitConfig.QUEUE_CATALOGO_ORDEN_CREADA)
+    public void onOrdenCreada(OrdenCreadaEvent event) {
+        if (event.carritoId() != null) {
+            reservaStockService.asociarOrden(event.carritoId(), event.ordenId());
+        }
+    }
+
+    @RabbitListener(queues = RabbitConfig.QUEUE_CATALOGO_CARRITO_ABANDONADO)
+    public void onCarritoAbandonado(CarritoAbandonadoEvent event) {
+        reservaStockService.liberarCarrito(event.carritoId());
+    }
+}
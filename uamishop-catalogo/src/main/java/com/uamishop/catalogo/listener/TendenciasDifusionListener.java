@@ -0,0 +1,59 @@
+package com.uamishop.catalogo.listener;
+
+import com.uamishop.catalogo.config.RabbitConfig;
+import com.uamishop.catalogo.service.IndiceTendencias;
+import com.uamishop.catalogo.shared.event.TendenciasInstantaneaEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Intercambia entre réplicas los puntajes de tendencia propios de cada una (ver
+ * {@link IndiceTendencias}): cada réplica difunde su último recálculo y guarda el de las demás.
+ */
+@Component
+public class TendenciasDifusionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TendenciasDifusionListener.class);
+
+    private final IndiceTendencias indiceTendencias;
+    private final RabbitTemplate rabbitTemplate;
+    private final String instanciaId = UUID.randomUUID().toString();
+
+    public TendenciasDifusionListener(IndiceTendencias indiceTendencias, RabbitTemplate rabbitTemplate) {
+        this.indiceTendencias = indiceTendencias;
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    @Scheduled(initialDelayString = "${catalogo.tendencias.refresco-ms:5000}",
+            fixedDelayString = "${catalogo.tendencias.refresco-ms:5000}")
+    public void difundir() {
+        IndiceTendencias.PuntajesLocales locales = indiceTendencias.obtenerLocales();
+        if (locales.puntajes().isEmpty()) {
+            return;
+        }
+        try {
+            rabbitTemplate.convertAndSend(
+                    RabbitConfig.EVENTS_EXCHANGE,
+                    RabbitConfig.RK_TENDENCIAS_INSTANTANEA,
+                    new TendenciasInstantaneaEvent(UUID.randomUUID(), locales.calculadosEn(), instanciaId,
+                            locales.puntajes()));
+        } catch (AmqpException e) {
+            // Las demás réplicas dejan de contar esta actividad hasta el siguiente envío
+            log.warn("No se pudieron difundir las tendencias: {}", e.getMessage());
+        }
+    }
+
+    @RabbitListener(queues = "#{catalogoTendenciasQueue.name}")
+    public void onTendenciasInstantanea(TendenciasInstantaneaEvent event) {
+        if (!instanciaId.equals(event.instanciaOrigen())) {
+            indiceTendencias.incorporarRemota(event.instanciaOrigen(), event.occurredAt(), event.puntajes());
+        }
+    }
+}
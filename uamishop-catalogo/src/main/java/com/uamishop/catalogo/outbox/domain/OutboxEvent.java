@@ -0,0 +1,86 @@
+package com.uamishop.catalogo.outbox.domain;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Evento escrito en la misma transacción que el cambio que lo origina y publicado después en
+ * {@code uamishop.events} por {@link com.uamishop.catalogo.outbox.service.OutboxPublisher}.
+ */
+@Entity
+// Los servicios comparten la base: outbox_events es de ordenes y su publicador tomaría estos eventos
+@Table(name = "catalogo_outbox_events", indexes = {
+        // El publicador recorre los pendientes por antigüedad y la limpieza los publicados viejos
+        @Index(name = "idx_outbox_status_created", columnList = "status, createdAt")
+})
+public class OutboxEvent implements Persistable<UUID> {
+
+    @Id
+    @Column(nullable = false, updatable = false)
+    private UUID id;
+
+    @Column(nullable = false)
+    private String aggregateType;
+
+    @Column(nullable = false)
+    private String aggregateId;
+
+    @Column(nullable = false)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false)
+    private String routingKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    private Instant publishedAt;
+
+    // El id se asigna en el constructor: sin esto save() haría un SELECT antes de cada INSERT
+    @Transient
+    private boolean nuevo = true;
+
+    protected OutboxEvent() {}
+
+    public OutboxEvent(UUID id, String aggregateType, String aggregateId,
+                       String eventType, String payload, String routingKey) {
+        this.id = id;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.routingKey = routingKey;
+        this.status = OutboxStatus.PENDIENTE;
+        this.createdAt = Instant.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarExistente() {
+        this.nuevo = false;
+    }
+
+    @Override
+    public boolean isNew() { return nuevo; }
+
+    @Override
+    public UUID getId() { return id; }
+    public String getAggregateType() { return aggregateType; }
+    public String getAggregateId() { return aggregateId; }
+    public String getEventType() { return eventType; }
+    public String getPayload() { return payload; }
+    public String getRoutingKey() { return routingKey; }
+    public OutboxStatus getStatus() { return status; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getPublishedAt() { return publishedAt; }
+}
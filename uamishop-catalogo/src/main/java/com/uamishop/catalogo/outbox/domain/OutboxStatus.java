@@ -0,0 +1,6 @@
+package com.uamishop.catalogo.outbox.domain;
+
+public enum OutboxStatus {
+    PENDIENTE,
+    PUBLICADO
+}
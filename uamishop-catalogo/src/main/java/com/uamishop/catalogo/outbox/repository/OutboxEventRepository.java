@@ -0,0 +1,42 @@
+package com.uamishop.catalogo.outbox.repository;
+
+import com.uamishop.catalogo.outbox.domain.OutboxEvent;
+import com.uamishop.catalogo.outbox.domain.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+
+    /**
+     * Pendientes más antiguos, bloqueados hasta el commit. Con SKIP LOCKED dos réplicas que publican
+     * a la vez se reparten los eventos en lugar de enviarlos dos veces.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from OutboxEvent e where e.status = :status order by e.createdAt")
+    List<OutboxEvent> findPendientes(@Param("status") OutboxStatus status, Pageable pagina);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.status = com.uamishop.catalogo.outbox.domain.OutboxStatus.PUBLICADO, "
+            + "e.publishedAt = :ahora where e.id in :ids")
+    int marcarPublicados(@Param("ids") Collection<UUID> ids, @Param("ahora") Instant ahora);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.status = com.uamishop.catalogo.outbox.domain.OutboxStatus.PUBLICADO "
+            + "and e.createdAt < :limite")
+    int eliminarPublicadosAntesDe(@Param("limite") Instant limite);
+}
@@ -0,0 +1,113 @@
+package com.uamishop.catalogo.outbox.service;
+
+import com.uamishop.catalogo.config.RabbitConfig;
+import com.uamishop.catalogo.outbox.domain.OutboxEvent;
+import com.uamishop.catalogo.outbox.domain.OutboxStatus;
+import com.uamishop.catalogo.outbox.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Publica el outbox cada {@code catalogo.outbox.intervalo-ms}. Los eventos de un mismo agregado
+ * acumulados en esa ventana se fusionan: solo se envía el más reciente, que ya trae el estado
+ * completo, y todos quedan marcados como publicados. Si el broker falla se detiene el ciclo y los
+ * no enviados siguen pendientes para el siguiente.
+ */
+@Component
+public class OutboxPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxPublisher.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final int lote;
+    private final Duration retencion;
+
+    public OutboxPublisher(OutboxEventRepository outboxEventRepository,
+                           RabbitTemplate rabbitTemplate,
+                           @Value("${catalogo.outbox.lote:1000}") int lote,
+                           @Value("${catalogo.outbox.retencion:7d}") Duration retencion) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.lote = lote;
+        this.retencion = retencion;
+    }
+
+    @Scheduled(initialDelayString = "${catalogo.outbox.intervalo-ms:1000}",
+            fixedDelayString = "${catalogo.outbox.intervalo-ms:1000}")
+    @Transactional
+    public int publicarEventosPendientes() {
+        List<OutboxEvent> pendientes = outboxEventRepository
+                .findPendientes(OutboxStatus.PENDIENTE, PageRequest.of(0, lote));
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+
+        // Último evento por agregado, en el orden en que llegó ese último
+        Map<String, List<OutboxEvent>> porAgregado = new LinkedHashMap<>();
+        for (OutboxEvent evento : pendientes) {
+            String clave = evento.getAggregateType() + ':' + evento.getAggregateId();
+            List<OutboxEvent> eventos = porAgregado.remove(clave);
+            if (eventos == null) {
+                eventos = new ArrayList<>();
+            }
+            eventos.add(evento);
+            porAgregado.put(clave, eventos);
+        }
+
+        List<UUID> publicados = new ArrayList<>(pendientes.size());
+        int enviados = 0;
+        for (List<OutboxEvent> eventos : porAgregado.values()) {
+            OutboxEvent ultimo = eventos.get(eventos.size() - 1);
+            try {
+                rabbitTemplate.send(RabbitConfig.EVENTS_EXCHANGE, ultimo.getRoutingKey(), mensaje(ultimo));
+            } catch (AmqpException e) {
+                log.error("Error publicando evento outbox id={}: {}", ultimo.getId(), e.getMessage());
+                break;
+            }
+            eventos.forEach(evento -> publicados.add(evento.getId()));
+            enviados++;
+        }
+        if (!publicados.isEmpty()) {
+            outboxEventRepository.marcarPublicados(publicados, Instant.now());
+            log.debug("Outbox: {} eventos publicados como {} mensajes", publicados.size(), enviados);
+        }
+        return enviados;
+    }
+
+    @Scheduled(fixedDelayString = "${catalogo.outbox.limpieza-ms:3600000}",
+            initialDelayString = "${catalogo.outbox.limpieza-ms:3600000}")
+    @Transactional
+    public void eliminarPublicados() {
+        int eliminados = outboxEventRepository.eliminarPublicadosAntesDe(Instant.now().minus(retencion));
+        if (eliminados > 0) {
+            log.info("Outbox: {} eventos publicados eliminados", eliminados);
+        }
+    }
+
+    private static Message mensaje(OutboxEvent evento) {
+        MessageProperties props = new MessageProperties();
+        props.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        props.setHeader("__TypeId__", evento.getEventType());
+        props.setMessageId(evento.getId().toString());
+        return new Message(evento.getPayload().getBytes(StandardCharsets.UTF_8), props);
+    }
+}
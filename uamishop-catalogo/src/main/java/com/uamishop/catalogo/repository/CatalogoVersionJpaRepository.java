@@ -0,0 +1,24 @@
+package com.uamishop.catalogo.repository;
+
+import com.uamishop.catalogo.domain.CatalogoVersion;
+import com.uamishop.catalogo.dto.VersionRecurso;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface CatalogoVersionJpaRepository extends JpaRepository<CatalogoVersion, Integer> {
+
+    @Modifying
+    @Query("update CatalogoVersion c set c.version = c.version + 1, c.actualizadoEn = :ahora where c.id = :id")
+    int incrementar(@Param("id") int id, @Param("ahora") Instant ahora);
+
+    @Query("select new com.uamishop.catalogo.dto.VersionRecurso(c.version, c.actualizadoEn) "
+            + "from CatalogoVersion c where c.id = :id")
+    Optional<VersionRecurso> findVersion(@Param("id") int id);
+}
@@ -2,9 +2,18 @@ package com.uamishop.catalogo.repository;
 
 import com.uamishop.catalogo.domain.Categoria;
 import com.uamishop.catalogo.domain.CategoriaId;
+import com.uamishop.catalogo.dto.VersionRecurso;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface CategoriaJpaRepository extends JpaRepository<Categoria, CategoriaId> {
+
+    @Query("select new com.uamishop.catalogo.dto.VersionRecurso(c.version, c.actualizadoEn) "
+            + "from Categoria c where c.id = :id")
+    Optional<VersionRecurso> findVersion(@Param("id") CategoriaId id);
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.uamishop.catalogo.repository;
+
+import com.uamishop.catalogo.domain.CategoriaRelacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CategoriaRelacionJpaRepository extends JpaRepository<CategoriaRelacion, CategoriaRelacion.Clave> {
+
+    /** Ancestros de la categoría, incluida ella misma con profundidad 0. */
+    @Query("select r from CategoriaRelacion r where r.id.descendienteId = :id")
+    List<CategoriaRelacion> findAncestros(@Param("id") UUID descendienteId);
+
+    /** Subárbol de la categoría, incluida ella misma con profundidad 0. */
+    @Query("select r from CategoriaRelacion r where r.id.ancestroId = :id")
+    List<CategoriaRelacion> findDescendientes(@Param("id") UUID ancestroId);
+
+    @Query("select count(r) > 0 from CategoriaRelacion r where r.id.ancestroId = :ancestro and r.id.descendienteId = :descendiente")
+    boolean esAncestro(@Param("ancestro") UUID ancestroId, @Param("descendiente") UUID descendienteId);
+
+    @Query("select count(r) from CategoriaRelacion r where r.profundidad = 0")
+    long countCategorias();
+
+    // Vacía el contexto de persistencia: las filas borradas pueden volver a insertarse en la misma transacción
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from CategoriaRelacion r where r.id.ancestroId in :ancestros and r.id.descendienteId in :descendientes")
+    int eliminar(@Param("ancestros") Collection<UUID> ancestroIds,
+                 @Param("descendientes") Collection<UUID> descendienteIds);
+}
@@ -0,0 +1,24 @@
+package com.uamishop.catalogo.repository;
+
+import com.uamishop.catalogo.domain.MarcaStockPendiente;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface MarcaStockPendienteJpaRepository extends JpaRepository<MarcaStockPendiente, Long> {
+
+    @Query("select m from MarcaStockPendiente m order by m.id")
+    List<MarcaStockPendiente> findPendientes(Pageable pageable);
+
+    /**
+     * Borra solo las filas leídas: las que se confirmen durante el volcado quedan para el siguiente.
+     */
+    @Modifying
+    @Query("delete from MarcaStockPendiente m where m.id in :ids")
+    int eliminar(@Param("ids") Collection<Long> ids);
+}
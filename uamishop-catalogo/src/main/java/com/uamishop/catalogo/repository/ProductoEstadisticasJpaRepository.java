@@ -2,16 +2,17 @@ package com.uamishop.catalogo.repository;
 
 import com.uamishop.catalogo.domain.ProductoEstadisticas;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import java.util.List;
 import java.util.UUID;
 
 public interface ProductoEstadisticasJpaRepository extends JpaRepository<ProductoEstadisticas, UUID> {
 
+    // ORDER BY ... LIMIT resuelto en la base sobre idx_estadisticas_cantidad_vendida
+    List<ProductoEstadisticas> findByOrderByCantidadVendidaDesc(Pageable pageable);
+
     default List<ProductoEstadisticas> findMasVendidos(int limit) {
-        return findAll(Sort.by(Sort.Direction.DESC, "cantidadVendida"))
-            .stream()
-            .limit(limit)
-            .toList();
+        return findByOrderByCantidadVendidaDesc(PageRequest.of(0, limit));
     }
 }
\ No newline at end of file
@@ -1,10 +1,109 @@
 package com.uamishop.catalogo.repository;
 
+import com.uamishop.catalogo.domain.Imagen;
 import com.uamishop.catalogo.domain.Producto;
+import com.uamishop.catalogo.dto.DisponibilidadResponse;
+import com.uamishop.catalogo.dto.VersionProducto;
+import com.uamishop.catalogo.dto.VersionRecurso;
 import com.uamishop.catalogo.shared.domain.ProductoId; // <-- Importación corregida
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
 @Repository
 public interface ProductoJpaRepository extends JpaRepository<Producto, ProductoId> {
-}
\ No newline at end of file
+
+    boolean existsBySku(String sku);
+
+    /**
+     * Decremento condicional en una sola sentencia: la fila solo se bloquea durante el UPDATE
+     * y dos compras concurrentes no pueden pisarse. Una compra sin reserva solo puede tomar el
+     * disponible para prometer: las unidades reservadas por otros carritos no se tocan. Devuelve 0
+     * si no hay stock suficiente o el producto no existe.
+     */
+    @Modifying
+    @Query("update Producto p set p.stock = p.stock - :cantidad, p.version = p.version + 1, p.actualizadoEn = :ahora "
+            + "where p.id = :id and p.stock - p.stockReservado >= :cantidad")
+    int disminuirStock(@Param("id") ProductoId id, @Param("cantidad") int cantidad, @Param("ahora") Instant ahora);
+
+    /**
+     * Aparta unidades solo si el disponible para prometer (stock - reservado) alcanza.
+     * No incrementa la versión: el stock reservado no forma parte de la representación del producto.
+     */
+    @Modifying
+    @Query("update Producto p set p.stockReservado = p.stockReservado + :cantidad "
+            + "where p.id = :id and p.stock - p.stockReservado >= :cantidad")
+    int reservarStock(@Param("id") ProductoId id, @Param("cantidad") int cantidad);
+
+    @Modifying
+    @Query("update Producto p set p.stockReservado = case when p.stockReservado > :cantidad "
+            + "then p.stockReservado - :cantidad else 0 end where p.id = :id")
+    int liberarStockReservado(@Param("id") ProductoId id, @Param("cantidad") int cantidad);
+
+    /**
+     * Convierte una reserva en venta: descuenta lo comprado del stock y lo reservado del stock
+     * reservado en la misma sentencia. Lo comprado de más sobre la propia reserva tiene que caber en
+     * lo que no está reservado por otros carritos.
+     */
+    @Modifying
+    @Query("update Producto p set p.stock = p.stock - :comprada, "
+            + "p.stockReservado = case when p.stockReservado > :reservada then p.stockReservado - :reservada else 0 end, "
+            + "p.version = p.version + 1, p.actualizadoEn = :ahora "
+            + "where p.id = :id and p.stock - (case when p.stockReservado > :reservada "
+            + "then p.stockReservado - :reservada else 0 end) >= :comprada")
+    int confirmarReserva(@Param("id") ProductoId id,
+                         @Param("comprada") int comprada,
+                         @Param("reservada") int reservada,
+                         @Param("ahora") Instant ahora);
+
+    /**
+     * Marca los productos con la versión del catálogo de la transacción que los cambió. No toca
+     * {@code version}: la secuencia de cambios no forma parte de la representación del producto.
+     */
+    @Modifying
+    @Query("update Producto p set p.cambioSeq = :secuencia where p.id.valor in :ids")
+    int marcarCambio(@Param("ids") Collection<UUID> ids, @Param("secuencia") long secuencia);
+
+    /**
+     * Versión y fecha de última modificación, para responder un GET condicional sin leer el producto.
+     */
+    @Query("select new com.uamishop.catalogo.dto.VersionRecurso(p.version, p.actualizadoEn) "
+            + "from Producto p where p.id = :id")
+    Optional<VersionRecurso> findVersion(@Param("id") ProductoId id);
+
+    @Query("select new com.uamishop.catalogo.dto.DisponibilidadResponse(p.id.valor, p.stock, p.stockReservado) "
+            + "from Producto p where p.id = :id")
+    Optional<DisponibilidadResponse> findDisponibilidad(@Param("id") ProductoId id);
+
+    /**
+     * Productos cuyas imágenes siguen en {@code producto_imagenes}, con su versión, en orden de id.
+     */
+    @Query("select new com.uamishop.catalogo.dto.VersionProducto(p.id.valor, p.version) "
+            + "from Producto p where p.imagenesCompactas is null order by p.id.valor")
+    List<VersionProducto> findSinImagenesCompactas(Pageable pageable);
+
+    @Query("select p.id.valor, i from Producto p join p.imagenes i where p.id.valor in :ids")
+    List<Object[]> findImagenes(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Pasa el producto al modo compacto solo si nadie lo modificó desde que se leyó su versión. Sube la
+     * versión para que una transacción que tenga cargada la anterior falle en lugar de agregar una
+     * imagen a {@code producto_imagenes} que ya nadie leería. Devuelve 0 si el producto cambió.
+     */
+    @Modifying
+    @Query("update Producto p set p.imagenesCompactas = :imagenes, p.version = p.version + 1, p.actualizadoEn = :ahora "
+            + "where p.id.valor = :id and p.version = :version and p.imagenesCompactas is null")
+    int compactarImagenes(@Param("id") UUID id,
+                          @Param("version") long version,
+                          @Param("imagenes") List<Imagen> imagenes,
+                          @Param("ahora") Instant ahora);
+}
@@ -0,0 +1,367 @@
+package com.uamishop.catalogo.repository;
+
+import com.uamishop.catalogo.domain.CategoriaRelacion;
+import com.uamishop.catalogo.domain.Imagen;
+import com.uamishop.catalogo.domain.Producto;
+import com.uamishop.catalogo.dto.CambioProducto;
+import com.uamishop.catalogo.dto.FiltroProductos;
+import com.uamishop.catalogo.dto.ProductoFaceta;
+import com.uamishop.catalogo.dto.ProductoFila;
+import com.uamishop.catalogo.dto.ProductoResponse;
+import com.uamishop.catalogo.dto.ProductoTexto;
+import com.uamishop.catalogo.dto.SecuenciaProducto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Lado de lectura del catálogo. Proyecta las filas de {@code producto} directamente a DTOs y
+ * carga las URLs de {@code producto_imagenes} en lotes con IN, de modo que un listado cuesta
+ * una consulta de productos más una de imágenes por cada {@value #TAMANIO_LOTE_IN} productos,
+ * en lugar de una consulta de imágenes por producto. Los productos en modo compacto traen sus
+ * imágenes en la propia fila ({@code imagenes_json}) y no entran en la consulta de imágenes.
+ */
+@Repository
+public class ProductoProyeccionRepository {
+
+    static final int TAMANIO_LOTE_IN = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public Optional<ProductoResponse> buscarPorId(UUID id) {
+        return buscarPorIds(List.of(id)).stream().findFirst();
+    }
+
+    /**
+     * Productos con los ids indicados, en orden de id. Los ids inexistentes se omiten.
+     */
+    public List<ProductoResponse> buscarPorIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return conImagenes(buscarFilasPorIds(ids));
+    }
+
+    /**
+     * Filas de los productos indicados sin imágenes, en orden de id. Los ids inexistentes se omiten.
+     */
+    public List<ProductoFila> buscarFilasPorIds(Collection<UUID> ids) {
+        List<ProductoFila> filas = new ArrayList<>(ids.size());
+        for (List<UUID> lote : enLotes(new ArrayList<>(ids))) {
+            filas.addAll(consultarFilas((cb, query, producto) -> new Predicate[]{
+                    producto.get("id").get("valor").in(lote)
+            }, Integer.MAX_VALUE));
+        }
+        return filas;
+    }
+
+    /**
+     * Productos con los SKUs indicados, en orden de id. Los SKUs inexistentes se omiten.
+     */
+    public List<ProductoResponse> buscarPorSkus(Collection<String> skus) {
+        if (skus.isEmpty()) {
+            return List.of();
+        }
+        List<ProductoFila> filas = new ArrayList<>(skus.size());
+        for (List<String> lote : enLotes(new ArrayList<>(skus))) {
+            filas.addAll(consultarFilas((cb, query, producto) -> new Predicate[]{
+                    producto.get("sku").in(lote)
+            }, Integer.MAX_VALUE));
+        }
+        return conImagenes(filas);
+    }
+
+    public Optional<ProductoResponse> buscarPorSku(String sku) {
+        return buscarPorSkus(List.of(sku)).stream().findFirst();
+    }
+
+    public List<ProductoResponse> buscarTodos() {
+        return conImagenes(consultarFilas((cb, query, producto) -> new Predicate[0], Integer.MAX_VALUE));
+    }
+
+    /**
+     * Página por keyset: los primeros {@code limite} productos que cumplen el filtro con id
+     * estrictamente mayor que {@code despuesDe}, ordenados por id. Con {@code despuesDe} nulo
+     * se devuelve la primera página.
+     */
+    public List<ProductoResponse> buscarPagina(FiltroProductos filtro, UUID despuesDe, int limite) {
+        return conImagenes(consultarFilas((cb, query, producto) -> {
+            List<Predicate> condiciones = new ArrayList<>();
+            Path<UUID> id = producto.get("id").get("valor");
+            if (despuesDe != null) {
+                condiciones.add(cb.greaterThan(id, despuesDe));
+            }
+            if (filtro.categoriaId() != null) {
+                condiciones.add(cb.equal(producto.get("categoriaId").get("id"), filtro.categoriaId()));
+            }
+            if (filtro.disponible() != null) {
+                condiciones.add(cb.equal(producto.get("disponible"), filtro.disponible()));
+            }
+            Path<BigDecimal> precio = producto.get("precio").get("cantidad");
+            if (filtro.precioMin() != null) {
+                condiciones.add(cb.greaterThanOrEqualTo(precio, filtro.precioMin()));
+            }
+            if (filtro.precioMax() != null) {
+                condiciones.add(cb.lessThanOrEqualTo(precio, filtro.precioMax()));
+            }
+            return condiciones.toArray(new Predicate[0]);
+        }, limite));
+    }
+
+    /**
+     * Página por keyset de los productos de la categoría y de todas sus subcategorías. El subárbol
+     * sale de la tabla de clausura en la misma consulta, sin recorrer el árbol nivel por nivel.
+     */
+    public List<ProductoResponse> buscarPaginaSubarbol(UUID categoriaId, UUID despuesDe, int limite) {
+        return conImagenes(consultarFilas((cb, query, producto) -> {
+            Subquery<UUID> subarbol = query.subquery(UUID.class);
+            Root<CategoriaRelacion> relacion = subarbol.from(CategoriaRelacion.class);
+            subarbol.select(relacion.get("id").get("descendienteId"))
+                    .where(cb.equal(relacion.get("id").get("ancestroId"), categoriaId));
+
+            List<Predicate> condiciones = new ArrayList<>();
+            condiciones.add(producto.get("categoriaId").get("id").in(subarbol));
+            if (despuesDe != null) {
+                condiciones.add(cb.greaterThan(producto.get("id").get("valor"), despuesDe));
+            }
+            return condiciones.toArray(new Predicate[0]);
+        }, limite));
+    }
+
+    /**
+     * Cambios por keyset de (secuencia, id): los productos con secuencia mayor que
+     * {@code secuencia}, o con la misma secuencia e id mayor que {@code despuesDe} si no es nulo.
+     * Los desactivados se devuelven como baja sin leer sus columnas ni sus imágenes.
+     */
+    public List<CambioProducto> buscarCambios(long secuencia, UUID despuesDe, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Producto> producto = query.from(Producto.class);
+        Path<UUID> id = producto.get("id").get("valor");
+        Path<Long> cambioSeq = producto.get("cambioSeq");
+
+        Predicate posterior = cb.greaterThan(cambioSeq, secuencia);
+        if (despuesDe != null) {
+            posterior = cb.or(posterior, cb.and(cb.equal(cambioSeq, secuencia), cb.greaterThan(id, despuesDe)));
+        }
+        query.multiselect(id, cambioSeq, producto.get("disponible"))
+                .where(posterior)
+                .orderBy(cb.asc(cambioSeq), cb.asc(id));
+        List<Object[]> claves = entityManager.createQuery(query)
+                .setMaxResults(limite)
+                .getResultList();
+
+        List<UUID> vivos = claves.stream()
+                .filter(clave -> !Boolean.FALSE.equals(clave[2]))
+                .map(clave -> (UUID) clave[0])
+                .toList();
+        Map<UUID, ProductoResponse> porId = new HashMap<>();
+        for (ProductoResponse response : buscarPorIds(vivos)) {
+            porId.put(response.getId().getValue(), response);
+        }
+        List<CambioProducto> cambios = new ArrayList<>(claves.size());
+        for (Object[] clave : claves) {
+            ProductoResponse response = porId.get((UUID) clave[0]);
+            cambios.add(new CambioProducto((UUID) clave[0], (Long) clave[1], response == null, response));
+        }
+        return cambios;
+    }
+
+    /**
+     * Solo id y secuencia de los productos cambiados, con el mismo keyset de (secuencia, id) que
+     * {@link #buscarCambios(long, UUID, int)}. Lo usan las réplicas para ponerse al día sin leer filas.
+     */
+    public List<SecuenciaProducto> buscarSecuencias(long secuencia, UUID despuesDe, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<SecuenciaProducto> query = cb.createQuery(SecuenciaProducto.class);
+        Root<Producto> producto = query.from(Producto.class);
+        Path<UUID> id = producto.get("id").get("valor");
+        Path<Long> cambioSeq = producto.get("cambioSeq");
+
+        Predicate posterior = cb.greaterThan(cambioSeq, secuencia);
+        if (despuesDe != null) {
+            posterior = cb.or(posterior, cb.and(cb.equal(cambioSeq, secuencia), cb.greaterThan(id, despuesDe)));
+        }
+        query.select(cb.construct(SecuenciaProducto.class, id, cambioSeq))
+                .where(posterior)
+                .orderBy(cb.asc(cambioSeq), cb.asc(id));
+        return entityManager.createQuery(query)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    /**
+     * Texto buscable por keyset de id, sin imágenes; con {@code despuesDe} nulo empieza desde el principio.
+     */
+    public List<ProductoTexto> buscarTextos(UUID despuesDe, int limite) {
+        return consultarTextos((cb, query, producto) -> despuesDe == null
+                ? new Predicate[0]
+                : new Predicate[]{cb.greaterThan(producto.get("id").get("valor"), despuesDe)}, limite);
+    }
+
+    /**
+     * Texto buscable de los productos indicados, en orden de id. Los ids inexistentes se omiten.
+     */
+    public List<ProductoTexto> buscarTextosPorIds(Collection<UUID> ids) {
+        List<ProductoTexto> textos = new ArrayList<>(ids.size());
+        for (List<UUID> lote : enLotes(new ArrayList<>(ids))) {
+            textos.addAll(consultarTextos((cb, query, producto) -> new Predicate[]{
+                    producto.get("id").get("valor").in(lote)
+            }, Integer.MAX_VALUE));
+        }
+        return textos;
+    }
+
+    public Optional<ProductoTexto> buscarTexto(UUID id) {
+        return consultarTextos((cb, query, producto) -> new Predicate[]{
+                cb.equal(producto.get("id").get("valor"), id)
+        }, 1).stream().findFirst();
+    }
+
+    /**
+     * Campos de faceta por keyset de id, sin imágenes; con {@code despuesDe} nulo empieza desde el principio.
+     */
+    public List<ProductoFaceta> buscarFacetas(UUID despuesDe, int limite) {
+        return consultarFacetas((cb, query, producto) -> despuesDe == null
+                ? new Predicate[0]
+                : new Predicate[]{cb.greaterThan(producto.get("id").get("valor"), despuesDe)}, limite);
+    }
+
+    /**
+     * Campos de faceta de los productos indicados, en orden de id. Los ids inexistentes se omiten.
+     */
+    public List<ProductoFaceta> buscarFacetasPorIds(Collection<UUID> ids) {
+        List<ProductoFaceta> facetas = new ArrayList<>(ids.size());
+        for (List<UUID> lote : enLotes(new ArrayList<>(ids))) {
+            facetas.addAll(consultarFacetas((cb, query, producto) -> new Predicate[]{
+                    producto.get("id").get("valor").in(lote)
+            }, Integer.MAX_VALUE));
+        }
+        return facetas;
+    }
+
+    public Optional<ProductoFaceta> buscarFaceta(UUID id) {
+        return consultarFacetas((cb, query, producto) -> new Predicate[]{
+                cb.equal(producto.get("id").get("valor"), id)
+        }, 1).stream().findFirst();
+    }
+
+    private List<ProductoFaceta> consultarFacetas(Condiciones condiciones, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductoFaceta> query = cb.createQuery(ProductoFaceta.class);
+        Root<Producto> producto = query.from(Producto.class);
+        Path<UUID> id = producto.get("id").get("valor");
+
+        query.select(cb.construct(ProductoFaceta.class,
+                        id,
+                        producto.get("categoriaId").get("id"),
+                        producto.get("precio").get("cantidad"),
+                        producto.get("disponible")))
+                .where(condiciones.construir(cb, query, producto))
+                .orderBy(cb.asc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    private List<ProductoTexto> consultarTextos(Condiciones condiciones, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductoTexto> query = cb.createQuery(ProductoTexto.class);
+        Root<Producto> producto = query.from(Producto.class);
+        Path<UUID> id = producto.get("id").get("valor");
+
+        query.select(cb.construct(ProductoTexto.class,
+                        id,
+                        producto.get("nombre"),
+                        producto.get("descripcion"),
+                        producto.get("sku"),
+                        producto.get("disponible")))
+                .where(condiciones.construir(cb, query, producto))
+                .orderBy(cb.asc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    private List<ProductoFila> consultarFilas(Condiciones condiciones, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductoFila> query = cb.createQuery(ProductoFila.class);
+        Root<Producto> producto = query.from(Producto.class);
+        Path<UUID> id = producto.get("id").get("valor");
+
+        query.select(cb.construct(ProductoFila.class,
+                        id,
+                        producto.get("nombre"),
+                        producto.get("descripcion"),
+                        producto.get("precio").get("cantidad"),
+                        producto.get("precio").get("moneda"),
+                        producto.get("stock"),
+                        producto.get("sku"),
+                        producto.get("categoriaId").get("id"),
+                        producto.get("disponible"),
+                        producto.get("fechaCreacion"),
+                        producto.get("version"),
+                        producto.get("actualizadoEn"),
+                        producto.get("imagenesCompactas")))
+                .where(condiciones.construir(cb, query, producto))
+                .orderBy(cb.asc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    private List<ProductoResponse> conImagenes(List<ProductoFila> filas) {
+        Map<UUID, List<String>> imagenes = new HashMap<>();
+        List<UUID> ids = filas.stream()
+                .filter(fila -> fila.imagenesCompactas() == null)
+                .map(ProductoFila::id)
+                .toList();
+        for (List<UUID> lote : enLotes(ids)) {
+            List<Object[]> urls = entityManager.createQuery(
+                            "select p.id.valor, i.url from Producto p join p.imagenes i where p.id.valor in :ids",
+                            Object[].class)
+                    .setParameter("ids", lote)
+                    .getResultList();
+            for (Object[] url : urls) {
+                imagenes.computeIfAbsent((UUID) url[0], k -> new ArrayList<>()).add((String) url[1]);
+            }
+        }
+        return filas.stream()
+                .map(fila -> ProductoResponse.fromFila(fila, fila.imagenesCompactas() != null
+                        ? fila.imagenesCompactas().stream().map(Imagen::url).toList()
+                        : imagenes.getOrDefault(fila.id(), List.of())))
+                .toList();
+    }
+
+    private static <T> List<List<T>> enLotes(List<T> valores) {
+        List<List<T>> lotes = new ArrayList<>();
+        for (int i = 0; i < valores.size(); i += TAMANIO_LOTE_IN) {
+            lotes.add(valores.subList(i, Math.min(i + TAMANIO_LOTE_IN, valores.size())));
+        }
+        return lotes;
+    }
+
+    @FunctionalInterface
+    private interface Condiciones {
+        Predicate[] construir(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Producto> producto);
+    }
+}
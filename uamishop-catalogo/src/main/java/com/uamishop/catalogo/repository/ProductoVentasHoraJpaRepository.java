@@ -0,0 +1,32 @@
+package com.uamishop.catalogo.repository;
+
+import com.uamishop.catalogo.domain.ProductoVentasHora;
+import com.uamishop.catalogo.dto.VentasVentanaResponse;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface ProductoVentasHoraJpaRepository extends JpaRepository<ProductoVentasHora, ProductoVentasHora.Clave> {
+
+    /**
+     * Suma los baldes horarios desde {@code desde}: el costo depende de los productos vendidos en la
+     * ventana, no del número de ventas.
+     */
+    @Query("select new com.uamishop.catalogo.dto.VentasVentanaResponse(v.id.productoId, sum(v.transacciones), sum(v.cantidad)) "
+            + "from ProductoVentasHora v where v.id.hora >= :desde "
+            + "group by v.id.productoId order by sum(v.cantidad) desc, v.id.productoId")
+    List<VentasVentanaResponse> findMasVendidosDesde(@Param("desde") long desde, Pageable pageable);
+
+    @Query("select v from ProductoVentasHora v where v.id.productoId = :productoId and v.id.hora >= :desde "
+            + "order by v.id.hora")
+    List<ProductoVentasHora> findSerie(@Param("productoId") UUID productoId, @Param("desde") long desde);
+
+    @Modifying
+    @Query("delete from ProductoVentasHora v where v.id.hora < :limite")
+    int eliminarAntesDe(@Param("limite") long limite);
+}
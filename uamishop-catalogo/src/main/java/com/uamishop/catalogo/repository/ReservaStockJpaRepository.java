@@ -0,0 +1,51 @@
+package com.uamishop.catalogo.repository;
+
+import com.uamishop.catalogo.domain.EstadoReserva;
+import com.uamishop.catalogo.domain.ReservaStock;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ReservaStockJpaRepository extends JpaRepository<ReservaStock, UUID> {
+
+    // Las búsquedas que preceden a un cambio de estado bloquean la fila: si el barrido la tiene tomada,
+    // esperan a su commit y ya no la ven ACTIVA, así una reserva nunca se libera dos veces.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ReservaStock> findByCarritoIdAndProductoIdAndEstado(UUID carritoId, UUID productoId, EstadoReserva estado);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ReservaStock> findByCarritoIdAndEstadoOrderByProductoId(UUID carritoId, EstadoReserva estado);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ReservaStock> findByOrdenIdInAndEstado(Collection<UUID> ordenIds, EstadoReserva estado);
+
+    /**
+     * Reservas activas ya vencidas, en orden de vencimiento. Las filas quedan bloqueadas hasta el
+     * commit y las que otra transacción tiene bloqueadas se saltan (SKIP LOCKED), así varias
+     * réplicas pueden barrer en paralelo y una confirmación concurrente nunca se expira a medias.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select r from ReservaStock r where r.estado = com.uamishop.catalogo.domain.EstadoReserva.ACTIVA "
+            + "and r.expiraEn < :ahora order by r.expiraEn")
+    List<ReservaStock> findVencidasParaExpirar(@Param("ahora") Instant ahora, Pageable lote);
+
+    @Modifying
+    @Query("update ReservaStock r set r.estado = com.uamishop.catalogo.domain.EstadoReserva.EXPIRADA, "
+            + "r.activaKey = null where r.id in :ids")
+    int marcarExpiradas(@Param("ids") Collection<UUID> ids);
+}
@@ -0,0 +1,14 @@
+package com.uamishop.catalogo.service;
+
+/**
+ * Dónde guardan sus imágenes los productos nuevos ({@code catalogo.imagenes.almacenamiento}).
+ * Los productos existentes conservan su modo hasta que los migra {@link MigracionImagenesJob}.
+ */
+public enum AlmacenamientoImagenes {
+
+    /** Una fila por imagen en {@code producto_imagenes}. */
+    COLECCION,
+
+    /** Todas las imágenes en la columna JSON {@code producto.imagenes_json}. */
+    JSON
+}
@@ -0,0 +1,184 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.Categoria;
+import com.uamishop.catalogo.domain.CategoriaId;
+import com.uamishop.catalogo.domain.CategoriaRelacion;
+import com.uamishop.catalogo.dto.NodoCategoria;
+import com.uamishop.catalogo.repository.CategoriaJpaRepository;
+import com.uamishop.catalogo.repository.CategoriaRelacionJpaRepository;
+import com.uamishop.catalogo.shared.exception.BusinessRuleException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Árbol de categorías materializado de dos formas:
+ * <ul>
+ *   <li>La tabla de clausura {@code categoria_arbol}, mantenida en la misma transacción que cada
+ *   alta o cambio de padre, para filtrar productos por subárbol con una sola consulta.</li>
+ *   <li>Una instantánea inmutable en memoria para servir el árbol completo. Se reemplaza tras el
+ *   commit de cada cambio local y periódicamente para recoger cambios de otras instancias.</li>
+ * </ul>
+ */
+@Service
+public class ArbolCategoriasService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArbolCategoriasService.class);
+
+    private static final Comparator<NodoCategoria> POR_NOMBRE =
+            Comparator.comparing(NodoCategoria::nombre, String.CASE_INSENSITIVE_ORDER).thenComparing(NodoCategoria::id);
+
+    private final CategoriaJpaRepository categoriaRepository;
+    private final CategoriaRelacionJpaRepository relacionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private volatile List<NodoCategoria> arbol;
+
+    public ArbolCategoriasService(CategoriaJpaRepository categoriaRepository,
+                                  CategoriaRelacionJpaRepository relacionRepository,
+                                  TransactionTemplate transactionTemplate) {
+        this.categoriaRepository = categoriaRepository;
+        this.relacionRepository = relacionRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Categorías raíz con sus subárboles. La primera llamada antes del arranque completo construye
+     * la instantánea en el momento.
+     */
+    public List<NodoCategoria> arbol() {
+        List<NodoCategoria> actual = arbol;
+        return actual != null ? actual : recargar();
+    }
+
+    /**
+     * Da de alta una categoría nueva en la tabla de clausura: ella misma más una fila por cada
+     * ancestro del padre.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(CategoriaId categoriaId, CategoriaId padreId) {
+        UUID id = categoriaId.id();
+        List<CategoriaRelacion> relaciones = new ArrayList<>();
+        relaciones.add(new CategoriaRelacion(id, id, 0));
+        if (padreId != null) {
+            relacionRepository.findAncestros(padreId.id()).forEach(ancestro ->
+                    relaciones.add(new CategoriaRelacion(ancestro.getAncestroId(), id, ancestro.getProfundidad() + 1)));
+        }
+        relacionRepository.saveAll(relaciones);
+    }
+
+    /**
+     * Cuelga la categoría, con todo su subárbol, de {@code nuevoPadreId}: borra las filas que unían
+     * el subárbol con sus ancestros anteriores y crea el producto cruzado con los nuevos.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void mover(CategoriaId categoriaId, CategoriaId nuevoPadreId) {
+        UUID id = categoriaId.id();
+        UUID padre = nuevoPadreId.id();
+        if (relacionRepository.esAncestro(id, padre)) {
+            throw new BusinessRuleException("CICLO_CATEGORIAS",
+                    "Una categoría no puede colgar de sí misma ni de una de sus subcategorías");
+        }
+        List<CategoriaRelacion> subarbol = relacionRepository.findDescendientes(id);
+        List<UUID> ancestrosAnteriores = relacionRepository.findAncestros(id).stream()
+                .filter(relacion -> relacion.getProfundidad() > 0)
+                .map(CategoriaRelacion::getAncestroId)
+                .toList();
+        if (!ancestrosAnteriores.isEmpty()) {
+            relacionRepository.eliminar(ancestrosAnteriores,
+                    subarbol.stream().map(CategoriaRelacion::getDescendienteId).toList());
+        }
+
+        List<CategoriaRelacion> nuevas = new ArrayList<>();
+        for (CategoriaRelacion ancestro : relacionRepository.findAncestros(padre)) {
+            for (CategoriaRelacion descendiente : subarbol) {
+                nuevas.add(new CategoriaRelacion(ancestro.getAncestroId(), descendiente.getDescendienteId(),
+                        ancestro.getProfundidad() + descendiente.getProfundidad() + 1));
+            }
+        }
+        relacionRepository.saveAll(nuevas);
+    }
+
+    /**
+     * Al arrancar completa la tabla de clausura si le faltan categorías (base anterior a la tabla o
+     * categorías creadas por el seed) y construye la primera instantánea.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (relacionRepository.countCategorias() != categoriaRepository.count()) {
+                reconstruirClausura();
+            }
+        });
+        recargar();
+    }
+
+    @Scheduled(initialDelayString = "${catalogo.categorias.arbol.refresco-ms:60000}",
+            fixedDelayString = "${catalogo.categorias.arbol.refresco-ms:60000}")
+    public List<NodoCategoria> recargar() {
+        List<Categoria> categorias = categoriaRepository.findAll();
+        Map<UUID, List<Categoria>> hijas = new HashMap<>();
+        Set<UUID> ids = new HashSet<>();
+        categorias.forEach(categoria -> ids.add(categoria.getId().id()));
+
+        List<Categoria> raices = new ArrayList<>();
+        for (Categoria categoria : categorias) {
+            CategoriaId padre = categoria.getCategoriaPadreId();
+            if (padre == null || !ids.contains(padre.id())) {
+                raices.add(categoria);
+            } else {
+                hijas.computeIfAbsent(padre.id(), k -> new ArrayList<>()).add(categoria);
+            }
+        }
+        List<NodoCategoria> nuevo = raices.stream()
+                .map(raiz -> construirNodo(raiz, hijas))
+                .sorted(POR_NOMBRE)
+                .toList();
+        arbol = nuevo;
+        return nuevo;
+    }
+
+    private static NodoCategoria construirNodo(Categoria categoria, Map<UUID, List<Categoria>> hijas) {
+        List<NodoCategoria> subcategorias = hijas.getOrDefault(categoria.getId().id(), List.of()).stream()
+                .map(hija -> construirNodo(hija, hijas))
+                .sorted(POR_NOMBRE)
+                .toList();
+        return new NodoCategoria(categoria.getId().id(), categoria.getNombre(), categoria.getDescripcion(), subcategorias);
+    }
+
+    private void reconstruirClausura() {
+        Map<UUID, UUID> padres = new HashMap<>();
+        categoriaRepository.findAll().forEach(categoria -> padres.put(categoria.getId().id(),
+                categoria.getCategoriaPadreId() != null ? categoria.getCategoriaPadreId().id() : null));
+
+        List<CategoriaRelacion> relaciones = new ArrayList<>();
+        for (UUID id : padres.keySet()) {
+            Set<UUID> visitadas = new HashSet<>();
+            UUID actual = id;
+            int profundidad = 0;
+            // Sube por los padres hasta la raíz; un padre inexistente o un ciclo cortan la cadena
+            while (actual != null && padres.containsKey(actual) && visitadas.add(actual)) {
+                relaciones.add(new CategoriaRelacion(actual, id, profundidad++));
+                actual = padres.get(actual);
+            }
+        }
+        relacionRepository.deleteAllInBatch();
+        relacionRepository.saveAll(relaciones);
+        log.info("Tabla de clausura de categorías reconstruida: {} categorías, {} relaciones",
+                padres.size(), relaciones.size());
+    }
+}
@@ -0,0 +1,74 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.CatalogoVersion;
+import com.uamishop.catalogo.dto.VersionRecurso;
+import com.uamishop.catalogo.repository.CatalogoVersionJpaRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+
+/**
+ * Versión global del catálogo. Se incrementa como mucho una vez por transacción, aunque en ella
+ * cambien muchos productos: la fila es un punto de contención y cada UPDATE extra la retiene más.
+ */
+@Service
+public class CatalogoVersionService {
+
+    private static final Object VERSION_TRANSACCION = new Object();
+
+    private final CatalogoVersionJpaRepository repository;
+
+    public CatalogoVersionService(CatalogoVersionJpaRepository repository) {
+        this.repository = repository;
+    }
+
+    @PostConstruct
+    void inicializar() {
+        if (repository.existsById(CatalogoVersion.ID)) {
+            return;
+        }
+        try {
+            repository.save(new CatalogoVersion(0, Instant.now()));
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia creó la fila al mismo tiempo
+        }
+    }
+
+    /**
+     * Devuelve la versión que esta transacción le da al catálogo. Desde el primer incremento hasta
+     * el commit la fila queda bloqueada, así que las versiones se hacen visibles en orden: quien
+     * lee la versión N ya ve todos los cambios marcados con versiones menores.
+     */
+    @Transactional
+    public long incrementar() {
+        Long asignada = (Long) TransactionSynchronizationManager.getResource(VERSION_TRANSACCION);
+        if (asignada != null) {
+            return asignada;
+        }
+        Instant ahora = Instant.now();
+        long version;
+        if (repository.incrementar(CatalogoVersion.ID, ahora) == 0) {
+            version = repository.save(new CatalogoVersion(1, ahora)).getVersion();
+        } else {
+            version = repository.findVersion(CatalogoVersion.ID).orElseThrow().version();
+        }
+        TransactionSynchronizationManager.bindResource(VERSION_TRANSACCION, version);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(VERSION_TRANSACCION);
+            }
+        });
+        return version;
+    }
+
+    @Transactional(readOnly = true)
+    public VersionRecurso actual() {
+        return repository.findVersion(CatalogoVersion.ID).orElse(new VersionRecurso(0, null));
+    }
+}
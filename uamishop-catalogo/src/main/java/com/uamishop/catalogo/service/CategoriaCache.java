@@ -0,0 +1,91 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.CategoriaId;
+import com.uamishop.catalogo.dto.CategoriaResponse;
+import com.uamishop.catalogo.repository.CategoriaJpaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Todas las categorías precargadas en memoria. Las categorías cambian muy poco, así que en lugar de
+ * una caché por entrada se guarda una instantánea inmutable completa que se reemplaza de un golpe:
+ * al arrancar, tras el commit de cada cambio local, al recibir el aviso de otra réplica por
+ * {@code uamishop.events} y cada {@code catalogo.categorias.cache.refresco-ms} por si se perdió un aviso.
+ *
+ * <p>Una categoría que no está en la instantánea se busca en la base antes de darla por inexistente:
+ * puede haberse creado en otra réplica y no haber llegado aún el aviso. Si existe, se recarga.</p>
+ */
+@Component
+public class CategoriaCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoriaCache.class);
+
+    private final CategoriaJpaRepository categoriaRepository;
+    private volatile Instantanea instantanea;
+
+    public CategoriaCache(CategoriaJpaRepository categoriaRepository) {
+        this.categoriaRepository = categoriaRepository;
+    }
+
+    public boolean existe(CategoriaId id) {
+        return buscar(id).isPresent();
+    }
+
+    public Optional<CategoriaResponse> buscar(CategoriaId id) {
+        CategoriaResponse categoria = actual().porId().get(id.id());
+        if (categoria != null) {
+            return Optional.of(categoria);
+        }
+        if (!categoriaRepository.existsById(id)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(recargar().porId().get(id.id()));
+    }
+
+    /**
+     * Todas las categorías en el orden en que las devuelve la base.
+     */
+    public List<CategoriaResponse> todas() {
+        return actual().todas();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        Instantanea cargada = recargar();
+        log.info("Categorías precargadas: {}", cargada.todas().size());
+    }
+
+    /**
+     * Lee todas las categorías y reemplaza la instantánea. Las recargas se serializan para que una
+     * lectura más vieja nunca pise a una más nueva.
+     */
+    @Scheduled(initialDelayString = "${catalogo.categorias.cache.refresco-ms:300000}",
+            fixedDelayString = "${catalogo.categorias.cache.refresco-ms:300000}")
+    public synchronized Instantanea recargar() {
+        List<CategoriaResponse> todas = categoriaRepository.findAll().stream()
+                .map(CategoriaResponse::fromCategoria)
+                .toList();
+        Map<UUID, CategoriaResponse> porId = new LinkedHashMap<>();
+        todas.forEach(categoria -> porId.put(categoria.getId().id(), categoria));
+        Instantanea nueva = new Instantanea(Map.copyOf(porId), todas);
+        instantanea = nueva;
+        return nueva;
+    }
+
+    private Instantanea actual() {
+        Instantanea actual = instantanea;
+        return actual != null ? actual : recargar();
+    }
+
+    public record Instantanea(Map<UUID, CategoriaResponse> porId, List<CategoriaResponse> todas) {}
+}
@@ -0,0 +1,60 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.config.RabbitConfig;
+import com.uamishop.catalogo.inbox.service.InboxService;
+import com.uamishop.catalogo.service.ProductoEstadisticasService.VentasProducto;
+import com.uamishop.catalogo.service.ReservaStockService.LineaCompra;
+import com.uamishop.catalogo.shared.event.ProductoCompradoEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Aplica los eventos de compra: descuenta stock (confirmando reservas) y registra estadísticas.
+ * Un lote entero se aplica en una transacción con una actualización de stock y una de estadísticas
+ * por producto, sin importar cuántas líneas lo mencionen. Los eventos ya aplicados (reentregas de
+ * RabbitMQ) se descartan con el inbox en la misma transacción.
+ */
+@Service
+public class CompraService {
+
+    private final ReservaStockService reservaStockService;
+    private final ProductoEstadisticasService estadisticasService;
+    private final InboxService inboxService;
+
+    public CompraService(ReservaStockService reservaStockService,
+                         ProductoEstadisticasService estadisticasService,
+                         InboxService inboxService) {
+        this.reservaStockService = reservaStockService;
+        this.estadisticasService = estadisticasService;
+        this.inboxService = inboxService;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void registrarCompras(List<ProductoCompradoEvent> eventos) {
+        List<LineaCompra> lineas = new ArrayList<>();
+        Map<UUID, VentasProducto> ventasPorProducto = new LinkedHashMap<>();
+        for (ProductoCompradoEvent evento : inboxService.registrarNuevos(
+                RabbitConfig.QUEUE_CATALOGO_PRODUCTO_COMPRADO, eventos, ProductoCompradoEvent::eventId)) {
+            for (ProductoCompradoEvent.ItemComprado item : evento.items()) {
+                lineas.add(new LineaCompra(evento.ordenId(), item.productoId(), item.cantidad()));
+                ventasPorProducto.merge(item.productoId(),
+                        new VentasProducto(item.productoId(), 1, item.cantidad()),
+                        (a, b) -> new VentasProducto(a.productoId(),
+                                a.transacciones() + b.transacciones(), a.cantidad() + b.cantidad()));
+            }
+        }
+        if (lineas.isEmpty()) {
+            return;
+        }
+
+        reservaStockService.confirmarCompras(lineas);
+        estadisticasService.registrarVentas(ventasPorProducto.values());
+    }
+}
@@ -0,0 +1,193 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.config.RabbitConfig;
+import com.uamishop.catalogo.inbox.service.InboxService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acumula en memoria los "agregado al carrito" por producto y los vuelca a
+ * {@code producto_estadisticas} cada {@code catalogo.estadisticas.volcado-ms} con un UPSERT por lote.
+ * Registrar un evento es un {@link LongAdder#increment()}: no toca la base ni compite por la fila del
+ * producto. Una caída pierde como mucho lo acumulado desde el último volcado; la marca de agua en
+ * {@code estadisticas_marca_agua} registra hasta cuándo quedó persistido.
+ *
+ * <p>Los eventos con {@code eventId} se deduplican sin ir a la base por evento: se descartan si el
+ * filtro del inbox ya los tiene confirmados o si están pendientes de volcar, y en el volcado sus ids
+ * se registran en {@code catalogo_inbox_events} con una consulta y un INSERT por lote, dentro de la
+ * misma transacción que los contadores. Solo suman los que el inbox no tenía (una reentrega que llegó
+ * a otra réplica después de su volcado). Si la cola de pendientes llega a
+ * {@code catalogo.estadisticas.eventos-pendientes-max} (la base lleva rato sin aceptar volcados), los
+ * eventos siguientes cuentan sin deduplicar en lugar de crecer sin límite.</p>
+ */
+@Component
+public class ContadorAgregadosCarrito {
+
+    private static final Logger log = LoggerFactory.getLogger(ContadorAgregadosCarrito.class);
+
+    private static final String UPSERT_CONTADOR =
+            "insert into producto_estadisticas (producto_id, ventas_totales, cantidad_vendida, "
+            + "veces_agregado_al_carrito, ultima_agregado_al_carrito_at) values (?, 0, 0, ?, ?) "
+            + "on duplicate key update "
+            + "veces_agregado_al_carrito = veces_agregado_al_carrito + values(veces_agregado_al_carrito), "
+            + "ultima_agregado_al_carrito_at = greatest(coalesce(ultima_agregado_al_carrito_at, "
+            + "values(ultima_agregado_al_carrito_at)), values(ultima_agregado_al_carrito_at))";
+
+    private static final String UPSERT_MARCA_AGUA =
+            "insert into estadisticas_marca_agua (instancia, volcado_hasta, eventos_volcados) values (?, ?, ?) "
+            + "on duplicate key update volcado_hasta = values(volcado_hasta), "
+            + "eventos_volcados = eventos_volcados + values(eventos_volcados)";
+
+    // Consumidor con el que se registran los eventos en el inbox
+    static final String CONSUMIDOR = RabbitConfig.QUEUE_CATALOGO_PRODUCTO_AGREGADO;
+
+    private final Map<UUID, Acumulado> pendientes = new ConcurrentHashMap<>();
+    private final Map<UUID, EventoPendiente> eventosPendientes = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final InboxService inboxService;
+    private final String instancia;
+    private final int maxEventosPendientes;
+
+    public ContadorAgregadosCarrito(JdbcTemplate jdbcTemplate,
+                                    TransactionTemplate transactionTemplate,
+                                    InboxService inboxService,
+                                    @Value("${catalogo.instancia:${HOSTNAME:catalogo}}") String instancia,
+                                    @Value("${catalogo.estadisticas.eventos-pendientes-max:200000}") int maxEventosPendientes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.inboxService = inboxService;
+        this.instancia = instancia;
+        this.maxEventosPendientes = maxEventosPendientes;
+    }
+
+    public void registrar(UUID productoId, Instant momento) {
+        Acumulado acumulado = pendientes.computeIfAbsent(productoId, id -> new Acumulado());
+        acumulado.conteo.increment();
+        acumulado.ultimoMs.accumulateAndGet(momento.toEpochMilli(), Math::max);
+    }
+
+    /**
+     * Registra un evento identificado. Devuelve {@code false} si es una reentrega que el filtro en
+     * memoria reconoce; la comprobación contra la tabla del inbox se hace en el volcado.
+     */
+    public boolean registrar(UUID eventId, UUID productoId, Instant momento) {
+        if (eventId == null || eventosPendientes.size() >= maxEventosPendientes) {
+            registrar(productoId, momento);
+            return true;
+        }
+        if (inboxService.procesadoRecientemente(CONSUMIDOR, eventId)) {
+            return false;
+        }
+        return eventosPendientes.putIfAbsent(eventId,
+                new EventoPendiente(eventId, productoId, momento.toEpochMilli())) == null;
+    }
+
+    /**
+     * Vuelca los deltas acumulados. Cada delta se descuenta del acumulador solo después del commit
+     * (restando lo leído, no reiniciando), así los incrementos concurrentes al volcado se conservan
+     * y un volcado fallido se reintenta completo en el siguiente ciclo.
+     */
+    @Scheduled(fixedDelayString = "${catalogo.estadisticas.volcado-ms:1000}")
+    public synchronized int volcar() {
+        List<Delta> deltas = new ArrayList<>();
+        pendientes.forEach((productoId, acumulado) -> {
+            long conteo = acumulado.conteo.sum();
+            if (conteo > 0) {
+                deltas.add(new Delta(productoId, acumulado, conteo, acumulado.ultimoMs.get()));
+            }
+        });
+        // Los eventos se sacan de la cola antes de volcar; si el volcado falla se devuelven
+        List<EventoPendiente> eventos = new ArrayList<>();
+        eventosPendientes.values().forEach(evento -> {
+            if (eventosPendientes.remove(evento.eventId(), evento)) {
+                eventos.add(evento);
+            }
+        });
+        if (deltas.isEmpty() && eventos.isEmpty()) {
+            return 0;
+        }
+
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        int filas;
+        try {
+            filas = transactionTemplate.execute(status -> {
+                Map<UUID, Fila> porProducto = new LinkedHashMap<>();
+                deltas.forEach(delta -> porProducto.computeIfAbsent(delta.productoId(), id -> new Fila())
+                        .sumar(delta.conteo(), delta.ultimoMs()));
+                inboxService.registrarNuevos(CONSUMIDOR, eventos, EventoPendiente::eventId)
+                        .forEach(evento -> porProducto.computeIfAbsent(evento.productoId(), id -> new Fila())
+                                .sumar(1, evento.momentoMs()));
+                if (porProducto.isEmpty()) {
+                    return 0;
+                }
+                List<Map.Entry<UUID, Fila>> lote = new ArrayList<>(porProducto.entrySet());
+                jdbcTemplate.batchUpdate(UPSERT_CONTADOR, lote, lote.size(), (ps, fila) -> {
+                    ps.setBytes(1, Uuids.aBytes(fila.getKey()));
+                    ps.setLong(2, fila.getValue().conteo);
+                    ps.setTimestamp(3, new Timestamp(fila.getValue().ultimoMs), utc);
+                });
+                long volcados = lote.stream().mapToLong(fila -> fila.getValue().conteo).sum();
+                jdbcTemplate.update(con -> {
+                    var ps = con.prepareStatement(UPSERT_MARCA_AGUA);
+                    ps.setString(1, instancia);
+                    ps.setTimestamp(2, Timestamp.from(Instant.now()), utc);
+                    ps.setLong(3, volcados);
+                    return ps;
+                });
+                return lote.size();
+            });
+        } catch (RuntimeException e) {
+            eventos.forEach(evento -> eventosPendientes.putIfAbsent(evento.eventId(), evento));
+            log.warn("No se pudieron volcar {} contadores y {} eventos de carrito; se reintentará",
+                    deltas.size(), eventos.size(), e);
+            return 0;
+        }
+        deltas.forEach(delta -> delta.acumulado().conteo.add(-delta.conteo()));
+        return filas;
+    }
+
+    @PreDestroy
+    public void volcarAlApagar() {
+        int volcados = volcar();
+        log.info("Contadores de carrito volcados al apagar: {}", volcados);
+    }
+
+    private static final class Acumulado {
+        private final LongAdder conteo = new LongAdder();
+        private final AtomicLong ultimoMs = new AtomicLong();
+    }
+
+    private static final class Fila {
+        private long conteo;
+        private long ultimoMs;
+
+        private void sumar(long eventos, long momentoMs) {
+            conteo += eventos;
+            ultimoMs = Math.max(ultimoMs, momentoMs);
+        }
+    }
+
+    private record Delta(UUID productoId, Acumulado acumulado, long conteo, long ultimoMs) {}
+
+    private record EventoPendiente(UUID eventId, UUID productoId, long momentoMs) {}
+}
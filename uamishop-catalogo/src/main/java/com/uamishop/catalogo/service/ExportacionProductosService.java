@@ -0,0 +1,175 @@
+package com.uamishop.catalogo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uamishop.catalogo.domain.Imagen;
+import com.uamishop.catalogo.domain.ImagenesJsonConverter;
+import com.uamishop.catalogo.dto.ProductoFila;
+import com.uamishop.catalogo.dto.ProductoResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Exportación completa del catálogo en NDJSON o CSV. Recorre {@code producto} unido a
+ * {@code producto_imagenes} con un único cursor de solo avance ordenado por id y escribe cada
+ * producto en cuanto se completan sus filas, de modo que en memoria solo vive el producto en curso.
+ *
+ * En MySQL el cursor es del lado del servidor gracias a {@code useCursorFetch=true} en la URL;
+ * sin esa opción el driver cargaría todo el resultado antes de entregar la primera fila.
+ * El CSV usa las mismas columnas que acepta la importación. Los productos en modo compacto no
+ * tienen filas en {@code producto_imagenes}: sus URLs salen de {@code imagenes_json}.
+ */
+@Service
+public class ExportacionProductosService {
+
+    private static final String CONSULTA =
+            "select p.valor, p.nombre, p.descripcion, p.cantidad, p.moneda, p.stock, p.sku, p.categoria_id, "
+            + "p.disponible, p.fecha_creacion, i.url, p.imagenes_json "
+            + "from producto p left join producto_imagenes i on i.producto_id = p.valor "
+            + "order by p.valor, i.orden";
+
+    private static final String ENCABEZADO_CSV =
+            "id,sku,nombre,descripcion,precio,moneda,stock,categoriaId,disponible,imagenesUrls";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ExportacionProductosService(DataSource dataSource,
+                                       ObjectMapper objectMapper,
+                                       @Value("${catalogo.exportacion.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escribe el catálogo completo en {@code salida} y devuelve cuántos productos se exportaron.
+     * No cierra {@code salida}.
+     */
+    public long exportar(OutputStream salida, FormatoArchivo formato) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        Escritura escritura = new Escritura(escritor, formato);
+        if (formato == FormatoArchivo.CSV) {
+            escritor.write(ENCABEZADO_CSV);
+            escritor.write('\n');
+        }
+        try {
+            jdbcTemplate.query(CONSULTA, escritura::procesarFila);
+            escritura.cerrarProducto();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        escritor.flush();
+        return escritura.exportados;
+    }
+
+    /**
+     * Agrupa las filas consecutivas de un mismo producto (una por imagen) y lo escribe al
+     * llegar la fila del siguiente.
+     */
+    private final class Escritura {
+
+        private final Writer escritor;
+        private final FormatoArchivo formato;
+        private ProductoFila actual;
+        private final List<String> imagenes = new ArrayList<>();
+        private long exportados;
+
+        Escritura(Writer escritor, FormatoArchivo formato) {
+            this.escritor = escritor;
+            this.formato = formato;
+        }
+
+        void procesarFila(ResultSet rs) throws SQLException {
+            UUID id = Uuids.deBytes(rs.getBytes(1));
+            if (actual == null || !actual.id().equals(id)) {
+                cerrarProducto();
+                byte[] categoriaId = rs.getBytes(8);
+                actual = new ProductoFila(
+                        id,
+                        rs.getString(2),
+                        rs.getString(3),
+                        rs.getBigDecimal(4),
+                        rs.getString(5),
+                        rs.getObject(6, Integer.class),
+                        rs.getString(7),
+                        categoriaId != null ? Uuids.deBytes(categoriaId) : null,
+                        rs.getObject(9, Boolean.class),
+                        rs.getTimestamp(10) != null ? rs.getTimestamp(10).toLocalDateTime() : null,
+                        null,
+                        null,
+                        null);
+                String compactas = rs.getString(12);
+                if (compactas != null) {
+                    ImagenesJsonConverter.leer(compactas).stream()
+                            .sorted(Comparator.comparing(Imagen::orden))
+                            .forEach(imagen -> imagenes.add(imagen.url()));
+                }
+            }
+            String url = rs.getString(11);
+            if (url != null) {
+                imagenes.add(url);
+            }
+        }
+
+        void cerrarProducto() {
+            if (actual == null) {
+                return;
+            }
+            try {
+                if (formato == FormatoArchivo.CSV) {
+                    escribirCsv(actual, imagenes);
+                } else {
+                    escritor.write(objectMapper.writeValueAsString(
+                            ProductoResponse.fromFila(actual, List.copyOf(imagenes))));
+                }
+                escritor.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            exportados++;
+            actual = null;
+            imagenes.clear();
+        }
+
+        private void escribirCsv(ProductoFila fila, List<String> urls) throws IOException {
+            escritor.write(String.join(",",
+                    campoCsv(fila.id()),
+                    campoCsv(fila.sku()),
+                    campoCsv(fila.nombre()),
+                    campoCsv(fila.descripcion()),
+                    campoCsv(fila.precio() != null ? fila.precio().toPlainString() : null),
+                    campoCsv(fila.moneda()),
+                    campoCsv(fila.stock()),
+                    campoCsv(fila.categoriaId()),
+                    campoCsv(fila.disponible()),
+                    campoCsv(String.join("|", urls))));
+        }
+    }
+
+    private static String campoCsv(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = valor.toString();
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            return texto;
+        }
+        return '"' + texto.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,43 @@
+package com.uamishop.catalogo.service;
+
+import org.springframework.http.MediaType;
+
+import java.util.Arrays;
+
+/**
+ * Formatos de archivo de la importación y exportación masiva de productos.
+ */
+public enum FormatoArchivo {
+
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    public static final String TEXT_CSV = "text/csv";
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final MediaType tipoContenido;
+    private final String extension;
+
+    FormatoArchivo(String tipoContenido, String extension) {
+        this.tipoContenido = MediaType.parseMediaType(tipoContenido);
+        this.extension = extension;
+    }
+
+    public MediaType getTipoContenido() { return tipoContenido; }
+    public String getExtension() { return extension; }
+
+    public static FormatoArchivo desdeTipoContenido(String tipoContenido) {
+        MediaType tipo = MediaType.parseMediaType(tipoContenido);
+        return Arrays.stream(values())
+                .filter(formato -> formato.tipoContenido.isCompatibleWith(tipo))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Tipo de contenido no soportado: " + tipoContenido));
+    }
+
+    public static FormatoArchivo desdeExtension(String extension) {
+        return Arrays.stream(values())
+                .filter(formato -> formato.extension.equalsIgnoreCase(extension))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("El formato debe ser csv o ndjson"));
+    }
+}
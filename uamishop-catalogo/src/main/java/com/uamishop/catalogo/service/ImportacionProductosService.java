@@ -0,0 +1,593 @@
+package com.uamishop.catalogo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uamishop.catalogo.domain.CategoriaId;
+import com.uamishop.catalogo.domain.Imagen;
+import com.uamishop.catalogo.domain.ImagenesJsonConverter;
+import com.uamishop.catalogo.domain.Producto;
+import com.uamishop.catalogo.dto.ProductoFaceta;
+import com.uamishop.catalogo.dto.ProductoRequest;
+import com.uamishop.catalogo.dto.ProductoTexto;
+import com.uamishop.catalogo.dto.ResultadoImportacion;
+import com.uamishop.catalogo.dto.ResultadoImportacion.ErrorFila;
+import com.uamishop.catalogo.shared.domain.Money;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Alta masiva de productos desde CSV o NDJSON. El archivo se lee fila por fila y los productos
+ * válidos se insertan con JdbcTemplate en lotes de {@code catalogo.importacion.lote} (productos e
+ * imágenes en dos sentencias por lote, cada lote en su propia transacción; con
+ * {@code catalogo.imagenes.almacenamiento=json} las imágenes van en la fila del producto y basta una). La memoria usada
+ * depende del tamaño del lote y del tope de errores reportados, no del tamaño del archivo.
+ *
+ * Cada fila pasa por las mismas validaciones que el alta individual: las anotaciones de
+ * {@link ProductoRequest} y las reglas de {@link Producto#crear}. Una fila inválida no detiene la
+ * importación; se reporta con su número de línea. Un registro (una línea NDJSON, o las líneas de un
+ * registro CSV con saltos entre comillas) no puede pasar de {@code catalogo.importacion.max-caracteres-registro}:
+ * así unas comillas sin cerrar no acumulan el resto del archivo en memoria.
+ */
+@Service
+public class ImportacionProductosService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacionProductosService.class);
+
+    private static final String INSERT_PRODUCTO =
+            "insert into producto (valor, nombre, descripcion, cantidad, moneda, stock, stock_reservado, "
+            + "sku, categoria_id, disponible, fecha_creacion, actualizado_en, version) "
+            + "values (?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?, ?, 0)";
+
+    private static final String INSERT_PRODUCTO_COMPACTO =
+            "insert into producto (valor, nombre, descripcion, cantidad, moneda, stock, stock_reservado, "
+            + "sku, categoria_id, disponible, fecha_creacion, actualizado_en, version, imagenes_json) "
+            + "values (?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?, ?, 0, ?)";
+
+    private static final String INSERT_IMAGEN =
+            "insert into producto_imagenes (producto_id, id, url, alt_text, orden) values (?, ?, ?, ?, ?)";
+
+    private static final List<String> COLUMNAS_OBLIGATORIAS = List.of("nombre", "precio", "stock", "sku", "categoriaId");
+    private static final String SEPARADOR_IMAGENES = "\\|";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoriaCache categoriaCache;
+    private final IndiceBusquedaProductos indiceBusqueda;
+    private final IndiceFacetas indiceFacetas;
+    private final ProductoEventosService productoEventosService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int tamanioLote;
+    private final int maximoErrores;
+    private final int maximoCaracteresRegistro;
+    private final AlmacenamientoImagenes almacenamientoImagenes;
+
+    public ImportacionProductosService(JdbcTemplate jdbcTemplate,
+                                       TransactionTemplate transactionTemplate,
+                                       CategoriaCache categoriaCache,
+                                       IndiceBusquedaProductos indiceBusqueda,
+                                       IndiceFacetas indiceFacetas,
+                                       ProductoEventosService productoEventosService,
+                                       Validator validator,
+                                       ObjectMapper objectMapper,
+                                       @Value("${catalogo.importacion.lote:1000}") int tamanioLote,
+                                       @Value("${catalogo.importacion.max-errores:1000}") int maximoErrores,
+                                       @Value("${catalogo.importacion.max-caracteres-registro:65536}") int maximoCaracteresRegistro,
+                                       @Value("${catalogo.imagenes.almacenamiento:coleccion}") AlmacenamientoImagenes almacenamientoImagenes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.categoriaCache = categoriaCache;
+        this.indiceBusqueda = indiceBusqueda;
+        this.indiceFacetas = indiceFacetas;
+        this.productoEventosService = productoEventosService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.tamanioLote = tamanioLote;
+        this.maximoErrores = maximoErrores;
+        this.maximoCaracteresRegistro = maximoCaracteresRegistro;
+        this.almacenamientoImagenes = almacenamientoImagenes;
+    }
+
+    /**
+     * Importa el contenido de {@code entrada}. Los lotes ya confirmados se conservan aunque la
+     * lectura falle a la mitad.
+     */
+    public ResultadoImportacion importar(InputStream entrada, FormatoArchivo formato) throws IOException {
+        LineasAcotadas lector = new LineasAcotadas(
+                new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8)), maximoCaracteresRegistro);
+        LectorFilas filas = formato == FormatoArchivo.CSV ? new LectorCsv(lector) : new LectorNdjson(lector);
+        Importacion importacion = new Importacion();
+        FilaLeida fila;
+        while ((fila = filas.siguiente()) != null) {
+            importacion.procesar(fila);
+        }
+        importacion.volcarLote();
+        ResultadoImportacion resultado = importacion.resultado();
+        log.info("Importación {}: {} filas, {} productos importados, {} con error", formato,
+                resultado.filasProcesadas(), resultado.productosImportados(), resultado.filasConError());
+        return resultado;
+    }
+
+    /**
+     * Estado de una importación: el lote pendiente, las categorías ya verificadas y los contadores.
+     */
+    private final class Importacion {
+
+        private final Map<String, FilaValida> lote = new LinkedHashMap<>();
+        private final Map<UUID, Boolean> categorias = new HashMap<>();
+        private final List<ErrorFila> errores = new ArrayList<>();
+        private long procesadas;
+        private long importados;
+        private long conError;
+
+        void procesar(FilaLeida fila) {
+            procesadas++;
+            if (fila.error() != null) {
+                registrarError(fila.numero(), fila.error());
+                return;
+            }
+            ProductoRequest request = fila.request();
+            if (request.getMoneda() == null || request.getMoneda().isBlank()) {
+                request.setMoneda("MXN");
+            }
+            Set<ConstraintViolation<ProductoRequest>> violaciones = validator.validate(request);
+            if (!violaciones.isEmpty()) {
+                registrarError(fila.numero(), violaciones.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            if (!categorias.computeIfAbsent(request.getCategoriaId(),
+                    id -> categoriaCache.existe(new CategoriaId(id)))) {
+                registrarError(fila.numero(), "Categoría con id " + request.getCategoriaId() + " no encontrada");
+                return;
+            }
+            if (lote.containsKey(request.getSku())) {
+                registrarError(fila.numero(), "SKU " + request.getSku() + " repetido en el archivo");
+                return;
+            }
+
+            Producto producto;
+            try {
+                producto = crearProducto(request);
+            } catch (IllegalArgumentException e) {
+                registrarError(fila.numero(), e.getMessage());
+                return;
+            }
+            lote.put(producto.getSku(), new FilaValida(fila.numero(), producto));
+            if (lote.size() >= tamanioLote) {
+                volcarLote();
+            }
+        }
+
+        void volcarLote() {
+            if (lote.isEmpty()) {
+                return;
+            }
+            for (String sku : skusExistentes(lote.keySet())) {
+                FilaValida repetida = lote.remove(sku);
+                registrarError(repetida.numero(), "Ya existe un producto con SKU " + sku);
+            }
+            List<Producto> productos = lote.values().stream().map(FilaValida::producto).toList();
+            if (productos.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    insertar(productos);
+                    productoEventosService.registrarActualizaciones(
+                            productos.stream().map(producto -> producto.getId().getValue()).toList());
+                });
+            } catch (DataAccessException e) {
+                String causa = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                log.warn("Lote de {} productos rechazado al insertar", productos.size(), e);
+                lote.values().forEach(fila -> registrarError(fila.numero(), "No se pudo insertar el lote: " + causa));
+                lote.clear();
+                return;
+            }
+            importados += productos.size();
+            for (Producto producto : productos) {
+                indiceBusqueda.indexar(new ProductoTexto(producto.getId().getValue(),
+                        producto.getNombre(), producto.getDescripcion(), producto.getSku(), producto.getDisponible()));
+                indiceFacetas.actualizar(new ProductoFaceta(producto.getId().getValue(),
+                        producto.getCategoriaId().id(), producto.getPrecio().getCantidad(), producto.getDisponible()));
+            }
+            lote.clear();
+        }
+
+        void registrarError(long numero, String mensaje) {
+            conError++;
+            if (errores.size() < maximoErrores) {
+                errores.add(new ErrorFila(numero, mensaje));
+            }
+        }
+
+        ResultadoImportacion resultado() {
+            return new ResultadoImportacion(procesadas, importados, conError, List.copyOf(errores));
+        }
+    }
+
+    private static Producto crearProducto(ProductoRequest request) {
+        Producto producto = Producto.crear(
+                request.getNombre(),
+                request.getDescripcion() != null ? request.getDescripcion() : "",
+                new Money(request.getPrecio(), request.getMoneda()),
+                request.getStock(),
+                request.getSku(),
+                new CategoriaId(request.getCategoriaId()));
+        if (request.getImagenesUrls() != null) {
+            int orden = 0;
+            for (String url : request.getImagenesUrls()) {
+                producto.agregarImagen(new Imagen(null, url, "imagen producto", orden++));
+            }
+        }
+        return producto;
+    }
+
+    private Set<String> skusExistentes(Set<String> skus) {
+        String marcadores = skus.stream().map(sku -> "?").collect(Collectors.joining(", "));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "select sku from producto where sku in (" + marcadores + ")", String.class, skus.toArray()));
+    }
+
+    private void insertar(List<Producto> productos) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        boolean compacto = almacenamientoImagenes == AlmacenamientoImagenes.JSON;
+        String insert = compacto ? INSERT_PRODUCTO_COMPACTO : INSERT_PRODUCTO;
+        jdbcTemplate.batchUpdate(insert, productos, productos.size(), (ps, producto) -> {
+            ps.setBytes(1, Uuids.aBytes(producto.getId().getValue()));
+            ps.setString(2, producto.getNombre());
+            ps.setString(3, producto.getDescripcion());
+            ps.setBigDecimal(4, producto.getPrecio().getCantidad());
+            ps.setString(5, producto.getPrecio().getMoneda());
+            ps.setInt(6, producto.getStock());
+            ps.setString(7, producto.getSku());
+            ps.setBytes(8, Uuids.aBytes(producto.getCategoriaId().id()));
+            ps.setBoolean(9, producto.getDisponible());
+            ps.setTimestamp(10, Timestamp.valueOf(producto.getFechaCreacion()));
+            ps.setTimestamp(11, Timestamp.from(producto.getActualizadoEn()), utc);
+            if (compacto) {
+                ps.setString(12, ImagenesJsonConverter.escribir(
+                        producto.getImagenes() != null ? producto.getImagenes() : List.of()));
+            }
+        });
+        if (compacto) {
+            return;
+        }
+
+        List<Object[]> imagenes = new ArrayList<>();
+        for (Producto producto : productos) {
+            if (producto.getImagenes() == null) {
+                continue;
+            }
+            for (Imagen imagen : producto.getImagenes()) {
+                imagenes.add(new Object[]{Uuids.aBytes(producto.getId().getValue()),
+                        Uuids.aBytes(imagen.id()), imagen.url(), imagen.altText(), imagen.orden()});
+            }
+        }
+        if (!imagenes.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_IMAGEN, imagenes);
+        }
+    }
+
+    private record FilaLeida(long numero, ProductoRequest request, String error) {
+
+        static FilaLeida valida(long numero, ProductoRequest request) {
+            return new FilaLeida(numero, request, null);
+        }
+
+        static FilaLeida invalida(long numero, String error) {
+            return new FilaLeida(numero, null, error);
+        }
+    }
+
+    private record FilaValida(long numero, Producto producto) {}
+
+    private interface LectorFilas {
+        /** Siguiente fila del archivo, o {@code null} al llegar al final. */
+        FilaLeida siguiente() throws IOException;
+    }
+
+    /**
+     * Un objeto JSON por línea con los mismos campos que {@link ProductoRequest}.
+     */
+    private final class LectorNdjson implements LectorFilas {
+
+        private final LineasAcotadas lector;
+        private long linea;
+
+        LectorNdjson(LineasAcotadas lector) {
+            this.lector = lector;
+        }
+
+        @Override
+        public FilaLeida siguiente() throws IOException {
+            String texto;
+            do {
+                lector.empezarRegistro();
+                linea++;
+                try {
+                    texto = lector.leerLinea();
+                } catch (RegistroDemasiadoLargo e) {
+                    lector.saltarLinea();
+                    return FilaLeida.invalida(linea, "La línea supera " + lector.maximo + " caracteres");
+                }
+                if (texto == null) {
+                    return null;
+                }
+            } while (texto.isBlank());
+            try {
+                return FilaLeida.valida(linea, objectMapper.readValue(texto, ProductoRequest.class));
+            } catch (JsonProcessingException e) {
+                return FilaLeida.invalida(linea, "JSON inválido: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * CSV con encabezado (RFC 4180: comillas dobles para campos con comas, saltos de línea o
+     * comillas). Columnas: nombre, descripcion, precio, moneda, stock, sku, categoriaId e
+     * imagenesUrls, esta última con las URLs separadas por {@code |}.
+     */
+    private static final class LectorCsv implements LectorFilas {
+
+        private final LineasAcotadas lector;
+        private Map<String, Integer> columnas;
+        private long linea;
+
+        LectorCsv(LineasAcotadas lector) {
+            this.lector = lector;
+        }
+
+        @Override
+        public FilaLeida siguiente() throws IOException {
+            if (columnas == null && !leerEncabezado()) {
+                return null;
+            }
+            long inicio;
+            List<String> campos;
+            do {
+                inicio = linea + 1;
+                try {
+                    campos = leerRegistro();
+                } catch (IllegalArgumentException e) {
+                    return FilaLeida.invalida(inicio, e.getMessage());
+                }
+                if (campos == null) {
+                    return null;
+                }
+            } while (campos.size() == 1 && campos.get(0).isBlank());
+            try {
+                return FilaLeida.valida(inicio, aRequest(campos));
+            } catch (IllegalArgumentException e) {
+                return FilaLeida.invalida(inicio, e.getMessage());
+            }
+        }
+
+        private boolean leerEncabezado() throws IOException {
+            List<String> encabezado = leerRegistro();
+            if (encabezado == null) {
+                return false;
+            }
+            columnas = new HashMap<>();
+            for (int i = 0; i < encabezado.size(); i++) {
+                columnas.put(encabezado.get(i).trim(), i);
+            }
+            List<String> faltantes = COLUMNAS_OBLIGATORIAS.stream().filter(c -> !columnas.containsKey(c)).toList();
+            if (!faltantes.isEmpty()) {
+                throw new IllegalArgumentException("Faltan columnas en el encabezado CSV: " + String.join(", ", faltantes));
+            }
+            return true;
+        }
+
+        private ProductoRequest aRequest(List<String> campos) {
+            ProductoRequest request = new ProductoRequest();
+            request.setNombre(campo(campos, "nombre"));
+            request.setDescripcion(campo(campos, "descripcion"));
+            request.setMoneda(campo(campos, "moneda"));
+            request.setSku(campo(campos, "sku"));
+            String precio = campo(campos, "precio");
+            String stock = campo(campos, "stock");
+            String categoriaId = campo(campos, "categoriaId");
+            try {
+                request.setPrecio(precio != null ? new BigDecimal(precio) : null);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Precio inválido: " + precio);
+            }
+            try {
+                request.setStock(stock != null ? Integer.valueOf(stock) : null);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Stock inválido: " + stock);
+            }
+            try {
+                request.setCategoriaId(categoriaId != null ? UUID.fromString(categoriaId) : null);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("ID de categoría inválido: " + categoriaId);
+            }
+            String imagenes = campo(campos, "imagenesUrls");
+            if (imagenes != null) {
+                request.setImagenesUrls(Arrays.stream(imagenes.split(SEPARADOR_IMAGENES))
+                        .map(String::trim)
+                        .filter(url -> !url.isEmpty())
+                        .toList());
+            }
+            return request;
+        }
+
+        private String campo(List<String> campos, String nombre) {
+            Integer indice = columnas.get(nombre);
+            if (indice == null || indice >= campos.size()) {
+                return null;
+            }
+            String valor = campos.get(indice).trim();
+            return valor.isEmpty() ? null : valor;
+        }
+
+        /**
+         * Lee un registro completo, que puede ocupar varias líneas si un campo entrecomillado
+         * contiene saltos de línea. Devuelve {@code null} al final del archivo. Si el registro pasa
+         * del tope de caracteres o el archivo termina con comillas abiertas, vuelve al inicio del
+         * registro, descarta solo su primera línea y lo rechaza; la lectura sigue en la línea siguiente.
+         */
+        private List<String> leerRegistro() throws IOException {
+            long inicio = linea;
+            lector.empezarRegistro();
+            try {
+                return parsearRegistro();
+            } catch (RegistroDemasiadoLargo e) {
+                descartarPrimeraLinea(inicio);
+                throw new IllegalArgumentException("El registro supera " + lector.maximo
+                        + " caracteres (¿comillas sin cerrar?); se descartó su primera línea");
+            } catch (ComillasSinCerrar e) {
+                descartarPrimeraLinea(inicio);
+                throw new IllegalArgumentException("Comillas sin cerrar al final del archivo; se descartó la línea");
+            }
+        }
+
+        private void descartarPrimeraLinea(long inicio) throws IOException {
+            lector.volverAlInicioDelRegistro();
+            lector.saltarLinea();
+            linea = inicio + 1;
+        }
+
+        private List<String> parsearRegistro() throws IOException {
+            String texto = lector.leerLinea();
+            if (texto == null) {
+                return null;
+            }
+            linea++;
+            List<String> campos = new ArrayList<>();
+            StringBuilder campo = new StringBuilder();
+            boolean entreComillas = false;
+            int i = 0;
+            while (true) {
+                if (i == texto.length()) {
+                    if (!entreComillas) {
+                        break;
+                    }
+                    texto = lector.leerLinea();
+                    if (texto == null) {
+                        throw new ComillasSinCerrar();
+                    }
+                    linea++;
+                    campo.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = texto.charAt(i++);
+                if (entreComillas) {
+                    if (c == '"' && i < texto.length() && texto.charAt(i) == '"') {
+                        campo.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        entreComillas = false;
+                    } else {
+                        campo.append(c);
+                    }
+                } else if (c == '"') {
+                    entreComillas = true;
+                } else if (c == ',') {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                } else {
+                    campo.append(c);
+                }
+            }
+            campos.add(campo.toString());
+            return campos;
+        }
+    }
+
+    /**
+     * Lee líneas sin pasar de {@code maximo} caracteres por registro. Al empezar cada registro marca
+     * la posición, así un registro rechazado puede releerse desde su inicio; la marca nunca retiene más
+     * de {@code maximo} caracteres.
+     */
+    private static final class LineasAcotadas {
+
+        private final BufferedReader lector;
+        private final int maximo;
+        private int disponibles;
+
+        LineasAcotadas(BufferedReader lector, int maximo) {
+            this.lector = lector;
+            this.maximo = maximo;
+        }
+
+        void empezarRegistro() throws IOException {
+            lector.mark(maximo + 1);
+            disponibles = maximo;
+        }
+
+        void volverAlInicioDelRegistro() throws IOException {
+            lector.reset();
+        }
+
+        /**
+         * Siguiente línea sin su terminador ({@code \n} o {@code \r\n}), o {@code null} al final del
+         * archivo. Los caracteres leídos, terminadores incluidos, se descuentan del registro en curso.
+         */
+        String leerLinea() throws IOException {
+            StringBuilder texto = new StringBuilder();
+            int c;
+            while ((c = lector.read()) != -1) {
+                if (--disponibles < 0) {
+                    throw new RegistroDemasiadoLargo();
+                }
+                if (c == '\n') {
+                    break;
+                }
+                texto.append((char) c);
+            }
+            if (c == -1 && texto.isEmpty()) {
+                return null;
+            }
+            int fin = texto.length();
+            if (fin > 0 && texto.charAt(fin - 1) == '\r') {
+                texto.setLength(fin - 1);
+            }
+            return texto.toString();
+        }
+
+        /** Consume el resto de la línea actual sin guardarlo. */
+        void saltarLinea() throws IOException {
+            int c;
+            do {
+                c = lector.read();
+            } while (c != -1 && c != '\n');
+        }
+    }
+
+    private static final class RegistroDemasiadoLargo extends IOException {}
+
+    private static final class ComillasSinCerrar extends IOException {}
+}
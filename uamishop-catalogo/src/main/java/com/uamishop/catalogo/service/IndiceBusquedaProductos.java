@@ -0,0 +1,420 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.dto.ProductoTexto;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre nombre, descripción y SKU de los productos activos, con ranking
+ * BM25. El texto se pliega a minúsculas sin acentos ("Cámara" y "camara" son el mismo término) y se
+ * descartan las palabras vacías del español ("de", "para", "con"...), que aparecen en casi todos los
+ * productos y no distinguen a ninguno. Un producto desactivado sale del índice.
+ *
+ * <p>Cada producto es un documento con un número interno creciente; las listas de postings quedan
+ * ordenadas por documento y la consulta las recorre a la vez (documento a documento) manteniendo
+ * solo un heap con los {@code limite} mejores. Con el heap lleno se poda con MaxScore: cada término
+ * tiene una cota de lo que puede aportar, y los términos cuyas cotas sumadas no alcanzan al peor del
+ * heap dejan de proponer documentos; solo se consultan, saltando en su lista, para los documentos que
+ * proponen los demás y mientras aún puedan cambiar el resultado.</p>
+ *
+ * <p>Reindexar un producto marca su documento anterior como borrado y agrega uno nuevo; los borrados
+ * se compactan cuando superan a una cuarta parte de los vivos.</p>
+ */
+@Component
+public class IndiceBusquedaProductos {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceBusquedaProductos.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // El nombre y el SKU describen mejor el producto que la descripción
+    private static final int PESO_NOMBRE = 3;
+    private static final int PESO_SKU = 3;
+    private static final int PESO_DESCRIPCION = 1;
+    private static final int TAMANIO_LOTE_CARGA = 5_000;
+    private static final int MINIMO_BORRADOS_COMPACTAR = 1_024;
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "como", "con", "de", "del", "e", "el", "en", "entre", "es", "esta", "este", "la",
+            "las", "le", "lo", "los", "mas", "o", "para", "pero", "por", "que", "se", "sin", "sobre", "su",
+            "sus", "u", "un", "una", "unas", "unos", "y");
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ProductoProyeccionRepository proyeccionRepository;
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> terminos = new HashMap<>();
+    private final Map<UUID, Integer> documentos = new HashMap<>();
+    private UUID[] productos = new UUID[1_024];   // null: documento borrado
+    private int[] longitudes = new int[1_024];
+    private int[] huellas = new int[1_024];
+    private int siguienteDocumento;
+    private int vivos;
+    private long longitudVivos;
+
+    public IndiceBusquedaProductos(ProductoProyeccionRepository proyeccionRepository) {
+        this.proyeccionRepository = proyeccionRepository;
+    }
+
+    /**
+     * Construye el índice recorriendo el catálogo por keyset. Un producto que ya fue indexado por una
+     * modificación concurrente no se sobrescribe con el texto leído antes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        long inicio = System.nanoTime();
+        int total = 0;
+        UUID ultimo = null;
+        List<ProductoTexto> lote;
+        do {
+            lote = proyeccionRepository.buscarTextos(ultimo, TAMANIO_LOTE_CARGA);
+            lote.forEach(texto -> indexar(texto, false));
+            total += lote.size();
+            if (!lote.isEmpty()) {
+                ultimo = lote.get(lote.size() - 1).id();
+            }
+        } while (lote.size() == TAMANIO_LOTE_CARGA);
+        log.info("Índice de búsqueda construido con {} productos en {} ms",
+                total, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Indexa o reindexa el producto; si está desactivado lo quita del índice.
+     */
+    public void indexar(ProductoTexto texto) {
+        indexar(texto, true);
+    }
+
+    public void eliminar(UUID productoId) {
+        candado.writeLock().lock();
+        try {
+            Integer documento = documentos.remove(productoId);
+            if (documento != null) {
+                borrar(documento);
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids de los productos más relevantes para la consulta, de mayor a menor puntaje. Basta con que
+     * el producto contenga uno de los términos; los que contienen más términos o términos más raros
+     * quedan primero.
+     */
+    public List<UUID> buscar(String consulta, int limite) {
+        return buscar(consulta, limite, true);
+    }
+
+    /**
+     * Con {@code podar} en falso puntúa todos los documentos que contienen algún término; da el mismo
+     * resultado y sirve de referencia en tests y benchmarks.
+     */
+    List<UUID> buscar(String consulta, int limite, boolean podar) {
+        Set<String> terminosConsulta = new LinkedHashSet<>();
+        tokenizar(consulta, terminosConsulta::add);
+
+        candado.readLock().lock();
+        try {
+            if (vivos == 0 || terminosConsulta.isEmpty()) {
+                return List.of();
+            }
+            double longitudPromedio = (double) longitudVivos / vivos;
+            List<Cursor> cursores = new ArrayList<>();
+            for (String termino : terminosConsulta) {
+                Postings postings = terminos.get(termino);
+                if (postings != null) {
+                    int df = Math.min(postings.tamanio, vivos);
+                    cursores.add(new Cursor(postings, Math.log(1 + (vivos - df + 0.5) / (df + 0.5))));
+                }
+            }
+            // De menor a mayor cota: los primeros son los que antes dejan de proponer documentos
+            cursores.sort(Comparator.comparingDouble(Cursor::cota));
+            double[] cotaAcumulada = new double[cursores.size()];
+            double suma = 0;
+            for (int i = 0; i < cursores.size(); i++) {
+                suma += cursores.get(i).cota();
+                cotaAcumulada[i] = suma;
+            }
+
+            // El peor del heap primero; entre empates sale el documento más nuevo
+            PriorityQueue<Candidato> mejores = new PriorityQueue<>(Comparator.comparingDouble(Candidato::puntaje)
+                    .thenComparing(Comparator.comparingInt(Candidato::documento).reversed()));
+            double umbral = Double.NEGATIVE_INFINITY;
+            int primeraEsencial = 0;
+            double[] aportes = new double[cursores.size()];
+            documentos:
+            while (true) {
+                if (podar && mejores.size() == limite) {
+                    umbral = mejores.peek().puntaje();
+                    while (primeraEsencial < cursores.size() && cotaAcumulada[primeraEsencial] <= umbral) {
+                        primeraEsencial++;
+                    }
+                }
+                int documento = Integer.MAX_VALUE;
+                for (int i = primeraEsencial; i < cursores.size(); i++) {
+                    documento = Math.min(documento, cursores.get(i).actual());
+                }
+                if (documento == Integer.MAX_VALUE) {
+                    break;
+                }
+                double normalizacion = K1 * (1 - B + B * longitudes[documento] / longitudPromedio);
+                Arrays.fill(aportes, 0);
+                double parcial = 0;
+                for (int i = primeraEsencial; i < cursores.size(); i++) {
+                    aportes[i] = cursores.get(i).puntuar(documento, normalizacion);
+                    parcial += aportes[i];
+                }
+                if (productos[documento] == null) {
+                    continue;
+                }
+                for (int i = primeraEsencial - 1; i >= 0; i--) {
+                    if (parcial + cotaAcumulada[i] <= umbral) {
+                        continue documentos;
+                    }
+                    Cursor cursor = cursores.get(i);
+                    cursor.avanzarHasta(documento);
+                    aportes[i] = cursor.puntuar(documento, normalizacion);
+                    parcial += aportes[i];
+                }
+                // Siempre en el mismo orden de términos, con o sin poda, para que el redondeo no reordene empates
+                double puntaje = 0;
+                for (double aporte : aportes) {
+                    puntaje += aporte;
+                }
+                // A igual puntaje se queda el documento más antiguo, que ya está en el heap
+                if (mejores.size() < limite) {
+                    mejores.add(new Candidato(documento, puntaje));
+                } else if (puntaje > mejores.peek().puntaje()) {
+                    mejores.poll();
+                    mejores.add(new Candidato(documento, puntaje));
+                }
+            }
+
+            List<Candidato> ordenados = new ArrayList<>(mejores);
+            ordenados.sort(Comparator.comparingDouble(Candidato::puntaje).reversed()
+                    .thenComparingInt(Candidato::documento));
+            return ordenados.stream().map(candidato -> productos[candidato.documento()]).toList();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public int tamanio() {
+        candado.readLock().lock();
+        try {
+            return vivos;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    private void indexar(ProductoTexto texto, boolean sobrescribir) {
+        Map<String, Integer> frecuencias = new HashMap<>();
+        int[] longitud = new int[1];
+        tokenizar(texto.nombre(), termino -> sumar(frecuencias, longitud, termino, PESO_NOMBRE));
+        tokenizar(texto.sku(), termino -> sumar(frecuencias, longitud, termino, PESO_SKU));
+        tokenizar(texto.descripcion(), termino -> sumar(frecuencias, longitud, termino, PESO_DESCRIPCION));
+        int huella = Objects.hash(texto.nombre(), texto.descripcion(), texto.sku());
+        if (Boolean.FALSE.equals(texto.disponible())) {
+            if (sobrescribir) {
+                eliminar(texto.id());
+            }
+            return;
+        }
+
+        candado.writeLock().lock();
+        try {
+            Integer anterior = documentos.get(texto.id());
+            if (anterior != null) {
+                if (!sobrescribir || huellas[anterior] == huella) {
+                    return;
+                }
+                borrar(anterior);
+            }
+            int documento = siguienteDocumento++;
+            asegurarCapacidad(siguienteDocumento);
+            productos[documento] = texto.id();
+            longitudes[documento] = longitud[0];
+            huellas[documento] = huella;
+            documentos.put(texto.id(), documento);
+            vivos++;
+            longitudVivos += longitud[0];
+            frecuencias.forEach((termino, tf) ->
+                    terminos.computeIfAbsent(termino, t -> new Postings()).agregar(documento, tf));
+            compactarSiHaceFalta();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private void borrar(int documento) {
+        productos[documento] = null;
+        vivos--;
+        longitudVivos -= longitudes[documento];
+    }
+
+    private void asegurarCapacidad(int capacidad) {
+        if (capacidad > productos.length) {
+            int nueva = Math.max(capacidad, productos.length * 2);
+            productos = Arrays.copyOf(productos, nueva);
+            longitudes = Arrays.copyOf(longitudes, nueva);
+            huellas = Arrays.copyOf(huellas, nueva);
+        }
+    }
+
+    /**
+     * Renumera los documentos vivos de forma compacta conservando su orden, así las listas de
+     * postings siguen ordenadas sin reordenarlas.
+     */
+    private void compactarSiHaceFalta() {
+        int borrados = siguienteDocumento - vivos;
+        if (borrados < MINIMO_BORRADOS_COMPACTAR || borrados * 4 < vivos) {
+            return;
+        }
+        int[] nuevoNumero = new int[siguienteDocumento];
+        int siguiente = 0;
+        for (int documento = 0; documento < siguienteDocumento; documento++) {
+            if (productos[documento] == null) {
+                nuevoNumero[documento] = -1;
+                continue;
+            }
+            nuevoNumero[documento] = siguiente;
+            productos[siguiente] = productos[documento];
+            longitudes[siguiente] = longitudes[documento];
+            huellas[siguiente] = huellas[documento];
+            documentos.put(productos[siguiente], siguiente);
+            siguiente++;
+        }
+        Arrays.fill(productos, siguiente, siguienteDocumento, null);
+        siguienteDocumento = siguiente;
+
+        Iterator<Postings> iterador = terminos.values().iterator();
+        while (iterador.hasNext()) {
+            Postings postings = iterador.next();
+            postings.renumerar(nuevoNumero);
+            if (postings.tamanio == 0) {
+                iterador.remove();
+            }
+        }
+    }
+
+    private static void sumar(Map<String, Integer> frecuencias, int[] longitud, String termino, int peso) {
+        frecuencias.merge(termino, peso, Integer::sum);
+        longitud[0] += peso;
+    }
+
+    static void tokenizar(String texto, Consumer<String> destino) {
+        if (texto == null || texto.isBlank()) {
+            return;
+        }
+        String plegado = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String termino : SEPARADORES.split(plegado)) {
+            if (!termino.isEmpty() && !PALABRAS_VACIAS.contains(termino)) {
+                destino.accept(termino);
+            }
+        }
+    }
+
+    private static final class Postings {
+        private int[] documentos = new int[4];
+        private int[] frecuencias = new int[4];
+        private int tamanio;
+        private int maximaFrecuencia;
+
+        private void agregar(int documento, int frecuencia) {
+            if (tamanio == documentos.length) {
+                documentos = Arrays.copyOf(documentos, tamanio * 2);
+                frecuencias = Arrays.copyOf(frecuencias, tamanio * 2);
+            }
+            documentos[tamanio] = documento;
+            frecuencias[tamanio] = frecuencia;
+            tamanio++;
+            maximaFrecuencia = Math.max(maximaFrecuencia, frecuencia);
+        }
+
+        private void renumerar(int[] nuevoNumero) {
+            int destino = 0;
+            maximaFrecuencia = 0;
+            for (int i = 0; i < tamanio; i++) {
+                int nuevo = nuevoNumero[documentos[i]];
+                if (nuevo >= 0) {
+                    documentos[destino] = nuevo;
+                    frecuencias[destino] = frecuencias[i];
+                    maximaFrecuencia = Math.max(maximaFrecuencia, frecuencias[i]);
+                    destino++;
+                }
+            }
+            tamanio = destino;
+        }
+    }
+
+    private static final class Cursor {
+        private final Postings postings;
+        private final double idf;
+        private final double cota;
+        private int posicion;
+
+        private Cursor(Postings postings, double idf) {
+            this.postings = postings;
+            this.idf = idf;
+            // Lo más que aporta el término: su mayor frecuencia en el documento más corto posible
+            int tf = postings.maximaFrecuencia;
+            this.cota = idf * tf * (K1 + 1) / (tf + K1 * (1 - B));
+        }
+
+        private double cota() {
+            return cota;
+        }
+
+        private int actual() {
+            return posicion < postings.tamanio ? postings.documentos[posicion] : Integer.MAX_VALUE;
+        }
+
+        private void avanzarHasta(int documento) {
+            if (actual() < documento) {
+                int encontrado = Arrays.binarySearch(postings.documentos, posicion, postings.tamanio, documento);
+                posicion = encontrado >= 0 ? encontrado : -encontrado - 1;
+            }
+        }
+
+        /**
+         * Aporte del término al documento si el cursor está en él, y avanza; si no, 0.
+         */
+        private double puntuar(int documento, double normalizacion) {
+            if (actual() != documento) {
+                return 0;
+            }
+            int tf = postings.frecuencias[posicion++];
+            return idf * tf * (K1 + 1) / (tf + normalizacion);
+        }
+    }
+
+    private record Candidato(int documento, double puntaje) {}
+}
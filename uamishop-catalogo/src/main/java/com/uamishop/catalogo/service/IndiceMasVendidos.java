@@ -0,0 +1,111 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.dto.ProductoEstadisticasResponse;
+import com.uamishop.catalogo.repository.ProductoEstadisticasJpaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Los {@code capacidad} productos con más unidades vendidas, en memoria. Se carga con una consulta
+ * LIMIT al arrancar, se actualiza con los totales que deja cada registro de ventas y se recarga
+ * periódicamente para incorporar las ventas procesadas por otras réplicas.
+ *
+ * <p>Como {@code cantidadVendida} solo crece, un producto que queda fuera del top solo puede volver
+ * a entrar con una venta propia, que también pasa por aquí: el índice es exacto para lo que ve esta
+ * instancia. Las lecturas usan una instantánea inmutable y no toman el candado.</p>
+ */
+@Component
+public class IndiceMasVendidos {
+
+    private static final Comparator<ProductoEstadisticasResponse> POR_VENDIDOS =
+            Comparator.comparingLong(ProductoEstadisticasResponse::cantidadVendida).reversed()
+                    .thenComparing(ProductoEstadisticasResponse::productoId);
+
+    private final ProductoEstadisticasJpaRepository estadisticasRepository;
+    private final int capacidad;
+
+    private final TreeSet<ProductoEstadisticasResponse> top = new TreeSet<>(POR_VENDIDOS);
+    private final Map<UUID, ProductoEstadisticasResponse> porProducto = new HashMap<>();
+    private volatile List<ProductoEstadisticasResponse> instantanea;
+
+    public IndiceMasVendidos(ProductoEstadisticasJpaRepository estadisticasRepository,
+                             @Value("${catalogo.mas-vendidos.capacidad:100}") int capacidad) {
+        this.estadisticasRepository = estadisticasRepository;
+        this.capacidad = capacidad;
+    }
+
+    /**
+     * Los {@code limit} más vendidos, o vacío si el índice aún no se cargó o {@code limit} supera su
+     * capacidad; en ese caso hay que consultar la base.
+     */
+    public Optional<List<ProductoEstadisticasResponse>> obtener(int limit) {
+        List<ProductoEstadisticasResponse> actual = instantanea;
+        if (actual == null || limit > capacidad) {
+            return Optional.empty();
+        }
+        return Optional.of(actual.subList(0, Math.min(limit, actual.size())));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${catalogo.mas-vendidos.refresco-ms:60000}",
+            fixedDelayString = "${catalogo.mas-vendidos.refresco-ms:60000}")
+    public void recargar() {
+        List<ProductoEstadisticasResponse> desdeBase = estadisticasRepository
+                .findByOrderByCantidadVendidaDesc(PageRequest.of(0, capacidad))
+                .stream()
+                .map(ProductoEstadisticasResponse::fromEntity)
+                .toList();
+        synchronized (this) {
+            top.clear();
+            porProducto.clear();
+            desdeBase.forEach(this::incorporar);
+            publicar();
+        }
+    }
+
+    /**
+     * Incorpora totales ya confirmados. Un total menor que el conocido (lectura anterior que llega
+     * tarde) se ignora.
+     */
+    public synchronized void actualizar(Collection<ProductoEstadisticasResponse> totales) {
+        if (instantanea == null) {
+            return;
+        }
+        totales.forEach(this::incorporar);
+        publicar();
+    }
+
+    private void incorporar(ProductoEstadisticasResponse stats) {
+        ProductoEstadisticasResponse anterior = porProducto.get(stats.productoId());
+        if (anterior != null) {
+            if (anterior.cantidadVendida() > stats.cantidadVendida()) {
+                return;
+            }
+            top.remove(anterior);
+        } else if (top.size() >= capacidad && POR_VENDIDOS.compare(stats, top.last()) >= 0) {
+            return;
+        }
+        top.add(stats);
+        porProducto.put(stats.productoId(), stats);
+        if (top.size() > capacidad) {
+            porProducto.remove(top.pollLast().productoId());
+        }
+    }
+
+    private void publicar() {
+        instantanea = List.copyOf(top);
+    }
+}
@@ -0,0 +1,254 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.dto.TendenciaResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Productos en tendencia: cada "agregado al carrito" y cada compra confirmados suman un peso que decae
+ * exponencialmente con vida media {@code catalogo.tendencias.vida-media}.
+ *
+ * <p>El decaimiento es perezoso: los puntajes se guardan escalados a un instante de referencia común,
+ * así que sumar un evento es multiplicar su peso por {@code e^(λ·(t - referencia))} y sumarlo en un
+ * mapa de claves primitivas, sin recorrer ni decaer los demás. Cada
+ * {@code catalogo.tendencias.refresco-ms} se mueve la referencia al instante actual, se descartan los
+ * puntajes que ya no cuentan y un montículo de tamaño {@code capacidad} arma la instantánea que
+ * responde las lecturas, que nunca van a la base.</p>
+ *
+ * <p>Las compras y los agregados se consumen particionados por producto, así que cada réplica solo
+ * ve una parte de la actividad; las instantáneas de las demás réplicas llegan por
+ * {@link #incorporarRemota} y se suman al recalcular.</p>
+ */
+@Component
+public class IndiceTendencias {
+
+    // Por debajo de esto (unas 10 vidas medias de un evento de peso 1) el producto sale del mapa
+    private static final double PUNTAJE_MINIMO = 1e-3;
+
+    private static final Comparator<TendenciaResponse> POR_PUNTAJE =
+            Comparator.comparingDouble(TendenciaResponse::puntaje).thenComparing(TendenciaResponse::productoId);
+
+    private final double lambda;
+    private final double pesoCarrito;
+    private final double pesoCompra;
+    private final int capacidad;
+    private final Duration vigenciaRemota;
+
+    private final Map<String, InstantaneaRemota> remotas = new ConcurrentHashMap<>();
+    private MapaPuntajes puntajes = new MapaPuntajes(1024);
+    private double referenciaSegundos;
+    private volatile PuntajesLocales locales = new PuntajesLocales(Instant.EPOCH, List.of());
+    private volatile List<TendenciaResponse> instantanea = List.of();
+
+    public IndiceTendencias(@Value("${catalogo.tendencias.vida-media:6h}") Duration vidaMedia,
+                            @Value("${catalogo.tendencias.peso-carrito:1}") double pesoCarrito,
+                            @Value("${catalogo.tendencias.peso-compra:5}") double pesoCompra,
+                            @Value("${catalogo.tendencias.capacidad:100}") int capacidad,
+                            @Value("${catalogo.tendencias.refresco-ms:5000}") long refrescoMs) {
+        this.lambda = Math.log(2) / vidaMedia.toSeconds();
+        this.pesoCarrito = pesoCarrito;
+        this.pesoCompra = pesoCompra;
+        this.capacidad = capacidad;
+        // Una réplica que deja de difundir (caída, reinicio) deja de contar tras unos pocos ciclos
+        this.vigenciaRemota = Duration.ofMillis(refrescoMs * 3);
+        this.referenciaSegundos = segundos(Instant.now());
+    }
+
+    public void registrarAgregadoAlCarrito(UUID productoId, Instant momento) {
+        sumar(productoId, pesoCarrito, momento);
+    }
+
+    public void registrarCompras(UUID productoId, long transacciones, Instant momento) {
+        sumar(productoId, pesoCompra * transacciones, momento);
+    }
+
+    private synchronized void sumar(UUID productoId, double peso, Instant momento) {
+        puntajes.sumar(productoId, peso * Math.exp(lambda * (segundos(momento) - referenciaSegundos)));
+    }
+
+    /**
+     * Los {@code limit} productos con más puntaje en el último recálculo.
+     */
+    public List<TendenciaResponse> obtener(int limit) {
+        List<TendenciaResponse> actual = instantanea;
+        return actual.subList(0, Math.min(limit, actual.size()));
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    /**
+     * Puntajes propios del último recálculo, para difundirlos a las demás réplicas.
+     */
+    public PuntajesLocales obtenerLocales() {
+        return locales;
+    }
+
+    public void incorporarRemota(String instancia, Instant generadaEn, List<TendenciaResponse> puntajes) {
+        remotas.put(instancia, new InstantaneaRemota(generadaEn, List.copyOf(puntajes)));
+    }
+
+    @Scheduled(fixedDelayString = "${catalogo.tendencias.refresco-ms:5000}")
+    public void recalcular() {
+        recalcular(Instant.now());
+    }
+
+    void recalcular(Instant ahora) {
+        List<TendenciaResponse> propios = reescalar(ahora);
+        locales = new PuntajesLocales(ahora, propios);
+
+        Map<UUID, Double> combinados = new HashMap<>();
+        propios.forEach(t -> combinados.merge(t.productoId(), t.puntaje(), Double::sum));
+        remotas.entrySet().removeIf(entrada -> entrada.getValue().generadaEn().isBefore(ahora.minus(vigenciaRemota)));
+        remotas.values().forEach(remota -> {
+            double decaimiento = Math.exp(-lambda * (segundos(ahora) - segundos(remota.generadaEn())));
+            remota.puntajes().forEach(t -> combinados.merge(t.productoId(), t.puntaje() * decaimiento, Double::sum));
+        });
+
+        PriorityQueue<TendenciaResponse> top = new PriorityQueue<>(capacidad + 1, POR_PUNTAJE);
+        combinados.forEach((productoId, puntaje) -> acotar(top, new TendenciaResponse(productoId, puntaje)));
+        instantanea = ordenar(top);
+    }
+
+    /**
+     * Lleva los puntajes a la referencia {@code ahora} (su valor decaído real), descarta los
+     * despreciables y devuelve los {@code capacidad} mayores.
+     */
+    private synchronized List<TendenciaResponse> reescalar(Instant ahora) {
+        double factor = Math.exp(-lambda * (segundos(ahora) - referenciaSegundos));
+        MapaPuntajes vigentes = new MapaPuntajes(Math.max(1024, puntajes.tamanio * 2));
+        PriorityQueue<TendenciaResponse> top = new PriorityQueue<>(capacidad + 1, POR_PUNTAJE);
+        puntajes.recorrer((altos, bajos, valor) -> {
+            double puntaje = valor * factor;
+            if (puntaje >= PUNTAJE_MINIMO) {
+                vigentes.sumar(altos, bajos, puntaje);
+                acotar(top, new TendenciaResponse(new UUID(altos, bajos), puntaje));
+            }
+        });
+        puntajes = vigentes;
+        referenciaSegundos = segundos(ahora);
+        return ordenar(top);
+    }
+
+    private void acotar(PriorityQueue<TendenciaResponse> top, TendenciaResponse candidato) {
+        if (top.size() < capacidad) {
+            top.add(candidato);
+        } else if (POR_PUNTAJE.compare(candidato, top.peek()) > 0) {
+            top.poll();
+            top.add(candidato);
+        }
+    }
+
+    private static List<TendenciaResponse> ordenar(Collection<TendenciaResponse> top) {
+        List<TendenciaResponse> ordenados = new ArrayList<>(top);
+        ordenados.sort(POR_PUNTAJE.reversed());
+        return List.copyOf(ordenados);
+    }
+
+    private static double segundos(Instant momento) {
+        return momento.getEpochSecond() + momento.getNano() / 1e9;
+    }
+
+    public record PuntajesLocales(Instant calculadosEn, List<TendenciaResponse> puntajes) {}
+
+    private record InstantaneaRemota(Instant generadaEn, List<TendenciaResponse> puntajes) {}
+
+    /**
+     * Mapa de UUID a double con direccionamiento abierto sobre arreglos primitivos: sumar no crea
+     * objetos ni envuelve el valor.
+     */
+    private static final class MapaPuntajes {
+
+        private long[] altos;
+        private long[] bajos;
+        private double[] valores;
+        private boolean[] usados;
+        private int tamanio;
+
+        MapaPuntajes(int capacidadInicial) {
+            int ranuras = Integer.highestOneBit(Math.max(capacidadInicial, 16) - 1) << 1;
+            altos = new long[ranuras];
+            bajos = new long[ranuras];
+            valores = new double[ranuras];
+            usados = new boolean[ranuras];
+        }
+
+        void sumar(UUID id, double delta) {
+            sumar(id.getMostSignificantBits(), id.getLeastSignificantBits(), delta);
+        }
+
+        void sumar(long alto, long bajo, double delta) {
+            if ((tamanio + 1) * 2 > usados.length) {
+                crecer();
+            }
+            int ranura = ranura(alto, bajo);
+            if (!usados[ranura]) {
+                usados[ranura] = true;
+                altos[ranura] = alto;
+                bajos[ranura] = bajo;
+                tamanio++;
+            }
+            valores[ranura] += delta;
+        }
+
+        void recorrer(Visitante visitante) {
+            for (int i = 0; i < usados.length; i++) {
+                if (usados[i]) {
+                    visitante.visitar(altos[i], bajos[i], valores[i]);
+                }
+            }
+        }
+
+        private int ranura(long alto, long bajo) {
+            int mascara = usados.length - 1;
+            long mezcla = (alto ^ bajo) * 0x9E3779B97F4A7C15L;
+            int ranura = (int) (mezcla ^ (mezcla >>> 32)) & mascara;
+            while (usados[ranura] && (altos[ranura] != alto || bajos[ranura] != bajo)) {
+                ranura = (ranura + 1) & mascara;
+            }
+            return ranura;
+        }
+
+        private void crecer() {
+            long[] altosViejos = altos;
+            long[] bajosViejos = bajos;
+            double[] valoresViejos = valores;
+            boolean[] usadosViejos = usados;
+            int ranuras = usadosViejos.length * 2;
+            altos = new long[ranuras];
+            bajos = new long[ranuras];
+            valores = new double[ranuras];
+            usados = new boolean[ranuras];
+            tamanio = 0;
+            for (int i = 0; i < usadosViejos.length; i++) {
+                if (usadosViejos[i]) {
+                    int ranura = ranura(altosViejos[i], bajosViejos[i]);
+                    usados[ranura] = true;
+                    altos[ranura] = altosViejos[i];
+                    bajos[ranura] = bajosViejos[i];
+                    valores[ranura] = valoresViejos[i];
+                    tamanio++;
+                }
+            }
+        }
+
+        @FunctionalInterface
+        interface Visitante {
+            void visitar(long alto, long bajo, double valor);
+        }
+    }
+}
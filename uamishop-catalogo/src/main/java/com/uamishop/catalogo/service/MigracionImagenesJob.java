@@ -0,0 +1,49 @@
+package com.uamishop.catalogo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Migración en segundo plano de las imágenes al modo compacto, activada con
+ * {@code catalogo.imagenes.migracion.habilitada}. Cada lote va en su propia transacción y un barrido
+ * se detiene tras {@code MAX_LOTES_POR_BARRIDO} lotes, como {@link ReservaStockExpiracionJob}.
+ */
+@Component
+public class MigracionImagenesJob {
+
+    private static final Logger log = LoggerFactory.getLogger(MigracionImagenesJob.class);
+    private static final int MAX_LOTES_POR_BARRIDO = 10;
+
+    private final MigracionImagenesService migracionImagenesService;
+    private final boolean habilitada;
+    private final int tamanioLote;
+
+    public MigracionImagenesJob(MigracionImagenesService migracionImagenesService,
+                                @Value("${catalogo.imagenes.migracion.habilitada:false}") boolean habilitada,
+                                @Value("${catalogo.imagenes.migracion.lote:200}") int tamanioLote) {
+        this.migracionImagenesService = migracionImagenesService;
+        this.habilitada = habilitada;
+        this.tamanioLote = tamanioLote;
+    }
+
+    @Scheduled(fixedDelayString = "${catalogo.imagenes.migracion.intervalo-ms:1000}")
+    public void migrar() {
+        if (!habilitada) {
+            return;
+        }
+        int total = 0;
+        for (int i = 0; i < MAX_LOTES_POR_BARRIDO; i++) {
+            int leidos = migracionImagenesService.migrarLote(tamanioLote);
+            total += leidos;
+            if (leidos < tamanioLote) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Migración de imágenes: {} productos procesados", total);
+        }
+    }
+}
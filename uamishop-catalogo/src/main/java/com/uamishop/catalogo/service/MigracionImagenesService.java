@@ -0,0 +1,74 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.Imagen;
+import com.uamishop.catalogo.dto.VersionProducto;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.shared.event.ProductoModificadoEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Migra productos existentes de {@code producto_imagenes} a la columna {@code imagenes_json}.
+ * Cada producto se compacta con un UPDATE condicionado a la versión leída y, solo si ese UPDATE
+ * aplicó, se borran sus filas de {@code producto_imagenes} en la misma transacción. Un producto
+ * modificado a mitad del lote se omite y se retoma en el siguiente.
+ */
+@Service
+public class MigracionImagenesService {
+
+    private static final String DELETE_IMAGENES = "delete from producto_imagenes where producto_id = ?";
+
+    private final ProductoJpaRepository productoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public MigracionImagenesService(ProductoJpaRepository productoRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    ApplicationEventPublisher eventPublisher) {
+        this.productoRepository = productoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Compacta hasta {@code lote} productos y devuelve cuántos leyó; menos de {@code lote} significa
+     * que ya no quedan productos por migrar (salvo los que cambiaron durante el lote).
+     */
+    @Transactional
+    public int migrarLote(int lote) {
+        List<VersionProducto> pendientes = productoRepository.findSinImagenesCompactas(PageRequest.of(0, lote));
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+        Map<UUID, List<Imagen>> imagenes = new HashMap<>();
+        for (Object[] fila : productoRepository.findImagenes(pendientes.stream().map(VersionProducto::productoId).toList())) {
+            imagenes.computeIfAbsent((UUID) fila[0], id -> new ArrayList<>()).add((Imagen) fila[1]);
+        }
+
+        Instant ahora = Instant.now();
+        List<Object[]> compactados = new ArrayList<>();
+        for (VersionProducto pendiente : pendientes) {
+            List<Imagen> propias = imagenes.getOrDefault(pendiente.productoId(), new ArrayList<>());
+            propias.sort(Comparator.comparing(Imagen::orden));
+            if (productoRepository.compactarImagenes(pendiente.productoId(), pendiente.version(), propias, ahora) == 1) {
+                compactados.add(new Object[]{Uuids.aBytes(pendiente.productoId())});
+                eventPublisher.publishEvent(new ProductoModificadoEvent(pendiente.productoId()));
+            }
+        }
+        if (!compactados.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_IMAGENES, compactados);
+        }
+        return pendientes.size();
+    }
+}
@@ -0,0 +1,149 @@
+package com.uamishop.catalogo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uamishop.catalogo.dto.ProductoResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Caché de productos por id. Caffeine decide qué conservar con W-TinyLFU, así que
+ * los productos consultados con frecuencia sobreviven a ráfagas de lecturas únicas.
+ * La expiración por escritura solo acota la vida de una entrada si se pierde una invalidación.
+ *
+ * Métricas en actuator: {@code cache.gets} (hit/miss), {@code cache.evictions}, {@code cache.size}
+ * con tag {@code cache=productos}, y {@code catalogo.cache.invalidaciones} por origen.
+ *
+ * Junto a los productos guarda el índice SKU → id ({@code cache=productos-sku}). Esas entradas
+ * no se invalidan al editar un producto: quien las usa compara el SKU del producto obtenido y
+ * descarta la entrada si ya no coincide.
+ *
+ * Lo leído de la base fuera de {@link #obtener} se guarda con la {@link Marca} tomada antes de la
+ * lectura: si entretanto llegó una invalidación para la franja del producto, la lectura pudo ser
+ * anterior al commit invalidado y no se cachea.
+ */
+@Component
+public class ProductoCache {
+
+    private static final String NOMBRE = "productos";
+    private static final String NOMBRE_SKUS = "productos-sku";
+    private static final int FRANJAS = 256;
+
+    private final Cache<UUID, ProductoResponse> cache;
+    private final Cache<String, UUID> idsPorSku;
+    private final Counter invalidacionesLocales;
+    private final Counter invalidacionesRemotas;
+    // Invalidaciones por franja de ids; una franja compartida solo cuesta alguna entrada sin cachear
+    private final AtomicLongArray invalidacionesPorFranja = new AtomicLongArray(FRANJAS);
+
+    public ProductoCache(MeterRegistry meterRegistry,
+                         @Value("${catalogo.cache.productos.tamanio-maximo:10000}") long tamanioMaximo,
+                         @Value("${catalogo.cache.productos.expiracion:10m}") Duration expiracion) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanioMaximo)
+                .expireAfterWrite(expiracion)
+                .recordStats()
+                .build();
+        this.idsPorSku = Caffeine.newBuilder()
+                .maximumSize(tamanioMaximo)
+                .expireAfterWrite(expiracion)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NOMBRE);
+        CaffeineCacheMetrics.monitor(meterRegistry, idsPorSku, NOMBRE_SKUS);
+        this.invalidacionesLocales = Counter.builder("catalogo.cache.invalidaciones")
+                .tag("cache", NOMBRE).tag("origen", "local")
+                .register(meterRegistry);
+        this.invalidacionesRemotas = Counter.builder("catalogo.cache.invalidaciones")
+                .tag("cache", NOMBRE).tag("origen", "remota")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Devuelve el producto cacheado o lo carga con {@code cargador}. Las excepciones del
+     * cargador se propagan y no se cachea nada.
+     */
+    public ProductoResponse obtener(UUID productoId, Function<UUID, ProductoResponse> cargador) {
+        return cache.get(productoId, cargador);
+    }
+
+    public Optional<ProductoResponse> obtenerSiPresente(UUID productoId) {
+        return Optional.ofNullable(cache.getIfPresent(productoId));
+    }
+
+    /**
+     * Foto de las invalidaciones hasta ahora. Se toma antes de leer de la base lo que después se
+     * pasa a {@link #guardar(ProductoResponse, Marca)}.
+     */
+    public Marca marcar() {
+        long[] valores = new long[FRANJAS];
+        for (int i = 0; i < FRANJAS; i++) {
+            valores[i] = invalidacionesPorFranja.get(i);
+        }
+        return new Marca(valores);
+    }
+
+    /**
+     * Cachea un producto leído de la base después de {@code marca}, salvo que su franja haya recibido
+     * una invalidación desde entonces. La comprobación corre dentro del cómputo de la entrada, así que
+     * una invalidación posterior espera a que termine y la borra. Si el producto ya estaba cacheado se
+     * conserva la entrada existente.
+     */
+    public void guardar(ProductoResponse producto, Marca marca) {
+        UUID productoId = producto.getId().getValue();
+        int franja = franja(productoId);
+        cache.asMap().compute(productoId, (id, actual) -> {
+            if (actual != null) {
+                return actual;
+            }
+            return invalidacionesPorFranja.get(franja) == marca.valores[franja] ? producto : null;
+        });
+        if (producto.getSku() != null) {
+            idsPorSku.put(producto.getSku(), productoId);
+        }
+    }
+
+    public Optional<UUID> idPorSku(String sku) {
+        return Optional.ofNullable(idsPorSku.getIfPresent(sku));
+    }
+
+    public void invalidarSku(String sku) {
+        idsPorSku.invalidate(sku);
+    }
+
+    public void invalidar(UUID productoId) {
+        invalidacionesPorFranja.incrementAndGet(franja(productoId));
+        cache.invalidate(productoId);
+        invalidacionesLocales.increment();
+    }
+
+    public void invalidarPorOtraInstancia(UUID productoId) {
+        invalidacionesPorFranja.incrementAndGet(franja(productoId));
+        cache.invalidate(productoId);
+        invalidacionesRemotas.increment();
+    }
+
+    private static int franja(UUID productoId) {
+        return Math.floorMod(productoId.hashCode(), FRANJAS);
+    }
+
+    /**
+     * Contadores de invalidación por franja en un momento dado.
+     */
+    public static final class Marca {
+        private final long[] valores;
+
+        private Marca(long[] valores) {
+            this.valores = valores;
+        }
+    }
+}
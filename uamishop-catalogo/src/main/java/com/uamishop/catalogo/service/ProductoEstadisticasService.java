@@ -1,45 +1,179 @@
 package com.uamishop.catalogo.service;
 
 import com.uamishop.catalogo.domain.ProductoEstadisticas;
+import com.uamishop.catalogo.dto.ProductoEstadisticasResponse;
+import com.uamishop.catalogo.dto.TendenciaResponse;
+import com.uamishop.catalogo.dto.VentasHoraResponse;
+import com.uamishop.catalogo.dto.VentasVentanaResponse;
 import com.uamishop.catalogo.repository.ProductoEstadisticasJpaRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.TimeZone;
 import java.util.UUID;
 
 @Service
 public class ProductoEstadisticasService {
 
+    // Debe caber en catalogo.ventas-hora.retencion (90 días por defecto)
+    public static final int MAX_HORAS_VENTANA = 24 * 90;
+
+    private static final String UPSERT_VENTAS =
+            "insert into producto_estadisticas (producto_id, ventas_totales, cantidad_vendida, "
+            + "veces_agregado_al_carrito, ultima_venta_at) values (?, ?, ?, 0, ?) "
+            + "on duplicate key update "
+            + "ventas_totales = ventas_totales + values(ventas_totales), "
+            + "cantidad_vendida = cantidad_vendida + values(cantidad_vendida), "
+            + "ultima_venta_at = greatest(coalesce(ultima_venta_at, values(ultima_venta_at)), values(ultima_venta_at))";
+
     private final ProductoEstadisticasJpaRepository estadisticasRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ContadorAgregadosCarrito contadorAgregadosCarrito;
+    private final IndiceMasVendidos indiceMasVendidos;
+    private final SeriesVentasHora seriesVentasHora;
+    private final IndiceTendencias indiceTendencias;
 
-    public ProductoEstadisticasService(ProductoEstadisticasJpaRepository estadisticasRepository) {
+    public ProductoEstadisticasService(ProductoEstadisticasJpaRepository estadisticasRepository,
+                                       JdbcTemplate jdbcTemplate,
+                                       ContadorAgregadosCarrito contadorAgregadosCarrito,
+                                       IndiceMasVendidos indiceMasVendidos,
+                                       SeriesVentasHora seriesVentasHora,
+                                       IndiceTendencias indiceTendencias) {
         this.estadisticasRepository = estadisticasRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.contadorAgregadosCarrito = contadorAgregadosCarrito;
+        this.indiceMasVendidos = indiceMasVendidos;
+        this.seriesVentasHora = seriesVentasHora;
+        this.indiceTendencias = indiceTendencias;
     }
 
     @Transactional
     public void registrarVenta(UUID productoId, int cantidad) {
-        ProductoEstadisticas stats = estadisticasRepository.findById(productoId)
-                .orElse(new ProductoEstadisticas(productoId));
-        stats.registrarVenta(cantidad, Instant.now());
-        estadisticasRepository.save(stats);
+        registrarVentas(List.of(new VentasProducto(productoId, 1, cantidad)));
     }
 
+    /**
+     * Registra las ventas agregadas de varios productos con un UPSERT aditivo por lote y una lectura de
+     * los totales resultantes. La suma la hace la base, así que dos transacciones que registran ventas
+     * del mismo producto a la vez (por ejemplo, durante el relevo del consumidor activo de una
+     * partición) no se pisan.
+     */
     @Transactional
-    public void registrarAgregadoAlCarrito(UUID productoId) {
-        ProductoEstadisticas stats = estadisticasRepository.findById(productoId)
-                .orElse(new ProductoEstadisticas(productoId));
-        stats.registrarAgregadoAlCarrito(Instant.now());
-        estadisticasRepository.save(stats);
+    public void registrarVentas(Collection<VentasProducto> ventas) {
+        Instant ahora = Instant.now();
+        // Orden fijo de productos para que lotes concurrentes no se bloqueen mutuamente
+        List<VentasProducto> ordenadas = ventas.stream()
+                .sorted(Comparator.comparing(VentasProducto::productoId))
+                .toList();
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        jdbcTemplate.batchUpdate(UPSERT_VENTAS, ordenadas, ordenadas.size(), (ps, venta) -> {
+            ps.setBytes(1, Uuids.aBytes(venta.productoId()));
+            ps.setLong(2, venta.transacciones());
+            ps.setLong(3, venta.cantidad());
+            ps.setTimestamp(4, Timestamp.from(ahora), utc);
+        });
+
+        // El índice y la serie por hora solo ven ventas confirmadas
+        List<ProductoEstadisticasResponse> totales = estadisticasRepository
+                .findAllById(ordenadas.stream().map(VentasProducto::productoId).toList())
+                .stream()
+                .map(ProductoEstadisticasResponse::fromEntity)
+                .toList();
+        List<VentasProducto> confirmadas = List.copyOf(ventas);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publicarVentas(totales, confirmadas, ahora);
+                }
+            });
+        } else {
+            publicarVentas(totales, confirmadas, ahora);
+        }
+    }
+
+    private void publicarVentas(List<ProductoEstadisticasResponse> totales, List<VentasProducto> ventas, Instant momento) {
+        indiceMasVendidos.actualizar(totales);
+        ventas.forEach(venta -> {
+            seriesVentasHora.registrar(venta.productoId(), venta.transacciones(), venta.cantidad(), momento);
+            indiceTendencias.registrarCompras(venta.productoId(), venta.transacciones(), momento);
+        });
+    }
+
+    /**
+     * Se acumula en memoria y se persiste, junto con su registro en el inbox, en el siguiente volcado
+     * de ContadorAgregadosCarrito: no cuesta ninguna sentencia por evento. Las reentregas que el filtro
+     * en memoria reconoce no suman ni al contador ni a las tendencias.
+     */
+    public void registrarAgregadoAlCarrito(UUID eventId, UUID productoId) {
+        Instant ahora = Instant.now();
+        if (contadorAgregadosCarrito.registrar(eventId, productoId, ahora)) {
+            indiceTendencias.registrarAgregadoAlCarrito(productoId, ahora);
+        }
+    }
+
+    /**
+     * Se responde desde {@link IndiceMasVendidos}; solo un {@code limit} mayor que su capacidad (o un
+     * índice aún sin cargar) llega a la base.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductoEstadisticasResponse> obtenerMasVendidos(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("El límite debe ser mayor a 0");
+        }
+        return indiceMasVendidos.obtener(limit).orElseGet(() -> estadisticasRepository.findMasVendidos(limit)
+                .stream()
+                .map(ProductoEstadisticasResponse::fromEntity)
+                .toList());
     }
 
+    /**
+     * Los más vendidos de las últimas {@code horas} horas, sumando baldes horarios de
+     * {@link SeriesVentasHora}.
+     */
     @Transactional(readOnly = true)
-    public List<ProductoEstadisticas> obtenerMasVendidos(int limit) {
-        return estadisticasRepository.findMasVendidos(limit);
+    public List<VentasVentanaResponse> obtenerMasVendidosEnVentana(int horas, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("El límite debe ser mayor a 0");
+        }
+        validarHoras(horas);
+        return seriesVentasHora.masVendidos(horas, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public List<VentasHoraResponse> obtenerVentasPorHora(UUID productoId, int horas) {
+        validarHoras(horas);
+        return seriesVentasHora.serie(productoId, horas);
+    }
+
+    private static void validarHoras(int horas) {
+        if (horas < 1 || horas > MAX_HORAS_VENTANA) {
+            throw new IllegalArgumentException("Las horas deben estar entre 1 y " + MAX_HORAS_VENTANA);
+        }
+    }
+
+    /**
+     * Se responde desde la instantánea de {@link IndiceTendencias}; nunca consulta la base.
+     */
+    public List<TendenciaResponse> obtenerTendencias(int limit) {
+        if (limit < 1 || limit > indiceTendencias.getCapacidad()) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + indiceTendencias.getCapacidad());
+        }
+        return indiceTendencias.obtener(limit);
     }
 
     @Transactional(readOnly = true)
     public ProductoEstadisticas obtenerEstadisticas(UUID productoId) {
         return estadisticasRepository.findById(productoId).orElse(null);
     }
+
+    public record VentasProducto(UUID productoId, int transacciones, int cantidad) {}
 }
\ No newline at end of file
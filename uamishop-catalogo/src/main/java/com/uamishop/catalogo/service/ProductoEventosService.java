@@ -0,0 +1,158 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.shared.domain.UuidV7;
+import com.uamishop.catalogo.config.RabbitConfig;
+import com.uamishop.catalogo.domain.MarcaStockPendiente;
+import com.uamishop.catalogo.dto.ProductoFila;
+import com.uamishop.catalogo.outbox.service.OutboxService;
+import com.uamishop.catalogo.repository.MarcaStockPendienteJpaRepository;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import com.uamishop.catalogo.shared.event.ProductoActualizadoEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Registra los productos modificados en una transacción: los marca con la versión del catálogo de
+ * esa transacción (secuencia de la sincronización incremental) y escribe en el outbox un
+ * {@link ProductoActualizadoEvent} por producto, con el estado leído dentro de la misma
+ * transacción (los cambios pendientes se vacían antes de la consulta).
+ *
+ * <p>Los movimientos de stock escriben su evento igual, pero no suben la versión dentro de la
+ * transacción: dejan una {@link MarcaStockPendiente} por producto en la misma transacción y cada
+ * {@code catalogo.version.stock-ms} una sola transacción sube la versión, marca los productos
+ * pendientes y borra sus filas. Así las compras no se serializan en la fila del contador, la
+ * sincronización incremental los recibe con un retraso acotado y una caída antes del volcado no
+ * pierde la marca.</p>
+ */
+@Service
+public class ProductoEventosService {
+
+    static final String AGREGADO = "Producto";
+    static final String TIPO_EVENTO = "ProductoActualizadoEvent";
+
+    private static final Logger log = LoggerFactory.getLogger(ProductoEventosService.class);
+    private static final int TAMANIO_LOTE_MARCA = 1000;
+    private static final int MAX_LOTES_POR_VOLCADO = 10;
+
+    private final ProductoJpaRepository productoRepository;
+    private final ProductoProyeccionRepository proyeccionRepository;
+    private final CatalogoVersionService catalogoVersionService;
+    private final OutboxService outboxService;
+    private final MarcaStockPendienteJpaRepository marcaStockRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public ProductoEventosService(ProductoJpaRepository productoRepository,
+                                  ProductoProyeccionRepository proyeccionRepository,
+                                  CatalogoVersionService catalogoVersionService,
+                                  OutboxService outboxService,
+                                  MarcaStockPendienteJpaRepository marcaStockRepository,
+                                  TransactionTemplate transactionTemplate) {
+        this.productoRepository = productoRepository;
+        this.proyeccionRepository = proyeccionRepository;
+        this.marcaStockRepository = marcaStockRepository;
+        this.catalogoVersionService = catalogoVersionService;
+        this.outboxService = outboxService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarActualizaciones(Collection<UUID> productoIds) {
+        if (productoIds.isEmpty()) {
+            return;
+        }
+        marcar(productoIds, catalogoVersionService.incrementar());
+        escribirEventos(productoIds);
+    }
+
+    /**
+     * Escribe el evento de productos que solo movieron stock, sin tocar la versión del catálogo, y deja
+     * su marca pendiente para {@link #volcarMarcasStock()}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarCambiosStock(Collection<UUID> productoIds) {
+        if (productoIds.isEmpty()) {
+            return;
+        }
+        escribirEventos(productoIds);
+        marcaStockRepository.saveAll(productoIds.stream().map(MarcaStockPendiente::new).toList());
+    }
+
+    /**
+     * Sube la versión una vez por lote y marca con ella los productos pendientes, incluidos los que dejó
+     * otra instancia o una ejecución anterior que se cayó. Cada lote borra solo las filas que leyó, así
+     * que un producto que vuelva a cambiar mientras tanto queda para el siguiente; si la transacción
+     * falla las filas siguen ahí. Devuelve cuántos productos marcó.
+     */
+    @Scheduled(fixedDelayString = "${catalogo.version.stock-ms:1000}")
+    public synchronized int volcarMarcasStock() {
+        int marcados = 0;
+        try {
+            for (int lote = 0; lote < MAX_LOTES_POR_VOLCADO; lote++) {
+                Lote volcado = transactionTemplate.execute(status -> volcarLote());
+                marcados += volcado.productos();
+                if (volcado.filas() < TAMANIO_LOTE_MARCA) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudo marcar la secuencia de productos con cambios de stock; se reintentará", e);
+        }
+        return marcados;
+    }
+
+    private Lote volcarLote() {
+        List<MarcaStockPendiente> pendientes = marcaStockRepository.findPendientes(PageRequest.of(0, TAMANIO_LOTE_MARCA));
+        if (pendientes.isEmpty()) {
+            return new Lote(0, 0);
+        }
+        Set<UUID> ids = new LinkedHashSet<>();
+        pendientes.forEach(marca -> ids.add(marca.getProductoId()));
+        marcar(ids, catalogoVersionService.incrementar());
+        marcaStockRepository.eliminar(pendientes.stream().map(MarcaStockPendiente::getId).toList());
+        return new Lote(pendientes.size(), ids.size());
+    }
+
+    private void marcar(Collection<UUID> productoIds, long secuencia) {
+        List<UUID> ids = new ArrayList<>(productoIds);
+        for (int i = 0; i < ids.size(); i += TAMANIO_LOTE_MARCA) {
+            productoRepository.marcarCambio(ids.subList(i, Math.min(i + TAMANIO_LOTE_MARCA, ids.size())), secuencia);
+        }
+    }
+
+    private void escribirEventos(Collection<UUID> productoIds) {
+        Instant ahora = Instant.now();
+        for (ProductoFila fila : proyeccionRepository.buscarFilasPorIds(productoIds)) {
+            ProductoActualizadoEvent evento = new ProductoActualizadoEvent(
+                    UuidV7.generar(),
+                    ahora,
+                    fila.id(),
+                    fila.version() != null ? fila.version() : 0,
+                    fila.sku(),
+                    fila.nombre(),
+                    fila.precio(),
+                    fila.moneda(),
+                    fila.stock() != null ? fila.stock() : 0,
+                    Boolean.TRUE.equals(fila.disponible()),
+                    fila.categoriaId());
+            outboxService.guardar(AGREGADO, fila.id().toString(), TIPO_EVENTO, evento,
+                    RabbitConfig.RK_PRODUCTO_ACTUALIZADO);
+        }
+    }
+
+    private record Lote(int filas, int productos) {}
+}
@@ -4,33 +4,81 @@ import com.uamishop.catalogo.domain.*;
 import com.uamishop.catalogo.dto.*;
 import com.uamishop.catalogo.repository.CategoriaJpaRepository;
 import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
 import com.uamishop.catalogo.shared.domain.Money;
 import com.uamishop.catalogo.shared.domain.ProductoId;
+import com.uamishop.catalogo.shared.event.CategoriaModificadaEvent;
+import com.uamishop.catalogo.shared.event.ProductoModificadoEvent;
+import com.uamishop.catalogo.shared.exception.BusinessRuleException;
 import com.uamishop.catalogo.shared.exception.RecursoNoEncontradoException;
 import com.uamishop.catalogo.shared.exception.StockInsuficienteException; // 👈 IMPORTANTE
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductoService {
 
+    public static final int LIMITE_MAXIMO_PAGINA = 500;
+    public static final int LIMITE_MAXIMO_BUSQUEDA = 100;
+    public static final int LIMITE_MAXIMO_SKUS = 500;
+    public static final int LIMITE_MAXIMO_IDS = 500;
+
     private final ProductoJpaRepository productoRepository;
     private final CategoriaJpaRepository categoriaRepository;
+    private final ProductoProyeccionRepository proyeccionRepository;
+    private final ProductoCache productoCache;
+    private final IndiceBusquedaProductos indiceBusqueda;
+    private final ArbolCategoriasService arbolCategorias;
+    private final CategoriaCache categoriaCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AlmacenamientoImagenes almacenamientoImagenes;
 
-    public ProductoService(ProductoJpaRepository productoRepository, CategoriaJpaRepository categoriaRepository) {
+    public ProductoService(ProductoJpaRepository productoRepository,
+                           CategoriaJpaRepository categoriaRepository,
+                           ProductoProyeccionRepository proyeccionRepository,
+                           ProductoCache productoCache,
+                           IndiceBusquedaProductos indiceBusqueda,
+                           ArbolCategoriasService arbolCategorias,
+                           CategoriaCache categoriaCache,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${catalogo.imagenes.almacenamiento:coleccion}") AlmacenamientoImagenes almacenamientoImagenes) {
         this.productoRepository = productoRepository;
         this.categoriaRepository = categoriaRepository;
+        this.proyeccionRepository = proyeccionRepository;
+        this.productoCache = productoCache;
+        this.indiceBusqueda = indiceBusqueda;
+        this.arbolCategorias = arbolCategorias;
+        this.categoriaCache = categoriaCache;
+        this.eventPublisher = eventPublisher;
+        this.almacenamientoImagenes = almacenamientoImagenes;
     }
 
     // --- Productos ---
     @Transactional
     public ProductoResponse crearProducto(ProductoRequest request) {
         CategoriaId categoriaId = new CategoriaId(request.getCategoriaId());
-        categoriaRepository.findById(categoriaId)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Categoría", request.getCategoriaId()));
+        if (!categoriaCache.existe(categoriaId)) {
+            throw new RecursoNoEncontradoException("Categoría", request.getCategoriaId());
+        }
+
+        validarSkuLibre(request.getSku());
 
         Money precio = new Money(request.getPrecio(), request.getMoneda() != null ? request.getMoneda() : "MXN");
 
@@ -56,23 +104,252 @@ public class ProductoService {
              );
             }
         }
+        if (almacenamientoImagenes == AlmacenamientoImagenes.JSON) {
+            producto.compactarImagenes();
+        }
 
         producto = productoRepository.save(producto);
+        eventPublisher.publishEvent(new ProductoModificadoEvent(producto.getId().getValue(), true));
         return ProductoResponse.fromProducto(producto);
     }
 
-    @Transactional(readOnly = true)
-    public ProductoResponse buscarProductoPorId(ProductoId id) {
-        Producto producto = productoRepository.findById(id)
+    /**
+     * Versión del producto para responder un GET condicional. Si está en caché no se consulta la
+     * base; si no, se lee solo la versión por clave primaria.
+     */
+    public VersionRecurso buscarVersionProducto(ProductoId id) {
+        return productoCache.obtenerSiPresente(id.getValue())
+                .map(ProductoResponse::getVersionRecurso)
+                .or(() -> productoRepository.findVersion(id))
                 .orElseThrow(() -> new RecursoNoEncontradoException("Producto", id.getValue()));
-        return ProductoResponse.fromProducto(producto);
+    }
+
+    // Sin @Transactional: un acierto en caché no debe tomar una conexión del pool
+    public ProductoResponse buscarProductoPorId(ProductoId id) {
+        return productoCache.obtener(id.getValue(), productoId -> proyeccionRepository.buscarPorId(productoId)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Producto", productoId)));
+    }
+
+    /**
+     * Multi-get por id: los productos en caché no tocan la base y el resto se lee con una sola
+     * consulta IN (más la de imágenes) y se cachea, salvo los invalidados mientras se leían.
+     */
+    public ProductosPorIdResponse buscarProductosPorIds(List<UUID> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un id de producto");
+        }
+        if (ids.size() > LIMITE_MAXIMO_IDS) {
+            throw new IllegalArgumentException("No se pueden obtener más de " + LIMITE_MAXIMO_IDS + " productos por petición");
+        }
+        Set<UUID> solicitados = new LinkedHashSet<>(ids);
+        Map<UUID, ProductoResponse> porId = new HashMap<>();
+        List<UUID> faltantes = new ArrayList<>();
+        ProductoCache.Marca marca = productoCache.marcar();
+        for (UUID id : solicitados) {
+            productoCache.obtenerSiPresente(id)
+                    .ifPresentOrElse(producto -> porId.put(id, producto), () -> faltantes.add(id));
+        }
+        for (ProductoResponse producto : proyeccionRepository.buscarPorIds(faltantes)) {
+            productoCache.guardar(producto, marca);
+            porId.put(producto.getId().getValue(), producto);
+        }
+
+        List<ProductoResponse> productos = new ArrayList<>(solicitados.size());
+        List<UUID> noEncontrados = new ArrayList<>();
+        for (UUID id : solicitados) {
+            ProductoResponse producto = porId.get(id);
+            if (producto != null) {
+                productos.add(producto);
+            } else {
+                noEncontrados.add(id);
+            }
+        }
+        return new ProductosPorIdResponse(productos, noEncontrados);
+    }
+
+    /**
+     * Resuelve un SKU pasando por la caché de productos. Si la entrada SKU → id quedó vieja
+     * (el producto cambió de SKU o se eliminó) se descarta y se consulta la base.
+     */
+    public ProductoResponse buscarProductoPorSku(String sku) {
+        ProductoCache.Marca marca = productoCache.marcar();
+        Optional<ProductoResponse> cacheado = productoCache.idPorSku(sku)
+                .flatMap(id -> buscarCacheadoPorSku(id, sku));
+        if (cacheado.isPresent()) {
+            return cacheado.get();
+        }
+        ProductoResponse producto = proyeccionRepository.buscarPorSku(sku)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Producto con SKU " + sku + " no encontrado"));
+        productoCache.guardar(producto, marca);
+        return producto;
+    }
+
+    /**
+     * Resuelve un lote de SKUs. Los que ya están en caché no tocan la base; el resto se lee
+     * con una sola consulta de productos (más la de imágenes) y se cachea, salvo los invalidados
+     * mientras se leían.
+     */
+    public ProductosPorSkuResponse buscarProductosPorSkus(List<String> skus) {
+        if (skus == null || skus.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un SKU");
+        }
+        if (skus.size() > LIMITE_MAXIMO_SKUS) {
+            throw new IllegalArgumentException("No se pueden resolver más de " + LIMITE_MAXIMO_SKUS + " SKUs por petición");
+        }
+        Set<String> solicitados = new LinkedHashSet<>(skus);
+        ProductoCache.Marca marca = productoCache.marcar();
+        Map<String, ProductoResponse> porSku = new HashMap<>();
+        List<String> faltantes = new ArrayList<>();
+        for (String sku : solicitados) {
+            productoCache.idPorSku(sku)
+                    .flatMap(id -> productoCache.obtenerSiPresente(id))
+                    .filter(producto -> sku.equals(producto.getSku()))
+                    .ifPresentOrElse(producto -> porSku.put(sku, producto), () -> faltantes.add(sku));
+        }
+        for (ProductoResponse producto : proyeccionRepository.buscarPorSkus(faltantes)) {
+            productoCache.guardar(producto, marca);
+            porSku.put(producto.getSku(), producto);
+        }
+
+        List<ProductoResponse> productos = new ArrayList<>(solicitados.size());
+        List<String> noEncontrados = new ArrayList<>();
+        for (String sku : solicitados) {
+            ProductoResponse producto = porSku.get(sku);
+            if (producto != null) {
+                productos.add(producto);
+            } else {
+                noEncontrados.add(sku);
+            }
+        }
+        return new ProductosPorSkuResponse(productos, noEncontrados);
+    }
+
+    private Optional<ProductoResponse> buscarCacheadoPorSku(UUID productoId, String sku) {
+        try {
+            ProductoResponse producto = buscarProductoPorId(new ProductoId(productoId));
+            if (sku.equals(producto.getSku())) {
+                return Optional.of(producto);
+            }
+        } catch (RecursoNoEncontradoException e) {
+            // El producto ya no existe; la entrada SKU → id se descarta abajo
+        }
+        productoCache.invalidarSku(sku);
+        return Optional.empty();
+    }
+
+    private void validarSkuLibre(String sku) {
+        if (sku != null && productoRepository.existsBySku(sku)) {
+            throw new BusinessRuleException("SKU_DUPLICADO", "Ya existe un producto con SKU " + sku);
+        }
     }
 
     @Transactional(readOnly = true)
     public List<ProductoResponse> buscarTodosProductos() {
-        return productoRepository.findAll().stream()
-                .map(ProductoResponse::fromProducto)
-                .collect(Collectors.toList());
+        return proyeccionRepository.buscarTodos();
+    }
+
+    /**
+     * Listado por keyset: pide {@code limite + 1} filas para saber si hay otra página
+     * sin necesidad de un COUNT, y devuelve como cursor el id del último producto entregado.
+     */
+    @Transactional(readOnly = true)
+    public PaginaProductos buscarProductos(FiltroProductos filtro, String cursor, int limite) {
+        validarLimitePagina(limite);
+        return paginar(proyeccionRepository.buscarPagina(filtro, decodificarCursor(cursor), limite + 1), limite);
+    }
+
+    private static void validarLimitePagina(int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO_PAGINA) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + LIMITE_MAXIMO_PAGINA);
+        }
+    }
+
+    private static PaginaProductos paginar(List<ProductoResponse> productos, int limite) {
+        String siguienteCursor = null;
+        if (productos.size() > limite) {
+            productos = productos.subList(0, limite);
+            siguienteCursor = codificarCursor(productos.get(limite - 1).getId().getValue());
+        }
+        return new PaginaProductos(productos, siguienteCursor);
+    }
+
+    /**
+     * Sincronización incremental: productos que cambiaron después de la versión {@code desde} del
+     * catálogo (todos si es nula), ordenados por secuencia e id. Varios productos comparten
+     * secuencia cuando cambiaron en la misma transacción, por eso el cursor guarda ambos valores;
+     * con cursor se ignora {@code desde}.
+     */
+    @Transactional(readOnly = true)
+    public CambiosProductos buscarCambios(Long desde, String cursor, int limite) {
+        validarLimitePagina(limite);
+        if (desde != null && desde < 0) {
+            throw new IllegalArgumentException("La versión desde debe ser mayor o igual a 0");
+        }
+        long secuencia = desde != null ? desde : -1;
+        UUID despuesDe = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] posicion = decodificarCursorCambios(cursor);
+            secuencia = Long.parseLong(posicion[0]);
+            despuesDe = UUID.fromString(posicion[1]);
+        }
+        List<CambioProducto> cambios = proyeccionRepository.buscarCambios(secuencia, despuesDe, limite + 1);
+        String siguienteCursor = null;
+        if (cambios.size() > limite) {
+            cambios = cambios.subList(0, limite);
+            CambioProducto ultimo = cambios.get(limite - 1);
+            siguienteCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((ultimo.secuencia() + ":" + ultimo.id()).getBytes(StandardCharsets.UTF_8));
+        }
+        long version = cambios.isEmpty() ? Math.max(secuencia, 0) : cambios.get(cambios.size() - 1).secuencia();
+        return new CambiosProductos(cambios, version, siguienteCursor);
+    }
+
+    private static String[] decodificarCursorCambios(String cursor) {
+        try {
+            String[] posicion = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (posicion.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            Long.parseLong(posicion[0]);
+            UUID.fromString(posicion[1]);
+            return posicion;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+    }
+
+    /**
+     * Búsqueda de texto sobre el índice en memoria; los productos se leen de la base en una
+     * consulta y se devuelven en orden de relevancia.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductoResponse> buscarPorTexto(String consulta, int limite) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new IllegalArgumentException("La consulta de búsqueda es obligatoria");
+        }
+        if (limite < 1 || limite > LIMITE_MAXIMO_BUSQUEDA) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + LIMITE_MAXIMO_BUSQUEDA);
+        }
+        List<UUID> ids = indiceBusqueda.buscar(consulta, limite);
+        Map<UUID, ProductoResponse> porId = proyeccionRepository.buscarPorIds(ids).stream()
+                .collect(Collectors.toMap(p -> p.getId().getValue(), Function.identity()));
+        return ids.stream().map(porId::get).filter(Objects::nonNull).toList();
+    }
+
+    private static String codificarCursor(UUID ultimoId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ultimoId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static UUID decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
     }
 
     @Transactional
@@ -91,15 +368,17 @@ public class ProductoService {
             producto.setStock(request.getStock());
         }
 
-        if (request.getSku() != null) {
+        if (request.getSku() != null && !request.getSku().equals(producto.getSku())) {
+            validarSkuLibre(request.getSku());
             producto.setSku(request.getSku());
         }
 
         if (request.getCategoriaId() != null) {
             CategoriaId nuevaCategoriaId = new CategoriaId(request.getCategoriaId());
             if (!nuevaCategoriaId.equals(producto.getCategoriaId())) {
-                categoriaRepository.findById(nuevaCategoriaId)
-                        .orElseThrow(() -> new RecursoNoEncontradoException("Categoría", request.getCategoriaId()));
+                if (!categoriaCache.existe(nuevaCategoriaId)) {
+                    throw new RecursoNoEncontradoException("Categoría", request.getCategoriaId());
+                }
                 producto.asignarCategoria(nuevaCategoriaId);
             }
         }
@@ -119,6 +398,7 @@ public class ProductoService {
         }
 
         producto = productoRepository.save(producto);
+        eventPublisher.publishEvent(new ProductoModificadoEvent(id.getValue(), true));
         return ProductoResponse.fromProducto(producto);
     }
 
@@ -128,6 +408,8 @@ public class ProductoService {
                 .orElseThrow(() -> new RecursoNoEncontradoException("Producto", id.getValue()));
         producto.activar();
         producto = productoRepository.save(producto);
+        // El índice de búsqueda solo contiene productos activos
+        eventPublisher.publishEvent(new ProductoModificadoEvent(id.getValue(), true));
         return ProductoResponse.fromProducto(producto);
     }
 
@@ -137,58 +419,96 @@ public class ProductoService {
                 .orElseThrow(() -> new RecursoNoEncontradoException("Producto", id.getValue()));
         producto.desactivar();
         producto = productoRepository.save(producto);
+        // El índice de búsqueda solo contiene productos activos
+        eventPublisher.publishEvent(new ProductoModificadoEvent(id.getValue(), true));
         return ProductoResponse.fromProducto(producto);
     }
 
     // 👇 NUEVO MÉTODO PARA DISMINUIR STOCK
     @Transactional
     public void disminuirStock(java.util.UUID productoId, int cantidad) {
-        Producto producto = productoRepository.findById(new ProductoId(productoId))
-                .orElseThrow(() -> new RecursoNoEncontradoException("Producto", productoId));
-        if (producto.getStock() < cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad a descontar debe ser mayor a 0");
+        }
+        ProductoId id = new ProductoId(productoId);
+        if (productoRepository.disminuirStock(id, cantidad, Instant.now()) == 0) {
+            if (!productoRepository.existsById(id)) {
+                throw new RecursoNoEncontradoException("Producto", productoId);
+            }
             throw new StockInsuficienteException("Stock insuficiente para el producto: " + productoId);
         }
-        producto.setStock(producto.getStock() - cantidad);
-        productoRepository.save(producto);
+        eventPublisher.publishEvent(ProductoModificadoEvent.stock(productoId));
     }
 
     // --- Categorías ---
     @Transactional
     public CategoriaResponse crearCategoria(CategoriaRequest request) {
         CategoriaId id = CategoriaId.generar();
+        CategoriaId padreId = null;
+        if (request.getCategoriaPadreId() != null) {
+            padreId = new CategoriaId(request.getCategoriaPadreId());
+            if (!categoriaCache.existe(padreId)) {
+                throw new RecursoNoEncontradoException("Categoría", request.getCategoriaPadreId());
+            }
+        }
         Categoria categoria = new Categoria(
                 id,
                 request.getNombre(),
                 request.getDescripcion(),
-                request.getCategoriaPadreId() != null ? new CategoriaId(request.getCategoriaPadreId()) : null
+                padreId
         );
         categoria = categoriaRepository.save(categoria);
+        arbolCategorias.registrar(id, padreId);
+        eventPublisher.publishEvent(new CategoriaModificadaEvent(id.id()));
         return CategoriaResponse.fromCategoria(categoria);
     }
 
-    @Transactional(readOnly = true)
     public CategoriaResponse buscarCategoriaPorId(CategoriaId id) {
-        Categoria categoria = categoriaRepository.findById(id)
+        return categoriaCache.buscar(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Categoría", id.id()));
+    }
+
+    public VersionRecurso buscarVersionCategoria(CategoriaId id) {
+        return categoriaCache.buscar(id)
+                .map(CategoriaResponse::getVersionRecurso)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Categoría", id.id()));
-        return CategoriaResponse.fromCategoria(categoria);
     }
 
-    @Transactional(readOnly = true)
     public List<CategoriaResponse> buscarTodasCategorias() {
-        return categoriaRepository.findAll().stream()
-                .map(CategoriaResponse::fromCategoria)
-                .collect(Collectors.toList());
+        return categoriaCache.todas();
+    }
+
+    /**
+     * Productos de la categoría y de todas sus subcategorías, paginados por keyset de id igual que
+     * {@link #buscarProductos}.
+     */
+    @Transactional(readOnly = true)
+    public PaginaProductos buscarProductosDeCategoria(CategoriaId id, String cursor, int limite) {
+        validarLimitePagina(limite);
+        if (!categoriaCache.existe(id)) {
+            throw new RecursoNoEncontradoException("Categoría", id.id());
+        }
+        return paginar(proyeccionRepository.buscarPaginaSubarbol(id.id(), decodificarCursor(cursor), limite + 1), limite);
     }
 
     @Transactional
     public CategoriaResponse actualizarCategoria(CategoriaId id, CategoriaRequest request) {
         Categoria categoria = categoriaRepository.findById(id)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Categoría", id.id()));
-        categoria.actualizar(request.getNombre(), request.getDescripcion());
         if (request.getCategoriaPadreId() != null) {
-            categoria.AsignarPadre(new CategoriaId(request.getCategoriaPadreId()));
+            CategoriaId padreId = new CategoriaId(request.getCategoriaPadreId());
+            if (!padreId.equals(categoria.getCategoriaPadreId())) {
+                if (!categoriaCache.existe(padreId)) {
+                    throw new RecursoNoEncontradoException("Categoría", request.getCategoriaPadreId());
+                }
+                // Antes de tocar la entidad: mover vacía el contexto de persistencia
+                arbolCategorias.mover(id, padreId);
+            }
+            categoria.AsignarPadre(padreId);
         }
+        categoria.actualizar(request.getNombre(), request.getDescripcion());
         categoria = categoriaRepository.save(categoria);
+        eventPublisher.publishEvent(new CategoriaModificadaEvent(id.id()));
         return CategoriaResponse.fromCategoria(categoria);
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.uamishop.catalogo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Barre las reservas vencidas en lotes, cada lote en su propia transacción para no mantener
+ * bloqueos largos. Un barrido sigue mientras los lotes salen llenos, hasta
+ * {@code catalogo.reservas.barrido.max-lotes}: así no ocupa un hilo del pool de tareas programadas
+ * indefinidamente y lo que quede lo toma el siguiente barrido.
+ */
+@Component
+public class ReservaStockExpiracionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservaStockExpiracionJob.class);
+
+    private final ReservaStockService reservaStockService;
+    private final int tamanioLote;
+    private final int maxLotes;
+
+    public ReservaStockExpiracionJob(ReservaStockService reservaStockService,
+                                     @Value("${catalogo.reservas.barrido.lote:500}") int tamanioLote,
+                                     @Value("${catalogo.reservas.barrido.max-lotes:20}") int maxLotes) {
+        this.reservaStockService = reservaStockService;
+        this.tamanioLote = tamanioLote;
+        this.maxLotes = maxLotes;
+    }
+
+    @Scheduled(fixedDelayString = "${catalogo.reservas.barrido.intervalo-ms:1000}")
+    public int expirarVencidas() {
+        int total = 0;
+        int lotes = 0;
+        int expiradas;
+        do {
+            expiradas = reservaStockService.expirarVencidas(tamanioLote);
+            total += expiradas;
+        } while (expiradas == tamanioLote && ++lotes < maxLotes);
+        if (total > 0) {
+            log.debug("Reservas expiradas: {}", total);
+        }
+        return total;
+    }
+}
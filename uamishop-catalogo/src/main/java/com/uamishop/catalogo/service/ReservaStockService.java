@@ -0,0 +1,230 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.EstadoReserva;
+import com.uamishop.catalogo.domain.ReservaStock;
+import com.uamishop.catalogo.dto.DisponibilidadResponse;
+import com.uamishop.catalogo.dto.ReservaResponse;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.repository.ReservaStockJpaRepository;
+import com.uamishop.catalogo.shared.domain.ProductoId;
+import com.uamishop.catalogo.shared.event.ProductoModificadoEvent;
+import com.uamishop.catalogo.shared.exception.RecursoNoEncontradoException;
+import com.uamishop.catalogo.shared.exception.StockInsuficienteException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Reservas de stock con vencimiento. Cada reserva activa suma su cantidad a
+ * {@code producto.stock_reservado}; el disponible para prometer es {@code stock - stock_reservado}.
+ * Todos los cambios sobre el producto son sentencias UPDATE condicionales, sin leer-modificar-escribir.
+ */
+@Service
+public class ReservaStockService {
+
+    private final ReservaStockJpaRepository reservaRepository;
+    private final ProductoJpaRepository productoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration ttl;
+    private final Duration ttlOrden;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReservaStockService(ReservaStockJpaRepository reservaRepository,
+                               ProductoJpaRepository productoRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${catalogo.reservas.ttl:15m}") Duration ttl,
+                               @Value("${catalogo.reservas.ttl-orden:30m}") Duration ttlOrden) {
+        this.reservaRepository = reservaRepository;
+        this.productoRepository = productoRepository;
+        this.eventPublisher = eventPublisher;
+        this.ttl = ttl;
+        this.ttlOrden = ttlOrden;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Deja reservadas exactamente {@code cantidad} unidades del producto para el carrito y renueva el
+     * vencimiento. Es idempotente: repetir la llamada con la misma cantidad no aparta más stock.
+     * Con cantidad 0 libera la reserva.
+     *
+     * <p>Si dos peticiones crean a la vez la primera reserva del mismo carrito y producto, el índice
+     * único {@code uk_reserva_activa} rechaza la segunda (o la base la elige como víctima de un
+     * interbloqueo). Su transacción se revierte, stock apartado incluido, y se repite una vez: ahora
+     * ya ve la reserva de la primera y solo la ajusta.</p>
+     */
+    public Optional<ReservaResponse> reservar(UUID carritoId, UUID productoId, int cantidad) {
+        if (cantidad < 0) {
+            throw new IllegalArgumentException("La cantidad a reservar no puede ser negativa");
+        }
+        try {
+            return transactionTemplate.execute(status -> reservarEnTransaccion(carritoId, productoId, cantidad));
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            return transactionTemplate.execute(status -> reservarEnTransaccion(carritoId, productoId, cantidad));
+        }
+    }
+
+    private Optional<ReservaResponse> reservarEnTransaccion(UUID carritoId, UUID productoId, int cantidad) {
+        Optional<ReservaStock> actual = reservaRepository
+                .findByCarritoIdAndProductoIdAndEstado(carritoId, productoId, EstadoReserva.ACTIVA);
+        int diferencia = cantidad - actual.map(ReservaStock::getCantidad).orElse(0);
+        if (diferencia > 0) {
+            apartar(productoId, diferencia);
+        } else if (diferencia < 0) {
+            productoRepository.liberarStockReservado(new ProductoId(productoId), -diferencia);
+        }
+
+        if (cantidad == 0) {
+            actual.ifPresent(ReservaStock::liberar);
+            return Optional.empty();
+        }
+        Instant expiraEn = Instant.now().plus(ttl);
+        if (actual.isPresent()) {
+            actual.get().ajustar(cantidad, expiraEn);
+            return Optional.of(ReservaResponse.fromEntity(actual.get()));
+        }
+        ReservaStock nueva = new ReservaStock(carritoId, productoId, cantidad, expiraEn);
+        return Optional.of(ReservaResponse.fromEntity(reservaRepository.saveAndFlush(nueva)));
+    }
+
+    /**
+     * Libera todas las reservas activas del carrito. Devuelve cuántas se liberaron.
+     */
+    @Transactional
+    public int liberarCarrito(UUID carritoId) {
+        List<ReservaStock> reservas = reservaRepository
+                .findByCarritoIdAndEstadoOrderByProductoId(carritoId, EstadoReserva.ACTIVA);
+        reservas.forEach(reserva -> {
+            productoRepository.liberarStockReservado(new ProductoId(reserva.getProductoId()), reserva.getCantidad());
+            reserva.liberar();
+        });
+        return reservas.size();
+    }
+
+    /**
+     * Vincula las reservas del carrito con la orden creada a partir de él y extiende su vencimiento
+     * para cubrir el tiempo de pago.
+     */
+    @Transactional
+    public void asociarOrden(UUID carritoId, UUID ordenId) {
+        Instant expiraEn = Instant.now().plus(ttlOrden);
+        reservaRepository.findByCarritoIdAndEstadoOrderByProductoId(carritoId, EstadoReserva.ACTIVA)
+                .forEach(reserva -> reserva.asignarOrden(ordenId, expiraEn));
+    }
+
+    /**
+     * Aplica una compra: si la orden tenía reserva activa para el producto se convierte en venta; si no
+     * (la reserva expiró o la orden no pasó por un carrito) se descuenta directamente del stock.
+     */
+    @Transactional
+    public void confirmarCompra(UUID ordenId, UUID productoId, int cantidad) {
+        confirmarCompras(List.of(new LineaCompra(ordenId, productoId, cantidad)));
+    }
+
+    /**
+     * Aplica un lote de líneas compradas con una sola sentencia UPDATE por producto. Las reservas de
+     * las órdenes del lote se leen en una consulta y cada una se consume como mucho una vez. Si algún
+     * producto no existe o no tiene stock se lanza la excepción y no se aplica nada del lote.
+     */
+    @Transactional
+    public void confirmarCompras(List<LineaCompra> lineas) {
+        if (lineas.isEmpty()) {
+            return;
+        }
+        Set<UUID> ordenIds = new HashSet<>();
+        lineas.forEach(linea -> ordenIds.add(linea.ordenId()));
+        Map<OrdenProducto, ReservaStock> reservas = new HashMap<>();
+        reservaRepository.findByOrdenIdInAndEstado(ordenIds, EstadoReserva.ACTIVA)
+                .forEach(reserva -> reservas.put(new OrdenProducto(reserva.getOrdenId(), reserva.getProductoId()), reserva));
+
+        // Orden fijo de productos para que lotes concurrentes no se bloqueen mutuamente
+        Map<UUID, Totales> porProducto = new TreeMap<>();
+        List<ReservaStock> confirmadas = new ArrayList<>();
+        for (LineaCompra linea : lineas) {
+            if (linea.cantidad() <= 0) {
+                throw new IllegalArgumentException("La cantidad a disminuir debe ser mayor a 0");
+            }
+            Totales totales = porProducto.computeIfAbsent(linea.productoId(), id -> new Totales());
+            totales.comprada += linea.cantidad();
+            ReservaStock reserva = reservas.remove(new OrdenProducto(linea.ordenId(), linea.productoId()));
+            if (reserva != null) {
+                totales.reservada += reserva.getCantidad();
+                confirmadas.add(reserva);
+            }
+        }
+
+        Instant ahora = Instant.now();
+        porProducto.forEach((productoId, totales) -> {
+            ProductoId id = new ProductoId(productoId);
+            int filas = totales.reservada > 0
+                    ? productoRepository.confirmarReserva(id, totales.comprada, totales.reservada, ahora)
+                    : productoRepository.disminuirStock(id, totales.comprada, ahora);
+            if (filas == 0) {
+                if (!productoRepository.existsById(id)) {
+                    throw new RecursoNoEncontradoException("Producto", productoId);
+                }
+                throw new StockInsuficienteException("Stock insuficiente para el producto: " + productoId);
+            }
+        });
+        confirmadas.forEach(ReservaStock::confirmar);
+        porProducto.keySet().forEach(productoId -> eventPublisher.publishEvent(ProductoModificadoEvent.stock(productoId)));
+    }
+
+    /**
+     * Expira hasta {@code lote} reservas vencidas y devuelve su stock reservado con una sentencia por
+     * producto. Devuelve cuántas reservas expiró.
+     */
+    @Transactional
+    public int expirarVencidas(int lote) {
+        List<ReservaStock> vencidas = reservaRepository.findVencidasParaExpirar(Instant.now(), PageRequest.of(0, lote));
+        if (vencidas.isEmpty()) {
+            return 0;
+        }
+        // Mismo orden de productos que liberarCarrito para no cruzar bloqueos
+        Map<UUID, Integer> porProducto = new TreeMap<>();
+        vencidas.forEach(reserva -> porProducto.merge(reserva.getProductoId(), reserva.getCantidad(), Integer::sum));
+        porProducto.forEach((productoId, cantidad) ->
+                productoRepository.liberarStockReservado(new ProductoId(productoId), cantidad));
+        reservaRepository.marcarExpiradas(vencidas.stream().map(ReservaStock::getId).toList());
+        return vencidas.size();
+    }
+
+    @Transactional(readOnly = true)
+    public DisponibilidadResponse disponibilidad(UUID productoId) {
+        return productoRepository.findDisponibilidad(new ProductoId(productoId))
+                .orElseThrow(() -> new RecursoNoEncontradoException("Producto", productoId));
+    }
+
+    public record LineaCompra(UUID ordenId, UUID productoId, int cantidad) {}
+
+    private record OrdenProducto(UUID ordenId, UUID productoId) {}
+
+    private static final class Totales {
+        private int comprada;
+        private int reservada;
+    }
+
+    private void apartar(UUID productoId, int cantidad) {
+        if (productoRepository.reservarStock(new ProductoId(productoId), cantidad) == 0) {
+            DisponibilidadResponse disponibilidad = disponibilidad(productoId);
+            throw new StockInsuficienteException(productoId.toString(), cantidad, disponibilidad.disponible());
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.uamishop.catalogo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uamishop.catalogo.domain.ProductoVentasHora;
+import com.uamishop.catalogo.dto.VentasHoraResponse;
+import com.uamishop.catalogo.dto.VentasVentanaResponse;
+import com.uamishop.catalogo.repository.ProductoVentasHoraJpaRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serie de ventas por producto en baldes de una hora. Las ventas confirmadas se suman en memoria en un
+ * anillo de {@code catalogo.ventas-hora.ranuras} horas por producto y se vuelcan a
+ * {@code producto_ventas_hora} cada {@code catalogo.ventas-hora.volcado-ms} con un UPSERT aditivo por
+ * lote, igual que {@link ContadorAgregadosCarrito}. Como las réplicas solo suman deltas, cada una
+ * vuelca lo suyo sin coordinarse. Una caída pierde como mucho lo acumulado desde el último volcado.
+ *
+ * <p>Las consultas por ventana leen los baldes horarios, nunca el historial de eventos; los más
+ * vendidos de cada ventana se guardan {@code catalogo.ventas-hora.cache-ttl}.</p>
+ */
+@Component
+public class SeriesVentasHora {
+
+    private static final Logger log = LoggerFactory.getLogger(SeriesVentasHora.class);
+
+    private static final String UPSERT_BALDE =
+            "insert into producto_ventas_hora (producto_id, hora, transacciones, cantidad) values (?, ?, ?, ?) "
+            + "on duplicate key update transacciones = transacciones + values(transacciones), "
+            + "cantidad = cantidad + values(cantidad)";
+
+    private final Map<UUID, Anillo> pendientes = new ConcurrentHashMap<>();
+    private final ProductoVentasHoraJpaRepository ventasHoraRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int ranuras;
+    private final Duration retencion;
+    private final Cache<Ventana, List<VentasVentanaResponse>> masVendidos;
+
+    public SeriesVentasHora(ProductoVentasHoraJpaRepository ventasHoraRepository,
+                            JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${catalogo.ventas-hora.ranuras:24}") int ranuras,
+                            @Value("${catalogo.ventas-hora.retencion:90d}") Duration retencion,
+                            @Value("${catalogo.ventas-hora.cache-ttl:60s}") Duration cacheTtl) {
+        this.ventasHoraRepository = ventasHoraRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.ranuras = ranuras;
+        this.retencion = retencion;
+        this.masVendidos = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    public void registrar(UUID productoId, long transacciones, long cantidad, Instant momento) {
+        long hora = hora(momento);
+        // compute es atómico por clave: el volcado no puede retirar el anillo a mitad de una suma
+        pendientes.compute(productoId, (id, anillo) -> {
+            Anillo actual = anillo != null ? anillo : new Anillo(ranuras);
+            actual.sumar(hora, transacciones, cantidad);
+            return actual;
+        });
+    }
+
+    /**
+     * Vuelca los baldes pendientes. Cada delta se descuenta de su ranura solo después del commit, así
+     * las ventas concurrentes al volcado se conservan y un volcado fallido se reintenta completo.
+     */
+    @Scheduled(fixedDelayString = "${catalogo.ventas-hora.volcado-ms:1000}")
+    public synchronized int volcar() {
+        List<Delta> deltas = new ArrayList<>();
+        pendientes.forEach((productoId, anillo) -> anillo.pendientes(productoId, deltas));
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(UPSERT_BALDE, deltas, deltas.size(), (ps, delta) -> {
+                        ps.setBytes(1, Uuids.aBytes(delta.productoId()));
+                        ps.setLong(2, delta.hora());
+                        ps.setLong(3, delta.transacciones());
+                        ps.setLong(4, delta.cantidad());
+                    }));
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron volcar {} baldes de ventas por hora; se reintentará", deltas.size(), e);
+            return 0;
+        }
+        deltas.forEach(delta -> pendientes.computeIfPresent(delta.productoId(), (id, anillo) -> {
+            anillo.descontar(delta);
+            return anillo.vacio() ? null : anillo;
+        }));
+        return deltas.size();
+    }
+
+    @PreDestroy
+    public void volcarAlApagar() {
+        int volcados = volcar();
+        log.info("Baldes de ventas por hora volcados al apagar: {}", volcados);
+    }
+
+    /**
+     * Los {@code limit} productos con más unidades vendidas en las últimas {@code horas} horas,
+     * contando la hora en curso.
+     */
+    public List<VentasVentanaResponse> masVendidos(int horas, int limit) {
+        Ventana ventana = new Ventana(hora(Instant.now()) - horas + 1, limit);
+        return masVendidos.get(ventana, v ->
+                List.copyOf(ventasHoraRepository.findMasVendidosDesde(v.desde(), PageRequest.of(0, v.limit()))));
+    }
+
+    /**
+     * Una entrada por hora de la ventana, de la más antigua a la actual; las horas sin ventas van en cero.
+     */
+    public List<VentasHoraResponse> serie(UUID productoId, int horas) {
+        long desde = hora(Instant.now()) - horas + 1;
+        Map<Long, ProductoVentasHora> baldes = new HashMap<>();
+        ventasHoraRepository.findSerie(productoId, desde).forEach(balde -> baldes.put(balde.getId().getHora(), balde));
+
+        List<VentasHoraResponse> serie = new ArrayList<>(horas);
+        for (long hora = desde; hora < desde + horas; hora++) {
+            ProductoVentasHora balde = baldes.get(hora);
+            serie.add(new VentasHoraResponse(Instant.EPOCH.plus(hora, ChronoUnit.HOURS),
+                    balde != null ? balde.getTransacciones() : 0,
+                    balde != null ? balde.getCantidad() : 0));
+        }
+        return serie;
+    }
+
+    @Scheduled(fixedDelayString = "${catalogo.ventas-hora.limpieza-ms:3600000}",
+            initialDelayString = "${catalogo.ventas-hora.limpieza-ms:3600000}")
+    public void eliminarVencidos() {
+        long limite = hora(Instant.now().minus(retencion));
+        Integer eliminados = transactionTemplate.execute(status -> ventasHoraRepository.eliminarAntesDe(limite));
+        if (eliminados != null && eliminados > 0) {
+            log.info("Ventas por hora: {} baldes vencidos eliminados", eliminados);
+        }
+    }
+
+    static long hora(Instant momento) {
+        return Math.floorDiv(momento.getEpochSecond(), 3600);
+    }
+
+    /**
+     * Las últimas {@code ranuras} horas de un producto aún sin volcar. Una ranura se reutiliza cuando
+     * llega una hora que cae en ella; lo que tuviera pendiente solo puede perderse si los volcados
+     * llevan fallando más de {@code ranuras} horas.
+     */
+    private static final class Anillo {
+        private final long[] horas;
+        private final long[] transacciones;
+        private final long[] cantidades;
+
+        Anillo(int ranuras) {
+            horas = new long[ranuras];
+            transacciones = new long[ranuras];
+            cantidades = new long[ranuras];
+            Arrays.fill(horas, -1);
+        }
+
+        synchronized void sumar(long hora, long transacciones, long cantidad) {
+            int ranura = (int) Math.floorMod(hora, horas.length);
+            if (horas[ranura] != hora) {
+                horas[ranura] = hora;
+                this.transacciones[ranura] = 0;
+                cantidades[ranura] = 0;
+            }
+            this.transacciones[ranura] += transacciones;
+            cantidades[ranura] += cantidad;
+        }
+
+        synchronized void pendientes(UUID productoId, List<Delta> deltas) {
+            for (int ranura = 0; ranura < horas.length; ranura++) {
+                if (transacciones[ranura] != 0 || cantidades[ranura] != 0) {
+                    deltas.add(new Delta(productoId, horas[ranura], transacciones[ranura], cantidades[ranura]));
+                }
+            }
+        }
+
+        synchronized void descontar(Delta delta) {
+            int ranura = (int) Math.floorMod(delta.hora(), horas.length);
+            if (horas[ranura] == delta.hora()) {
+                transacciones[ranura] -= delta.transacciones();
+                cantidades[ranura] -= delta.cantidad();
+            }
+        }
+
+        synchronized boolean vacio() {
+            for (int ranura = 0; ranura < horas.length; ranura++) {
+                if (transacciones[ranura] != 0 || cantidades[ranura] != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private record Delta(UUID productoId, long hora, long transacciones, long cantidad) {}
+
+    private record Ventana(long desde, int limit) {}
+}
@@ -0,0 +1,98 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.dto.ProductoFaceta;
+import com.uamishop.catalogo.dto.ProductoTexto;
+import com.uamishop.catalogo.dto.SecuenciaProducto;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Pone al día los índices en memoria con los cambios de las demás réplicas (y de cualquier escritura
+ * cuyo evento local se haya perdido) siguiendo la secuencia de cambios ({@code cambio_seq}), igual que
+ * {@code GET /productos/cambios}. Cada {@code catalogo.indices.sincronizacion-ms} lee por keyset de
+ * (secuencia, id) los productos cambiados desde la última pasada y los reindexa en el índice de
+ * búsqueda y en el de facetas; un texto que no cambió no toca el índice de búsqueda.
+ *
+ * <p>La posición inicial es la versión del catálogo al crear el bean, antes de construir los índices:
+ * lo confirmado con una versión menor ya lo ve la construcción y lo posterior lo trae esta pasada.
+ * Un barrido se detiene tras {@code MAX_LOTES_POR_BARRIDO} lotes, como {@link ReservaStockExpiracionJob}.</p>
+ */
+@Component
+public class SincronizacionIndicesJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SincronizacionIndicesJob.class);
+    private static final int TAMANIO_LOTE = 1000;
+    private static final int MAX_LOTES_POR_BARRIDO = 10;
+
+    private final ProductoProyeccionRepository proyeccionRepository;
+    private final IndiceBusquedaProductos indiceBusqueda;
+    private final IndiceFacetas indiceFacetas;
+    private final CatalogoVersionService catalogoVersionService;
+
+    private long secuencia;
+    private UUID despuesDe;
+
+    public SincronizacionIndicesJob(ProductoProyeccionRepository proyeccionRepository,
+                                    IndiceBusquedaProductos indiceBusqueda,
+                                    IndiceFacetas indiceFacetas,
+                                    CatalogoVersionService catalogoVersionService) {
+        this.proyeccionRepository = proyeccionRepository;
+        this.indiceBusqueda = indiceBusqueda;
+        this.indiceFacetas = indiceFacetas;
+        this.catalogoVersionService = catalogoVersionService;
+    }
+
+    @PostConstruct
+    synchronized void inicializar() {
+        secuencia = catalogoVersionService.actual().version();
+    }
+
+    /**
+     * Reindexa los productos cambiados desde la última pasada y devuelve cuántos leyó.
+     */
+    @Scheduled(initialDelayString = "${catalogo.indices.sincronizacion-ms:5000}",
+            fixedDelayString = "${catalogo.indices.sincronizacion-ms:5000}")
+    public synchronized int sincronizar() {
+        int total = 0;
+        for (int i = 0; i < MAX_LOTES_POR_BARRIDO; i++) {
+            List<SecuenciaProducto> cambios = proyeccionRepository.buscarSecuencias(secuencia, despuesDe, TAMANIO_LOTE);
+            if (cambios.isEmpty()) {
+                break;
+            }
+            List<UUID> ids = cambios.stream().map(SecuenciaProducto::id).toList();
+            Set<UUID> sinTexto = new HashSet<>(ids);
+            for (ProductoTexto texto : proyeccionRepository.buscarTextosPorIds(ids)) {
+                indiceBusqueda.indexar(texto);
+                sinTexto.remove(texto.id());
+            }
+            sinTexto.forEach(indiceBusqueda::eliminar);
+            Set<UUID> sinFaceta = new HashSet<>(ids);
+            for (ProductoFaceta faceta : proyeccionRepository.buscarFacetasPorIds(ids)) {
+                indiceFacetas.actualizar(faceta);
+                sinFaceta.remove(faceta.id());
+            }
+            sinFaceta.forEach(indiceFacetas::eliminar);
+
+            SecuenciaProducto ultimo = cambios.get(cambios.size() - 1);
+            secuencia = ultimo.secuencia();
+            despuesDe = ultimo.id();
+            total += cambios.size();
+            if (cambios.size() < TAMANIO_LOTE) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.debug("Índices sincronizados con {} productos cambiados", total);
+        }
+        return total;
+    }
+}
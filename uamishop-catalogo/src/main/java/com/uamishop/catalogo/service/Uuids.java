@@ -0,0 +1,26 @@
+package com.uamishop.catalogo.service;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Conversión de UUID a los 16 bytes con que Hibernate guarda los ids en BINARY(16),
+ * para las sentencias que se escriben con JdbcTemplate.
+ */
+final class Uuids {
+
+    private Uuids() {
+    }
+
+    static byte[] aBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    static UUID deBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,43 @@
+package com.uamishop.catalogo.shared.domain;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Identificadores UUID versión 7 (RFC 9562): los primeros 48 bits son los milisegundos Unix y los
+ * 12 siguientes un contador, así que los ids nuevos quedan al final del índice de la clave primaria
+ * en lugar de repartirse al azar por todo el árbol. Hibernate guarda los UUID en BINARY(16) con el
+ * byte más significativo primero, de modo que el orden de los bytes es el orden de generación.
+ *
+ * <p>Dentro de un mismo milisegundo el contador hace los ids estrictamente crecientes en esta JVM;
+ * si se agota o el reloj retrocede, el instante avanza por su cuenta hasta que el reloj lo alcanza.
+ * Los 62 bits restantes son aleatorios, como en {@link UUID#randomUUID()}.</p>
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+
+    // Milisegundos << 12 | contador del último id emitido
+    private static final AtomicLong ULTIMO = new AtomicLong();
+
+    private UuidV7() {}
+
+    public static UUID generar() {
+        long ahora = System.currentTimeMillis() << 12;
+        long instante = ULTIMO.updateAndGet(ultimo -> Math.max(ultimo + 1, ahora));
+        long masSignificativos = ((instante >>> 12) << 16) | 0x7000L | (instante & 0xFFFL);
+        long menosSignificativos = (ALEATORIO.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(masSignificativos, menosSignificativos);
+    }
+
+    /**
+     * Milisegundos Unix en que se generó un UUID versión 7.
+     */
+    public static long milisegundos(UUID uuid) {
+        if (uuid.version() != 7) {
+            throw new IllegalArgumentException("No es un UUID versión 7: " + uuid);
+        }
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+}
@@ -0,0 +1,11 @@
+package com.uamishop.catalogo.shared.event;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record CarritoAbandonadoEvent(
+    UUID eventId,
+    Instant occurredAt,
+    UUID carritoId,
+    UUID clienteId
+) {}
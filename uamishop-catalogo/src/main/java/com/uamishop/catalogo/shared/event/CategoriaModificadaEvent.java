@@ -0,0 +1,10 @@
+package com.uamishop.catalogo.shared.event;
+
+import java.util.UUID;
+
+/**
+ * Evento interno de la aplicación: la categoría se creó o cambió dentro de la transacción en curso.
+ */
+public record CategoriaModificadaEvent(
+    UUID categoriaId
+) {}
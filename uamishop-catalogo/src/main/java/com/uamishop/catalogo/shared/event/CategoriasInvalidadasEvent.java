@@ -0,0 +1,14 @@
+package com.uamishop.catalogo.shared.event;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Aviso entre réplicas del catálogo: una categoría cambió y hay que recargar las categorías en memoria.
+ */
+public record CategoriasInvalidadasEvent(
+    UUID eventId,
+    Instant occurredAt,
+    UUID categoriaId,
+    String instanciaOrigen
+) {}
@@ -0,0 +1,24 @@
+package com.uamishop.catalogo.shared.event;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Estado del producto tras un cambio, publicado en {@code uamishop.events} con la routing key
+ * {@code producto.actualizado}. Lleva el estado completo y no el cambio, así que un consumidor que
+ * mantiene una réplica solo aplica el de mayor {@code version} y puede perder los intermedios.
+ */
+public record ProductoActualizadoEvent(
+    UUID eventId,
+    Instant occurredAt,
+    UUID productoId,
+    long version,
+    String sku,
+    String nombre,
+    BigDecimal precio,
+    String moneda,
+    int stock,
+    boolean disponible,
+    UUID categoriaId
+) {}
@@ -0,0 +1,11 @@
+package com.uamishop.catalogo.shared.event;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record ProductoCacheInvalidadoEvent(
+    UUID eventId,
+    Instant occurredAt,
+    UUID productoId,
+    String instanciaOrigen
+) {}
@@ -0,0 +1,29 @@
+package com.uamishop.catalogo.shared.event;
+
+import java.util.UUID;
+
+/**
+ * Evento interno de la aplicación: el producto cambió dentro de la transacción en curso.
+ * No viaja por RabbitMQ; lo consumen los listeners que mantienen copias derivadas del producto.
+ * {@code textoModificado} indica si pudo cambiar lo que ve el índice de búsqueda (nombre, descripción,
+ * SKU o si el producto está activo);
+ * {@code soloStock}, que el cambio fue un movimiento de stock (compra o reserva confirmada), que no
+ * sube la versión del catálogo dentro de la transacción.
+ */
+public record ProductoModificadoEvent(
+    UUID productoId,
+    boolean textoModificado,
+    boolean soloStock
+) {
+    public ProductoModificadoEvent(UUID productoId) {
+        this(productoId, false, false);
+    }
+
+    public ProductoModificadoEvent(UUID productoId, boolean textoModificado) {
+        this(productoId, textoModificado, false);
+    }
+
+    public static ProductoModificadoEvent stock(UUID productoId) {
+        return new ProductoModificadoEvent(productoId, false, true);
+    }
+}
@@ -0,0 +1,14 @@
+package com.uamishop.catalogo.shared.event;
+
+import com.uamishop.catalogo.dto.TendenciaResponse;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public record TendenciasInstantaneaEvent(
+    UUID eventId,
+    Instant occurredAt,
+    String instanciaOrigen,
+    List<TendenciaResponse> puntajes
+) {}
@@ -0,0 +1,71 @@
+package com.uamishop.catalogo;
+
+import com.uamishop.catalogo.domain.Producto;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class GlobalExceptionHandlerTest {
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new ConflictosController())
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Un conflicto de versión optimista responde 409 con ApiError")
+    void optimisticLocking_409() throws Exception {
+        mockMvc.perform(get("/version"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(jsonPath("$.error").value("Conflict"))
+                .andExpect(jsonPath("$.path").value("/version"));
+    }
+
+    @Test
+    @DisplayName("Un SKU duplicado responde 409 sin exponer el error de la base")
+    void skuDuplicado_409() throws Exception {
+        mockMvc.perform(get("/sku"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(jsonPath("$.message").value("Ya existe un producto con ese SKU"))
+                .andExpect(jsonPath("$.message", not(containsString("Duplicate entry"))));
+    }
+
+    @RestController
+    static class ConflictosController {
+
+        @GetMapping("/version")
+        void version() {
+            throw new ObjectOptimisticLockingFailureException(Producto.class, UUID.randomUUID());
+        }
+
+        @GetMapping("/sku")
+        void sku() {
+            SQLIntegrityConstraintViolationException causa = new SQLIntegrityConstraintViolationException(
+                    "Duplicate entry 'SKU-1' for key 'producto.uk_producto_sku'");
+            throw new DataIntegrityViolationException("could not execute statement",
+                    new ConstraintViolationException("could not execute statement", causa, "uk_producto_sku"));
+        }
+    }
+}
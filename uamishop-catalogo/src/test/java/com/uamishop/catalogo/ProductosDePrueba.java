@@ -0,0 +1,25 @@
+package com.uamishop.catalogo;
+
+import com.uamishop.catalogo.domain.CategoriaId;
+import com.uamishop.catalogo.domain.Producto;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.shared.domain.Money;
+import com.uamishop.catalogo.shared.domain.ProductoId;
+
+import java.util.UUID;
+
+/**
+ * Productos para las pruebas que solo necesitan uno con cierto stock: SKU único en cada llamada,
+ * precio fijo y una categoría cualquiera.
+ */
+public final class ProductosDePrueba {
+
+    private ProductosDePrueba() {
+    }
+
+    public static ProductoId guardarProducto(ProductoJpaRepository productoRepository, int stock) {
+        Producto producto = Producto.crear("Producto de prueba", "", Money.pesos(100), stock,
+                "PRB-" + UUID.randomUUID(), CategoriaId.generar());
+        return productoRepository.save(producto).getId();
+    }
+}
@@ -0,0 +1,75 @@
+package com.uamishop.catalogo.controller;
+
+import com.uamishop.catalogo.dto.FiltroProductos;
+import com.uamishop.catalogo.dto.PaginaProductos;
+import com.uamishop.catalogo.dto.VersionRecurso;
+import com.uamishop.catalogo.service.CatalogoVersionService;
+import com.uamishop.catalogo.service.ExportacionProductosService;
+import com.uamishop.catalogo.service.ImportacionProductosService;
+import com.uamishop.catalogo.service.IndiceFacetas;
+import com.uamishop.catalogo.service.ProductoEstadisticasService;
+import com.uamishop.catalogo.service.ProductoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ProductoControllerTest {
+
+    private ProductoService productoService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        productoService = mock(ProductoService.class);
+        CatalogoVersionService catalogoVersionService = mock(CatalogoVersionService.class);
+        when(catalogoVersionService.actual()).thenReturn(new VersionRecurso(1, Instant.parse("2026-01-01T00:00:00Z")));
+        when(productoService.buscarProductos(any(FiltroProductos.class), any(), any(Integer.class)))
+                .thenReturn(new PaginaProductos(List.of(), "siguiente"));
+        when(productoService.buscarTodosProductos()).thenReturn(List.of());
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProductoController(productoService,
+                        mock(ProductoEstadisticasService.class), mock(ImportacionProductosService.class),
+                        mock(ExportacionProductosService.class), catalogoVersionService, mock(IndiceFacetas.class)))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Sin parámetros sigue devolviendo el catálogo completo, marcado como obsoleto")
+    void listar_sinParametros_catalogoCompletoObsoleto() throws Exception {
+        mockMvc.perform(get("/api/v1/productos"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Deprecation", "true"))
+                .andExpect(header().exists("Warning"))
+                .andExpect(header().doesNotExist(ProductoController.NEXT_CURSOR_HEADER));
+
+        verify(productoService).buscarTodosProductos();
+        verify(productoService, never()).buscarProductos(any(), any(), any(Integer.class));
+    }
+
+    @Test
+    @DisplayName("Con un filtro y sin limit devuelve la primera página de 50")
+    void listar_conFiltro_primeraPagina() throws Exception {
+        mockMvc.perform(get("/api/v1/productos").param("disponible", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ProductoController.NEXT_CURSOR_HEADER, "siguiente"))
+                .andExpect(header().doesNotExist("Deprecation"));
+
+        verify(productoService).buscarProductos(any(FiltroProductos.class), isNull(), eq(50));
+        verify(productoService, never()).buscarTodosProductos();
+    }
+}
@@ -0,0 +1,80 @@
+package com.uamishop.catalogo.listener;
+
+import com.uamishop.catalogo.config.RabbitConfig;
+import com.uamishop.catalogo.shared.event.ProductoCompradoEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ConsumidoresParticionadosTest {
+
+    @Test
+    @DisplayName("Cada partición queda asignada a exactamente un consumidor, con cualquier número de consumidores")
+    void colas_cubrenTodasLasParticionesUnaVez() {
+        for (int total = 1; total <= RabbitConfig.PARTICIONES; total++) {
+            List<String> asignadas = new ArrayList<>();
+            for (int consumidor = 0; consumidor < total; consumidor++) {
+                String[] colas = ConsumidoresParticionados.colas("cola", consumidor, total);
+                assertTrue(colas.length > 0, "Ningún consumidor queda sin particiones");
+                asignadas.addAll(Arrays.asList(colas));
+            }
+            assertEquals(RabbitConfig.PARTICIONES, asignadas.size());
+            assertEquals(RabbitConfig.PARTICIONES, new HashSet<>(asignadas).size());
+        }
+        assertEquals("cola.0", ConsumidoresParticionados.colas("cola", 0, RabbitConfig.PARTICIONES)[0]);
+        assertEquals("cola.f", ConsumidoresParticionados.colas("cola", 15, RabbitConfig.PARTICIONES)[0]);
+    }
+
+    @Test
+    @DisplayName("La partición sale del último dígito hexadecimal del producto")
+    void particion_ultimoDigitoHexadecimal() {
+        Set<Integer> vistas = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            UUID productoId = UUID.randomUUID();
+            int particion = RabbitConfig.particion(productoId);
+            String id = productoId.toString();
+            assertEquals(Integer.parseInt(id.substring(id.length() - 1), 16), particion);
+            vistas.add(particion);
+        }
+        assertEquals(RabbitConfig.PARTICIONES, vistas.size());
+    }
+
+    @Test
+    @DisplayName("Convierte al tipo del catálogo aunque el productor publique su propia clase")
+    void convertir_usaTipoDelCatalogo() {
+        ConsumidoresParticionados consumidores = new ConsumidoresParticionados(
+                mock(ProductoCompradoListener.class), mock(ProductoAgregadoAlCarritoListener.class),
+                new RabbitConfig().jackson2JsonMessageConverter(), mock(SimpleRabbitListenerContainerFactory.class), 4, false);
+        UUID eventId = UUID.randomUUID();
+        UUID productoId = UUID.randomUUID();
+        String json = "{\"eventId\":\"" + eventId + "\",\"occurredAt\":\"2026-01-01T00:00:00Z\","
+                + "\"ordenId\":\"" + UUID.randomUUID() + "\",\"clienteId\":\"" + UUID.randomUUID() + "\","
+                + "\"items\":[{\"productoId\":\"" + productoId + "\",\"sku\":\"SKU-1\",\"cantidad\":2,"
+                + "\"precioUnitario\":10.5,\"moneda\":\"MXN\"}]}";
+        Message mensaje = MessageBuilder.withBody(json.getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setHeader("__TypeId__", "com.uamishop.ordenes.shared.event.ProductoCompradoEvent")
+                .build();
+
+        List<ProductoCompradoEvent> eventos = consumidores.convertir(List.of(mensaje), ProductoCompradoEvent.class);
+
+        assertEquals(1, eventos.size());
+        assertEquals(eventId, eventos.get(0).eventId());
+        assertEquals(productoId, eventos.get(0).items().get(0).productoId());
+        assertEquals(2, eventos.get(0).items().get(0).cantidad());
+    }
+}
@@ -0,0 +1,41 @@
+package com.uamishop.catalogo.listener;
+
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import com.uamishop.catalogo.service.IndiceFacetas;
+import com.uamishop.catalogo.shared.event.ProductoModificadoEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class IndiceFacetasListenerTest {
+
+    private final IndiceFacetas indiceFacetas = mock(IndiceFacetas.class);
+    private final ProductoProyeccionRepository proyeccionRepository = mock(ProductoProyeccionRepository.class);
+    private final IndiceFacetasListener listener = new IndiceFacetasListener(indiceFacetas, proyeccionRepository);
+
+    @Test
+    @DisplayName("Un movimiento de stock no lee la base ni toca el índice de facetas")
+    void soloStock_seIgnora() {
+        listener.onProductoModificado(ProductoModificadoEvent.stock(UUID.randomUUID()));
+
+        verifyNoInteractions(proyeccionRepository, indiceFacetas);
+    }
+
+    @Test
+    @DisplayName("Un cambio de catálogo relee los campos de faceta")
+    void cambioDeCatalogo_releeLaFaceta() {
+        UUID id = UUID.randomUUID();
+        when(proyeccionRepository.buscarFaceta(id)).thenReturn(Optional.empty());
+
+        listener.onProductoModificado(new ProductoModificadoEvent(id));
+
+        verify(indiceFacetas).eliminar(id);
+    }
+}
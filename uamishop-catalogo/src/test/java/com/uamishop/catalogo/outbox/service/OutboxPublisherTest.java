@@ -0,0 +1,150 @@
+package com.uamishop.catalogo.outbox.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uamishop.catalogo.config.RabbitConfig;
+import com.uamishop.catalogo.listener.ProductoOutboxListener;
+import com.uamishop.catalogo.outbox.domain.OutboxEvent;
+import com.uamishop.catalogo.outbox.domain.OutboxStatus;
+import com.uamishop.catalogo.outbox.repository.OutboxEventRepository;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import com.uamishop.catalogo.service.CatalogoVersionService;
+import com.uamishop.catalogo.service.ProductoEventosService;
+import com.uamishop.catalogo.shared.domain.ProductoId;
+import com.uamishop.catalogo.shared.event.ProductoActualizadoEvent;
+import com.uamishop.catalogo.shared.event.ProductoModificadoEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+import static com.uamishop.catalogo.ProductosDePrueba.guardarProducto;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({OutboxPublisher.class, OutboxService.class, ProductoEventosService.class, ProductoOutboxListener.class,
+        ProductoProyeccionRepository.class, CatalogoVersionService.class})
+// El ciclo programado no debe correr durante la prueba
+@TestPropertySource(properties = "catalogo.outbox.intervalo-ms=3600000")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxPublisherTest {
+
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ProductoJpaRepository productoRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private RabbitTemplate rabbitTemplate;
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Varios cambios del mismo producto salen como un solo mensaje con el último estado")
+    void publicar_fusionaPorProducto() throws Exception {
+        ProductoId id = guardarProducto(productoRepository, 10);
+        ProductoId otro = guardarProducto(productoRepository, 3);
+
+        // Tres avisos en una transacción: una sola fila de outbox
+        transactionTemplate.executeWithoutResult(status -> {
+            productoRepository.disminuirStock(id, 1, Instant.now());
+            eventPublisher.publishEvent(new ProductoModificadoEvent(id.getValue()));
+            eventPublisher.publishEvent(new ProductoModificadoEvent(id.getValue()));
+            eventPublisher.publishEvent(new ProductoModificadoEvent(otro.getValue()));
+        });
+        assertEquals(2, outboxEventRepository.count());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productoRepository.disminuirStock(id, 2, Instant.now());
+            eventPublisher.publishEvent(new ProductoModificadoEvent(id.getValue()));
+        });
+        assertEquals(3, outboxEventRepository.count());
+
+        assertEquals(2, outboxPublisher.publicarEventosPendientes());
+
+        ArgumentCaptor<Message> mensajes = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate, times(2)).send(eq(RabbitConfig.EVENTS_EXCHANGE),
+                eq(RabbitConfig.RK_PRODUCTO_ACTUALIZADO), mensajes.capture());
+        ProductoActualizadoEvent ultimo = mensajes.getAllValues().stream()
+                .map(mensaje -> leer(mensaje))
+                .filter(evento -> evento.productoId().equals(id.getValue()))
+                .findFirst().orElseThrow();
+        assertEquals(7, ultimo.stock());
+        assertEquals(2, ultimo.version());
+        assertTrue(outboxEventRepository.findAll().stream()
+                .allMatch(evento -> evento.getStatus() == OutboxStatus.PUBLICADO));
+        assertEquals(0, outboxPublisher.publicarEventosPendientes());
+    }
+
+    @Test
+    @DisplayName("Si el broker falla el evento sigue pendiente y un rollback no deja evento")
+    void publicar_brokerCaidoYRollback() {
+        ProductoId id = guardarProducto(productoRepository, 5);
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new ProductoModificadoEvent(id.getValue()));
+            status.setRollbackOnly();
+        });
+        assertEquals(0, outboxEventRepository.count());
+
+        transactionTemplate.executeWithoutResult(status ->
+                eventPublisher.publishEvent(new ProductoModificadoEvent(id.getValue())));
+        doThrow(new AmqpConnectException(new RuntimeException("sin broker")))
+                .when(rabbitTemplate).send(anyString(), anyString(), any(Message.class));
+
+        assertEquals(0, outboxPublisher.publicarEventosPendientes());
+        List<OutboxEvent> eventos = outboxEventRepository.findAll();
+        assertEquals(1, eventos.size());
+        assertEquals(OutboxStatus.PENDIENTE, eventos.get(0).getStatus());
+    }
+
+    private ProductoActualizadoEvent leer(Message mensaje) {
+        try {
+            return objectMapper.readValue(mensaje.getBody(), ProductoActualizadoEvent.class);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.uamishop.catalogo.repository;
+
+import com.uamishop.catalogo.domain.CategoriaId;
+import com.uamishop.catalogo.domain.Imagen;
+import com.uamishop.catalogo.domain.Producto;
+import com.uamishop.catalogo.dto.FiltroProductos;
+import com.uamishop.catalogo.dto.ProductoResponse;
+import com.uamishop.catalogo.shared.domain.Money;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import(ProductoProyeccionRepository.class)
+class ProductoProyeccionRepositoryTest {
+
+    private static final int TOTAL_PRODUCTOS = 1_000;
+
+    @Autowired
+    private ProductoProyeccionRepository proyeccionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private CategoriaId categoriaId;
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void setUp() {
+        categoriaId = CategoriaId.generar();
+        for (int i = 0; i < TOTAL_PRODUCTOS; i++) {
+            Producto producto = Producto.crear(
+                    "Producto " + i, "Descripción " + i, Money.pesos(100 + i), 10,
+                    String.format("TST-%03d", i % 1000), categoriaId);
+            producto.agregarImagen(new Imagen(null, "https://img.test/" + i + "/a.png", "a", 0));
+            producto.agregarImagen(new Imagen(null, "https://img.test/" + i + "/b.png", "b", 1));
+            entityManager.persist(producto);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        estadisticas = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @Test
+    @DisplayName("Listar 1,000 productos con imágenes cuesta dos sentencias SQL")
+    void buscarPagina_milProductos_dosSentencias() {
+        List<ProductoResponse> productos = proyeccionRepository.buscarPagina(
+                new FiltroProductos(null, null, null, null), null, TOTAL_PRODUCTOS);
+
+        assertEquals(TOTAL_PRODUCTOS, productos.size());
+        assertTrue(productos.stream().allMatch(p -> p.getImagenesUrls().size() == 2));
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+        assertEquals(0, estadisticas.getEntityLoadCount(), "La proyección no debe cargar entidades");
+    }
+
+    @Test
+    @DisplayName("buscarTodos no dispara consultas por producto")
+    void buscarTodos_sinNMasUno() {
+        List<ProductoResponse> productos = proyeccionRepository.buscarTodos();
+
+        assertEquals(TOTAL_PRODUCTOS, productos.size());
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Las páginas por keyset recorren el catálogo sin huecos ni repetidos")
+    void buscarPagina_keyset_recorreTodo() {
+        FiltroProductos sinFiltro = new FiltroProductos(null, null, null, null);
+        Set<UUID> vistos = new HashSet<>();
+        UUID cursor = null;
+        List<ProductoResponse> pagina;
+        do {
+            pagina = proyeccionRepository.buscarPagina(sinFiltro, cursor, 300);
+            pagina.forEach(p -> assertTrue(vistos.add(p.getId().getValue()), "Producto repetido"));
+            cursor = pagina.isEmpty() ? null : pagina.get(pagina.size() - 1).getId().getValue();
+        } while (pagina.size() == 300);
+
+        assertEquals(TOTAL_PRODUCTOS, vistos.size());
+    }
+
+    @Test
+    @DisplayName("buscarPorIds devuelve solo los existentes con sus imágenes")
+    void buscarPorIds_omiteInexistentes() {
+        List<UUID> ids = proyeccionRepository.buscarPagina(
+                        new FiltroProductos(categoriaId.id(), true, null, null), null, 5)
+                .stream().map(p -> p.getId().getValue()).toList();
+        estadisticas.clear();
+
+        List<UUID> consulta = new java.util.ArrayList<>(ids);
+        consulta.add(UUID.randomUUID());
+        List<ProductoResponse> productos = proyeccionRepository.buscarPorIds(consulta);
+
+        assertEquals(5, productos.size());
+        assertEquals(2, productos.get(0).getImagenesUrls().size());
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+    }
+}
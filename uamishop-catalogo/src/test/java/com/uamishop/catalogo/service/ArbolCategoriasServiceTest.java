@@ -0,0 +1,167 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.CategoriaId;
+import com.uamishop.catalogo.domain.Producto;
+import com.uamishop.catalogo.dto.CategoriaRequest;
+import com.uamishop.catalogo.dto.NodoCategoria;
+import com.uamishop.catalogo.dto.PaginaProductos;
+import com.uamishop.catalogo.dto.ProductoResponse;
+import com.uamishop.catalogo.repository.CategoriaJpaRepository;
+import com.uamishop.catalogo.repository.CategoriaRelacionJpaRepository;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import com.uamishop.catalogo.shared.domain.Money;
+import com.uamishop.catalogo.shared.exception.BusinessRuleException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({ProductoService.class, ProductoProyeccionRepository.class, ArbolCategoriasService.class,
+        CategoriaCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ArbolCategoriasServiceTest {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ArbolCategoriasService arbolCategoriasService;
+
+    @Autowired
+    private ProductoJpaRepository productoRepository;
+
+    @Autowired
+    private CategoriaJpaRepository categoriaRepository;
+
+    @Autowired
+    private CategoriaRelacionJpaRepository relacionRepository;
+
+    @Autowired
+    private CategoriaCache categoriaCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private ProductoCache productoCache;
+
+    @MockBean
+    private IndiceBusquedaProductos indiceBusqueda;
+
+    // Electrónica > Computadoras > Laptops; Ropa aparte
+    private UUID electronica;
+    private UUID computadoras;
+    private UUID laptops;
+    private UUID ropa;
+
+    @BeforeEach
+    void setUp() {
+        electronica = crearCategoria("Electrónica", null);
+        computadoras = crearCategoria("Computadoras", electronica);
+        laptops = crearCategoria("Laptops", computadoras);
+        ropa = crearCategoria("Ropa", null);
+        crearProducto("ELC", electronica);
+        crearProducto("LAP-1", laptops);
+        crearProducto("LAP-2", laptops);
+        crearProducto("ROP", ropa);
+        // Sin el listener de invalidación la instantánea se recarga a mano, como tras el commit
+        categoriaCache.recargar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productoRepository.deleteAll();
+        relacionRepository.deleteAll();
+        categoriaRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Los productos de un subárbol salen en una consulta de productos más una de imágenes")
+    void buscarProductosDeCategoria_subarbolCompleto() {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        PaginaProductos pagina = productoService.buscarProductosDeCategoria(new CategoriaId(electronica), null, 10);
+
+        assertEquals(List.of("ELC", "LAP-1", "LAP-2"), skus(pagina));
+        assertNull(pagina.siguienteCursor());
+        // Productos del subárbol e imágenes; la existencia de la categoría sale de la instantánea
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+
+        PaginaProductos primera = productoService.buscarProductosDeCategoria(new CategoriaId(computadoras), null, 1);
+        PaginaProductos segunda = productoService.buscarProductosDeCategoria(
+                new CategoriaId(computadoras), primera.siguienteCursor(), 1);
+        assertEquals(2, skus(primera).size() + skus(segunda).size());
+        assertNotEquals(skus(primera), skus(segunda));
+    }
+
+    @Test
+    @DisplayName("Mover una categoría arrastra su subárbol y rechaza ciclos")
+    void actualizarCategoria_mueveSubarbol() {
+        productoService.actualizarCategoria(new CategoriaId(computadoras), request("Computadoras", ropa));
+
+        assertEquals(List.of("ELC"), skus(productoService.buscarProductosDeCategoria(new CategoriaId(electronica), null, 10)));
+        assertEquals(List.of("LAP-1", "LAP-2", "ROP"),
+                skus(productoService.buscarProductosDeCategoria(new CategoriaId(ropa), null, 10)));
+        assertEquals(2, relacionRepository.findAncestros(laptops).stream()
+                .filter(relacion -> relacion.getAncestroId().equals(ropa)).findFirst().orElseThrow().getProfundidad());
+
+        BusinessRuleException ciclo = assertThrows(BusinessRuleException.class, () ->
+                productoService.actualizarCategoria(new CategoriaId(ropa), request("Ropa", laptops)));
+        assertEquals("CICLO_CATEGORIAS", ciclo.getRule());
+        assertNull(categoriaRepository.findById(new CategoriaId(ropa)).orElseThrow().getCategoriaPadreId());
+    }
+
+    @Test
+    @DisplayName("El árbol se arma anidado y la tabla de clausura se reconstruye si falta")
+    void inicializar_reconstruyeClausuraYArbol() {
+        relacionRepository.deleteAllInBatch();
+
+        arbolCategoriasService.inicializar();
+
+        assertEquals(4, relacionRepository.countCategorias());
+        assertEquals(3, relacionRepository.findDescendientes(electronica).size());
+        List<NodoCategoria> arbol = arbolCategoriasService.arbol();
+        assertEquals(List.of("Electrónica", "Ropa"), arbol.stream().map(NodoCategoria::nombre).toList());
+        NodoCategoria nodoLaptops = arbol.get(0).subcategorias().get(0).subcategorias().get(0);
+        assertEquals(laptops, nodoLaptops.id());
+        assertTrue(nodoLaptops.subcategorias().isEmpty());
+    }
+
+    private UUID crearCategoria(String nombre, UUID padre) {
+        return productoService.crearCategoria(request(nombre, padre)).getId().id();
+    }
+
+    private static CategoriaRequest request(String nombre, UUID padre) {
+        CategoriaRequest request = new CategoriaRequest();
+        request.setNombre(nombre);
+        request.setCategoriaPadreId(padre);
+        return request;
+    }
+
+    private void crearProducto(String sku, UUID categoria) {
+        productoRepository.save(Producto.crear("Producto " + sku, "", Money.pesos(100), 5, sku, new CategoriaId(categoria)));
+    }
+
+    private static List<String> skus(PaginaProductos pagina) {
+        return pagina.productos().stream().map(ProductoResponse::getSku).sorted().toList();
+    }
+}
@@ -0,0 +1,113 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.CategoriaId;
+import com.uamishop.catalogo.domain.Producto;
+import com.uamishop.catalogo.dto.VersionRecurso;
+import com.uamishop.catalogo.listener.CatalogoVersionListener;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.shared.domain.Money;
+import com.uamishop.catalogo.shared.domain.ProductoId;
+import com.uamishop.catalogo.shared.event.CategoriaModificadaEvent;
+import com.uamishop.catalogo.shared.event.ProductoModificadoEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({CatalogoVersionService.class, CatalogoVersionListener.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogoVersionServiceTest {
+
+    @Autowired
+    private CatalogoVersionService catalogoVersionService;
+
+    @Autowired
+    private ProductoJpaRepository productoRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Varios cambios en una transacción suben la versión del catálogo una sola vez")
+    void incrementar_unaVezPorTransaccion() {
+        long antes = catalogoVersionService.actual().version();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 5; i++) {
+                eventPublisher.publishEvent(new ProductoModificadoEvent(UUID.randomUUID()));
+            }
+            eventPublisher.publishEvent(new CategoriaModificadaEvent(UUID.randomUUID()));
+        });
+        assertEquals(antes + 1, catalogoVersionService.actual().version());
+
+        // Sin transacción cada evento cuenta por separado
+        eventPublisher.publishEvent(new ProductoModificadoEvent(UUID.randomUUID()));
+        assertEquals(antes + 2, catalogoVersionService.actual().version());
+    }
+
+    @Test
+    @DisplayName("Una transacción revertida no sube la versión del catálogo")
+    void incrementar_rollback_noCambia() {
+        long antes = catalogoVersionService.actual().version();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new ProductoModificadoEvent(UUID.randomUUID()));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(antes, catalogoVersionService.actual().version());
+    }
+
+    @Test
+    @DisplayName("Un movimiento de stock no toma la fila de la versión del catálogo")
+    void incrementar_soloStock_noCambia() {
+        long antes = catalogoVersionService.actual().version();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                eventPublisher.publishEvent(ProductoModificadoEvent.stock(UUID.randomUUID())));
+
+        assertEquals(antes, catalogoVersionService.actual().version());
+    }
+
+    @Test
+    @DisplayName("Descontar stock cambia la versión y la fecha de modificación del producto")
+    void disminuirStock_cambiaVersionProducto() {
+        Producto producto = productoRepository.save(Producto.crear(
+                "Teclado", "Teclado mecánico", Money.pesos(999.0), 10,
+                "VER-" + UUID.randomUUID(), CategoriaId.generar()));
+        ProductoId id = producto.getId();
+        VersionRecurso antes = productoRepository.findVersion(id).orElseThrow();
+
+        Instant ahora = antes.actualizadoEn().plusSeconds(5);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                productoRepository.disminuirStock(id, 3, ahora));
+
+        VersionRecurso despues = productoRepository.findVersion(id).orElseThrow();
+        assertEquals(antes.version() + 1, despues.version());
+        assertEquals(ahora, despues.actualizadoEn());
+        assertNotEquals(antes.etag(), despues.etag());
+    }
+}
@@ -0,0 +1,66 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.Categoria;
+import com.uamishop.catalogo.domain.CategoriaId;
+import com.uamishop.catalogo.repository.CategoriaJpaRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import(CategoriaCache.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CategoriaCacheTest {
+
+    @Autowired
+    private CategoriaCache categoriaCache;
+
+    @Autowired
+    private CategoriaJpaRepository categoriaRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        categoriaRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Con la instantánea cargada las búsquedas no consultan la base")
+    void buscar_desdeInstantaneaSinConsultas() {
+        Categoria ropa = categoriaRepository.save(new Categoria(CategoriaId.generar(), "Ropa", "", null));
+        categoriaCache.recargar();
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        assertEquals("Ropa", categoriaCache.buscar(ropa.getId()).orElseThrow().getNombre());
+        assertTrue(categoriaCache.existe(ropa.getId()));
+        assertEquals(1, categoriaCache.todas().size());
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Una categoría creada después de cargar se encuentra en la base y recarga la instantánea")
+    void buscar_faltanteRecargaDesdeLaBase() {
+        categoriaCache.recargar();
+        Categoria nueva = categoriaRepository.save(new Categoria(CategoriaId.generar(), "Hogar", "", null));
+
+        assertTrue(categoriaCache.existe(nueva.getId()));
+        assertEquals(1, categoriaCache.todas().size());
+        assertFalse(categoriaCache.existe(CategoriaId.generar()));
+    }
+}
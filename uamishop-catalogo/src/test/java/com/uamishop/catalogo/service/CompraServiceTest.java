@@ -0,0 +1,216 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.EstadoReserva;
+import com.uamishop.catalogo.domain.ProductoEstadisticas;
+import com.uamishop.catalogo.inbox.repository.InboxEventRepository;
+import com.uamishop.catalogo.inbox.service.InboxService;
+import com.uamishop.catalogo.listener.ProductoCompradoListener;
+import com.uamishop.catalogo.repository.ProductoEstadisticasJpaRepository;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.repository.ReservaStockJpaRepository;
+import com.uamishop.catalogo.service.ProductoEstadisticasService.VentasProducto;
+import com.uamishop.catalogo.shared.domain.ProductoId;
+import com.uamishop.catalogo.shared.event.ProductoCompradoEvent;
+import com.uamishop.catalogo.shared.event.ProductoCompradoEvent.ItemComprado;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.uamishop.catalogo.ProductosDePrueba.guardarProducto;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+// El UPSERT de ventas usa la sintaxis de MySQL
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CompraService.class, ReservaStockService.class, ProductoEstadisticasService.class, ContadorAgregadosCarrito.class,
+        IndiceMasVendidos.class, InboxService.class, SeriesVentasHora.class, IndiceTendencias.class,
+        ProductoCompradoListener.class})
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:compras;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CompraServiceTest {
+
+    @Autowired
+    private CompraService compraService;
+
+    @Autowired
+    private ReservaStockService reservaStockService;
+
+    @Autowired
+    private ProductoEstadisticasService estadisticasService;
+
+    @Autowired
+    private ProductoCompradoListener listener;
+
+    @Autowired
+    private ProductoJpaRepository productoRepository;
+
+    @Autowired
+    private ProductoEstadisticasJpaRepository estadisticasRepository;
+
+    @Autowired
+    private ReservaStockJpaRepository reservaRepository;
+
+    @Autowired
+    private InboxEventRepository inboxEventRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        inboxEventRepository.deleteAll();
+        reservaRepository.deleteAll();
+        estadisticasRepository.deleteAll();
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Un lote de 600 líneas sobre 3 productos se aplica con sentencias por producto, no por línea")
+    void registrarCompras_agregaPorProducto() {
+        List<UUID> productos = List.of(guardarProducto(productoRepository, 10_000).getValue(), guardarProducto(productoRepository, 10_000).getValue(), guardarProducto(productoRepository, 10_000).getValue());
+        estadisticasRepository.save(new ProductoEstadisticas(productos.get(0)));
+        List<ProductoCompradoEvent> eventos = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            eventos.add(evento(UUID.randomUUID(),
+                    item(productos.get(0), 1), item(productos.get(1), 2), item(productos.get(2), 3)));
+        }
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        compraService.registrarCompras(eventos);
+
+        // Lo de antes más la consulta y el INSERT por lotes del inbox
+        assertTrue(estadisticas.getPrepareStatementCount() <= 12,
+                () -> "Sentencias: " + estadisticas.getPrepareStatementCount());
+        assertEquals(10_000 - 200, stock(productos.get(0)));
+        assertEquals(10_000 - 400, stock(productos.get(1)));
+        assertEquals(10_000 - 600, stock(productos.get(2)));
+        ProductoEstadisticas stats = estadisticasRepository.findById(productos.get(2)).orElseThrow();
+        assertEquals(200, stats.getVentasTotales());
+        assertEquals(600, stats.getCantidadVendida());
+    }
+
+    @Test
+    @DisplayName("El lote confirma las reservas de sus órdenes y descuenta el resto del stock")
+    void registrarCompras_confirmaReservas() {
+        UUID productoId = guardarProducto(productoRepository, 10).getValue();
+        UUID carritoId = UUID.randomUUID();
+        UUID ordenConReserva = UUID.randomUUID();
+        reservaStockService.reservar(carritoId, productoId, 4);
+        reservaStockService.asociarOrden(carritoId, ordenConReserva);
+
+        compraService.registrarCompras(List.of(
+                evento(ordenConReserva, item(productoId, 4)),
+                evento(UUID.randomUUID(), item(productoId, 1))));
+
+        var disponibilidad = reservaStockService.disponibilidad(productoId);
+        assertEquals(5, disponibilidad.stock());
+        assertEquals(0, disponibilidad.stockReservado());
+        assertEquals(EstadoReserva.CONFIRMADA, reservaRepository.findAll().get(0).getEstado());
+    }
+
+    @Test
+    @DisplayName("Si el lote falla por stock insuficiente se aplican los eventos válidos uno por uno")
+    void onProductosComprados_loteInvalido_aplicaLosValidos() {
+        UUID conStock = guardarProducto(productoRepository, 10).getValue();
+        UUID sinStock = guardarProducto(productoRepository, 1).getValue();
+
+        listener.onProductosComprados(List.of(
+                evento(UUID.randomUUID(), item(conStock, 2)),
+                evento(UUID.randomUUID(), item(sinStock, 5)),
+                evento(UUID.randomUUID(), item(conStock, 3))));
+
+        assertEquals(5, stock(conStock));
+        assertEquals(1, stock(sinStock));
+        assertEquals(5, estadisticasRepository.findById(conStock).orElseThrow().getCantidadVendida());
+        assertTrue(estadisticasRepository.findById(sinStock).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Un evento reentregado no vuelve a descontar stock, ni dentro del lote ni después")
+    void registrarCompras_reentrega_seAplicaUnaVez() {
+        UUID productoId = guardarProducto(productoRepository, 10).getValue();
+        ProductoCompradoEvent compra = evento(UUID.randomUUID(), item(productoId, 2));
+
+        compraService.registrarCompras(List.of(compra, compra));
+        listener.onProductosComprados(List.of(compra, evento(UUID.randomUUID(), item(productoId, 1))));
+
+        assertEquals(7, stock(productoId));
+        assertEquals(2, estadisticasRepository.findById(productoId).orElseThrow().getVentasTotales());
+        assertEquals(2, inboxEventRepository.count());
+    }
+
+    @Test
+    @DisplayName("Si el lote se revierte sus eventos no quedan marcados y la reentrega los aplica")
+    void registrarCompras_loteRevertido_noMarcaEventos() {
+        UUID productoId = guardarProducto(productoRepository, 1).getValue();
+        ProductoCompradoEvent compra = evento(UUID.randomUUID(), item(productoId, 1));
+
+        assertThrows(RuntimeException.class, () -> compraService.registrarCompras(List.of(
+                compra, evento(UUID.randomUUID(), item(productoId, 5)))));
+        assertEquals(0, inboxEventRepository.count());
+
+        compraService.registrarCompras(List.of(compra));
+        assertEquals(0, stock(productoId));
+    }
+
+    @Test
+    @DisplayName("Ventas concurrentes del mismo producto desde varios consumidores no se pierden")
+    void registrarVentas_concurrentes_sumanTodas() throws Exception {
+        UUID productoId = UUID.randomUUID();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < 8; h++) {
+            tareas.add(pool.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    estadisticasService.registrarVentas(List.of(new VentasProducto(productoId, 1, 2)));
+                }
+            }));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        ProductoEstadisticas stats = estadisticasRepository.findById(productoId).orElseThrow();
+        assertEquals(400, stats.getVentasTotales());
+        assertEquals(800, stats.getCantidadVendida());
+        assertNotNull(stats.getUltimaVentaAt());
+    }
+
+    private int stock(UUID productoId) {
+        return productoRepository.findById(new ProductoId(productoId)).orElseThrow().getStock();
+    }
+
+    private static ProductoCompradoEvent evento(UUID ordenId, ItemComprado... items) {
+        return new ProductoCompradoEvent(UUID.randomUUID(), Instant.now(), ordenId, UUID.randomUUID(), List.of(items));
+    }
+
+    private static ItemComprado item(UUID productoId, int cantidad) {
+        return new ItemComprado(productoId, "CMP-001", cantidad, BigDecimal.TEN, "MXN");
+    }
+}
@@ -0,0 +1,137 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.ProductoEstadisticas;
+import com.uamishop.catalogo.inbox.domain.InboxEvent;
+import com.uamishop.catalogo.inbox.repository.InboxEventRepository;
+import com.uamishop.catalogo.inbox.service.InboxService;
+import com.uamishop.catalogo.repository.ProductoEstadisticasJpaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+// El UPSERT usa la sintaxis de MySQL
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:contadores;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "catalogo.instancia=catalogo-test"})
+@Import({ContadorAgregadosCarrito.class, InboxService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ContadorAgregadosCarritoTest {
+
+    private static final int HILOS = 16;
+    private static final int EVENTOS_POR_HILO = 2_000;
+
+    @Autowired
+    private ContadorAgregadosCarrito contador;
+
+    @Autowired
+    private ProductoEstadisticasJpaRepository estadisticasRepository;
+
+    @Autowired
+    private InboxEventRepository inboxEventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        inboxEventRepository.deleteAll();
+        estadisticasRepository.deleteAll();
+        jdbcTemplate.update("delete from estadisticas_marca_agua");
+    }
+
+    @Test
+    @DisplayName("Los volcados concurrentes con los incrementos no pierden conteos")
+    void volcar_concurrente_sinConteosPerdidos() throws Exception {
+        List<UUID> productos = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            tareas.add(pool.submit(() -> {
+                for (int i = 0; i < EVENTOS_POR_HILO; i++) {
+                    contador.registrar(productos.get(i % productos.size()), Instant.now());
+                }
+            }));
+        }
+        while (tareas.stream().anyMatch(t -> !t.isDone())) {
+            contador.volcar();
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        contador.volcar();
+
+        long total = estadisticasRepository.findAllById(productos).stream()
+                .mapToLong(ProductoEstadisticas::getVecesAgregadoAlCarrito)
+                .sum();
+        assertEquals((long) HILOS * EVENTOS_POR_HILO, total);
+        assertEquals((long) HILOS * EVENTOS_POR_HILO, jdbcTemplate.queryForObject(
+                "select eventos_volcados from estadisticas_marca_agua where instancia = 'catalogo-test'", Long.class));
+        assertEquals(0, contador.volcar());
+    }
+
+    @Test
+    @DisplayName("El volcado suma sobre la fila existente sin tocar las ventas")
+    void volcar_filaExistente_conservaVentas() {
+        UUID productoId = UUID.randomUUID();
+        ProductoEstadisticas stats = new ProductoEstadisticas(productoId);
+        stats.registrarVentas(3, 7, Instant.now());
+        estadisticasRepository.save(stats);
+
+        contador.registrar(productoId, Instant.now());
+        contador.registrar(productoId, Instant.now());
+        assertEquals(1, contador.volcar());
+
+        ProductoEstadisticas actualizado = estadisticasRepository.findById(productoId).orElseThrow();
+        assertEquals(2, actualizado.getVecesAgregadoAlCarrito());
+        assertEquals(7, actualizado.getCantidadVendida());
+        assertEquals(3, actualizado.getVentasTotales());
+        assertNotNull(actualizado.getUltimaAgregadoAlCarritoAt());
+    }
+
+    @Test
+    @DisplayName("Los eventos repetidos cuentan una vez y sus ids se registran en el inbox al volcar")
+    void registrar_eventosRepetidos_unaVezConInboxEnElVolcado() {
+        UUID productoId = UUID.randomUUID();
+        UUID evento = UUID.randomUUID();
+        UUID procesadoEnOtraReplica = UUID.randomUUID();
+        inboxEventRepository.save(new InboxEvent(ContadorAgregadosCarrito.CONSUMIDOR, procesadoEnOtraReplica, Instant.now()));
+
+        assertTrue(contador.registrar(evento, productoId, Instant.now()));
+        assertFalse(contador.registrar(evento, productoId, Instant.now()));
+        assertTrue(contador.registrar(procesadoEnOtraReplica, productoId, Instant.now()));
+        // Registrar no escribe en la base
+        assertEquals(1, inboxEventRepository.count());
+        assertEquals(1, contador.volcar());
+
+        assertEquals(1, estadisticasRepository.findById(productoId).orElseThrow().getVecesAgregadoAlCarrito());
+        assertEquals(2, inboxEventRepository.count());
+        // Ya confirmado: lo descarta el filtro en memoria, sin esperar al volcado
+        assertFalse(contador.registrar(evento, productoId, Instant.now()));
+        assertEquals(0, contador.volcar());
+    }
+}
@@ -0,0 +1,107 @@
+package com.uamishop.catalogo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uamishop.catalogo.domain.CategoriaId;
+import com.uamishop.catalogo.domain.Imagen;
+import com.uamishop.catalogo.domain.Producto;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.shared.domain.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(ExportacionProductosService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExportacionProductosServiceTest {
+
+    private static final int TOTAL_PRODUCTOS = 300;
+
+    @Autowired
+    private ExportacionProductosService exportacionService;
+
+    @Autowired
+    private ProductoJpaRepository productoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private UUID conImagenes;
+
+    @BeforeEach
+    void setUp() {
+        CategoriaId categoriaId = CategoriaId.generar();
+        List<Producto> productos = new ArrayList<>();
+        for (int i = 0; i < TOTAL_PRODUCTOS; i++) {
+            productos.add(Producto.crear("Producto " + i, "Descripción " + i, Money.pesos(100 + i), i,
+                    String.format("EXP-%03d", i), categoriaId));
+        }
+        Producto especial = productos.get(7);
+        especial.actualizarNombreDescripcion("Laptop", "Pantalla 15\", 16 GB,\nSSD");
+        especial.agregarImagen(new Imagen(null, "https://img.test/a.png", "a", 0));
+        especial.agregarImagen(new Imagen(null, "https://img.test/b.png", "b", 1));
+        productoRepository.saveAll(productos);
+        conImagenes = especial.getId().getValue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("NDJSON: un producto por línea con sus imágenes agrupadas")
+    void exportar_ndjson() throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        long exportados = exportacionService.exportar(salida, FormatoArchivo.NDJSON);
+
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(TOTAL_PRODUCTOS, exportados);
+        assertEquals(TOTAL_PRODUCTOS, lineas.length);
+        JsonNode especial = null;
+        for (String linea : lineas) {
+            JsonNode producto = objectMapper.readTree(linea);
+            if (producto.get("id").asText().equals(conImagenes.toString())) {
+                especial = producto;
+            }
+        }
+        assertNotNull(especial);
+        assertEquals("Pantalla 15\", 16 GB,\nSSD", especial.get("descripcion").asText());
+        assertEquals(2, especial.get("imagenesUrls").size());
+        assertEquals("https://img.test/b.png", especial.get("imagenesUrls").get(1).asText());
+    }
+
+    @Test
+    @DisplayName("CSV: encabezado compatible con la importación y campos entrecomillados")
+    void exportar_csv() throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        exportacionService.exportar(salida, FormatoArchivo.CSV);
+
+        String csv = salida.toString(StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("id,sku,nombre,descripcion,precio,moneda,stock,categoriaId,disponible,imagenesUrls\n"));
+        assertTrue(csv.contains(conImagenes + ",EXP-007,Laptop,\"Pantalla 15\"\", 16 GB,\nSSD\",107.00,MXN,7,"));
+        assertTrue(csv.contains(",true,https://img.test/a.png|https://img.test/b.png\n"));
+    }
+}
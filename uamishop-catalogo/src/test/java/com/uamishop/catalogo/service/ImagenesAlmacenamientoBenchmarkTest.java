@@ -0,0 +1,166 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.CategoriaId;
+import com.uamishop.catalogo.domain.Imagen;
+import com.uamishop.catalogo.domain.Producto;
+import com.uamishop.catalogo.dto.ProductoResponse;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import com.uamishop.catalogo.shared.domain.Money;
+import com.uamishop.catalogo.shared.domain.ProductoId;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara las imágenes en {@code producto_imagenes} con el modo compacto ({@code imagenes_json}): latencia
+ * de alta, de agregar una imagen y de listar por ids, sentencias SQL por operación y filas ocupadas.
+ * Corre con {@code mvn test -Pbenchmark}; {@code -Dbenchmark.productos=N} cambia el tamaño. Sobre H2 en
+ * memoria las cifras solo sirven para comparar un modo con el otro, no como latencias de MySQL.
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import(ProductoProyeccionRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImagenesAlmacenamientoBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ImagenesAlmacenamientoBenchmarkTest.class);
+    private static final int IMAGENES_POR_PRODUCTO = 4;
+    private static final int TAMANIO_LOTE = 500;
+    private static final int LECTURAS = 5;
+
+    @Value("${benchmark.productos:5000}")
+    private int totalProductos;
+
+    @Autowired
+    private ProductoJpaRepository productoRepository;
+
+    @Autowired
+    private ProductoProyeccionRepository proyeccionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from producto_imagenes");
+        jdbcTemplate.update("delete from producto");
+    }
+
+    @Test
+    @DisplayName("Imágenes en colección frente a columna JSON")
+    void compararModos() {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Una vuelta sin medir para calentar JIT y cachés de sentencias
+        medir(AlmacenamientoImagenes.COLECCION, Math.min(500, totalProductos), estadisticas);
+        medir(AlmacenamientoImagenes.JSON, Math.min(500, totalProductos), estadisticas);
+
+        Resultado coleccion = medir(AlmacenamientoImagenes.COLECCION, totalProductos, estadisticas);
+        Resultado json = medir(AlmacenamientoImagenes.JSON, totalProductos, estadisticas);
+
+        log.info("Benchmark de imágenes: {} productos con {} imágenes", totalProductos, IMAGENES_POR_PRODUCTO);
+        log.info(String.format("%-10s %12s %10s %12s %10s %14s %12s %8s",
+                "modo", "alta ms", "alta SQL", "agregar ms", "agr. SQL", "lectura ms", "lect. SQL", "filas"));
+        for (Resultado r : List.of(coleccion, json)) {
+            log.info(String.format("%-10s %12.1f %10d %12.1f %10d %14.1f %12d %8d",
+                    r.modo(), r.altaMs(), r.altaSentencias(), r.agregarMs(), r.agregarSentencias(),
+                    r.lecturaMs(), r.lecturaSentencias(), r.filas()));
+        }
+
+        assertEquals(totalProductos * (1L + IMAGENES_POR_PRODUCTO + 1), coleccion.filas());
+        assertEquals(totalProductos, json.filas());
+        assertTrue(json.lecturaSentencias() < coleccion.lecturaSentencias());
+    }
+
+    private Resultado medir(AlmacenamientoImagenes modo, int productos, Statistics estadisticas) {
+        tearDown();
+        CategoriaId categoriaId = CategoriaId.generar();
+
+        estadisticas.clear();
+        long inicio = System.nanoTime();
+        List<UUID> ids = new ArrayList<>(productos);
+        for (int desde = 0; desde < productos; desde += TAMANIO_LOTE) {
+            int hasta = Math.min(desde + TAMANIO_LOTE, productos);
+            int base = desde;
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = base; i < hasta; i++) {
+                    Producto producto = Producto.crear("Producto " + i, "Descripción " + i, Money.pesos(100), 10,
+                            modo + "-" + i, categoriaId);
+                    for (int j = 0; j < IMAGENES_POR_PRODUCTO; j++) {
+                        producto.agregarImagen(new Imagen(null, "https://img.test/" + i + "/" + j + ".png", "alt", j));
+                    }
+                    if (modo == AlmacenamientoImagenes.JSON) {
+                        producto.compactarImagenes();
+                    }
+                    entityManager.persist(producto);
+                    ids.add(producto.getId().getValue());
+                }
+            });
+        }
+        double altaMs = (System.nanoTime() - inicio) / 1e6;
+        long altaSentencias = estadisticas.getPrepareStatementCount();
+
+        estadisticas.clear();
+        inicio = System.nanoTime();
+        for (int desde = 0; desde < productos; desde += TAMANIO_LOTE) {
+            List<UUID> lote = ids.subList(desde, Math.min(desde + TAMANIO_LOTE, productos));
+            transactionTemplate.executeWithoutResult(status -> lote.forEach(id ->
+                    productoRepository.findById(new ProductoId(id)).orElseThrow()
+                            .agregarImagen(new Imagen(null, "https://img.test/" + id + "/extra.png", "extra", 9))));
+        }
+        double agregarMs = (System.nanoTime() - inicio) / 1e6;
+        long agregarSentencias = estadisticas.getPrepareStatementCount();
+
+        estadisticas.clear();
+        inicio = System.nanoTime();
+        for (int vuelta = 0; vuelta < LECTURAS; vuelta++) {
+            for (int desde = 0; desde < productos; desde += TAMANIO_LOTE) {
+                List<ProductoResponse> leidos = proyeccionRepository.buscarPorIds(
+                        ids.subList(desde, Math.min(desde + TAMANIO_LOTE, productos)));
+                assertEquals(IMAGENES_POR_PRODUCTO + 1, leidos.get(0).getImagenesUrls().size());
+            }
+        }
+        double lecturaMs = (System.nanoTime() - inicio) / 1e6 / LECTURAS;
+        long lecturaSentencias = estadisticas.getPrepareStatementCount() / LECTURAS;
+
+        long filas = jdbcTemplate.queryForObject("select count(*) from producto", Long.class)
+                + jdbcTemplate.queryForObject("select count(*) from producto_imagenes", Long.class);
+        return new Resultado(modo, altaMs, altaSentencias, agregarMs, agregarSentencias, lecturaMs, lecturaSentencias, filas);
+    }
+
+    private record Resultado(AlmacenamientoImagenes modo, double altaMs, long altaSentencias,
+                             double agregarMs, long agregarSentencias,
+                             double lecturaMs, long lecturaSentencias, long filas) {}
+}
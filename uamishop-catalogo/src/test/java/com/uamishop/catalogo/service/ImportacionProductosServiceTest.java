@@ -0,0 +1,185 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.Categoria;
+import com.uamishop.catalogo.domain.CategoriaId;
+import com.uamishop.catalogo.domain.Producto;
+import com.uamishop.catalogo.dto.ResultadoImportacion;
+import com.uamishop.catalogo.dto.ResultadoImportacion.ErrorFila;
+import com.uamishop.catalogo.outbox.repository.OutboxEventRepository;
+import com.uamishop.catalogo.outbox.service.OutboxService;
+import com.uamishop.catalogo.repository.CategoriaJpaRepository;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import com.uamishop.catalogo.shared.domain.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@ImportAutoConfiguration({ValidationAutoConfiguration.class, JacksonAutoConfiguration.class})
+@Import({ImportacionProductosService.class, ProductoProyeccionRepository.class, CatalogoVersionService.class,
+        ProductoEventosService.class, OutboxService.class, CategoriaCache.class})
+@TestPropertySource(properties = {"catalogo.importacion.lote=100", "catalogo.importacion.max-errores=5",
+        "catalogo.importacion.max-caracteres-registro=300"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImportacionProductosServiceTest {
+
+    @Autowired
+    private ImportacionProductosService importacionService;
+
+    @Autowired
+    private ProductoJpaRepository productoRepository;
+
+    @Autowired
+    private CategoriaJpaRepository categoriaRepository;
+
+    @Autowired
+    private ProductoProyeccionRepository proyeccionRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @MockBean
+    private IndiceBusquedaProductos indiceBusqueda;
+
+    @MockBean
+    private IndiceFacetas indiceFacetas;
+
+    private CategoriaId categoriaId;
+
+    @BeforeEach
+    void setUp() {
+        categoriaId = CategoriaId.generar();
+        categoriaRepository.save(new Categoria(categoriaId, "Electrónica", "Equipos", null));
+        productoRepository.save(Producto.crear("Existente", "", Money.pesos(10), 1, "EXI-001", categoriaId));
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        productoRepository.deleteAll();
+        categoriaRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("CSV: importa las filas válidas con sus imágenes y reporta las inválidas por línea")
+    void importar_csv_filasValidasEInvalidas() throws Exception {
+        String csv = String.join("\n",
+                "sku,nombre,descripcion,precio,moneda,stock,categoriaId,imagenesUrls",
+                "CSV-001,Laptop,\"Pantalla 15\"\", 16 GB\",18999.50,MXN,5," + categoriaId.id()
+                        + ",https://img.test/a.png|https://img.test/b.png",
+                "CSV-002,Mouse,\"Inalámbrico,",
+                "con dos líneas\",299,,10," + categoriaId.id() + ",",
+                "CSV-003,Teclado,,abc,MXN,1," + categoriaId.id() + ",",
+                "CSV-004,Monitor,,100,MXN,1," + CategoriaId.generar().id() + ",",
+                "CSV-001,Repetido,,100,MXN,1," + categoriaId.id() + ",",
+                "EXI-001,Ya existe,,100,MXN,1," + categoriaId.id() + ",",
+                "",
+                "malo,Formato,,100,MXN,1," + categoriaId.id() + ",");
+
+        ResultadoImportacion resultado = importar(csv, FormatoArchivo.CSV);
+
+        assertEquals(7, resultado.filasProcesadas());
+        assertEquals(2, resultado.productosImportados());
+        assertEquals(5, resultado.filasConError());
+        assertEquals(List.of(5L, 6L, 7L, 8L, 10L), resultado.errores().stream().map(ErrorFila::fila).sorted().toList());
+
+        Producto laptop = productoRepository.findAll().stream()
+                .filter(p -> p.getSku().equals("CSV-001")).findFirst().orElseThrow();
+        assertEquals("Pantalla 15\", 16 GB", laptop.getDescripcion());
+        assertEquals(0, new BigDecimal("18999.50").compareTo(laptop.getPrecio().getCantidad()));
+        assertEquals(List.of("https://img.test/a.png", "https://img.test/b.png"),
+                proyeccionRepository.buscarPorSku("CSV-001").orElseThrow().getImagenesUrls());
+        assertEquals(0, laptop.getStockReservado());
+        assertEquals(2, outboxEventRepository.count(), "Un evento por producto importado");
+
+        Producto mouse = productoRepository.findAll().stream()
+                .filter(p -> p.getSku().equals("CSV-002")).findFirst().orElseThrow();
+        assertEquals("Inalámbrico,\ncon dos líneas", mouse.getDescripcion());
+        assertEquals("MXN", mouse.getPrecio().getMoneda());
+        verify(indiceBusqueda, times(2)).indexar(any());
+    }
+
+    @Test
+    @DisplayName("CSV: unas comillas sin cerrar rechazan solo su fila y la lectura sigue en la línea siguiente")
+    void importar_csv_comillasSinCerrar() throws Exception {
+        StringBuilder csv = new StringBuilder("sku,nombre,descripcion,precio,moneda,stock,categoriaId\n");
+        csv.append("CSV-100,Cable,\"Sin cerrar,10,MXN,1,").append(categoriaId.id()).append('\n');
+        for (int i = 1; i <= 20; i++) {
+            csv.append(String.format("CSV-1%02d,Producto %d,,10,MXN,1,%s%n", i, i, categoriaId.id()));
+        }
+        csv.append("CSV-200,Final,\"Otra sin cerrar,10,MXN,1,").append(categoriaId.id()).append('\n');
+        csv.append("CSV-201,Último,,10,MXN,1,").append(categoriaId.id()).append('\n');
+
+        ResultadoImportacion resultado = importar(csv.toString(), FormatoArchivo.CSV);
+
+        assertEquals(21, resultado.productosImportados());
+        assertEquals(List.of(2L, 23L), resultado.errores().stream().map(ErrorFila::fila).toList());
+        assertTrue(resultado.errores().get(0).mensaje().contains("300 caracteres"));
+        assertTrue(resultado.errores().get(1).mensaje().contains("Comillas sin cerrar"));
+    }
+
+    @Test
+    @DisplayName("NDJSON: una línea más larga que el tope se rechaza sin leerla completa")
+    void importar_ndjson_lineaDemasiadoLarga() throws Exception {
+        String ndjson = "{\"nombre\":\"" + "x".repeat(10_000) + "\"}\n"
+                + String.format("{\"nombre\":\"Corto\",\"precio\":10,\"moneda\":\"MXN\",\"stock\":1,"
+                + "\"sku\":\"NDL-001\",\"categoriaId\":\"%s\"}%n", categoriaId.id());
+
+        ResultadoImportacion resultado = importar(ndjson, FormatoArchivo.NDJSON);
+
+        assertEquals(1, resultado.productosImportados(), resultado.errores().toString());
+        assertEquals(1L, resultado.errores().get(0).fila());
+        assertTrue(resultado.errores().get(0).mensaje().contains("300 caracteres"));
+    }
+
+    @Test
+    @DisplayName("NDJSON: varios lotes y lista de errores acotada")
+    void importar_ndjson_variosLotes() throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 250; i++) {
+            ndjson.append(String.format(
+                    "{\"nombre\":\"Producto %d\",\"precio\":%d,\"moneda\":\"MXN\",\"stock\":3,\"sku\":\"ND%s-%03d\",\"categoriaId\":\"%s\"}%n",
+                    i, 100 + i, (char) ('A' + i / 100), i % 100, categoriaId.id()));
+        }
+        for (int i = 0; i < 8; i++) {
+            ndjson.append("{no es json\n");
+        }
+
+        ResultadoImportacion resultado = importar(ndjson.toString(), FormatoArchivo.NDJSON);
+
+        assertEquals(258, resultado.filasProcesadas());
+        assertEquals(250, resultado.productosImportados());
+        assertEquals(8, resultado.filasConError());
+        assertEquals(5, resultado.errores().size());
+        assertEquals(251, productoRepository.count());
+    }
+
+    private ResultadoImportacion importar(String contenido, FormatoArchivo formato) throws Exception {
+        return importacionService.importar(
+                new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8)), formato);
+    }
+}
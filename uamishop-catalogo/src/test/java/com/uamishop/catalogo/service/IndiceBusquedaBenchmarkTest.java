@@ -0,0 +1,85 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.dto.ProductoTexto;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Latencia de {@link IndiceBusquedaProductos#buscar} con poda MaxScore frente a puntuar todos los
+ * documentos, sobre un catálogo sintético con vocabulario de frecuencias sesgadas (unos pocos términos
+ * en casi todos los productos y una cola larga de raros). Las consultas mezclan términos frecuentes y
+ * raros, que es donde la poda ahorra más. Corre con {@code mvn test -Pbenchmark};
+ * {@code -Dbenchmark.productos=N} y {@code -Dbenchmark.consultas=N} cambian el tamaño.
+ */
+@Tag("benchmark")
+class IndiceBusquedaBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceBusquedaBenchmarkTest.class);
+    private static final int VOCABULARIO = 20_000;
+    private static final int LIMITE = 20;
+
+    private final int productos = Integer.getInteger("benchmark.productos", 200_000);
+    private final int consultas = Integer.getInteger("benchmark.consultas", 2_000);
+
+    @Test
+    @DisplayName("Búsqueda con poda MaxScore frente a búsqueda exhaustiva")
+    void compararPoda() {
+        IndiceBusquedaProductos indice = new IndiceBusquedaProductos(mock(ProductoProyeccionRepository.class));
+        Random aleatorio = new Random(7);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < productos; i++) {
+            indice.indexar(new ProductoTexto(UUID.randomUUID(), palabras(aleatorio, 3),
+                    palabras(aleatorio, 25), "SKU-" + i));
+        }
+        log.info("Índice de {} productos construido en {} ms", productos, (System.nanoTime() - inicio) / 1_000_000);
+
+        List<String> textos = new ArrayList<>();
+        for (int i = 0; i < consultas; i++) {
+            textos.add(palabras(aleatorio, 2 + aleatorio.nextInt(3)));
+        }
+        // Vuelta sin medir para calentar JIT, y de paso comprueba que ambas den lo mismo
+        for (String texto : textos.subList(0, Math.min(200, textos.size()))) {
+            assertEquals(indice.buscar(texto, LIMITE, false), indice.buscar(texto, LIMITE, true), texto);
+        }
+
+        double exhaustiva = medir(indice, textos, false);
+        double poda = medir(indice, textos, true);
+        log.info("Benchmark de búsqueda: {} productos, {} consultas, límite {}", productos, consultas, LIMITE);
+        log.info(String.format("%-12s %14s", "modo", "µs/consulta"));
+        log.info(String.format("%-12s %14.1f", "exhaustiva", exhaustiva));
+        log.info(String.format("%-12s %14.1f", "maxscore", poda));
+        log.info(String.format("Aceleración: %.1fx", exhaustiva / poda));
+    }
+
+    private static double medir(IndiceBusquedaProductos indice, List<String> textos, boolean podar) {
+        long inicio = System.nanoTime();
+        int resultados = 0;
+        for (String texto : textos) {
+            resultados += indice.buscar(texto, LIMITE, podar).size();
+        }
+        assertTrue(resultados > 0);
+        return (System.nanoTime() - inicio) / 1_000.0 / textos.size();
+    }
+
+    private static String palabras(Random aleatorio, int cuantas) {
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < cuantas; i++) {
+            // Frecuencias aproximadamente Zipf: el término k aparece con probabilidad ~ 1/k
+            int termino = (int) Math.floor(Math.exp(aleatorio.nextDouble() * Math.log(VOCABULARIO)));
+            texto.append('t').append(termino).append(' ');
+        }
+        return texto.toString();
+    }
+}
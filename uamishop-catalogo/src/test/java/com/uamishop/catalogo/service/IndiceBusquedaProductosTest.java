@@ -0,0 +1,180 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.dto.ProductoTexto;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IndiceBusquedaProductosTest {
+
+    private ProductoProyeccionRepository proyeccionRepository;
+    private IndiceBusquedaProductos indice;
+
+    @BeforeEach
+    void setUp() {
+        proyeccionRepository = mock(ProductoProyeccionRepository.class);
+        indice = new IndiceBusquedaProductos(proyeccionRepository);
+    }
+
+    @Test
+    @DisplayName("La búsqueda no distingue acentos ni mayúsculas")
+    void buscar_plegadoDeAcentos() {
+        UUID camara = indexar("Cámara Réflex Digital", "Lente de 18-55 mm", "ELC-010");
+        indexar("Mochila escolar", "Con compartimento para laptop", "ACC-001");
+
+        assertEquals(List.of(camara), indice.buscar("camara reflex", 10));
+        assertEquals(List.of(camara), indice.buscar("CÁMARA", 10));
+        assertEquals(List.of(camara), indice.buscar("elc-010", 10));
+        assertTrue(indice.buscar("inexistente", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("BM25 prioriza el nombre y los términos raros")
+    void buscar_ordenPorRelevancia() {
+        UUID enDescripcion = indexar("Funda", "Funda acolchada para laptop de 15 pulgadas con bolsillo frontal y correa", "ACC-002");
+        UUID enNombre = indexar("Laptop Gaming Pro", "Equipo de alto rendimiento", "ELC-001");
+        UUID conAmbos = indexar("Laptop ultraligera", "Laptop con pantalla OLED", "ELC-002");
+        for (int i = 0; i < 20; i++) {
+            indexar("Accesorio " + i, "Compatible con laptop", "ACC-1" + (i < 10 ? "0" : "") + i);
+        }
+
+        List<UUID> resultados = indice.buscar("laptop", 3);
+        assertEquals(3, resultados.size());
+        assertTrue(resultados.containsAll(List.of(enNombre, conAmbos)));
+        assertFalse(resultados.contains(enDescripcion));
+
+        assertEquals(conAmbos, indice.buscar("laptop oled", 5).get(0));
+    }
+
+    @Test
+    @DisplayName("Reindexar reemplaza el texto anterior y eliminar quita el producto")
+    void indexar_reemplazaYElimina() {
+        UUID id = indexar("Teclado mecánico", "Switches azules", "ELC-003");
+
+        indice.indexar(new ProductoTexto(id, "Teclado inalámbrico", "Bluetooth", "ELC-003"));
+        assertTrue(indice.buscar("mecanico", 10).isEmpty());
+        assertEquals(List.of(id), indice.buscar("inalambrico", 10));
+
+        indice.eliminar(id);
+        assertTrue(indice.buscar("teclado", 10).isEmpty());
+        assertEquals(0, indice.tamanio());
+    }
+
+    @Test
+    @DisplayName("La compactación de documentos borrados conserva los resultados")
+    void indexar_muchasEdiciones_compacta() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            ids.add(indexar("Producto " + i, "version uno", "GEN-" + i));
+        }
+        for (int i = 0; i < 3_000; i++) {
+            indice.indexar(new ProductoTexto(ids.get(i), "Producto " + i, "version dos", "GEN-" + i));
+        }
+
+        assertEquals(3_000, indice.tamanio());
+        assertTrue(indice.buscar("uno", 10).isEmpty());
+        assertEquals(10, indice.buscar("dos", 10).size());
+        assertEquals(ids.get(1234), indice.buscar("gen-1234", 1).get(0));
+    }
+
+    @Test
+    @DisplayName("Al construir no se pisa un producto ya reindexado por una edición")
+    void construir_respetaReindexadoConcurrente() {
+        UUID id = UUID.randomUUID();
+        indice.indexar(new ProductoTexto(id, "Nombre nuevo", "", "NUE-001"));
+        when(proyeccionRepository.buscarTextos(isNull(), anyInt()))
+                .thenReturn(List.of(new ProductoTexto(id, "Nombre viejo", "", "VIE-001")));
+        when(proyeccionRepository.buscarTextos(any(UUID.class), anyInt())).thenReturn(List.of());
+
+        indice.construir();
+
+        assertEquals(List.of(id), indice.buscar("nuevo", 10));
+        assertTrue(indice.buscar("viejo", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Las palabras vacías no se indexan ni cuentan en la consulta")
+    void buscar_ignoraPalabrasVacias() {
+        UUID funda = indexar("Funda para laptop", "De piel con cierre", "ACC-003");
+        indexar("Cable de red", "Para router", "ACC-004");
+
+        assertTrue(indice.buscar("para de con", 10).isEmpty());
+        assertEquals(List.of(funda), indice.buscar("funda para la laptop", 10));
+    }
+
+    @Test
+    @DisplayName("Un producto desactivado sale del índice y vuelve al activarse")
+    void indexar_desactivado_noAparece() {
+        UUID id = indexar("Audífonos inalámbricos", "Cancelación de ruido", "AUD-001");
+
+        indice.indexar(new ProductoTexto(id, "Audífonos inalámbricos", "Cancelación de ruido", "AUD-001", false));
+        assertTrue(indice.buscar("audifonos", 10).isEmpty());
+        assertEquals(0, indice.tamanio());
+
+        indice.indexar(new ProductoTexto(id, "Audífonos inalámbricos", "Cancelación de ruido", "AUD-001", true));
+        assertEquals(List.of(id), indice.buscar("audifonos", 10));
+    }
+
+    @Test
+    @DisplayName("Al construir se omiten los productos desactivados")
+    void construir_omiteDesactivados() {
+        UUID activo = UUID.randomUUID();
+        when(proyeccionRepository.buscarTextos(isNull(), anyInt())).thenReturn(List.of(
+                new ProductoTexto(activo, "Lámpara de escritorio", "", "HOG-001", true),
+                new ProductoTexto(UUID.randomUUID(), "Lámpara de pie", "", "HOG-002", false)));
+        when(proyeccionRepository.buscarTextos(any(UUID.class), anyInt())).thenReturn(List.of());
+
+        indice.construir();
+
+        assertEquals(List.of(activo), indice.buscar("lampara", 10));
+    }
+
+    @Test
+    @DisplayName("La poda MaxScore devuelve lo mismo que puntuar todos los documentos")
+    void buscar_podaIgualQueExhaustiva() {
+        Random aleatorio = new Random(42);
+        String[] vocabulario = new String[300];
+        for (int i = 0; i < vocabulario.length; i++) {
+            vocabulario[i] = "t" + i;
+        }
+        for (int i = 0; i < 5_000; i++) {
+            indexar(palabras(aleatorio, vocabulario, 1 + aleatorio.nextInt(4)),
+                    palabras(aleatorio, vocabulario, aleatorio.nextInt(20)), "SKU-" + i);
+        }
+
+        for (int consulta = 0; consulta < 200; consulta++) {
+            String texto = palabras(aleatorio, vocabulario, 1 + aleatorio.nextInt(4));
+            int limite = 1 + aleatorio.nextInt(20);
+            assertEquals(indice.buscar(texto, limite, false), indice.buscar(texto, limite, true), texto);
+        }
+    }
+
+    private static String palabras(Random aleatorio, String[] vocabulario, int cuantas) {
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < cuantas; i++) {
+            // Distribución sesgada: pocos términos muy frecuentes y una cola larga de raros
+            int indice = (int) (vocabulario.length * Math.pow(aleatorio.nextDouble(), 3));
+            texto.append(vocabulario[indice]).append(' ');
+        }
+        return texto.toString();
+    }
+
+    private UUID indexar(String nombre, String descripcion, String sku) {
+        UUID id = UUID.randomUUID();
+        indice.indexar(new ProductoTexto(id, nombre, descripcion, sku));
+        return id;
+    }
+}
@@ -0,0 +1,106 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.dto.FacetasResponse;
+import com.uamishop.catalogo.dto.FiltroProductos;
+import com.uamishop.catalogo.dto.ProductoFaceta;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IndiceFacetasTest {
+
+    private static final UUID ELECTRONICA = UUID.randomUUID();
+    private static final UUID ROPA = UUID.randomUUID();
+
+    private ProductoProyeccionRepository proyeccionRepository;
+    private IndiceFacetas indice;
+
+    @BeforeEach
+    void setUp() {
+        proyeccionRepository = mock(ProductoProyeccionRepository.class);
+        indice = new IndiceFacetas(proyeccionRepository, "500, 1000");
+    }
+
+    @Test
+    @DisplayName("Cada faceta aplica los demás filtros pero no el suyo")
+    void contar_facetasDisyuntivas() {
+        agregar(ELECTRONICA, "1899.00", true);
+        agregar(ELECTRONICA, "999.99", true);
+        agregar(ELECTRONICA, "1000.00", false);
+        agregar(ROPA, "499.50", true);
+        agregar(ROPA, "750", true);
+
+        FacetasResponse sinFiltro = indice.contar(new FiltroProductos(null, null, null, null));
+        assertEquals(5, sinFiltro.total());
+        assertEquals(List.of(new FacetasResponse.Categoria(ELECTRONICA, 3), new FacetasResponse.Categoria(ROPA, 2)),
+                sinFiltro.categorias());
+        // Un precio igual al límite cae en el rango superior
+        assertEquals(List.of(1L, 2L, 2L), sinFiltro.precios().stream().map(FacetasResponse.RangoPrecio::cantidad).toList());
+        assertNull(sinFiltro.precios().get(2).hasta());
+        assertEquals(new FacetasResponse.Disponibilidad(4, 1), sinFiltro.disponibilidad());
+
+        FacetasResponse filtrado = indice.contar(new FiltroProductos(ELECTRONICA, true, null, null));
+        assertEquals(2, filtrado.total());
+        // Las categorías no aplican el filtro de categoría: siguen apareciendo las dos
+        assertEquals(List.of(new FacetasResponse.Categoria(ELECTRONICA, 2), new FacetasResponse.Categoria(ROPA, 2)),
+                filtrado.categorias());
+        // La disponibilidad no aplica el filtro de disponibilidad
+        assertEquals(new FacetasResponse.Disponibilidad(2, 1), filtrado.disponibilidad());
+        assertEquals(List.of(0L, 1L, 1L), filtrado.precios().stream().map(FacetasResponse.RangoPrecio::cantidad).toList());
+
+        FacetasResponse porPrecio = indice.contar(new FiltroProductos(null, null, new BigDecimal("500"), new BigDecimal("999.99")));
+        assertEquals(2, porPrecio.total());
+        assertEquals(List.of(1L, 2L, 2L), porPrecio.precios().stream().map(FacetasResponse.RangoPrecio::cantidad).toList());
+    }
+
+    @Test
+    @DisplayName("Actualizar mueve el producto de faceta y eliminar libera su posición")
+    void actualizarYEliminar() {
+        UUID id = agregar(ELECTRONICA, "100", true);
+        indice.actualizar(new ProductoFaceta(id, ROPA, new BigDecimal("2000"), false));
+
+        FacetasResponse despues = indice.contar(new FiltroProductos(null, null, null, null));
+        assertEquals(List.of(new FacetasResponse.Categoria(ROPA, 1)), despues.categorias());
+        assertEquals(new FacetasResponse.Disponibilidad(0, 1), despues.disponibilidad());
+
+        indice.eliminar(id);
+        UUID otro = agregar(ELECTRONICA, "100", true);
+        FacetasResponse alFinal = indice.contar(new FiltroProductos(null, null, null, null));
+        assertEquals(1, alFinal.total());
+        assertEquals(List.of(new FacetasResponse.Categoria(ELECTRONICA, 1)), alFinal.categorias());
+        assertNotEquals(id, otro);
+    }
+
+    @Test
+    @DisplayName("La carga inicial no sobrescribe un producto actualizado mientras tanto")
+    void construir_noPisaActualizacionesConcurrentes() {
+        UUID id = UUID.randomUUID();
+        when(proyeccionRepository.buscarFacetas(any(), anyInt())).thenAnswer(invocacion -> {
+            // Llega una modificación entre la lectura del lote y su carga
+            indice.actualizar(new ProductoFaceta(id, ROPA, BigDecimal.TEN, false));
+            return List.of(new ProductoFaceta(id, ELECTRONICA, BigDecimal.ONE, true));
+        });
+
+        indice.construir();
+
+        FacetasResponse facetas = indice.contar(new FiltroProductos(null, null, null, null));
+        assertEquals(List.of(new FacetasResponse.Categoria(ROPA, 1)), facetas.categorias());
+    }
+
+    private UUID agregar(UUID categoriaId, String precio, boolean disponible) {
+        UUID id = UUID.randomUUID();
+        indice.actualizar(new ProductoFaceta(id, categoriaId, new BigDecimal(precio), disponible));
+        return id;
+    }
+}
@@ -0,0 +1,114 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.ProductoEstadisticas;
+import com.uamishop.catalogo.dto.ProductoEstadisticasResponse;
+import com.uamishop.catalogo.inbox.service.InboxService;
+import com.uamishop.catalogo.repository.ProductoEstadisticasJpaRepository;
+import com.uamishop.catalogo.service.ProductoEstadisticasService.VentasProducto;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+// El UPSERT de ventas usa la sintaxis de MySQL
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductoEstadisticasService.class, ContadorAgregadosCarrito.class, IndiceMasVendidos.class, InboxService.class,
+        SeriesVentasHora.class, IndiceTendencias.class})
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:masvendidos;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "catalogo.mas-vendidos.capacidad=20"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IndiceMasVendidosTest {
+
+    @Autowired
+    private ProductoEstadisticasService estadisticasService;
+
+    @Autowired
+    private IndiceMasVendidos indice;
+
+    @Autowired
+    private ProductoEstadisticasJpaRepository estadisticasRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<UUID> productos = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        List<ProductoEstadisticas> filas = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            ProductoEstadisticas stats = new ProductoEstadisticas(UUID.randomUUID());
+            stats.registrarVentas(1, i, Instant.now());
+            filas.add(stats);
+            productos.add(stats.getProductoId());
+        }
+        estadisticasRepository.saveAll(filas);
+        indice.recargar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        estadisticasRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Hasta la capacidad del índice se responde sin consultar la base")
+    void obtenerMasVendidos_desdeIndice() {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        List<ProductoEstadisticasResponse> top = estadisticasService.obtenerMasVendidos(10);
+
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+        assertEquals(10, top.size());
+        assertEquals(200, top.get(0).cantidadVendida());
+        assertEquals(191, top.get(9).cantidadVendida());
+    }
+
+    @Test
+    @DisplayName("Una venta confirmada sube al producto en el índice aunque estuviera fuera del top")
+    void registrarVentas_actualizaIndice() {
+        UUID rezagado = productos.get(0);
+
+        estadisticasService.registrarVentas(List.of(new VentasProducto(rezagado, 1, 500)));
+
+        List<ProductoEstadisticasResponse> top = estadisticasService.obtenerMasVendidos(20);
+        assertEquals(rezagado, top.get(0).productoId());
+        assertEquals(501, top.get(0).cantidadVendida());
+        assertEquals(20, top.size());
+        assertEquals(182, top.get(19).cantidadVendida());
+    }
+
+    @Test
+    @DisplayName("Un límite mayor que la capacidad se resuelve con LIMIT en la base")
+    void obtenerMasVendidos_mayorQueCapacidad_consultaLaBase() {
+        List<ProductoEstadisticasResponse> top = estadisticasService.obtenerMasVendidos(50);
+
+        assertEquals(50, top.size());
+        assertEquals(200, top.get(0).cantidadVendida());
+        assertEquals(151, top.get(49).cantidadVendida());
+        assertThrows(IllegalArgumentException.class, () -> estadisticasService.obtenerMasVendidos(0));
+    }
+}
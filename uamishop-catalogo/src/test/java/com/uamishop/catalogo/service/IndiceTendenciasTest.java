@@ -0,0 +1,100 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.dto.TendenciaResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceTendenciasTest {
+
+    private IndiceTendencias indice;
+    private Instant ahora;
+
+    @BeforeEach
+    void setUp() {
+        // Vida media de una hora, carrito pesa 1 y compra 5
+        indice = new IndiceTendencias(Duration.ofHours(1), 1, 5, 3, 5000);
+        ahora = Instant.now();
+    }
+
+    @Test
+    @DisplayName("La actividad reciente pesa más que la misma actividad de hace una vida media")
+    void recalcular_decaimientoExponencial() {
+        UUID reciente = UUID.randomUUID();
+        UUID antiguo = UUID.randomUUID();
+        for (int i = 0; i < 4; i++) {
+            indice.registrarAgregadoAlCarrito(antiguo, ahora.minus(Duration.ofHours(1)));
+            indice.registrarAgregadoAlCarrito(reciente, ahora);
+        }
+
+        indice.recalcular(ahora);
+
+        List<TendenciaResponse> top = indice.obtener(10);
+        assertEquals(List.of(reciente, antiguo), top.stream().map(TendenciaResponse::productoId).toList());
+        assertEquals(4.0, top.get(0).puntaje(), 1e-6);
+        assertEquals(2.0, top.get(1).puntaje(), 1e-6);
+
+        // Sin eventos nuevos los puntajes siguen decayendo entre recálculos
+        indice.recalcular(ahora.plus(Duration.ofHours(1)));
+        assertEquals(2.0, indice.obtener(1).get(0).puntaje(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("Las compras pesan más que los agregados y el ranking se acota a la capacidad")
+    void recalcular_pesosYCapacidad() {
+        UUID comprado = UUID.randomUUID();
+        indice.registrarCompras(comprado, 3, ahora);
+        for (int i = 0; i < 10; i++) {
+            UUID agregado = UUID.randomUUID();
+            for (int j = 0; j <= i; j++) {
+                indice.registrarAgregadoAlCarrito(agregado, ahora);
+            }
+        }
+
+        indice.recalcular(ahora);
+
+        List<TendenciaResponse> top = indice.obtener(10);
+        assertEquals(3, top.size());
+        assertEquals(comprado, top.get(0).productoId());
+        assertEquals(15.0, top.get(0).puntaje(), 1e-6);
+        assertEquals(10.0, top.get(1).puntaje(), 1e-6);
+        assertEquals(9.0, top.get(2).puntaje(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("Suma las instantáneas de otras réplicas, decaídas desde que se calcularon")
+    void recalcular_combinaRemotas() {
+        UUID local = UUID.randomUUID();
+        UUID remoto = UUID.randomUUID();
+        indice.registrarAgregadoAlCarrito(local, ahora);
+        indice.incorporarRemota("otra", ahora.minusSeconds(1), List.of(
+                new TendenciaResponse(remoto, 6.0), new TendenciaResponse(local, 1.0)));
+
+        indice.recalcular(ahora);
+
+        List<TendenciaResponse> top = indice.obtener(10);
+        assertEquals(List.of(remoto, local), top.stream().map(TendenciaResponse::productoId).toList());
+        assertEquals(2.0, top.get(1).puntaje(), 1e-3);
+
+        // Una réplica que dejó de difundir deja de contar
+        indice.recalcular(ahora.plusSeconds(60));
+        assertEquals(List.of(local), indice.obtener(10).stream().map(TendenciaResponse::productoId).toList());
+    }
+
+    @Test
+    @DisplayName("Los productos sin actividad relevante salen del índice")
+    void recalcular_descartaPuntajesDespreciables() {
+        UUID productoId = UUID.randomUUID();
+        indice.registrarAgregadoAlCarrito(productoId, ahora);
+        indice.recalcular(ahora.plus(Duration.ofHours(20)));
+        assertTrue(indice.obtener(10).isEmpty());
+        assertTrue(indice.obtenerLocales().puntajes().isEmpty());
+    }
+}
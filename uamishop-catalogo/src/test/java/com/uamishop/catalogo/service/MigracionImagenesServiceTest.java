@@ -0,0 +1,135 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.CategoriaId;
+import com.uamishop.catalogo.domain.Imagen;
+import com.uamishop.catalogo.domain.Producto;
+import com.uamishop.catalogo.dto.ProductoResponse;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import com.uamishop.catalogo.shared.domain.Money;
+import com.uamishop.catalogo.shared.domain.ProductoId;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({MigracionImagenesService.class, ProductoProyeccionRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MigracionImagenesServiceTest {
+
+    @Autowired
+    private MigracionImagenesService migracionImagenesService;
+
+    @Autowired
+    private ProductoJpaRepository productoRepository;
+
+    @Autowired
+    private ProductoProyeccionRepository proyeccionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final CategoriaId categoriaId = CategoriaId.generar();
+
+    @AfterEach
+    void tearDown() {
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("La migración mueve las imágenes a la fila del producto sin cambiar lo que se lee")
+    void migrarLote_compactaYConservaImagenes() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(guardar("MIG-" + i, i).getId().getValue());
+        }
+        List<ProductoResponse> antes = proyeccionRepository.buscarPorIds(ids);
+        long versionAntes = productoRepository.findById(new ProductoId(ids.get(2))).orElseThrow().getVersion();
+
+        assertEquals(3, migracionImagenesService.migrarLote(3));
+        assertEquals(2, migracionImagenesService.migrarLote(3));
+        assertEquals(0, migracionImagenesService.migrarLote(3));
+
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from producto_imagenes", Long.class));
+        List<ProductoResponse> despues = proyeccionRepository.buscarPorIds(ids);
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(antes.get(i).getImagenesUrls(), despues.get(i).getImagenesUrls());
+        }
+        Producto migrado = productoRepository.findById(new ProductoId(ids.get(2))).orElseThrow();
+        assertTrue(migrado.tieneImagenesCompactas());
+        assertEquals(versionAntes + 1, migrado.getVersion());
+    }
+
+    @Test
+    @DisplayName("Un producto cargado antes de migrarlo no puede agregar imágenes que nadie leería")
+    void migrarLote_versionAnteriorFallaAlGuardar() {
+        ProductoId id = guardar("MIG-CONC", 1).getId();
+        Producto cargado = transactionTemplate.execute(status -> {
+            Producto producto = productoRepository.findById(id).orElseThrow();
+            producto.getImagenes().size();
+            return producto;
+        });
+
+        migracionImagenesService.migrarLote(10);
+
+        cargado.agregarImagen(new Imagen(null, "https://img.test/tarde.png", "tarde", 9));
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> productoRepository.save(cargado));
+        assertEquals(List.of("https://img.test/MIG-CONC/0.png"),
+                proyeccionRepository.buscarPorId(id.getValue()).orElseThrow().getImagenesUrls());
+    }
+
+    @Test
+    @DisplayName("Un producto compacto agrega imágenes en su columna y no cuesta consulta de imágenes al listarlo")
+    void compacto_agregaYSeListaSinConsultaDeImagenes() {
+        Producto producto = Producto.crear("Compacto", "", Money.pesos(10), 1, "MIG-JSON", categoriaId);
+        producto.agregarImagen(new Imagen(null, "https://img.test/a.png", "a", 0));
+        producto.compactarImagenes();
+        ProductoId id = productoRepository.save(producto).getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Producto cargado = productoRepository.findById(id).orElseThrow();
+            cargado.agregarImagen(new Imagen(null, "https://img.test/b.png", "b", 1));
+        });
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        ProductoResponse leido = proyeccionRepository.buscarPorId(id.getValue()).orElseThrow();
+
+        assertEquals(List.of("https://img.test/a.png", "https://img.test/b.png"), leido.getImagenesUrls());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from producto_imagenes", Long.class));
+    }
+
+    private Producto guardar(String sku, int imagenes) {
+        Producto producto = Producto.crear("Producto " + sku, "", Money.pesos(10), 1, sku, categoriaId);
+        for (int i = 0; i < imagenes; i++) {
+            producto.agregarImagen(new Imagen(null, "https://img.test/" + sku + "/" + i + ".png", "alt", i));
+        }
+        return productoRepository.save(producto);
+    }
+}
@@ -0,0 +1,204 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.config.RabbitConfig;
+import com.uamishop.catalogo.dto.ProductoRequest;
+import com.uamishop.catalogo.dto.ProductoResponse;
+import com.uamishop.catalogo.listener.ProductoCacheInvalidacionListener;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import com.uamishop.catalogo.shared.domain.ProductoId;
+import com.uamishop.catalogo.shared.event.ProductoCacheInvalidadoEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static com.uamishop.catalogo.ProductosDePrueba.guardarProducto;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({ProductoService.class, ProductoProyeccionRepository.class, ProductoCache.class,
+        ProductoCacheInvalidacionListener.class, ArbolCategoriasService.class, CategoriaCache.class,
+        ProductoCacheTest.Metricas.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductoCacheTest {
+
+    @TestConfiguration
+    static class Metricas {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoCache productoCache;
+
+    @Autowired
+    private ProductoCacheInvalidacionListener invalidacionListener;
+
+    @Autowired
+    private ProductoJpaRepository productoRepository;
+
+    @Autowired
+    private ProductoProyeccionRepository proyeccionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private RabbitTemplate rabbitTemplate;
+
+    @MockBean
+    private IndiceBusquedaProductos indiceBusqueda;
+
+    private ProductoId id;
+
+    @BeforeEach
+    void setUp() {
+        id = guardarProducto(productoRepository, 10);
+        clearInvocations(rabbitTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productoCache.invalidar(id.getValue());
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("El producto cacheado que reciben los llamadores no se puede modificar")
+    void buscarProductoPorId_instanciaCompartidaInmodificable() {
+        ProductoResponse primera = productoService.buscarProductoPorId(id);
+        ProductoResponse segunda = productoService.buscarProductoPorId(id);
+
+        assertSame(primera, segunda);
+        assertThrows(UnsupportedOperationException.class, () -> primera.getImagenesUrls().add("otra.png"));
+    }
+
+    @Test
+    @DisplayName("La segunda lectura por id sale de la caché sin ninguna sentencia")
+    void buscarProductoPorId_segundaLecturaSinSentencias() {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        productoService.buscarProductoPorId(id);
+        estadisticas.clear();
+
+        assertEquals(id, productoService.buscarProductoPorId(id).getId());
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Editar, desactivar y descontar stock invalidan la entrada solo después del commit")
+    void modificaciones_invalidanTrasElCommit() {
+        ProductoRequest request = new ProductoRequest();
+        request.setNombre("Producto editado");
+        request.setDescripcion("Nueva descripción");
+
+        assertInvalidaTrasCommit(producto -> productoService.actualizarProducto(producto, request));
+        assertInvalidaTrasCommit(producto -> productoService.disminuirStock(producto.getValue(), 1));
+        assertInvalidaTrasCommit(productoService::desactivarProducto);
+        verify(rabbitTemplate, times(3)).convertAndSend(eq(RabbitConfig.EVENTS_EXCHANGE),
+                eq(RabbitConfig.RK_PRODUCTO_CACHE_INVALIDADO), any(ProductoCacheInvalidadoEvent.class));
+    }
+
+    @Test
+    @DisplayName("Una invalidación de otra instancia borra la entrada; la propia difundida de vuelta se ignora")
+    void invalidacionRemota_soloDeOtraInstancia() {
+        productoService.disminuirStock(id.getValue(), 1);
+        ArgumentCaptor<ProductoCacheInvalidadoEvent> difundida = ArgumentCaptor.forClass(ProductoCacheInvalidadoEvent.class);
+        verify(rabbitTemplate).convertAndSend(eq(RabbitConfig.EVENTS_EXCHANGE),
+                eq(RabbitConfig.RK_PRODUCTO_CACHE_INVALIDADO), difundida.capture());
+        String estaInstancia = difundida.getValue().instanciaOrigen();
+        productoService.buscarProductoPorId(id);
+
+        invalidacionListener.onProductoCacheInvalidado(
+                new ProductoCacheInvalidadoEvent(UUID.randomUUID(), Instant.now(), id.getValue(), estaInstancia));
+        assertTrue(productoCache.obtenerSiPresente(id.getValue()).isPresent());
+
+        invalidacionListener.onProductoCacheInvalidado(
+                new ProductoCacheInvalidadoEvent(UUID.randomUUID(), Instant.now(), id.getValue(), "otra-instancia"));
+        assertTrue(productoCache.obtenerSiPresente(id.getValue()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Un producto leído antes de una invalidación no se cachea al terminar la lectura")
+    void guardar_descartaLecturaInvalidadaEntretanto() {
+        ProductoCache.Marca marca = productoCache.marcar();
+        ProductoResponse leido = proyeccionRepository.buscarPorId(id.getValue()).orElseThrow();
+        // El commit de otra transacción invalida mientras la lectura sigue en curso
+        productoCache.invalidar(id.getValue());
+
+        productoCache.guardar(leido, marca);
+        assertTrue(productoCache.obtenerSiPresente(id.getValue()).isEmpty());
+
+        productoCache.guardar(leido, productoCache.marcar());
+        assertTrue(productoCache.obtenerSiPresente(id.getValue()).isPresent());
+    }
+
+    @Test
+    @DisplayName("Un multi-get cachea lo que leyó de la base")
+    void buscarProductosPorIds_cacheaLoLeido() {
+        productoService.buscarProductosPorIds(List.of(id.getValue()));
+
+        assertTrue(productoCache.obtenerSiPresente(id.getValue()).isPresent());
+    }
+
+    @Test
+    @DisplayName("La caché registra aciertos, desalojos e invalidaciones por origen")
+    void metricasRegistradas() {
+        assertFalse(meterRegistry.find("cache.gets").tag("cache", "productos").meters().isEmpty());
+        assertFalse(meterRegistry.find("cache.evictions").tag("cache", "productos").meters().isEmpty());
+        assertNotNull(meterRegistry.find("catalogo.cache.invalidaciones").tag("origen", "local").counter());
+        assertNotNull(meterRegistry.find("catalogo.cache.invalidaciones").tag("origen", "remota").counter());
+
+        double remotas = meterRegistry.get("catalogo.cache.invalidaciones").tag("origen", "remota").counter().count();
+        productoCache.invalidarPorOtraInstancia(id.getValue());
+        assertEquals(remotas + 1, meterRegistry.get("catalogo.cache.invalidaciones").tag("origen", "remota").counter().count());
+    }
+
+    private void assertInvalidaTrasCommit(Consumer<ProductoId> modificacion) {
+        productoService.buscarProductoPorId(id);
+        transactionTemplate.executeWithoutResult(status -> {
+            modificacion.accept(id);
+            assertTrue(productoCache.obtenerSiPresente(id.getValue()).isPresent(), "Invalidada antes del commit");
+        });
+        assertTrue(productoCache.obtenerSiPresente(id.getValue()).isEmpty(), "Sigue en caché tras el commit");
+    }
+}
@@ -0,0 +1,188 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.MarcaStockPendiente;
+import com.uamishop.catalogo.dto.CambioProducto;
+import com.uamishop.catalogo.dto.CambiosProductos;
+import com.uamishop.catalogo.listener.ProductoOutboxListener;
+import com.uamishop.catalogo.outbox.repository.OutboxEventRepository;
+import com.uamishop.catalogo.outbox.service.OutboxService;
+import com.uamishop.catalogo.repository.MarcaStockPendienteJpaRepository;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import com.uamishop.catalogo.shared.domain.ProductoId;
+import com.uamishop.catalogo.shared.event.ProductoModificadoEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.uamishop.catalogo.ProductosDePrueba.guardarProducto;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ProductoService.class, ProductoProyeccionRepository.class, ArbolCategoriasService.class,
+        CategoriaCache.class, CatalogoVersionService.class, ProductoEventosService.class, OutboxService.class, ProductoOutboxListener.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductoCambiosTest {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoJpaRepository productoRepository;
+
+    @Autowired
+    private ProductoEventosService productoEventosService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private MarcaStockPendienteJpaRepository marcaStockRepository;
+
+    @Autowired
+    private ProductoProyeccionRepository proyeccionRepository;
+
+    @Autowired
+    private CatalogoVersionService catalogoVersionService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private ProductoCache productoCache;
+
+    @MockBean
+    private IndiceBusquedaProductos indiceBusqueda;
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        marcaStockRepository.deleteAll();
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Los cambios de una transacción comparten secuencia y se paginan sin perder ni repetir")
+    void buscarCambios_paginaPorSecuenciaEId() {
+        ProductoId a = guardarProducto(productoRepository, 5);
+        ProductoId b = guardarProducto(productoRepository, 5);
+        ProductoId c = guardarProducto(productoRepository, 5);
+        long inicial = productoService.buscarCambios(null, null, 500).version();
+        modificar(a, b);
+        modificar(c);
+
+        CambiosProductos primera = productoService.buscarCambios(inicial, null, 1);
+        CambiosProductos segunda = productoService.buscarCambios(inicial, primera.siguienteCursor(), 1);
+        CambiosProductos tercera = productoService.buscarCambios(inicial, segunda.siguienteCursor(), 1);
+
+        assertNotNull(segunda.siguienteCursor());
+        assertNull(tercera.siguienteCursor());
+        assertEquals(primera.cambios().get(0).secuencia(), segunda.cambios().get(0).secuencia());
+        assertTrue(tercera.cambios().get(0).secuencia() > segunda.cambios().get(0).secuencia());
+        assertEquals(c.getValue(), tercera.cambios().get(0).id());
+        // Dentro de una secuencia el orden es el de los ids en la base, que no coincide con UUID.compareTo
+        assertEquals(Set.of(a.getValue(), b.getValue()),
+                Set.of(primera.cambios().get(0).id(), segunda.cambios().get(0).id()));
+        // Marcar la secuencia no cuenta como modificación del producto
+        assertEquals(0L, productoRepository.findById(a).orElseThrow().getVersion());
+
+        CambiosProductos nada = productoService.buscarCambios(tercera.version(), null, 500);
+        assertTrue(nada.cambios().isEmpty());
+        assertEquals(tercera.version(), nada.version());
+    }
+
+    @Test
+    @DisplayName("Un producto desactivado llega como baja")
+    void buscarCambios_desactivadoComoBaja() {
+        ProductoId id = guardarProducto(productoRepository, 5);
+        long desde = productoService.buscarCambios(null, null, 500).version();
+
+        productoService.desactivarProducto(id);
+
+        List<CambioProducto> cambios = productoService.buscarCambios(desde, null, 500).cambios();
+        assertEquals(1, cambios.size());
+        assertTrue(cambios.get(0).eliminado());
+        assertNull(cambios.get(0).producto());
+
+        assertThrows(IllegalArgumentException.class, () -> productoService.buscarCambios(-1L, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> productoService.buscarCambios(null, "no-es-cursor", 10));
+    }
+
+    @Test
+    @DisplayName("Descontar stock no sube la versión en la transacción; el volcado agrupado lo marca")
+    void buscarCambios_stockMarcadoAlVolcar() {
+        ProductoId a = guardarProducto(productoRepository, 5);
+        ProductoId b = guardarProducto(productoRepository, 5);
+        long desde = productoService.buscarCambios(null, null, 500).version();
+
+        productoService.disminuirStock(a.getValue(), 1);
+        productoService.disminuirStock(b.getValue(), 2);
+
+        assertEquals(desde, productoService.buscarCambios(null, null, 500).version());
+        assertEquals(2, outboxEventRepository.count());
+        assertEquals(2, marcaStockRepository.count());
+
+        assertEquals(2, productoEventosService.volcarMarcasStock());
+        CambiosProductos cambios = productoService.buscarCambios(desde, null, 500);
+        assertEquals(2, cambios.cambios().size());
+        assertTrue(cambios.version() > desde);
+        assertEquals(cambios.version(), cambios.cambios().get(0).secuencia());
+        assertEquals(cambios.version(), cambios.cambios().get(1).secuencia());
+        assertEquals(Set.of(a.getValue(), b.getValue()),
+                Set.of(cambios.cambios().get(0).id(), cambios.cambios().get(1).id()));
+        assertEquals(0, productoEventosService.volcarMarcasStock());
+        assertEquals(0, marcaStockRepository.count());
+    }
+
+    @Test
+    @DisplayName("Las marcas de stock que dejó una instancia caída las vuelca la siguiente")
+    void volcarMarcasStock_recogeLasDeOtraInstancia() {
+        ProductoId a = guardarProducto(productoRepository, 5);
+        ProductoId b = guardarProducto(productoRepository, 5);
+        long desde = productoService.buscarCambios(null, null, 500).version();
+        // Commit de la compra sin volcado posterior: solo quedan las filas pendientes
+        marcaStockRepository.saveAll(List.of(new MarcaStockPendiente(a.getValue()),
+                new MarcaStockPendiente(b.getValue()), new MarcaStockPendiente(a.getValue())));
+
+        ProductoEventosService otraInstancia = new ProductoEventosService(productoRepository, proyeccionRepository,
+                catalogoVersionService, outboxService, marcaStockRepository, transactionTemplate);
+
+        assertEquals(2, otraInstancia.volcarMarcasStock());
+        CambiosProductos cambios = productoService.buscarCambios(desde, null, 500);
+        assertEquals(Set.of(a.getValue(), b.getValue()),
+                Set.of(cambios.cambios().get(0).id(), cambios.cambios().get(1).id()));
+        assertTrue(cambios.version() > desde);
+        assertEquals(0, marcaStockRepository.count());
+    }
+
+    private void modificar(ProductoId... ids) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (ProductoId id : ids) {
+                eventPublisher.publishEvent(new ProductoModificadoEvent(id.getValue()));
+            }
+        });
+    }
+}
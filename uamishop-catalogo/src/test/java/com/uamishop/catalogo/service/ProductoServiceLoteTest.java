@@ -0,0 +1,167 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.Categoria;
+import com.uamishop.catalogo.domain.CategoriaId;
+import com.uamishop.catalogo.domain.Producto;
+import com.uamishop.catalogo.dto.ProductoRequest;
+import com.uamishop.catalogo.dto.ProductoResponse;
+import com.uamishop.catalogo.dto.ProductosPorIdResponse;
+import com.uamishop.catalogo.dto.ProductosPorSkuResponse;
+import com.uamishop.catalogo.repository.CategoriaJpaRepository;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import com.uamishop.catalogo.shared.domain.Money;
+import com.uamishop.catalogo.shared.domain.ProductoId;
+import com.uamishop.catalogo.shared.exception.BusinessRuleException;
+import com.uamishop.catalogo.shared.exception.RecursoNoEncontradoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({ProductoService.class, ProductoProyeccionRepository.class, ProductoCache.class, ArbolCategoriasService.class,
+        CategoriaCache.class, ProductoServiceLoteTest.Metricas.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductoServiceLoteTest {
+
+    @TestConfiguration
+    static class Metricas {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoJpaRepository productoRepository;
+
+    @Autowired
+    private CategoriaJpaRepository categoriaRepository;
+
+    @Autowired
+    private ProductoCache productoCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private IndiceBusquedaProductos indiceBusqueda;
+
+    private CategoriaId categoriaId;
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void setUp() {
+        categoriaId = CategoriaId.generar();
+        categoriaRepository.save(new Categoria(categoriaId, "Electrónica", "Equipos", null));
+        for (String sku : List.of("ELC-001", "ELC-002", "ELC-003")) {
+            productoRepository.save(Producto.crear("Producto " + sku, "Descripción", Money.pesos(100), 5, sku, categoriaId));
+        }
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // La caché sobrevive entre pruebas porque el contexto se reutiliza
+        for (Producto producto : productoRepository.findAll()) {
+            productoCache.invalidar(producto.getId().getValue());
+            productoCache.invalidarSku(producto.getSku());
+        }
+        productoRepository.deleteAll();
+        categoriaRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Un lote de SKUs se resuelve en una consulta y la segunda vez sale de la caché")
+    void buscarProductosPorSkus_unaConsultaYLuegoCache() {
+        List<String> skus = List.of("ELC-003", "NOE-999", "ELC-001", "ELC-003");
+
+        ProductosPorSkuResponse primera = productoService.buscarProductosPorSkus(skus);
+
+        assertEquals(List.of("ELC-003", "ELC-001"), primera.productos().stream().map(ProductoResponse::getSku).toList());
+        assertEquals(List.of("NOE-999"), primera.noEncontrados());
+        assertEquals(2, estadisticas.getPrepareStatementCount(), "Productos más imágenes");
+
+        estadisticas.clear();
+        ProductosPorSkuResponse segunda = productoService.buscarProductosPorSkus(List.of("ELC-001", "ELC-003"));
+
+        assertEquals(2, segunda.productos().size());
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("El multi-get por id usa la caché y consulta el resto en una sentencia")
+    void buscarProductosPorIds_cacheMasUnaConsulta() {
+        List<Producto> productos = productoRepository.findAll();
+        UUID enCache = productos.get(0).getId().getValue();
+        UUID otro = productos.get(1).getId().getValue();
+        UUID inexistente = UUID.randomUUID();
+        productoService.buscarProductoPorId(new ProductoId(enCache));
+        estadisticas.clear();
+
+        ProductosPorIdResponse respuesta = productoService.buscarProductosPorIds(
+                List.of(otro, inexistente, enCache, otro));
+
+        assertEquals(List.of(otro, enCache),
+                respuesta.productos().stream().map(p -> p.getId().getValue()).toList());
+        assertEquals(List.of(inexistente), respuesta.noEncontrados());
+        assertEquals(2, estadisticas.getPrepareStatementCount(), "Productos más imágenes, solo para los no cacheados");
+    }
+
+    @Test
+    @DisplayName("Una entrada SKU → id vieja se descarta al cambiar el SKU del producto")
+    void buscarProductoPorSku_descartaEntradaVieja() {
+        ProductoResponse original = productoService.buscarProductoPorSku("ELC-002");
+
+        Producto producto = productoRepository.findById(original.getId()).orElseThrow();
+        producto.setSku("ELC-102");
+        productoRepository.save(producto);
+        // Lo que haría el listener de ProductoModificadoEvent tras el commit
+        productoCache.invalidar(original.getId().getValue());
+
+        assertThrows(RecursoNoEncontradoException.class, () -> productoService.buscarProductoPorSku("ELC-002"));
+        assertTrue(productoCache.idPorSku("ELC-002").isEmpty());
+        assertEquals(original.getId(), productoService.buscarProductoPorSku("ELC-102").getId());
+    }
+
+    @Test
+    @DisplayName("No se puede crear un producto con un SKU existente")
+    void crearProducto_skuDuplicado() {
+        ProductoRequest request = new ProductoRequest();
+        request.setNombre("Otro");
+        request.setDescripcion("Duplicado");
+        request.setPrecio(BigDecimal.TEN);
+        request.setStock(1);
+        request.setSku("ELC-001");
+        request.setCategoriaId(categoriaId.id());
+
+        assertThrows(BusinessRuleException.class, () -> productoService.crearProducto(request));
+        assertEquals(3, productoRepository.count());
+    }
+}
@@ -0,0 +1,122 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.Producto;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import com.uamishop.catalogo.shared.domain.ProductoId;
+import com.uamishop.catalogo.shared.exception.RecursoNoEncontradoException;
+import com.uamishop.catalogo.shared.exception.StockInsuficienteException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.uamishop.catalogo.ProductosDePrueba.guardarProducto;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({ProductoService.class, ProductoProyeccionRepository.class, ArbolCategoriasService.class,
+        CategoriaCache.class})
+// Sin transacción de prueba: cada hilo debe confirmar su propio decremento
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductoServiceStockConcurrenteTest {
+
+    private static final int COMPRADORES = 64;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoJpaRepository productoRepository;
+
+    @MockBean
+    private ProductoCache productoCache;
+
+    @MockBean
+    private IndiceBusquedaProductos indiceBusqueda;
+
+    @AfterEach
+    void tearDown() {
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("64 compradores concurrentes del mismo SKU no pierden actualizaciones")
+    void disminuirStock_concurrente_sinActualizacionesPerdidas() throws Exception {
+        UUID productoId = guardarProducto(productoRepository, 1_000).getValue();
+
+        List<Throwable> errores = comprarConcurrentemente(productoId, 3, new AtomicInteger());
+
+        assertTrue(errores.isEmpty(), () -> "Errores inesperados: " + errores);
+        Producto producto = productoRepository.findById(new ProductoId(productoId)).orElseThrow();
+        assertEquals(1_000 - COMPRADORES * 3, producto.getStock());
+        assertEquals(COMPRADORES, producto.getVersion());
+    }
+
+    @Test
+    @DisplayName("Con menos stock que compradores solo se venden las unidades existentes")
+    void disminuirStock_concurrente_sinSobreventa() throws Exception {
+        UUID productoId = guardarProducto(productoRepository, 40).getValue();
+        AtomicInteger sinStock = new AtomicInteger();
+
+        List<Throwable> errores = comprarConcurrentemente(productoId, 1, sinStock);
+
+        assertTrue(errores.isEmpty(), () -> "Errores inesperados: " + errores);
+        assertEquals(COMPRADORES - 40, sinStock.get());
+        assertEquals(0, productoRepository.findById(new ProductoId(productoId)).orElseThrow().getStock());
+    }
+
+    @Test
+    @DisplayName("Descontar stock de un producto inexistente lanza RecursoNoEncontradoException")
+    void disminuirStock_productoInexistente() {
+        assertThrows(RecursoNoEncontradoException.class,
+                () -> productoService.disminuirStock(UUID.randomUUID(), 1));
+    }
+
+    private List<Throwable> comprarConcurrentemente(UUID productoId, int cantidad, AtomicInteger sinStock)
+            throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(COMPRADORES);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<?>> compras = new ArrayList<>();
+        for (int i = 0; i < COMPRADORES; i++) {
+            compras.add(pool.submit(() -> {
+                salida.await();
+                try {
+                    productoService.disminuirStock(productoId, cantidad);
+                } catch (StockInsuficienteException e) {
+                    sinStock.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+
+        List<Throwable> errores = new ArrayList<>();
+        for (Future<?> compra : compras) {
+            try {
+                compra.get(30, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                errores.add(e.getCause() != null ? e.getCause() : e);
+            }
+        }
+        pool.shutdown();
+        return errores;
+    }
+}
@@ -0,0 +1,216 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.EstadoReserva;
+import com.uamishop.catalogo.dto.DisponibilidadResponse;
+import com.uamishop.catalogo.dto.ReservaResponse;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.repository.ReservaStockJpaRepository;
+import com.uamishop.catalogo.shared.domain.ProductoId;
+import com.uamishop.catalogo.shared.exception.StockInsuficienteException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.uamishop.catalogo.ProductosDePrueba.guardarProducto;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import(ReservaStockService.class)
+// Las reservas nacen vencidas para poder probar el barrido sin esperar
+@TestPropertySource(properties = {"catalogo.reservas.ttl=-1s", "catalogo.reservas.ttl-orden=1h"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReservaStockServiceTest {
+
+    private static final int CARRITOS = 64;
+
+    @Autowired
+    private ReservaStockService reservaStockService;
+
+    @Autowired
+    private ProductoJpaRepository productoRepository;
+
+    @Autowired
+    private ReservaStockJpaRepository reservaRepository;
+
+    @AfterEach
+    void tearDown() {
+        reservaRepository.deleteAll();
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("64 carritos concurrentes nunca reservan más que el stock")
+    void reservar_concurrente_sinSobrerreserva() throws Exception {
+        UUID productoId = guardarProducto(productoRepository, 40).getValue();
+        AtomicInteger sinStock = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(CARRITOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<?>> reservas = new ArrayList<>();
+        for (int i = 0; i < CARRITOS; i++) {
+            reservas.add(pool.submit(() -> {
+                salida.await();
+                try {
+                    reservaStockService.reservar(UUID.randomUUID(), productoId, 1);
+                } catch (StockInsuficienteException e) {
+                    sinStock.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> reserva : reservas) {
+            reserva.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(CARRITOS - 40, sinStock.get());
+        DisponibilidadResponse disponibilidad = reservaStockService.disponibilidad(productoId);
+        assertEquals(40, disponibilidad.stock());
+        assertEquals(40, disponibilidad.stockReservado());
+        assertEquals(0, disponibilidad.disponible());
+    }
+
+    @Test
+    @DisplayName("Primeras reservas concurrentes del mismo carrito y producto dejan una sola reserva activa")
+    void reservar_primeraConcurrente_unaSolaActiva() throws Exception {
+        UUID productoId = guardarProducto(productoRepository, 100).getValue();
+        UUID carritoId = UUID.randomUUID();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<?>> reservas = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            reservas.add(pool.submit(() -> {
+                salida.await();
+                return reservaStockService.reservar(carritoId, productoId, 3);
+            }));
+        }
+        salida.countDown();
+        for (Future<?> reserva : reservas) {
+            reserva.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(1, reservaRepository.findAll().stream()
+                .filter(r -> r.getEstado() == EstadoReserva.ACTIVA).count());
+        assertEquals(3, reservaStockService.disponibilidad(productoId).stockReservado());
+        assertEquals(3, reservaStockService.reservar(carritoId, productoId, 3).orElseThrow().cantidad());
+    }
+
+    @Test
+    @DisplayName("Reservar es idempotente por carrito y producto y con cantidad 0 libera")
+    void reservar_ajustaLaMismaReserva() {
+        UUID productoId = guardarProducto(productoRepository, 10).getValue();
+        UUID carritoId = UUID.randomUUID();
+
+        ReservaResponse primera = reservaStockService.reservar(carritoId, productoId, 5).orElseThrow();
+        ReservaResponse repetida = reservaStockService.reservar(carritoId, productoId, 5).orElseThrow();
+        assertEquals(primera.id(), repetida.id());
+        assertEquals(5, reservaStockService.disponibilidad(productoId).stockReservado());
+
+        reservaStockService.reservar(carritoId, productoId, 2);
+        assertEquals(8, reservaStockService.disponibilidad(productoId).disponible());
+
+        assertTrue(reservaStockService.reservar(carritoId, productoId, 0).isEmpty());
+        assertEquals(0, reservaStockService.disponibilidad(productoId).stockReservado());
+        assertEquals(EstadoReserva.LIBERADA, reservaRepository.findById(primera.id()).orElseThrow().getEstado());
+
+        assertThrows(StockInsuficienteException.class, () -> reservaStockService.reservar(carritoId, productoId, 11));
+    }
+
+    @Test
+    @DisplayName("El barrido expira las reservas vencidas y devuelve su stock")
+    void expirarVencidas_devuelveStockReservado() {
+        UUID productoId = guardarProducto(productoRepository, 10).getValue();
+        for (int i = 0; i < 5; i++) {
+            reservaStockService.reservar(UUID.randomUUID(), productoId, 2);
+        }
+
+        assertEquals(3, reservaStockService.expirarVencidas(3));
+        assertEquals(2, reservaStockService.expirarVencidas(3));
+        assertEquals(0, reservaStockService.expirarVencidas(3));
+
+        assertEquals(10, reservaStockService.disponibilidad(productoId).disponible());
+        assertTrue(reservaRepository.findAll().stream().allMatch(r -> r.getEstado() == EstadoReserva.EXPIRADA));
+    }
+
+    @Test
+    @DisplayName("Un barrido encadena lotes hasta que uno sale incompleto o llega al tope de lotes")
+    void barrido_encadenaLotesHastaElTope() {
+        UUID productoId = guardarProducto(productoRepository, 50).getValue();
+        UUID carritoId = UUID.randomUUID();
+        reservaStockService.reservar(carritoId, productoId, 1);
+        for (int i = 0; i < 9; i++) {
+            reservaStockService.reservar(UUID.randomUUID(), productoId, 1);
+        }
+
+        ReservaStockExpiracionJob job = new ReservaStockExpiracionJob(reservaStockService, 3, 2);
+        assertEquals(6, job.expirarVencidas());
+        assertEquals(4, job.expirarVencidas());
+
+        assertEquals(50, reservaStockService.disponibilidad(productoId).disponible());
+        // La reserva expirada ya no ocupa la clave activa del carrito
+        assertEquals(2, reservaStockService.reservar(carritoId, productoId, 2).orElseThrow().cantidad());
+    }
+
+    @Test
+    @DisplayName("La compra de una orden con reserva la confirma; sin reserva descuenta el stock")
+    void confirmarCompra_conYSinReserva() {
+        UUID productoId = guardarProducto(productoRepository, 10).getValue();
+        UUID carritoId = UUID.randomUUID();
+        UUID ordenId = UUID.randomUUID();
+        ReservaResponse reserva = reservaStockService.reservar(carritoId, productoId, 3).orElseThrow();
+        reservaStockService.asociarOrden(carritoId, ordenId);
+
+        // La orden extiende el vencimiento: el barrido ya no la toca
+        assertEquals(0, reservaStockService.expirarVencidas(10));
+        reservaStockService.confirmarCompra(ordenId, productoId, 3);
+
+        DisponibilidadResponse disponibilidad = reservaStockService.disponibilidad(productoId);
+        assertEquals(7, disponibilidad.stock());
+        assertEquals(0, disponibilidad.stockReservado());
+        assertEquals(EstadoReserva.CONFIRMADA, reservaRepository.findById(reserva.id()).orElseThrow().getEstado());
+
+        reservaStockService.confirmarCompra(UUID.randomUUID(), productoId, 2);
+        assertEquals(5, productoRepository.findById(new ProductoId(productoId)).orElseThrow().getStock());
+    }
+
+    @Test
+    @DisplayName("Una compra sin reserva no puede tomar unidades reservadas por otros carritos")
+    void confirmarCompra_sinReserva_respetaLoReservado() {
+        UUID productoId = guardarProducto(productoRepository, 10).getValue();
+        UUID ordenId = UUID.randomUUID();
+        UUID carritoId = UUID.randomUUID();
+        reservaStockService.reservar(carritoId, productoId, 6);
+        reservaStockService.asociarOrden(carritoId, ordenId);
+
+        assertThrows(StockInsuficienteException.class,
+                () -> reservaStockService.confirmarCompra(UUID.randomUUID(), productoId, 5));
+        assertEquals(10, reservaStockService.disponibilidad(productoId).stock());
+
+        // La orden que sí reservó sigue pudiendo confirmar, aunque compre una unidad más de lo reservado
+        reservaStockService.confirmarCompra(ordenId, productoId, 7);
+        DisponibilidadResponse disponibilidad = reservaStockService.disponibilidad(productoId);
+        assertEquals(3, disponibilidad.stock());
+        assertEquals(0, disponibilidad.stockReservado());
+    }
+}
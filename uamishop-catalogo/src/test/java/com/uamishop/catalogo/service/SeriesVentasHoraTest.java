@@ -0,0 +1,123 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.dto.VentasHoraResponse;
+import com.uamishop.catalogo.dto.VentasVentanaResponse;
+import com.uamishop.catalogo.repository.ProductoVentasHoraJpaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+// El UPSERT usa la sintaxis de MySQL
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ventashora;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "catalogo.ventas-hora.cache-ttl=0s"})
+@Import(SeriesVentasHora.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SeriesVentasHoraTest {
+
+    @Autowired
+    private SeriesVentasHora series;
+
+    @Autowired
+    private ProductoVentasHoraJpaRepository ventasHoraRepository;
+
+    @AfterEach
+    void tearDown() {
+        ventasHoraRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Los más vendidos de una ventana solo cuentan las horas dentro de ella")
+    void masVendidos_porVentana() {
+        UUID constante = UUID.randomUUID();
+        UUID antiguo = UUID.randomUUID();
+        Instant ahora = Instant.now();
+        // Más horas que ranuras tiene el anillo: se vuelca en cada hora, como haría el volcado periódico
+        for (int h = 47; h >= 0; h--) {
+            series.registrar(constante, 1, 2, ahora.minus(h, ChronoUnit.HOURS));
+            series.volcar();
+        }
+        series.registrar(antiguo, 1, 100, ahora.minus(Duration.ofDays(3)));
+        series.volcar();
+
+        assertEquals(48 + 1, ventasHoraRepository.count(), "Un balde por producto y hora");
+
+        List<VentasVentanaResponse> ultimoDia = series.masVendidos(24, 10);
+        assertEquals(List.of(new VentasVentanaResponse(constante, 24, 48)), ultimoDia);
+
+        List<VentasVentanaResponse> semana = series.masVendidos(24 * 7, 10);
+        assertEquals(List.of(antiguo, constante), semana.stream().map(VentasVentanaResponse::productoId).toList());
+        assertEquals(96, semana.get(1).cantidad());
+    }
+
+    @Test
+    @DisplayName("La serie tiene una entrada por hora y suma los volcados de la misma hora")
+    void serie_densaYAcumulada() {
+        UUID productoId = UUID.randomUUID();
+        Instant ahora = Instant.now();
+        series.registrar(productoId, 1, 3, ahora);
+        series.volcar();
+        series.registrar(productoId, 2, 4, ahora);
+        series.registrar(productoId, 1, 1, ahora.minus(2, ChronoUnit.HOURS));
+        series.volcar();
+
+        List<VentasHoraResponse> serie = series.serie(productoId, 4);
+
+        assertEquals(4, serie.size());
+        assertEquals(ahora.truncatedTo(ChronoUnit.HOURS), serie.get(3).hora());
+        assertEquals(List.of(0L, 1L, 0L, 7L), serie.stream().map(VentasHoraResponse::cantidad).toList());
+        assertEquals(3, serie.get(3).transacciones());
+    }
+
+    @Test
+    @DisplayName("Los volcados concurrentes con las ventas no pierden unidades")
+    void volcar_concurrente_sinVentasPerdidas() throws Exception {
+        List<UUID> productos = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < 8; h++) {
+            tareas.add(pool.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    series.registrar(productos.get(i % productos.size()), 1, 1, Instant.now());
+                }
+            }));
+        }
+        while (tareas.stream().anyMatch(t -> !t.isDone())) {
+            series.volcar();
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        series.volcar();
+
+        long total = series.masVendidos(2, 10).stream().mapToLong(VentasVentanaResponse::cantidad).sum();
+        assertEquals(8 * 2_000, total);
+        assertEquals(0, series.volcar());
+    }
+}
@@ -0,0 +1,92 @@
+package com.uamishop.catalogo.service;
+
+import com.uamishop.catalogo.domain.CategoriaId;
+import com.uamishop.catalogo.domain.Producto;
+import com.uamishop.catalogo.dto.FacetasResponse;
+import com.uamishop.catalogo.dto.FiltroProductos;
+import com.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.uamishop.catalogo.repository.ProductoProyeccionRepository;
+import com.uamishop.catalogo.shared.domain.Money;
+import com.uamishop.catalogo.shared.domain.ProductoId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({ProductoProyeccionRepository.class, IndiceBusquedaProductos.class, IndiceFacetas.class,
+        CatalogoVersionService.class,
+        SincronizacionIndicesJob.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SincronizacionIndicesJobTest {
+
+    @Autowired
+    private SincronizacionIndicesJob sincronizacionIndices;
+
+    @Autowired
+    private IndiceBusquedaProductos indiceBusqueda;
+
+    @Autowired
+    private IndiceFacetas indiceFacetas;
+
+    @Autowired
+    private ProductoJpaRepository productoRepository;
+
+    @Autowired
+    private CatalogoVersionService catalogoVersionService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Lo que otra réplica crea o desactiva llega a los índices de búsqueda y facetas por la secuencia de cambios")
+    void sincronizar_cambiosDeOtraReplica() {
+        // Otra réplica escribe y marca la secuencia; aquí no se publica ningún evento local
+        ProductoId id = escribirEnOtraReplica(Producto.crear("Cafetera italiana", "Aluminio", Money.pesos(450), 3,
+                "CAF-" + UUID.randomUUID(), CategoriaId.generar()));
+        assertTrue(indiceBusqueda.buscar("cafetera", 10).isEmpty());
+
+        assertEquals(1, sincronizacionIndices.sincronizar());
+        assertEquals(List.of(id.getValue()), indiceBusqueda.buscar("cafetera", 10));
+        assertEquals(new FacetasResponse.Disponibilidad(1, 0), disponibilidad());
+        assertEquals(0, sincronizacionIndices.sincronizar());
+
+        Producto producto = productoRepository.findById(id).orElseThrow();
+        producto.desactivar();
+        escribirEnOtraReplica(producto);
+
+        assertEquals(1, sincronizacionIndices.sincronizar());
+        assertTrue(indiceBusqueda.buscar("cafetera", 10).isEmpty());
+        assertEquals(new FacetasResponse.Disponibilidad(0, 1), disponibilidad());
+    }
+
+    private FacetasResponse.Disponibilidad disponibilidad() {
+        return indiceFacetas.contar(new FiltroProductos(null, null, null, null)).disponibilidad();
+    }
+
+    private ProductoId escribirEnOtraReplica(Producto producto) {
+        return transactionTemplate.execute(status -> {
+            ProductoId id = productoRepository.save(producto).getId();
+            productoRepository.flush();
+            productoRepository.marcarCambio(List.of(id.getValue()), catalogoVersionService.incrementar());
+            return id;
+        });
+    }
+}
@@ -0,0 +1,190 @@
+package com.uamishop.catalogo.shared.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Inserción con claves UUID aleatorias frente a UUID versión 7 en tablas con la forma de
+ * {@code ordenes}, {@code items_carrito} y {@code outbox_events} (clave BINARY(16)). Reporta filas por
+ * segundo de toda la carga y de su último 10 %, donde un índice aleatorio ya no cabe en memoria, y en
+ * MySQL el tamaño de datos e índices.
+ *
+ * <p>Corre con {@code mvn test -Pbenchmark}. Por omisión usa H2 en memoria con
+ * {@code benchmark.filas=100000}, que solo sirve para comparar los dos tipos de clave entre sí; para
+ * medir el efecto real hay que apuntarlo a un MySQL con {@code -Dbenchmark.url=jdbc:mysql://...
+ * -Dbenchmark.usuario=... -Dbenchmark.clave=... -Dbenchmark.filas=10000000}. Crea y borra sus propias
+ * tablas {@code bench_*}.</p>
+ */
+@Tag("benchmark")
+class UuidV7BenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UuidV7BenchmarkTest.class);
+    private static final int TAMANIO_LOTE = 1000;
+
+    private static final List<Tabla> TABLAS = List.of(
+            new Tabla("ordenes",
+                    "id binary(16) not null primary key, numero_orden varchar(255), cliente_id binary(16), "
+                    + "estado varchar(255), total_cantidad decimal(38,2), total_moneda varchar(255), "
+                    + "fecha_creacion datetime(6)",
+                    null,
+                    "(id, numero_orden, cliente_id, estado, total_cantidad, total_moneda, fecha_creacion) "
+                    + "values (?, ?, ?, 'PENDIENTE', ?, 'MXN', ?)"),
+            new Tabla("items_carrito",
+                    "id binary(16) not null primary key, carrito_id binary(16), producto_id binary(16), "
+                    + "cantidad int not null, precio_unitario_cantidad decimal(38,2), precio_unitario_moneda varchar(255)",
+                    "carrito_id",
+                    "(id, carrito_id, producto_id, cantidad, precio_unitario_cantidad, precio_unitario_moneda) "
+                    + "values (?, ?, ?, 1, ?, 'MXN')"),
+            new Tabla("outbox_events",
+                    "id binary(16) not null primary key, aggregate_type varchar(255) not null, "
+                    + "aggregate_id varchar(255) not null, event_type varchar(255) not null, payload text not null, "
+                    + "routing_key varchar(255) not null, status varchar(255) not null, created_at datetime(6) not null, "
+                    + "published_at datetime(6)",
+                    null,
+                    "(id, aggregate_type, aggregate_id, event_type, payload, routing_key, status, created_at) "
+                    + "values (?, 'Orden', ?, 'OrdenCreadaEvent', ?, 'orden.creada', 'PENDIENTE', ?)"));
+
+    private final String url = System.getProperty("benchmark.url", "jdbc:h2:mem:uuidv7;MODE=MySQL;DB_CLOSE_DELAY=-1");
+    private final String usuario = System.getProperty("benchmark.usuario", "sa");
+    private final String clave = System.getProperty("benchmark.clave", "");
+    private final int filas = Integer.getInteger("benchmark.filas", 100_000);
+
+    @Test
+    @DisplayName("Claves aleatorias frente a UUID versión 7")
+    void compararClaves() throws SQLException {
+        List<Resultado> resultados = new ArrayList<>();
+        try (Connection conexion = DriverManager.getConnection(url, usuario, clave)) {
+            boolean mysql = conexion.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+            // Vuelta corta sin medir para calentar JIT y driver
+            insertar(conexion, TABLAS.get(0), "calentamiento", Math.min(filas, 20_000), UUID::randomUUID, false);
+            for (Tabla tabla : TABLAS) {
+                resultados.add(insertar(conexion, tabla, "aleatorio", filas, UUID::randomUUID, mysql));
+                resultados.add(insertar(conexion, tabla, "v7", filas, UuidV7::generar, mysql));
+            }
+        }
+
+        log.info("Benchmark de claves UUID: {} filas por tabla en {}", filas, url);
+        log.info(String.format("%-14s %-10s %12s %16s %12s %12s",
+                "tabla", "clave", "filas/s", "último 10% f/s", "datos MB", "índices MB"));
+        for (Resultado r : resultados) {
+            log.info(String.format("%-14s %-10s %12.0f %16.0f %12s %12s", r.tabla(), r.clave(),
+                    r.filasPorSegundo(), r.filasPorSegundoFinal(), megas(r.bytesDatos()), megas(r.bytesIndices())));
+        }
+    }
+
+    private Resultado insertar(Connection conexion, Tabla tabla, String clave, int total,
+                               Supplier<UUID> generador, boolean mysql) throws SQLException {
+        String nombre = "bench_" + tabla.nombre() + "_" + clave;
+        try (Statement st = conexion.createStatement()) {
+            st.execute("drop table if exists " + nombre);
+            st.execute("create table " + nombre + " (" + tabla.columnas() + ")");
+            if (tabla.indice() != null) {
+                st.execute("create index idx_" + nombre + " on " + nombre + " (" + tabla.indice() + ")");
+            }
+        }
+
+        conexion.setAutoCommit(false);
+        int inicioFinal = total - total / 10;
+        long inicio = System.nanoTime();
+        long inicioUltimos = inicio;
+        try (PreparedStatement ps = conexion.prepareStatement("insert into " + nombre + " " + tabla.insert())) {
+            for (int i = 0; i < total; i++) {
+                if (i == inicioFinal) {
+                    inicioUltimos = System.nanoTime();
+                }
+                llenar(ps, tabla, generador.get(), i);
+                ps.addBatch();
+                if ((i + 1) % TAMANIO_LOTE == 0 || i == total - 1) {
+                    ps.executeBatch();
+                    conexion.commit();
+                }
+            }
+        }
+        long fin = System.nanoTime();
+        conexion.setAutoCommit(true);
+
+        Long bytesDatos = null;
+        Long bytesIndices = null;
+        try (Statement st = conexion.createStatement()) {
+            try (ResultSet rs = st.executeQuery("select count(*) from " + nombre)) {
+                rs.next();
+                assertEquals(total, rs.getLong(1));
+            }
+            if (mysql) {
+                st.execute("analyze table " + nombre);
+                try (ResultSet rs = st.executeQuery("select data_length, index_length from information_schema.tables "
+                        + "where table_schema = database() and table_name = '" + nombre + "'")) {
+                    if (rs.next()) {
+                        bytesDatos = rs.getLong(1);
+                        bytesIndices = rs.getLong(2);
+                    }
+                }
+            }
+            st.execute("drop table " + nombre);
+        }
+        return new Resultado(tabla.nombre(), clave,
+                total / ((fin - inicio) / 1e9),
+                (total - inicioFinal) / ((fin - inicioUltimos) / 1e9),
+                bytesDatos, bytesIndices);
+    }
+
+    private static void llenar(PreparedStatement ps, Tabla tabla, UUID id, int i) throws SQLException {
+        Timestamp ahora = Timestamp.from(Instant.now());
+        ps.setBytes(1, bytes(id));
+        switch (tabla.nombre()) {
+            case "ordenes" -> {
+                ps.setString(2, "ORD-" + i);
+                ps.setBytes(3, bytes(UUID.randomUUID()));
+                ps.setBigDecimal(4, BigDecimal.valueOf(100 + i % 1000));
+                ps.setTimestamp(5, ahora);
+            }
+            case "items_carrito" -> {
+                ps.setBytes(2, bytes(UUID.randomUUID()));
+                ps.setBytes(3, bytes(UUID.randomUUID()));
+                ps.setBigDecimal(4, BigDecimal.valueOf(100 + i % 1000));
+            }
+            default -> {
+                ps.setString(2, id.toString());
+                ps.setString(3, "{\"eventId\":\"" + UUID.randomUUID() + "\",\"ordenId\":\"" + id
+                        + "\",\"clienteId\":\"" + UUID.randomUUID() + "\",\"items\":[{\"cantidad\":1}]}");
+                ps.setTimestamp(4, ahora);
+            }
+        }
+    }
+
+    private static byte[] bytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private static String megas(Long bytes) {
+        return bytes != null ? String.format("%.1f", bytes / 1048576.0) : "-";
+    }
+
+    private record Tabla(String nombre, String columnas, String indice, String insert) {}
+
+    private record Resultado(String tabla, String clave, double filasPorSegundo, double filasPorSegundoFinal,
+                             Long bytesDatos, Long bytesIndices) {}
+}
@@ -0,0 +1,78 @@
+package com.uamishop.catalogo.shared.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7Test {
+
+    @Test
+    @DisplayName("Versión 7, variante RFC y el instante de generación en los primeros 48 bits")
+    void generar_versionVarianteEInstante() {
+        long antes = System.currentTimeMillis();
+        UUID uuid = UuidV7.generar();
+        long despues = System.currentTimeMillis();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        // El contador puede adelantar el instante unos milisegundos si otro test generó muchos ids
+        assertTrue(UuidV7.milisegundos(uuid) >= antes);
+        assertTrue(UuidV7.milisegundos(uuid) <= despues + 10);
+        assertThrows(IllegalArgumentException.class, () -> UuidV7.milisegundos(UUID.randomUUID()));
+    }
+
+    @Test
+    @DisplayName("Los ids de un mismo hilo crecen estrictamente, también como bytes de BINARY(16)")
+    void generar_estrictamenteCreciente() {
+        byte[] anterior = bytes(UuidV7.generar());
+        for (int i = 0; i < 100_000; i++) {
+            byte[] actual = bytes(UuidV7.generar());
+            assertTrue(Arrays.compareUnsigned(anterior, actual) < 0, "Los bytes deben crecer");
+            anterior = actual;
+        }
+    }
+
+    @Test
+    @DisplayName("Hilos concurrentes no generan ids repetidos")
+    void generar_concurrente_sinRepetidos() throws Exception {
+        ConcurrentLinkedQueue<UUID> generados = new ConcurrentLinkedQueue<>();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < 8; h++) {
+            tareas.add(pool.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    generados.add(UuidV7.generar());
+                }
+            }));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        Set<UUID> unicos = new HashSet<>(generados);
+        assertEquals(8 * 20_000, unicos.size());
+    }
+
+    // Mismo orden de bytes con que Hibernate guarda el UUID en BINARY(16)
+    private static byte[] bytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -40,6 +40,20 @@ function showSection(nombre) {
 // ══════════════════════════════════════════════════════════════════════════
 // CATÁLOGO
 // ══════════════════════════════════════════════════════════════════════════
+// El listado viene por páginas: se sigue X-Next-Cursor hasta la última
+async function cargarPaginasProductos(signal) {
+  const productos = [];
+  let cursor = null;
+  do {
+    const url = `${GATEWAY}/api/v1/productos?limit=500` + (cursor ? `&cursor=${encodeURIComponent(cursor)}` : '');
+    const res = await fetch(url, { signal });
+    if (!res.ok) throw new Error(`Error ${res.status} al cargar productos`);
+    productos.push(...await res.json());
+    cursor = res.headers.get('X-Next-Cursor');
+  } while (cursor);
+  return productos;
+}
+
 async function cargarProductos(forzar = false) {
   // OPTIMIZACIÓN: no re-fetchear si ya tenemos datos y no se fuerza
   if (catalogoCargado && !forzar) {
@@ -54,13 +68,11 @@ async function cargarProductos(forzar = false) {
   const signal = abortCtrl.signal;
 
   try {
-    const [productosRes, categoriasRes] = await Promise.all([
-      fetch(`${GATEWAY}/api/v1/productos`, { signal }),
+    const [productos, categoriasRes] = await Promise.all([
+      cargarPaginasProductos(signal),
       fetch(`${GATEWAY}/api/v1/categorias`, { signal })
     ]);
-
-    if (!productosRes.ok) throw new Error(`Error ${productosRes.status} al cargar productos`);
-    todosLosProductos = await productosRes.json();
+    todosLosProductos = productos;
 
     if (categoriasRes.ok) {
       const categorias = await categoriasRes.json();
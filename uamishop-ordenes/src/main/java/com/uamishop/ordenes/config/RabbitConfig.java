@@ -2,9 +2,11 @@ package com.uamishop.ordenes.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
@@ -12,6 +14,10 @@ import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
 @Configuration
 public class RabbitConfig {
 
@@ -21,38 +27,40 @@ public class RabbitConfig {
     public static final String RK_PRODUCTO_COMPRADO = "producto.comprado";
     public static final String RK_PRODUCTO_AGREGADO = "producto.agregado-carrito";
 
+    // Particiones por producto de las colas del catálogo; debe coincidir con catalogo (ParticionesContratoTest)
+    public static final int PARTICIONES = 16;
+
     // 🔹 Exchange
     @Bean
     public TopicExchange eventsExchange() {
         return new TopicExchange(EVENTS_EXCHANGE);
     }
 
-    // 🔹 Queues
+    // 🔹 Colas particionadas (mismos argumentos que las declara catalogo, o RabbitMQ rechaza la declaración)
     @Bean
-    public Queue catalogoProductoCompradoQueue() {
-        return new Queue(QUEUE_CATALOGO_PRODUCTO_COMPRADO, true);
+    public Declarables catalogoColasParticionadas(TopicExchange eventsExchange) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (int particion = 0; particion < PARTICIONES; particion++) {
+            Queue compradoQueue = QueueBuilder.durable(conParticion(QUEUE_CATALOGO_PRODUCTO_COMPRADO, particion))
+                    .singleActiveConsumer().build();
+            Queue agregadoQueue = QueueBuilder.durable(conParticion(QUEUE_CATALOGO_PRODUCTO_AGREGADO, particion))
+                    .singleActiveConsumer().build();
+            declarables.add(compradoQueue);
+            declarables.add(agregadoQueue);
+            declarables.add(BindingBuilder.bind(compradoQueue).to(eventsExchange)
+                    .with(conParticion(RK_PRODUCTO_COMPRADO, particion)));
+            declarables.add(BindingBuilder.bind(agregadoQueue).to(eventsExchange)
+                    .with(conParticion(RK_PRODUCTO_AGREGADO, particion)));
+        }
+        return new Declarables(declarables);
     }
 
-    @Bean
-    public Queue catalogoProductoAgregadoQueue() {
-        return new Queue(QUEUE_CATALOGO_PRODUCTO_AGREGADO, true);
+    public static int particion(UUID productoId) {
+        return (int) (productoId.getLeastSignificantBits() & (PARTICIONES - 1));
     }
 
-    // 🔹 Bindings
-    @Bean
-    public Binding catalogoProductoCompradoBinding(Queue catalogoProductoCompradoQueue,
-                                                   TopicExchange eventsExchange) {
-        return BindingBuilder.bind(catalogoProductoCompradoQueue)
-                .to(eventsExchange)
-                .with(RK_PRODUCTO_COMPRADO);
-    }
-
-    @Bean
-    public Binding catalogoProductoAgregadoBinding(Queue catalogoProductoAgregadoQueue,
-                                                  TopicExchange eventsExchange) {
-        return BindingBuilder.bind(catalogoProductoAgregadoQueue)
-                .to(eventsExchange)
-                .with(RK_PRODUCTO_AGREGADO);
+    public static String conParticion(String nombre, int particion) {
+        return nombre + "." + Integer.toHexString(particion);
     }
 
     // 🔥 FIX CLAVE (AQUÍ ESTABA EL ERROR)
@@ -1,5 +1,6 @@
 package com.uamishop.ordenes.ordenes.domain;
 
+import com.uamishop.ordenes.shared.domain.UuidV7;
 import java.util.Objects;
 import java.util.UUID;
 import jakarta.persistence.Embeddable;
@@ -37,7 +38,7 @@ public final class ItemOrdenId {
      * @return Una nueva instancia de ItemOrdenId.
      */
     public static ItemOrdenId generar() {
-        return new ItemOrdenId(UUID.randomUUID());
+        return new ItemOrdenId(UuidV7.generar());
     }
 
     /**
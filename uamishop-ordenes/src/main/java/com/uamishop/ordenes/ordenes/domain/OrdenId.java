@@ -1,5 +1,6 @@
 package com.uamishop.ordenes.ordenes.domain;
 
+import com.uamishop.ordenes.shared.domain.UuidV7;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 import jakarta.persistence.Embeddable;
@@ -28,7 +29,7 @@ public final class OrdenId {
     }
 
     public static OrdenId generar() {
-        return new OrdenId(UUID.randomUUID());
+        return new OrdenId(UuidV7.generar());
     }
 
     @JsonValue
@@ -1,5 +1,6 @@
 package com.uamishop.ordenes.ordenes.service;
 
+import com.uamishop.ordenes.shared.domain.UuidV7;
 import com.uamishop.ordenes.config.RabbitConfig;
 import com.uamishop.ordenes.ordenes.domain.*;
 import com.uamishop.ordenes.ordenes.dto.*;
@@ -16,6 +17,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -57,7 +60,7 @@ public class OrdenService {
 
         // Guardar en outbox (misma transaccion) en lugar de publicar directamente
         OrdenCreadaEvent ordenCreadaEvent = new OrdenCreadaEvent(
-                UUID.randomUUID(),
+                UuidV7.generar(),
                 Instant.now(),
                 orden.getId().getValue(),
                 request.getCarritoId(),
@@ -103,8 +106,9 @@ public class OrdenService {
         orden.procesarPago("TARJETA", referenciaPago, "sistema");
         orden = ordenRepository.save(orden);
 
-        // Guardar en outbox (misma transaccion) en lugar de publicar directamente
-        List<ItemComprado> itemsComprados = orden.getItems().stream()
+        // Guardar en outbox (misma transaccion) en lugar de publicar directamente. Un evento por
+        // partición de producto: cada uno lo aplica el consumidor del catálogo dueño de esa partición
+        Map<Integer, List<ItemComprado>> itemsPorParticion = orden.getItems().stream()
                 .map(item -> new ItemComprado(
                         item.getProductoId().getValue(),
                         item.getSku(),
@@ -112,23 +116,19 @@ public class OrdenService {
                         item.getPrecioUnitario().getCantidad(),
                         item.getPrecioUnitario().getMoneda()
                 ))
-                .toList();
-
-        ProductoCompradoEvent event = new ProductoCompradoEvent(
-                UUID.randomUUID(),
-                Instant.now(),
-                orden.getId().getValue(),
-                orden.getClienteId().getValue(),
-                itemsComprados
-        );
+                .collect(Collectors.groupingBy(item -> RabbitConfig.particion(item.productoId()),
+                        TreeMap::new, Collectors.toList()));
 
-        outboxService.guardar(
+        Instant ahora = Instant.now();
+        UUID ordenId = orden.getId().getValue();
+        UUID clienteId = orden.getClienteId().getValue();
+        itemsPorParticion.forEach((particion, itemsComprados) -> outboxService.guardar(
                 "Orden",
-                orden.getId().getValue().toString(),
+                ordenId.toString(),
                 "ProductoCompradoEvent",
-                event,
-                RabbitConfig.RK_PRODUCTO_COMPRADO
-        );
+                new ProductoCompradoEvent(UuidV7.generar(), ahora, ordenId, clienteId, itemsComprados),
+                RabbitConfig.conParticion(RabbitConfig.RK_PRODUCTO_COMPRADO, particion)
+        ));
 
         return OrdenResponse.fromOrden(orden);
     }
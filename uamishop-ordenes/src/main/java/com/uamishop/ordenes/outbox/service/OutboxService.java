@@ -1,5 +1,6 @@
 package com.uamishop.ordenes.outbox.service;
 
+import com.uamishop.ordenes.shared.domain.UuidV7;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.uamishop.ordenes.outbox.domain.OutboxEvent;
@@ -31,7 +32,7 @@ public class OutboxService {
         try {
             String payload = objectMapper.writeValueAsString(eventPayload);
             OutboxEvent event = new OutboxEvent(
-                UUID.randomUUID(),
+                UuidV7.generar(),
                 aggregateType,
                 aggregateId,
                 eventType,
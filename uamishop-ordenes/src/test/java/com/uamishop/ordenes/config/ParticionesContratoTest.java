@@ -0,0 +1,35 @@
+package com.uamishop.ordenes.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Catalogo, ordenes y ventas calculan la partición de un producto cada uno por su cuenta. Este test
+ * está repetido, con los mismos casos, en los tres servicios: si uno cambia la función, su copia
+ * falla antes de que un productor publique en una cola que nadie consume.
+ */
+class ParticionesContratoTest {
+
+    private static final String[][] CASOS = {
+            {"00000000-0000-0000-0000-000000000000", "0"},
+            {"123e4567-e89b-12d3-a456-42661417400a", "a"},
+            {"0190a6b2-7c3e-7f1a-9d2b-4c5e6f7a8b9f", "f"},
+            {"ffffffff-ffff-ffff-ffff-fffffffffff7", "7"},
+            {"6f9619ff-8b86-d011-b42d-00c04fc964f3", "3"},
+    };
+
+    @Test
+    @DisplayName("La ruta particionada coincide con la de los demás servicios")
+    void ruta_mismosCasosEnTodosLosServicios() {
+        assertEquals(16, RabbitConfig.PARTICIONES);
+        for (String[] caso : CASOS) {
+            UUID productoId = UUID.fromString(caso[0]);
+            assertEquals("producto.comprado." + caso[1],
+                    RabbitConfig.conParticion(RabbitConfig.RK_PRODUCTO_COMPRADO, RabbitConfig.particion(productoId)));
+        }
+    }
+}
@@ -2,8 +2,10 @@ package com.uamishop.ventas;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class VentasApplication {
     public static void main(String[] args) {
         SpringApplication.run(VentasApplication.class, args);
@@ -1,16 +1,23 @@
 package com.uamishop.ventas.clients;
 
+import com.uamishop.ventas.domain.CarritoId;
 import com.uamishop.ventas.shared.domain.Money;
 import com.uamishop.ventas.shared.domain.ProductoId;
+import com.uamishop.ventas.shared.exception.DomainException;
 import com.uamishop.ventas.shared.exception.RecursoNoEncontradoException;
 import com.uamishop.ventas.shared.exception.ServicioNoDisponibleException;
+import com.uamishop.ventas.shared.exception.StockInsuficienteException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Map;
+
 @Component
 public class CatalogoApiClient {
 
@@ -41,6 +48,49 @@ public class CatalogoApiClient {
     }
 
     public ProductoInfo fallbackObtenerProducto(ProductoId productoId, Throwable t) {
+        if (t instanceof DomainException domainException) {
+            throw domainException;
+        }
+        throw new ServicioNoDisponibleException(
+            "El servicio de catalogo no esta disponible. Intente mas tarde.");
+    }
+
+    /**
+     * Deja reservadas en catálogo exactamente {@code cantidad} unidades del producto para el carrito
+     * (0 libera la reserva). Catálogo rechaza con 422 si el disponible no alcanza.
+     */
+    @CircuitBreaker(name = "catalogo", fallbackMethod = "fallbackReservar")
+    public void reservar(CarritoId carritoId, ProductoId productoId, int cantidad) {
+        String url = catalogoUrl + "/api/v1/reservas/carritos/" + carritoId.getValor()
+                + "/productos/" + productoId.getValue();
+        try {
+            restTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(Map.of("cantidad", cantidad)), Void.class);
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                throw new RecursoNoEncontradoException("Producto", productoId.getValue());
+            }
+            if (e.getStatusCode() == HttpStatus.UNPROCESSABLE_ENTITY) {
+                throw new StockInsuficienteException("Stock insuficiente para el producto: " + productoId.getValue());
+            }
+            throw e;
+        }
+    }
+
+    @CircuitBreaker(name = "catalogo", fallbackMethod = "fallbackLiberarReservas")
+    public void liberarReservas(CarritoId carritoId) {
+        restTemplate.delete(catalogoUrl + "/api/v1/reservas/carritos/" + carritoId.getValor());
+    }
+
+    public void fallbackReservar(CarritoId carritoId, ProductoId productoId, int cantidad, Throwable t) {
+        // Los rechazos de negocio de catálogo no son una caída del servicio
+        if (t instanceof DomainException domainException) {
+            throw domainException;
+        }
+        throw new ServicioNoDisponibleException(
+            "El servicio de catalogo no esta disponible. Intente mas tarde.");
+    }
+
+    public void fallbackLiberarReservas(CarritoId carritoId, Throwable t) {
         throw new ServicioNoDisponibleException(
             "El servicio de catalogo no esta disponible. Intente mas tarde.");
     }
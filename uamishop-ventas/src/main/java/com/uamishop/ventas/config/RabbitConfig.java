@@ -9,6 +9,8 @@ import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.UUID;
+
 @Configuration
 public class RabbitConfig {
 
@@ -16,6 +18,22 @@ public class RabbitConfig {
     public static final String QUEUE_VENTAS_LIMPIAR_CARRITO = "ventas.limpiar-carrito";
     public static final String RK_ORDEN_CREADA = "orden.creada";
     public static final String RK_PRODUCTO_AGREGADO = "producto.agregado-carrito";
+    public static final String RK_CARRITO_ABANDONADO = "carrito.abandonado";
+
+    // Particiones por producto de las colas del catálogo; debe coincidir con catalogo (ParticionesContratoTest)
+    public static final int PARTICIONES = 16;
+
+    /**
+     * Ruta {@code producto.agregado-carrito.<partición>}: el catálogo consume cada partición en un
+     * solo hilo, así que los eventos de un producto se aplican en orden.
+     */
+    public static String rutaProductoAgregado(UUID productoId) {
+        return RK_PRODUCTO_AGREGADO + "." + Integer.toHexString(particion(productoId));
+    }
+
+    public static int particion(UUID productoId) {
+        return (int) (productoId.getLeastSignificantBits() & (PARTICIONES - 1));
+    }
 
     @Bean
     public TopicExchange eventsExchange() {
@@ -1,5 +1,6 @@
 package com.uamishop.ventas.domain;
 
+import com.uamishop.ventas.shared.domain.UuidV7;
 import jakarta.persistence.Embeddable;
 import java.util.UUID;
 import java.util.Objects;
@@ -20,7 +21,7 @@ public final class ItemCarritoId {
     }
 
     public static ItemCarritoId generar() {
-        return new ItemCarritoId(UUID.randomUUID());
+        return new ItemCarritoId(UuidV7.generar());
     }
 
     public UUID getValor() {
@@ -0,0 +1,86 @@
+package com.uamishop.ventas.inbox.domain;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Evento ya aplicado por un consumidor, escrito en la misma transacción que sus efectos. Si RabbitMQ
+ * lo vuelve a entregar, la fila existente indica que no hay que aplicarlo otra vez.
+ */
+@Entity
+@Table(name = "ventas_inbox_events", indexes = {
+        // La limpieza borra por antigüedad
+        @Index(name = "idx_inbox_procesado", columnList = "procesadoEn")
+})
+public class InboxEvent implements Persistable<InboxEvent.Clave> {
+
+    @EmbeddedId
+    private Clave id;
+
+    @Column(nullable = false, updatable = false)
+    private Instant procesadoEn;
+
+    // La clave viene del evento: sin esto save() haría un SELECT antes de cada INSERT
+    @Transient
+    private boolean nuevo = true;
+
+    protected InboxEvent() {}
+
+    public InboxEvent(String consumidor, UUID eventId, Instant procesadoEn) {
+        this.id = new Clave(consumidor, eventId);
+        this.procesadoEn = procesadoEn;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarExistente() {
+        this.nuevo = false;
+    }
+
+    @Override
+    public boolean isNew() { return nuevo; }
+
+    @Override
+    public Clave getId() { return id; }
+    public Instant getProcesadoEn() { return procesadoEn; }
+
+    @Embeddable
+    public static class Clave implements Serializable {
+
+        @Column(nullable = false, updatable = false, length = 100)
+        private String consumidor;
+
+        @Column(nullable = false, updatable = false)
+        private UUID eventId;
+
+        protected Clave() {}
+
+        public Clave(String consumidor, UUID eventId) {
+            if (consumidor == null || eventId == null) {
+                throw new IllegalArgumentException("El consumidor y el id del evento son obligatorios");
+            }
+            this.consumidor = consumidor;
+            this.eventId = eventId;
+        }
+
+        public String getConsumidor() { return consumidor; }
+        public UUID getEventId() { return eventId; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Clave clave)) return false;
+            return consumidor.equals(clave.consumidor) && eventId.equals(clave.eventId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(consumidor, eventId);
+        }
+    }
+}
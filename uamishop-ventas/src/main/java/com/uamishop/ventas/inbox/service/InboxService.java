@@ -0,0 +1,99 @@
+package com.uamishop.ventas.inbox.service;
+
+import com.uamishop.ventas.inbox.domain.InboxEvent;
+import com.uamishop.ventas.inbox.repository.InboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Deduplicación de eventos recibidos por RabbitMQ, por consumidor y {@code eventId}. El id se
+ * registra en {@code ventas_inbox_events} dentro de la transacción que aplica el evento, así que
+ * queda marcado si y solo si sus efectos se confirmaron. Delante de la tabla hay un filtro acotado
+ * en memoria (los {@code ventas.inbox.filtro.tamanio} ids confirmados más recientes) que descarta
+ * las reentregas inmediatas sin ir a la base.
+ *
+ * <p>Si dos consumidores reciben el mismo evento a la vez, la clave primaria hace fallar el segundo
+ * commit; el mensaje se reentrega y entonces ya aparece como procesado. Las filas se borran tras
+ * {@code ventas.inbox.retencion}.</p>
+ */
+@Service
+public class InboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(InboxService.class);
+
+    private final InboxEventRepository inboxEventRepository;
+    private final Duration retencion;
+    private final Map<InboxEvent.Clave, Instant> recientes;
+
+    public InboxService(InboxEventRepository inboxEventRepository,
+                        @Value("${ventas.inbox.filtro.tamanio:10000}") int tamanioFiltro,
+                        @Value("${ventas.inbox.retencion:7d}") Duration retencion) {
+        this.inboxEventRepository = inboxEventRepository;
+        this.retencion = retencion;
+        this.recientes = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<InboxEvent.Clave, Instant> eldest) {
+                return size() > tamanioFiltro;
+            }
+        };
+    }
+
+    /**
+     * Registra el evento para el consumidor y dice si es la primera vez que se ve. Sin
+     * {@code eventId} no hay forma de deduplicar y el evento se trata como nuevo.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean registrar(String consumidor, UUID eventId) {
+        if (eventId == null) {
+            return true;
+        }
+        InboxEvent.Clave clave = new InboxEvent.Clave(consumidor, eventId);
+        if (enFiltro(clave) || !inboxEventRepository.findProcesados(consumidor, List.of(eventId)).isEmpty()) {
+            log.debug("Inbox {}: evento {} repetido descartado", consumidor, eventId);
+            return false;
+        }
+        inboxEventRepository.save(new InboxEvent(consumidor, eventId, Instant.now()));
+
+        // Al filtro solo entran ids confirmados; si la transacción se revierte el evento debe poder reintentarse
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                synchronized (recientes) {
+                    recientes.put(clave, Instant.now());
+                }
+            }
+        });
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${ventas.inbox.limpieza-ms:3600000}",
+            initialDelayString = "${ventas.inbox.limpieza-ms:3600000}")
+    @Transactional
+    public void eliminarVencidos() {
+        int eliminados = inboxEventRepository.eliminarProcesadosAntesDe(Instant.now().minus(retencion));
+        if (eliminados > 0) {
+            log.info("Inbox: {} eventos procesados eliminados", eliminados);
+        }
+    }
+
+    private boolean enFiltro(InboxEvent.Clave clave) {
+        synchronized (recientes) {
+            Instant registrado = recientes.get(clave);
+            return registrado != null && registrado.isAfter(Instant.now().minus(retencion));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.uamishop.ventas.listener;
 
 import com.uamishop.ventas.config.RabbitConfig;
+import com.uamishop.ventas.inbox.service.InboxService;
 import com.uamishop.ventas.shared.event.OrdenCreadaEvent;
 import com.uamishop.ventas.domain.CarritoId;
 import com.uamishop.ventas.service.CarritoService;
@@ -12,14 +13,20 @@ import org.springframework.transaction.annotation.Transactional;
 public class OrdenCreadaListener {
 
     private final CarritoService carritoService;
+    private final InboxService inboxService;
 
-    public OrdenCreadaListener(CarritoService carritoService) {
+    public OrdenCreadaListener(CarritoService carritoService, InboxService inboxService) {
         this.carritoService = carritoService;
+        this.inboxService = inboxService;
     }
 
+    // Una reentrega del mismo evento se descarta: completar el checkout dos veces falla
     @RabbitListener(queues = RabbitConfig.QUEUE_VENTAS_LIMPIAR_CARRITO)
     @Transactional
     public void onOrdenCreada(OrdenCreadaEvent event) {
+        if (!inboxService.registrar(RabbitConfig.QUEUE_VENTAS_LIMPIAR_CARRITO, event.eventId())) {
+            return;
+        }
         if (event.carritoId() != null) {
             carritoService.completarCheckout(new CarritoId(event.carritoId()));
         }
@@ -1,5 +1,6 @@
 package com.uamishop.ventas.service;
 
+import com.uamishop.ventas.shared.domain.UuidV7;
 import com.uamishop.ventas.clients.CatalogoApiClient;
 import com.uamishop.ventas.clients.CatalogoApiClient.ProductoInfo;
 import com.uamishop.ventas.config.RabbitConfig;
@@ -7,9 +8,9 @@ import com.uamishop.ventas.domain.*;
 import com.uamishop.ventas.repository.CarritoRepository;
 import com.uamishop.ventas.shared.domain.ClienteId;
 import com.uamishop.ventas.shared.domain.ProductoId;
+import com.uamishop.ventas.shared.event.CarritoAbandonadoEvent;
 import com.uamishop.ventas.shared.event.ProductoAgregadoAlCarritoEvent;
 import com.uamishop.ventas.shared.exception.RecursoNoEncontradoException;
-import com.uamishop.ventas.shared.exception.StockInsuficienteException;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
@@ -57,9 +58,12 @@ public class CarritoService {
         // Obtener información del producto desde catálogo
         ProductoInfo producto = catalogoApiClient.obtenerProducto(productoId);
 
-        if (producto.stock() < cantidad) {
-            throw new StockInsuficienteException(producto.nombre(), cantidad, producto.stock());
-        }
+        // La reserva en catálogo es la que garantiza el stock; el dato de stock del producto puede estar desfasado
+        int cantidadEnCarrito = carrito.getItems().stream()
+                .filter(item -> item.getProductoId().equals(productoId))
+                .mapToInt(ItemCarrito::getCantidad)
+                .sum();
+        catalogoApiClient.reservar(carritoId, productoId, cantidadEnCarrito + cantidad);
 
         // Crear referencia de producto con precio
         ProductoRef productoRef = new ProductoRef(productoId, producto.precio());
@@ -68,7 +72,7 @@ public class CarritoService {
 
         // Publicar evento interno
         ProductoAgregadoAlCarritoEvent event = new ProductoAgregadoAlCarritoEvent(
-                UUID.randomUUID(),
+                UuidV7.generar(),
                 Instant.now(),
                 productoId.getValue(),
                 carritoId.getValor(),
@@ -81,7 +85,7 @@ public class CarritoService {
         // Publicar evento a RabbitMQ
         rabbitTemplate.convertAndSend(
                 RabbitConfig.EVENTS_EXCHANGE,
-                RabbitConfig.RK_PRODUCTO_AGREGADO,
+                RabbitConfig.rutaProductoAgregado(productoId.getValue()),
                 event
         );
 
@@ -93,6 +97,7 @@ public class CarritoService {
         Carrito carrito = carritoRepository.findById(carritoId)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Carrito", carritoId.getValor()));
         carrito.modificarCantidad(productoId, nuevaCantidad);
+        catalogoApiClient.reservar(carritoId, productoId, nuevaCantidad);
         return carritoRepository.save(carrito);
     }
 
@@ -101,6 +106,7 @@ public class CarritoService {
         Carrito carrito = carritoRepository.findById(carritoId)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Carrito", carritoId.getValor()));
         carrito.eliminarProducto(productoId);
+        catalogoApiClient.reservar(carritoId, productoId, 0);
         return carritoRepository.save(carrito);
     }
 
@@ -109,6 +115,7 @@ public class CarritoService {
         Carrito carrito = carritoRepository.findById(carritoId)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Carrito", carritoId.getValor()));
         carrito.vaciar();
+        catalogoApiClient.liberarReservas(carritoId);
         return carritoRepository.save(carrito);
     }
 
@@ -133,7 +140,21 @@ public class CarritoService {
         Carrito carrito = carritoRepository.findById(carritoId)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Carrito", carritoId.getValor()));
         carrito.abandonar();
-        return carritoRepository.save(carrito);
+        carrito = carritoRepository.save(carrito);
+
+        // Catálogo libera las reservas de stock del carrito
+        rabbitTemplate.convertAndSend(
+                RabbitConfig.EVENTS_EXCHANGE,
+                RabbitConfig.RK_CARRITO_ABANDONADO,
+                new CarritoAbandonadoEvent(
+                        UuidV7.generar(),
+                        Instant.now(),
+                        carritoId.getValor(),
+                        carrito.getClienteId().getValue()
+                )
+        );
+
+        return carrito;
     }
 
     @Transactional(readOnly = true)
@@ -24,7 +24,7 @@ public final class ProductoId {
     }
 
     public static ProductoId generar() {
-        return new ProductoId(UUID.randomUUID());
+        return new ProductoId(UuidV7.generar());
     }
 
     public static ProductoId of(String id) {